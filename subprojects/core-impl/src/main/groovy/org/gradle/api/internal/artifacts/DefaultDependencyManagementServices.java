@@ -37,15 +37,22 @@ import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.IdentityFileResolver;
 import org.gradle.api.internal.project.DefaultServiceRegistry;
 import org.gradle.api.internal.project.ServiceRegistry;
+import org.gradle.cache.CacheRepository;
 import org.gradle.logging.LoggingManagerInternal;
 import org.gradle.logging.ProgressLoggerFactory;
 import org.gradle.util.WrapUtil;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DefaultDependencyManagementServices extends DefaultServiceRegistry implements DependencyManagementServices {
-    private final Map<String, ModuleDescriptor> clientModuleRegistry = new HashMap<String, ModuleDescriptor>();
+    /**
+     * The system property which enables offline resolution. When {@code true}, dependencies are resolved using only
+     * the modules which are already in the dependency cache.
+     */
+    public static final String OFFLINE_PROPERTY = "org.gradle.dependency.offline";
+    // Shared by all projects, which may be resolved by several threads at once
+    private final Map<String, ModuleDescriptor> clientModuleRegistry = new ConcurrentHashMap<String, ModuleDescriptor>();
 
     public DefaultDependencyManagementServices(ServiceRegistry parent) {
         super(parent);
@@ -77,7 +84,8 @@ public class DefaultDependencyManagementServices extends DefaultServiceRegistry
 
         return new DefaultIvyServiceFactory(clientModuleRegistry,
                 new DefaultSettingsConverter(
-                        get(ProgressLoggerFactory.class)
+                        get(ProgressLoggerFactory.class),
+                        new ModuleMetaDataIndex(get(CacheRepository.class))
                 ),
                 get(PublishModuleDescriptorConverter.class),
                 get(PublishModuleDescriptorConverter.class),
@@ -85,7 +93,8 @@ public class DefaultDependencyManagementServices extends DefaultServiceRegistry
                 new DefaultIvyFactory(),
                 new SelfResolvingDependencyResolver(
                         new DefaultIvyDependencyResolver(
-                                new DefaultIvyReportConverter(dependencyDescriptorFactoryDelegate))),
+                                new DefaultIvyReportConverter(dependencyDescriptorFactoryDelegate),
+                                Boolean.getBoolean(OFFLINE_PROPERTY))),
                 new DefaultIvyDependencyPublisher(new DefaultPublishOptionsFactory()));
     }
 
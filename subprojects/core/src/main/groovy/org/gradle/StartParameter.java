@@ -85,6 +85,7 @@ public class StartParameter {
     private boolean noOpt;
     private boolean colorOutput = true;
     private boolean profile;
+    private boolean continuous;
     private String projectCacheDir = ".gradle";
 
     /**
@@ -149,6 +150,7 @@ public class StartParameter {
         startParameter.dryRun = dryRun;
         startParameter.noOpt = noOpt;
         startParameter.profile = profile;
+        startParameter.continuous = continuous;
         startParameter.projectCacheDir = projectCacheDir;
         return startParameter;
     }
@@ -550,6 +552,22 @@ public class StartParameter {
         return profile;
     }
 
+    /**
+     * Specifies whether the build should be executed again each time the input files of its tasks change.
+     *
+     * @param continuous true if the build should be executed continuously.
+     */
+    public void setContinuous(boolean continuous) {
+        this.continuous = continuous;
+    }
+
+    /**
+     * Returns true if the build will be executed again each time the input files of its tasks change.
+     */
+    public boolean isContinuous() {
+        return continuous;
+    }
+
     @Override
     public String toString() {
         return "StartParameter{"
@@ -572,6 +590,7 @@ public class StartParameter {
                 + ", dryRun=" + dryRun
                 + ", noOpt=" + noOpt
                 + ", profile=" + profile
+                + ", continuous=" + continuous
                 + '}';
     }
 }
\ No newline at end of file
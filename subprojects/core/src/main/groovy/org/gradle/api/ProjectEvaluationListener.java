@@ -20,6 +20,13 @@ package org.gradle.api;
  * ProjectEvaluationListener} to a {@link org.gradle.api.invocation.Gradle} using {@link
  * org.gradle.api.invocation.Gradle#addProjectEvaluationListener(ProjectEvaluationListener)}.</p>
  *
+ * <p>For a given project, {@link #beforeEvaluate(Project)} and {@link #afterEvaluate(Project, ProjectState)} are
+ * called in that order, by the thread which evaluates the project, and a project's parent is always evaluated before
+ * the project. Usually projects are evaluated one at a time, in build order. When projects are evaluated in parallel,
+ * notifications for different projects may interleave, and may be made from different threads, but a listener is
+ * never notified concurrently. The order in which projects other than a project's ancestors are evaluated is not
+ * defined.</p>
+ *
  * @author Hans Dockter
  */
 public interface ProjectEvaluationListener {
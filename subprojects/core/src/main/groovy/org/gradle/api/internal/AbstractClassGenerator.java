@@ -35,6 +35,12 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
     }
 
     public <T> Class<? extends T> generate(Class<T> type) {
+        synchronized (GENERATED_CLASSES) {
+            return generateUnderLock(type);
+        }
+    }
+
+    private <T> Class<? extends T> generateUnderLock(Class<T> type) {
         Map<Class, Class> cache = GENERATED_CLASSES.get(getClass());
         if (cache == null) {
             cache = new HashMap<Class, Class>();
@@ -26,6 +26,7 @@ import java.util.Map;
 
 /**
  * A {@link DynamicObject} which uses groovy reflection to provide access to the properties and methods of a bean.
+ * Property and method lookups are cached per metaclass by {@link MetaClassLookupCache}.
  */
 public class BeanDynamicObject extends AbstractDynamicObject {
     private final Object bean;
@@ -64,7 +65,7 @@ public class BeanDynamicObject extends AbstractDynamicObject {
 
     @Override
     public boolean hasProperty(String name) {
-        return includeProperties && getMetaClass().hasProperty(bean, name) != null;
+        return includeProperties && MetaClassLookupCache.getProperty(getMetaClass(), bean, name) != null;
     }
 
     @Override
@@ -73,7 +74,7 @@ public class BeanDynamicObject extends AbstractDynamicObject {
             throw propertyMissingException(name);
         }
 
-        MetaProperty property = getMetaClass().hasProperty(bean, name);
+        MetaProperty property = MetaClassLookupCache.getProperty(getMetaClass(), bean, name);
         if (property == null) {
             throw propertyMissingException(name);
         }
@@ -99,7 +100,7 @@ public class BeanDynamicObject extends AbstractDynamicObject {
         }
 
         MetaClass metaClass = getMetaClass();
-        MetaProperty property = metaClass.hasProperty(bean, name);
+        MetaProperty property = MetaClassLookupCache.getProperty(metaClass, bean, name);
         if (property == null) {
             throw propertyMissingException(name);
         }
@@ -149,7 +150,7 @@ public class BeanDynamicObject extends AbstractDynamicObject {
 
     @Override
     public boolean hasMethod(String name, Object... arguments) {
-        return !getMetaClass().respondsTo(bean, name, arguments).isEmpty();
+        return MetaClassLookupCache.hasMethod(getMetaClass(), bean, name, arguments);
     }
 
     @Override
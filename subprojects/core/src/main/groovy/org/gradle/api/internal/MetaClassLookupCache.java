@@ -0,0 +1,123 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal;
+
+import groovy.lang.MetaClass;
+import groovy.lang.MetaClassImpl;
+import groovy.lang.MetaProperty;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Caches the results of looking up properties and methods through a {@link MetaClass}, including the lookups which
+ * do not find anything. Dynamic objects are asked for properties and methods which they do not have much more often
+ * than for the ones they do have, as each lookup walks a chain of dynamic objects.</p>
+ *
+ * <p>Only lookups through a plain {@link MetaClassImpl} are cached, as its properties and methods cannot change once it
+ * has been initialised. Lookups through an {@code ExpandoMetaClass} or any other kind of metaclass are not cached.</p>
+ */
+public class MetaClassLookupCache {
+    private static final Object MISSING = new Object();
+    private static final Map<MetaClass, Lookups> LOOKUPS = new WeakHashMap<MetaClass, Lookups>();
+
+    /**
+     * Returns the given property of the given bean, or null if the bean has no such property.
+     */
+    public static MetaProperty getProperty(MetaClass metaClass, Object bean, String name) {
+        Lookups lookups = getLookups(metaClass);
+        if (lookups == null) {
+            return metaClass.hasProperty(bean, name);
+        }
+        Object property = lookups.properties.get(name);
+        if (property == null) {
+            MetaProperty metaProperty = metaClass.hasProperty(bean, name);
+            lookups.properties.put(name, metaProperty == null ? MISSING : metaProperty);
+            return metaProperty;
+        }
+        return property == MISSING ? null : (MetaProperty) property;
+    }
+
+    /**
+     * Returns true if the given bean has a method which accepts the given arguments.
+     */
+    public static boolean hasMethod(MetaClass metaClass, Object bean, String name, Object... arguments) {
+        Lookups lookups = getLookups(metaClass);
+        if (lookups == null) {
+            return !metaClass.respondsTo(bean, name, arguments).isEmpty();
+        }
+        MethodKey key = new MethodKey(name, arguments);
+        Boolean found = lookups.methods.get(key);
+        if (found == null) {
+            found = !metaClass.respondsTo(bean, name, arguments).isEmpty();
+            lookups.methods.put(key, found);
+        }
+        return found;
+    }
+
+    private static Lookups getLookups(MetaClass metaClass) {
+        if (metaClass.getClass() != MetaClassImpl.class) {
+            return null;
+        }
+        synchronized (LOOKUPS) {
+            Lookups lookups = LOOKUPS.get(metaClass);
+            if (lookups == null) {
+                lookups = new Lookups();
+                LOOKUPS.put(metaClass, lookups);
+            }
+            return lookups;
+        }
+    }
+
+    private static class Lookups {
+        final Map<String, Object> properties = new ConcurrentHashMap<String, Object>();
+        final Map<MethodKey, Boolean> methods = new ConcurrentHashMap<MethodKey, Boolean>();
+    }
+
+    private static class MethodKey {
+        private final String name;
+        private final Class<?>[] argumentTypes;
+
+        private MethodKey(String name, Object[] arguments) {
+            this.name = name;
+            int count = arguments == null ? 0 : arguments.length;
+            argumentTypes = new Class<?>[count];
+            for (int i = 0; i < count; i++) {
+                Object argument = arguments[i];
+                argumentTypes[i] = argument == null ? null : argument.getClass();
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            MethodKey other = (MethodKey) obj;
+            return name.equals(other.name) && Arrays.equals(argumentTypes, other.argumentTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode() ^ Arrays.hashCode(argumentTypes);
+        }
+    }
+}
@@ -84,6 +84,14 @@ public class DefaultConfiguration extends AbstractFileCollection implements Conf
         }
     }
 
+    /**
+     * Returns the service which resolves this configuration. Configurations which share a service also share the
+     * resolvers of the project which owns them.
+     */
+    IvyService getIvyService() {
+        return ivyService;
+    }
+
     public boolean isVisible() {
         return visibility == Visibility.PUBLIC;
     }
@@ -461,6 +469,10 @@ public class DefaultConfiguration extends AbstractFileCollection implements Conf
             return dependencySpec;
         }
 
+        DefaultConfiguration getConfiguration() {
+            return DefaultConfiguration.this;
+        }
+
         public String getDisplayName() {
             return String.format("%s dependencies", DefaultConfiguration.this);
         }
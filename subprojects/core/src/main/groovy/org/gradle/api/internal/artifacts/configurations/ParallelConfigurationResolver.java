@@ -0,0 +1,231 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.configurations;
+
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.gradle.api.Action;
+import org.gradle.api.Task;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileTree;
+import org.gradle.api.internal.artifacts.IvyService;
+import org.gradle.api.internal.artifacts.ivyservice.DefaultIvyService;
+import org.gradle.api.internal.artifacts.ivyservice.ErrorHandlingIvyService;
+import org.gradle.api.internal.artifacts.ivyservice.ShortcircuitEmptyConfigsIvyService;
+import org.gradle.api.internal.file.FileResolver;
+import org.gradle.api.internal.file.IdentityFileResolver;
+import org.gradle.api.internal.file.collections.DefaultFileCollectionResolveContext;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+import org.gradle.util.Clock;
+
+import java.util.*;
+
+/**
+ * <p>Resolves the configurations which a set of tasks use as input files, before the tasks are executed. The
+ * configurations of different projects are resolved concurrently, using up to the given number of threads. The
+ * configurations of a given project are resolved one at a time, as they share the resolvers of the project. Projects
+ * which share a resolver instance are resolved one after the other by the same thread, as Ivy resolvers cannot be
+ * used by several threads at once.</p>
+ *
+ * <p>A configuration which cannot be resolved here is left unresolved, so that it is resolved, and any failure is
+ * reported, when a task uses it. Configurations which a task uses without declaring them as input files are also
+ * resolved when the task uses them, as before.</p>
+ */
+public class ParallelConfigurationResolver implements Action<Collection<? extends Task>> {
+    private static final Logger LOGGER = Logging.getLogger(ParallelConfigurationResolver.class);
+    private final ExecutorFactory executorFactory;
+    private final int maxThreads;
+
+    public ParallelConfigurationResolver(ExecutorFactory executorFactory, int maxThreads) {
+        this.executorFactory = executorFactory;
+        this.maxThreads = maxThreads;
+    }
+
+    public void execute(Collection<? extends Task> tasks) {
+        Map<IvyService, Set<DefaultConfiguration>> configurations = findUnresolvedConfigurations(tasks);
+        List<ResolutionGroup> groups = groupBySharedResolvers(configurations);
+        if (groups.size() < 2) {
+            // Nothing to be gained over resolving when the tasks need them
+            return;
+        }
+
+        Clock clock = new Clock();
+        Resolution resolution = new Resolution(groups);
+        StoppableExecutor executor = executorFactory.create("Dependency resolution");
+        try {
+            int threads = Math.min(maxThreads, groups.size());
+            for (int i = 0; i < threads; i++) {
+                executor.execute(resolution);
+            }
+        } finally {
+            executor.stop();
+        }
+        LOGGER.debug("Timing: Resolving the configurations of {} projects took {}", configurations.size(), clock.getTime());
+    }
+
+    private Map<IvyService, Set<DefaultConfiguration>> findUnresolvedConfigurations(Collection<? extends Task> tasks) {
+        Map<IvyService, Set<DefaultConfiguration>> configurations = new LinkedHashMap<IvyService, Set<DefaultConfiguration>>();
+        for (Task task : tasks) {
+            List<FileCollection> inputFiles;
+            try {
+                ConfigurationCollectingResolveContext context = new ConfigurationCollectingResolveContext();
+                context.add(task.getInputs().getFiles());
+                inputFiles = context.resolveAsFileCollections();
+            } catch (Exception e) {
+                // Leave it to the task to report
+                LOGGER.debug(String.format("Could not determine the input files of %s.", task), e);
+                continue;
+            }
+            for (FileCollection fileCollection : inputFiles) {
+                DefaultConfiguration configuration;
+                if (fileCollection instanceof DefaultConfiguration) {
+                    configuration = (DefaultConfiguration) fileCollection;
+                } else if (fileCollection instanceof DefaultConfiguration.ConfigurationFileCollection) {
+                    configuration = ((DefaultConfiguration.ConfigurationFileCollection) fileCollection).getConfiguration();
+                } else {
+                    continue;
+                }
+                if (configuration.getState() != Configuration.State.UNRESOLVED) {
+                    continue;
+                }
+                Set<DefaultConfiguration> projectConfigurations = configurations.get(configuration.getIvyService());
+                if (projectConfigurations == null) {
+                    projectConfigurations = new LinkedHashSet<DefaultConfiguration>();
+                    configurations.put(configuration.getIvyService(), projectConfigurations);
+                }
+                projectConfigurations.add(configuration);
+            }
+        }
+        return configurations;
+    }
+
+    private List<ResolutionGroup> groupBySharedResolvers(Map<IvyService, Set<DefaultConfiguration>> configurations) {
+        List<ResolutionGroup> groups = new ArrayList<ResolutionGroup>();
+        for (Map.Entry<IvyService, Set<DefaultConfiguration>> entry : configurations.entrySet()) {
+            ResolutionGroup group = new ResolutionGroup(getResolvers(entry.getKey()), entry.getValue());
+            for (Iterator<ResolutionGroup> iterator = groups.iterator(); iterator.hasNext();) {
+                ResolutionGroup other = iterator.next();
+                if (other.sharesResolversWith(group)) {
+                    group.addAll(other);
+                    iterator.remove();
+                }
+            }
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    private static List<DependencyResolver> getResolvers(IvyService ivyService) {
+        if (ivyService instanceof ErrorHandlingIvyService) {
+            return getResolvers(((ErrorHandlingIvyService) ivyService).getIvyService());
+        }
+        if (ivyService instanceof ShortcircuitEmptyConfigsIvyService) {
+            return getResolvers(((ShortcircuitEmptyConfigsIvyService) ivyService).getIvyService());
+        }
+        if (ivyService instanceof DefaultIvyService) {
+            return ((DefaultIvyService) ivyService).getResolverProvider().getResolvers();
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * The configurations of one or more projects, which are resolved one at a time by the same thread.
+     */
+    private static class ResolutionGroup {
+        private final Map<DependencyResolver, Boolean> resolvers = new IdentityHashMap<DependencyResolver, Boolean>();
+        private final Set<DefaultConfiguration> configurations = new LinkedHashSet<DefaultConfiguration>();
+
+        private ResolutionGroup(Collection<DependencyResolver> resolvers, Collection<DefaultConfiguration> configurations) {
+            for (DependencyResolver resolver : resolvers) {
+                this.resolvers.put(resolver, Boolean.TRUE);
+            }
+            this.configurations.addAll(configurations);
+        }
+
+        private boolean sharesResolversWith(ResolutionGroup other) {
+            for (DependencyResolver resolver : other.resolvers.keySet()) {
+                if (resolvers.containsKey(resolver)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void addAll(ResolutionGroup other) {
+            resolvers.putAll(other.resolvers);
+            configurations.addAll(other.configurations);
+        }
+    }
+
+    /**
+     * Hands out one group of configurations at a time to the resolving threads.
+     */
+    private static class Resolution implements Runnable {
+        private final LinkedList<ResolutionGroup> queue;
+
+        private Resolution(Collection<ResolutionGroup> groups) {
+            queue = new LinkedList<ResolutionGroup>(groups);
+        }
+
+        public void run() {
+            ResolutionGroup group;
+            while ((group = next()) != null) {
+                for (DefaultConfiguration configuration : group.configurations) {
+                    try {
+                        configuration.getResolvedConfiguration();
+                    } catch (Throwable t) {
+                        // Leave it to the task which uses the configuration to resolve it again and report the failure
+                        LOGGER.debug(String.format("Could not resolve %s ahead of time.", configuration), t);
+                    }
+                }
+            }
+        }
+
+        private ResolutionGroup next() {
+            synchronized (queue) {
+                return queue.isEmpty() ? null : queue.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Flattens a file collection into its atomic file collections, without resolving the contents of any of them.
+     */
+    private static class ConfigurationCollectingResolveContext extends DefaultFileCollectionResolveContext {
+        private ConfigurationCollectingResolveContext() {
+            super(new IdentityFileResolver(), new FileCollectionCollector(), new IgnoringConverter<FileTree>());
+        }
+
+        private static class FileCollectionCollector implements Converter<FileCollection> {
+            public void convertInto(Object element, Collection<? super FileCollection> result, FileResolver resolver) {
+                if (element instanceof DefaultFileCollectionResolveContext) {
+                    DefaultFileCollectionResolveContext nestedContext = (DefaultFileCollectionResolveContext) element;
+                    result.addAll(nestedContext.resolveAsFileCollections());
+                } else if (element instanceof FileCollection) {
+                    result.add((FileCollection) element);
+                }
+            }
+        }
+
+        private static class IgnoringConverter<T> implements Converter<T> {
+            public void convertInto(Object element, Collection<? super T> result, FileResolver resolver) {
+            }
+        }
+    }
+}
@@ -41,9 +41,18 @@ public class DefaultIvyDependencyResolver implements IvyDependencyResolver {
     private static Logger logger = LoggerFactory.getLogger(DefaultIvyDependencyResolver.class);
 
     private IvyReportConverter ivyReportTranslator;
+    private final boolean offline;
 
     public DefaultIvyDependencyResolver(IvyReportConverter ivyReportTranslator) {
+        this(ivyReportTranslator, false);
+    }
+
+    /**
+     * @param offline When true, dependencies are resolved using only the modules which are already in the cache.
+     */
+    public DefaultIvyDependencyResolver(IvyReportConverter ivyReportTranslator, boolean offline) {
         this.ivyReportTranslator = ivyReportTranslator;
+        this.offline = offline;
         Message.setDefaultLogger(new IvyLoggingAdaper());
     }
 
@@ -63,10 +72,23 @@ public class DefaultIvyDependencyResolver implements IvyDependencyResolver {
     private ResolveOptions createResolveOptions(Configuration configuration) {
         ResolveOptions resolveOptions = new ResolveOptions();
         resolveOptions.setDownload(false);
+        resolveOptions.setUseCacheOnly(offline);
         resolveOptions.setConfs(WrapUtil.toArray(configuration.getName()));
         return resolveOptions;
     }
 
+    /**
+     * <p>The resolved dependency graph does not change once it has been resolved. Each artifact in the graph is given an
+     * index, and the set of artifacts reachable from each first level dependency is kept as a {@link BitSet} of these
+     * indexes, so that the files for a given dependency spec are the union of the sets of the selected first level
+     * dependencies. The files for each spec are also kept, as the same file collection tends to be queried many times
+     * over a build.</p>
+     *
+     * <p>The files are ordered by artifact index. The indexes are assigned for the whole graph when files are first
+     * requested, so that the order of the files does not depend on which specs have been queried before. They follow
+     * the order of the files of the whole configuration: the artifacts selected by the root module for each first level
+     * dependency, in declaration order, then the artifacts reachable from those dependencies.</p>
+     */
     class ResolvedConfigurationImpl implements ResolvedConfiguration {
         private final Configuration configuration;
         private boolean hasError;
@@ -74,6 +96,11 @@ public class DefaultIvyDependencyResolver implements IvyDependencyResolver {
         private IvyConversionResult conversionResult;
         private final CachingDirectedGraphWalker<ResolvedDependency, ResolvedArtifact> walker
                 = new CachingDirectedGraphWalker<ResolvedDependency, ResolvedArtifact>(new ResolvedDependencyArtifactsGraph());
+        private final Map<ResolvedArtifact, Integer> artifactIndexes = new HashMap<ResolvedArtifact, Integer>();
+        private final List<File> artifactFiles = new ArrayList<File>();
+        private final Map<ResolvedDependency, BitSet> reachableArtifacts = new HashMap<ResolvedDependency, BitSet>();
+        private final Map<Spec<Dependency>, Set<File>> filesBySpec = new WeakHashMap<Spec<Dependency>, Set<File>>();
+        private boolean indexed;
 
         public ResolvedConfigurationImpl(ResolveReport resolveReport, Configuration configuration) {
             this.hasError = resolveReport.hasError();
@@ -101,26 +128,70 @@ public class DefaultIvyDependencyResolver implements IvyDependencyResolver {
             }
         }
 
-        public Set<File> getFiles(Spec<Dependency> dependencySpec) {
-            Set<ResolvedArtifact> artifacts = new LinkedHashSet<ResolvedArtifact>();
+        public synchronized Set<File> getFiles(Spec<Dependency> dependencySpec) {
+            Set<File> files = filesBySpec.get(dependencySpec);
+            if (files == null) {
+                indexArtifacts();
+                BitSet selected = new BitSet();
+                for (ResolvedDependency resolvedDependency : getFirstLevelModuleDependencies(dependencySpec)) {
+                    selected.or(reachableArtifacts.get(resolvedDependency));
+                }
 
-            for (ResolvedDependency resolvedDependency : getFirstLevelModuleDependencies(dependencySpec)) {
-                artifacts.addAll(resolvedDependency.getParentArtifacts(conversionResult.getRoot()));
-                walker.add(resolvedDependency);
+                files = new LinkedHashSet<File>();
+                for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) {
+                    File file = artifactFiles.get(i);
+                    if (file != null) {
+                        files.add(file);
+                    }
+                }
+                filesBySpec.put(dependencySpec, files);
             }
+            return new LinkedHashSet<File>(files);
+        }
 
-            artifacts.addAll(walker.findValues());
+        /**
+         * Indexes the artifacts of the whole graph, and calculates the indexes of the artifacts reachable from each first
+         * level dependency, including the artifacts which the root module selects on the edge to the dependency.
+         */
+        private void indexArtifacts() {
+            if (indexed) {
+                return;
+            }
+            Set<ResolvedDependency> firstLevelDependencies = getFirstLevelModuleDependencies(Specs.<Dependency>satisfyAll());
+            for (ResolvedDependency resolvedDependency : firstLevelDependencies) {
+                BitSet reachable = new BitSet();
+                for (ResolvedArtifact artifact : resolvedDependency.getParentArtifacts(conversionResult.getRoot())) {
+                    reachable.set(indexOf(artifact));
+                }
+                reachableArtifacts.put(resolvedDependency, reachable);
+            }
+            walker.add(firstLevelDependencies);
+            for (ResolvedArtifact artifact : walker.findValues()) {
+                indexOf(artifact);
+            }
+            // The walker has cached the values of each node, so these do not walk the graph again
+            for (ResolvedDependency resolvedDependency : firstLevelDependencies) {
+                BitSet reachable = reachableArtifacts.get(resolvedDependency);
+                walker.add(resolvedDependency);
+                for (ResolvedArtifact artifact : walker.findValues()) {
+                    reachable.set(indexOf(artifact));
+                }
+            }
+            indexed = true;
+        }
 
-            Set<File> files = new LinkedHashSet<File>();
-            for (ResolvedArtifact artifact : artifacts) {
-                File depFile = artifact.getFile();
-                if (depFile != null) {
-                    files.add(depFile);
-                } else {
+        private int indexOf(ResolvedArtifact artifact) {
+            Integer index = artifactIndexes.get(artifact);
+            if (index == null) {
+                File file = artifact.getFile();
+                if (file == null) {
                     logger.debug(String.format("Resolved artifact %s contains a null value.", artifact));
                 }
+                index = artifactFiles.size();
+                artifactFiles.add(file);
+                artifactIndexes.put(artifact, index);
             }
-            return files;
+            return index;
         }
 
         public Set<ResolvedDependency> getFirstLevelModuleDependencies() {
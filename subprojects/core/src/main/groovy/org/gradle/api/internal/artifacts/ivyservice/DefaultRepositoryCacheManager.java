@@ -15,14 +15,251 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice;
 
+import org.apache.ivy.core.IvyPatternHelper;
+import org.apache.ivy.core.cache.ArtifactOrigin;
+import org.apache.ivy.core.cache.CacheDownloadOptions;
 import org.apache.ivy.core.cache.CacheMetadataOptions;
+import org.apache.ivy.core.module.descriptor.Artifact;
 import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.DownloadStatus;
+import org.apache.ivy.core.report.MetadataArtifactDownloadReport;
 import org.apache.ivy.core.resolve.ResolvedModuleRevision;
+import org.apache.ivy.plugins.matcher.PatternMatcher;
+import org.apache.ivy.plugins.parser.xml.XmlModuleDescriptorParser;
+import org.apache.ivy.plugins.repository.ArtifactResourceResolver;
+import org.apache.ivy.plugins.repository.ResourceDownloader;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.resolver.util.ResolvedResource;
 
+import java.io.File;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>The cache manager for remote repositories. Several instances may share the same cache directory, when
+ * configurations are resolved by several threads at once. Only one thread at a time downloads the files of a given
+ * module into the cache.</p>
+ *
+ * <p>When given a {@link ModuleMetaDataIndex}, the cache manager looks up a cached module of a static version in the
+ * index, rather than reading the properties files of the module. Each instance keeps the descriptors it has parsed
+ * from the index for the settings it is used with. When resolving using the cache only, a changing module is also
+ * looked up in the index.</p>
+ */
 public class DefaultRepositoryCacheManager extends org.apache.ivy.core.cache.DefaultRepositoryCacheManager {
+    private static final int MAX_PARSED_DESCRIPTORS = 1000;
+    // The lock for each module which is being cached by some thread. A lock is discarded once no thread is using it
+    private static final Map<ModuleRevisionId, ModuleLock> MODULE_LOCKS = new HashMap<ModuleRevisionId, ModuleLock>();
+    private final Map<File, ParsedDescriptor> parsedDescriptors = new LinkedHashMap<File, ParsedDescriptor>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, ParsedDescriptor> eldest) {
+            return size() > MAX_PARSED_DESCRIPTORS;
+        }
+    };
+    private Object parsedDescriptorsSettings;
+    private final ModuleMetaDataIndex index;
+
+    public DefaultRepositoryCacheManager() {
+        this(null);
+    }
+
+    public DefaultRepositoryCacheManager(ModuleMetaDataIndex index) {
+        this.index = index;
+    }
+
     @Override
     public ResolvedModuleRevision findModuleInCache(DependencyDescriptor dd, ModuleRevisionId requestedRevisionId, CacheMetadataOptions options, String expectedResolver) {
-        return super.findModuleInCache(dd, requestedRevisionId, options, null);
+        if (index == null || !canUseIndex(dd, requestedRevisionId, options)) {
+            return super.findModuleInCache(dd, requestedRevisionId, options, null);
+        }
+
+        File descriptorFile = getIvyFileInCache(requestedRevisionId);
+        File dataFile = getDataFile(requestedRevisionId);
+        ModuleMetaDataIndex.CachedModule module = index.get(requestedRevisionId, descriptorFile, dataFile);
+        if (module != null) {
+            ResolvedModuleRevision revision = toResolvedModuleRevision(module, descriptorFile);
+            if (revision != null) {
+                return revision;
+            }
+        }
+
+        ResolvedModuleRevision revision = super.findModuleInCache(dd, requestedRevisionId, options, null);
+        if (revision != null && descriptorFile.isFile()) {
+            index.put(requestedRevisionId, descriptorFile, dataFile, revision.getResolver().getName(), revision.getArtifactResolver().getName());
+        }
+        return revision;
+    }
+
+    @Override
+    public ArtifactOrigin getSavedArtifactOrigin(Artifact artifact) {
+        if (index == null) {
+            return super.getSavedArtifactOrigin(artifact);
+        }
+
+        ModuleRevisionId moduleRevisionId = artifact.getModuleRevisionId();
+        File descriptorFile = getIvyFileInCache(moduleRevisionId);
+        File dataFile = getDataFile(moduleRevisionId);
+        String artifactId = artifact.getId().toString();
+        ModuleMetaDataIndex.CachedModule module = index.get(moduleRevisionId, descriptorFile, dataFile);
+        if (module != null) {
+            ModuleMetaDataIndex.CachedArtifact cachedArtifact = module.getArtifact(artifactId);
+            if (cachedArtifact != null) {
+                return new ArtifactOrigin(artifact, cachedArtifact.isLocal(), cachedArtifact.getLocation());
+            }
+        }
+
+        ArtifactOrigin origin = super.getSavedArtifactOrigin(artifact);
+        if (module != null && origin != null && !ArtifactOrigin.isUnknown(origin)) {
+            index.putArtifact(moduleRevisionId, descriptorFile, dataFile, artifactId, origin.isLocal(), origin.getLocation());
+        }
+        return origin;
+    }
+
+    @Override
+    public ResolvedModuleRevision cacheModuleDescriptor(DependencyResolver resolver, ResolvedResource mdRef, DependencyDescriptor dd, Artifact moduleArtifact, ResourceDownloader downloader, CacheMetadataOptions options) throws ParseException {
+        // Parsing a descriptor may cache the descriptors of its parent modules, which are never its descendants, so
+        // the module locks are always taken in the same order
+        ModuleLock lock = acquireLock(moduleArtifact.getModuleRevisionId());
+        try {
+            synchronized (lock) {
+                return super.cacheModuleDescriptor(resolver, mdRef, dd, moduleArtifact, downloader, options);
+            }
+        } finally {
+            releaseLock(moduleArtifact.getModuleRevisionId(), lock);
+        }
+    }
+
+    @Override
+    public ArtifactDownloadReport download(Artifact artifact, ArtifactResourceResolver resourceResolver, ResourceDownloader resourceDownloader, CacheDownloadOptions options) {
+        ModuleLock lock = acquireLock(artifact.getModuleRevisionId());
+        try {
+            synchronized (lock) {
+                return super.download(artifact, resourceResolver, resourceDownloader, options);
+            }
+        } finally {
+            releaseLock(artifact.getModuleRevisionId(), lock);
+        }
+    }
+
+    private boolean canUseIndex(DependencyDescriptor dd, ModuleRevisionId moduleRevisionId, CacheMetadataOptions options) {
+        if (getSettings().getVersionMatcher().isDynamic(moduleRevisionId)) {
+            return false;
+        }
+        if (options.isUseCacheOnly()) {
+            return true;
+        }
+        Boolean checkModified = options.isCheckmodified();
+        if (checkModified == null ? isCheckmodified() : checkModified) {
+            return false;
+        }
+        return !isChanging(dd, moduleRevisionId, options);
+    }
+
+    private boolean isChanging(DependencyDescriptor dd, ModuleRevisionId moduleRevisionId, CacheMetadataOptions options) {
+        if (dd.isChanging()) {
+            return true;
+        }
+        String changingPattern = options.getChangingPattern() != null ? options.getChangingPattern() : getChangingPattern();
+        if (changingPattern == null) {
+            return false;
+        }
+        String matcherName = options.getChangingMatcherName() != null ? options.getChangingMatcherName() : getChangingMatcherName();
+        PatternMatcher matcher = getSettings().getMatcher(matcherName);
+        return matcher == null || matcher.getMatcher(changingPattern).matches(moduleRevisionId.getRevision());
+    }
+
+    private ResolvedModuleRevision toResolvedModuleRevision(ModuleMetaDataIndex.CachedModule module, File descriptorFile) {
+        if (module.getResolverName() == null || module.getArtifactResolverName() == null) {
+            return null;
+        }
+        DependencyResolver resolver = getSettings().getResolver(module.getResolverName());
+        DependencyResolver artifactResolver = getSettings().getResolver(module.getArtifactResolverName());
+        if (resolver == null || artifactResolver == null) {
+            return null;
+        }
+        ModuleDescriptor descriptor = parseDescriptor(descriptorFile);
+        if (descriptor == null) {
+            return null;
+        }
+        MetadataArtifactDownloadReport report = new MetadataArtifactDownloadReport(descriptor.getMetadataArtifact());
+        report.setDownloadStatus(DownloadStatus.NO);
+        report.setSearched(false);
+        report.setLocalFile(descriptorFile);
+        report.setSize(descriptorFile.length());
+        report.setArtifactOrigin(getSavedArtifactOrigin(descriptor.getMetadataArtifact()));
+        return new ResolvedModuleRevision(resolver, artifactResolver, descriptor, report);
+    }
+
+    private ModuleDescriptor parseDescriptor(File descriptorFile) {
+        long length = descriptorFile.length();
+        long lastModified = descriptorFile.lastModified();
+        synchronized (parsedDescriptors) {
+            // The descriptors are parsed using the settings, so discard them when this cache manager is used with other settings
+            if (parsedDescriptorsSettings != getSettings()) {
+                parsedDescriptors.clear();
+                parsedDescriptorsSettings = getSettings();
+            }
+            ParsedDescriptor parsed = parsedDescriptors.get(descriptorFile);
+            if (parsed != null && parsed.length == length && parsed.lastModified == lastModified) {
+                return parsed.descriptor;
+            }
+        }
+        ModuleDescriptor descriptor;
+        try {
+            descriptor = XmlModuleDescriptorParser.getInstance().parseDescriptor(getSettings(), descriptorFile.toURI().toURL(), false);
+        } catch (Exception e) {
+            // Let Ivy deal with it
+            return null;
+        }
+        synchronized (parsedDescriptors) {
+            parsedDescriptors.put(descriptorFile, new ParsedDescriptor(descriptor, length, lastModified));
+        }
+        return descriptor;
+    }
+
+    private File getDataFile(ModuleRevisionId moduleRevisionId) {
+        return new File(getBasedir(), IvyPatternHelper.substitute(getDataFilePattern(), moduleRevisionId));
+    }
+
+    private static ModuleLock acquireLock(ModuleRevisionId moduleRevisionId) {
+        synchronized (MODULE_LOCKS) {
+            ModuleLock lock = MODULE_LOCKS.get(moduleRevisionId);
+            if (lock == null) {
+                lock = new ModuleLock();
+                MODULE_LOCKS.put(moduleRevisionId, lock);
+            }
+            lock.users++;
+            return lock;
+        }
+    }
+
+    private static void releaseLock(ModuleRevisionId moduleRevisionId, ModuleLock lock) {
+        synchronized (MODULE_LOCKS) {
+            lock.users--;
+            if (lock.users == 0) {
+                MODULE_LOCKS.remove(moduleRevisionId);
+            }
+        }
+    }
+
+    private static class ModuleLock {
+        // Guarded by MODULE_LOCKS
+        private int users;
+    }
+
+    private static class ParsedDescriptor {
+        private final ModuleDescriptor descriptor;
+        private final long length;
+        private final long lastModified;
+
+        private ParsedDescriptor(ModuleDescriptor descriptor, long length, long lastModified) {
+            this.descriptor = descriptor;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
     }
 }
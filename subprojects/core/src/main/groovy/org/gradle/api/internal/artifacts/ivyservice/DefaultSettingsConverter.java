@@ -25,6 +25,7 @@ import org.apache.ivy.plugins.matcher.PatternMatcher;
 import org.apache.ivy.plugins.repository.Repository;
 import org.apache.ivy.plugins.repository.TransferEvent;
 import org.apache.ivy.plugins.repository.TransferListener;
+import org.apache.ivy.plugins.resolver.AbstractResolver;
 import org.apache.ivy.plugins.resolver.ChainResolver;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
 import org.apache.ivy.plugins.resolver.RepositoryResolver;
@@ -45,13 +46,29 @@ import java.util.*;
 public class DefaultSettingsConverter implements SettingsConverter {
     private static Logger logger = Logging.getLogger(DefaultSettingsConverter.class);
 
-    private RepositoryCacheManager repositoryCacheManager = new DefaultRepositoryCacheManager();
+    // The cache manager holds on to the settings it was last used with, so each thread which resolves gets its own
+    private final ThreadLocal<RepositoryCacheManager> repositoryCacheManager = new ThreadLocal<RepositoryCacheManager>() {
+        @Override
+        protected RepositoryCacheManager initialValue() {
+            return new DefaultRepositoryCacheManager(moduleMetaDataIndex);
+        }
+    };
     private IvySettings ivySettings;
     private final ProgressLoggerFactory progressLoggerFactory;
     private final TransferListener transferListener = new ProgressLoggingTransferListener();
 
+    private final ModuleMetaDataIndex moduleMetaDataIndex;
+
     public DefaultSettingsConverter(ProgressLoggerFactory progressLoggerFactory) {
+        this(progressLoggerFactory, null);
+    }
+
+    /**
+     * @param moduleMetaDataIndex The index for the cache managers to use. May be null.
+     */
+    public DefaultSettingsConverter(ProgressLoggerFactory progressLoggerFactory, ModuleMetaDataIndex moduleMetaDataIndex) {
         this.progressLoggerFactory = progressLoggerFactory;
+        this.moduleMetaDataIndex = moduleMetaDataIndex;
     }
 
     private static String getLengthText(TransferEvent evt) {
@@ -144,6 +161,7 @@ public class DefaultSettingsConverter implements SettingsConverter {
         ivySettings.setDefaultCacheIvyPattern(ResolverContainer.DEFAULT_CACHE_IVY_PATTERN);
         ivySettings.setDefaultCacheArtifactPattern(ResolverContainer.DEFAULT_CACHE_ARTIFACT_PATTERN);
         ivySettings.setVariable("ivy.log.modules.in.use", "false");
+        RepositoryCacheManager repositoryCacheManager = this.repositoryCacheManager.get();
         ivySettings.setDefaultRepositoryCacheManager(repositoryCacheManager);
         ((IvySettingsAware)repositoryCacheManager).setSettings(ivySettings);
         return ivySettings;
@@ -153,6 +171,13 @@ public class DefaultSettingsConverter implements SettingsConverter {
         for (DependencyResolver dependencyResolver : allResolvers) {
             ivySettings.addResolver(dependencyResolver);
             RepositoryCacheManager cacheManager = dependencyResolver.getRepositoryCacheManager();
+            if (cacheManager instanceof DefaultRepositoryCacheManager && cacheManager != ivySettings.getDefaultRepositoryCacheManager()
+                    && dependencyResolver instanceof AbstractResolver) {
+                // Was last used by another thread. A resolver is only ever used by one thread at a time, as projects which
+                // share a resolver are resolved by the same thread (see ParallelConfigurationResolver)
+                cacheManager = ivySettings.getDefaultRepositoryCacheManager();
+                ((AbstractResolver) dependencyResolver).setRepositoryCacheManager(cacheManager);
+            }
             // Validate that each resolver is sharing the same cache instance (ignoring caches which don't actually cache anything)
             if (cacheManager != ivySettings.getDefaultRepositoryCacheManager()
                     && !(cacheManager instanceof NoOpRepositoryCacheManager)
@@ -179,27 +204,32 @@ public class DefaultSettingsConverter implements SettingsConverter {
     }
 
     private class ProgressLoggingTransferListener implements TransferListener {
-        private ProgressLogger logger;
-        private long total;
+        // Transfers happen on the thread which resolves, and several threads may resolve at the same time
+        private final ThreadLocal<ProgressLogger> logger = new ThreadLocal<ProgressLogger>();
+        private final ThreadLocal<Long> total = new ThreadLocal<Long>();
 
         public void transferProgress(TransferEvent evt) {
             if (evt.getResource().isLocal()) {
                 return;
             }
             if (evt.getEventType() == TransferEvent.TRANSFER_STARTED) {
-                total = 0;
-                logger = progressLoggerFactory.newOperation(DefaultSettingsConverter.class);
+                total.set(0L);
+                ProgressLogger logger = progressLoggerFactory.newOperation(DefaultSettingsConverter.class);
                 String description = String.format("%s %s", StringUtils.capitalize(getRequestType(evt)), evt.getResource().getName());
                 logger.setDescription(description);
                 logger.setLoggingHeader(description);
                 logger.started();
+                this.logger.set(logger);
             }
             if (evt.getEventType() == TransferEvent.TRANSFER_PROGRESS) {
-                total += evt.getLength();
-                logger.progress(String.format("%s/%s %sed", getLengthText(total), getLengthText(evt), getRequestType(evt)));
+                long total = this.total.get() + evt.getLength();
+                this.total.set(total);
+                logger.get().progress(String.format("%s/%s %sed", getLengthText(total), getLengthText(evt), getRequestType(evt)));
             }
             if (evt.getEventType() == TransferEvent.TRANSFER_COMPLETED) {
-                logger.completed();
+                logger.get().completed();
+                logger.remove();
+                total.remove();
             }
         }
 
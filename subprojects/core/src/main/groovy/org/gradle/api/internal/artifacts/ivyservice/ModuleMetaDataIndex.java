@@ -0,0 +1,194 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.EvictionPolicy;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.Serializer;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>A persistent index of the modules in the Ivy cache. Each entry holds the meta-data which Ivy otherwise reads from
+ * the properties file of a cached module: the resolvers which resolved the module and the origin of each of its
+ * artifacts. An entry is only used while the descriptor and properties files of the module are unchanged, so that
+ * changes made by Ivy, or by another build, are noticed.</p>
+ *
+ * <p>The index is opened on first use and may be used from several threads.</p>
+ */
+public class ModuleMetaDataIndex {
+    private static final EvictionPolicy EVICTION_POLICY = EvictionPolicy.maxAgeInDays(30);
+    private final CacheRepository cacheRepository;
+    private PersistentIndexedCache<String, CachedModule> cache;
+
+    public ModuleMetaDataIndex(CacheRepository cacheRepository) {
+        this.cacheRepository = cacheRepository;
+    }
+
+    /**
+     * Returns the entry for the given module, or null if there is no entry which is up to date with the given files.
+     */
+    public synchronized CachedModule get(ModuleRevisionId id, File descriptorFile, File dataFile) {
+        CachedModule module = getCache().get(id.encodeToString());
+        if (module == null || !module.isUpToDate(descriptorFile, dataFile)) {
+            return null;
+        }
+        return module;
+    }
+
+    public synchronized void put(ModuleRevisionId id, File descriptorFile, File dataFile, String resolverName, String artifactResolverName) {
+        getCache().put(id.encodeToString(), new CachedModule(descriptorFile, dataFile, resolverName, artifactResolverName, new HashMap<String, CachedArtifact>()));
+    }
+
+    /**
+     * Adds the origin of an artifact to the entry for its module, if the entry is up to date with the given files.
+     */
+    public synchronized void putArtifact(ModuleRevisionId id, File descriptorFile, File dataFile, String artifactId, boolean local, String location) {
+        CachedModule module = get(id, descriptorFile, dataFile);
+        if (module == null) {
+            return;
+        }
+        Map<String, CachedArtifact> artifacts = new HashMap<String, CachedArtifact>(module.artifacts);
+        artifacts.put(artifactId, new CachedArtifact(local, location));
+        getCache().put(id.encodeToString(), new CachedModule(module.descriptorPath, module.descriptorLength, module.descriptorLastModified,
+                module.dataFileLastModified, module.resolverName, module.artifactResolverName, artifacts));
+    }
+
+    private PersistentIndexedCache<String, CachedModule> getCache() {
+        if (cache == null) {
+            cache = cacheRepository.cache("moduleMetaData").open().openIndexedCache(new CachedModuleSerializer(), EVICTION_POLICY);
+        }
+        return cache;
+    }
+
+    public static class CachedModule {
+        private final String descriptorPath;
+        private final long descriptorLength;
+        private final long descriptorLastModified;
+        private final long dataFileLastModified;
+        private final String resolverName;
+        private final String artifactResolverName;
+        private final Map<String, CachedArtifact> artifacts;
+
+        private CachedModule(File descriptorFile, File dataFile, String resolverName, String artifactResolverName, Map<String, CachedArtifact> artifacts) {
+            this(descriptorFile.getAbsolutePath(), descriptorFile.length(), descriptorFile.lastModified(), dataFile.lastModified(), resolverName, artifactResolverName, artifacts);
+        }
+
+        private CachedModule(String descriptorPath, long descriptorLength, long descriptorLastModified, long dataFileLastModified, String resolverName, String artifactResolverName, Map<String, CachedArtifact> artifacts) {
+            this.descriptorPath = descriptorPath;
+            this.descriptorLength = descriptorLength;
+            this.descriptorLastModified = descriptorLastModified;
+            this.dataFileLastModified = dataFileLastModified;
+            this.resolverName = resolverName;
+            this.artifactResolverName = artifactResolverName;
+            this.artifacts = artifacts;
+        }
+
+        private boolean isUpToDate(File descriptorFile, File dataFile) {
+            // The index is keyed by hash, so check that the entry is actually for the given module
+            return descriptorPath.equals(descriptorFile.getAbsolutePath())
+                    && descriptorLength == descriptorFile.length()
+                    && descriptorLastModified == descriptorFile.lastModified()
+                    && dataFileLastModified == dataFile.lastModified();
+        }
+
+        public String getResolverName() {
+            return resolverName;
+        }
+
+        public String getArtifactResolverName() {
+            return artifactResolverName;
+        }
+
+        /**
+         * Returns the origin of the given artifact, or null if it has not been indexed.
+         */
+        public CachedArtifact getArtifact(String artifactId) {
+            return artifacts.get(artifactId);
+        }
+    }
+
+    public static class CachedArtifact {
+        private final boolean local;
+        private final String location;
+
+        private CachedArtifact(boolean local, String location) {
+            this.local = local;
+            this.location = location;
+        }
+
+        public boolean isLocal() {
+            return local;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+    }
+
+    private static class CachedModuleSerializer implements Serializer<CachedModule> {
+        public CachedModule read(InputStream instr) throws Exception {
+            DataInputStream input = new DataInputStream(instr);
+            String descriptorPath = input.readUTF();
+            long descriptorLength = input.readLong();
+            long descriptorLastModified = input.readLong();
+            long dataFileLastModified = input.readLong();
+            String resolverName = readNullableString(input);
+            String artifactResolverName = readNullableString(input);
+            int artifactCount = input.readInt();
+            Map<String, CachedArtifact> artifacts = new HashMap<String, CachedArtifact>(artifactCount * 2);
+            for (int i = 0; i < artifactCount; i++) {
+                String artifactId = input.readUTF();
+                boolean local = input.readBoolean();
+                String location = readNullableString(input);
+                artifacts.put(artifactId, new CachedArtifact(local, location));
+            }
+            return new CachedModule(descriptorPath, descriptorLength, descriptorLastModified, dataFileLastModified, resolverName, artifactResolverName, artifacts);
+        }
+
+        public void write(OutputStream outstr, CachedModule value) throws Exception {
+            DataOutputStream output = new DataOutputStream(outstr);
+            output.writeUTF(value.descriptorPath);
+            output.writeLong(value.descriptorLength);
+            output.writeLong(value.descriptorLastModified);
+            output.writeLong(value.dataFileLastModified);
+            writeNullableString(output, value.resolverName);
+            writeNullableString(output, value.artifactResolverName);
+            output.writeInt(value.artifacts.size());
+            for (Map.Entry<String, CachedArtifact> entry : value.artifacts.entrySet()) {
+                output.writeUTF(entry.getKey());
+                output.writeBoolean(entry.getValue().local);
+                writeNullableString(output, entry.getValue().location);
+            }
+            output.flush();
+        }
+
+        private String readNullableString(DataInputStream input) throws IOException {
+            return input.readBoolean() ? input.readUTF() : null;
+        }
+
+        private void writeNullableString(DataOutputStream output, String value) throws IOException {
+            output.writeBoolean(value != null);
+            if (value != null) {
+                output.writeUTF(value);
+            }
+        }
+    }
+}
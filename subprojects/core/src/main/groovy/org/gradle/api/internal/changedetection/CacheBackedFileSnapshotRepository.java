@@ -16,11 +16,21 @@
 package org.gradle.api.internal.changedetection;
 
 import org.gradle.cache.CacheRepository;
+import org.gradle.cache.DefaultSerializer;
+import org.gradle.cache.EvictionPolicy;
+import org.gradle.cache.PersistentCache;
 import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentStateCache;
 
 public class CacheBackedFileSnapshotRepository implements FileSnapshotRepository {
+    // Discard snapshots which have not been used for a long time, such as the snapshots of evicted task histories. A
+    // task whose snapshot is missing is out of date
+    private static final EvictionPolicy EVICTION_POLICY = EvictionPolicy.maxAgeInDays(90);
     private final CacheRepository repository;
     private PersistentIndexedCache<Object, Object> cache;
+    // The next id is kept outside the indexed cache, so that it is not evicted. An id must not be reused once its
+    // snapshot has been evicted, as a task history may still refer to it
+    private PersistentStateCache<Long> nextId;
 
     public CacheBackedFileSnapshotRepository(CacheRepository repository) {
         this.repository = repository;
@@ -28,11 +38,15 @@ public class CacheBackedFileSnapshotRepository implements FileSnapshotRepository
 
     public Long add(FileCollectionSnapshot snapshot) {
         open();
-        Long id = (Long) cache.get("nextId");
+        Long id = nextId.get();
         if (id == null) {
-            id = 1L;
+            // Continue from the id kept by earlier versions, if any
+            id = (Long) cache.get("nextId");
+            if (id == null) {
+                id = 1L;
+            }
         }
-        cache.put("nextId", id + 1);
+        nextId.set(id + 1);
         cache.put(id, snapshot);
         return id;
     }
@@ -49,7 +63,9 @@ public class CacheBackedFileSnapshotRepository implements FileSnapshotRepository
 
     private void open() {
         if (cache == null) {
-            cache = repository.cache("fileSnapshots").open().openIndexedCache();
+            PersistentCache persistentCache = repository.cache("fileSnapshots").open();
+            cache = persistentCache.openIndexedCache(new DefaultSerializer<Object>(), EVICTION_POLICY);
+            nextId = persistentCache.openStateCache();
         }
     }
 }
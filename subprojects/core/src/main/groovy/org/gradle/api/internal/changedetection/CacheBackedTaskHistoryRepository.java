@@ -18,6 +18,7 @@ package org.gradle.api.internal.changedetection;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.DefaultSerializer;
+import org.gradle.cache.EvictionPolicy;
 import org.gradle.cache.PersistentIndexedCache;
 
 import java.io.File;
@@ -28,6 +29,8 @@ import java.util.List;
 import java.util.Set;
 
 public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
+    // Discard the history of tasks which have not been executed for a long time, such as tasks which no longer exist
+    private static final EvictionPolicy EVICTION_POLICY = EvictionPolicy.maxAgeInDays(90);
     private final CacheRepository repository;
     private final FileSnapshotRepository snapshotRepository;
     private PersistentIndexedCache<String, TaskHistory> taskHistoryCache;
@@ -41,7 +44,7 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
     public History getHistory(final TaskInternal task) {
         if (taskHistoryCache == null) {
             serializer = new DefaultSerializer<TaskHistory>();
-            taskHistoryCache = repository.cache("taskArtifacts").forObject(task.getProject().getGradle()).open().openIndexedCache(serializer);
+            taskHistoryCache = repository.cache("taskArtifacts").forObject(task.getProject().getGradle()).open().openIndexedCache(serializer, EVICTION_POLICY);
         }
         final TaskHistory history = loadHistory(task);
         final LazyTaskExecution currentExecution = new LazyTaskExecution();
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.gradle.api.internal.TaskExecutionHistory;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.cache.CacheLock;
+
+/**
+ * Runs each step of the up-to-date check and of the history update of a task as a single {@link CacheLock} operation,
+ * so that the caches are locked once per step rather than once per entry read or written.
+ */
+public class CacheLockingTaskArtifactStateRepository implements TaskArtifactStateRepository {
+    private final TaskArtifactStateRepository repository;
+
+    public CacheLockingTaskArtifactStateRepository(TaskArtifactStateRepository repository) {
+        this.repository = repository;
+    }
+
+    public TaskArtifactState getStateFor(TaskInternal task) {
+        final TaskArtifactState state;
+        CacheLock.beginOperation();
+        try {
+            state = repository.getStateFor(task);
+        } finally {
+            CacheLock.endOperation();
+        }
+        return new TaskArtifactState() {
+            public boolean isUpToDate() {
+                CacheLock.beginOperation();
+                try {
+                    return state.isUpToDate();
+                } finally {
+                    CacheLock.endOperation();
+                }
+            }
+
+            public void beforeTask() {
+                CacheLock.beginOperation();
+                try {
+                    state.beforeTask();
+                } finally {
+                    CacheLock.endOperation();
+                }
+            }
+
+            public void afterTask() {
+                CacheLock.beginOperation();
+                try {
+                    state.afterTask();
+                } finally {
+                    CacheLock.endOperation();
+                }
+            }
+
+            public void finished() {
+                CacheLock.beginOperation();
+                try {
+                    state.finished();
+                } finally {
+                    CacheLock.endOperation();
+                }
+            }
+
+            public TaskExecutionHistory getExecutionHistory() {
+                return state.getExecutionHistory();
+            }
+        };
+    }
+}
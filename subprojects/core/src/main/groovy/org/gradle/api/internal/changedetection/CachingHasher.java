@@ -16,19 +16,22 @@
 package org.gradle.api.internal.changedetection;
 
 import org.gradle.cache.CacheRepository;
+import org.gradle.cache.EvictionPolicy;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.Serializer;
 
 import java.io.*;
 
 public class CachingHasher implements Hasher {
+    // Hashes are cheap to recalculate, so discard them for files which are no longer used
+    private static final EvictionPolicy EVICTION_POLICY = EvictionPolicy.maxAgeInDays(30).maxSizeInMegabytes(64);
     private final PersistentIndexedCache<File, FileInfo> cache;
     private final Hasher hasher;
     private long timestamp;
 
     public CachingHasher(Hasher hasher, CacheRepository cacheRepository) {
         this.hasher = hasher;
-        cache = cacheRepository.cache("fileHashes").open().openIndexedCache(new FileInfoSerializer());
+        cache = cacheRepository.cache("fileHashes").open().openIndexedCache(new FileInfoSerializer(), EVICTION_POLICY);
     }
 
     public byte[] hash(File file) {
@@ -18,6 +18,8 @@ package org.gradle.api.internal.changedetection;
 
 import org.gradle.api.file.FileCollection;
 import org.gradle.cache.CacheRepository;
+import org.gradle.cache.DefaultSerializer;
+import org.gradle.cache.EvictionPolicy;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.util.ChangeListener;
 import org.gradle.util.DiffUtil;
@@ -40,6 +42,9 @@ import java.util.Map;
  *
  */
 public class OutputFilesSnapshotter implements FileSnapshotter {
+    // Discard the ids of files which have not been used as outputs for a long time. A file whose id is missing is given
+    // a new one, so the tasks which produced it are out of date
+    private static final EvictionPolicy EVICTION_POLICY = EvictionPolicy.maxAgeInDays(90);
     private final FileSnapshotter snapshotter;
     private final IdGenerator<Long> idGenerator;
     private final PersistentIndexedCache<String, Long> dirIdentiferCache;
@@ -48,7 +53,7 @@ public class OutputFilesSnapshotter implements FileSnapshotter {
                                   CacheRepository cacheRepository) {
         this.snapshotter = snapshotter;
         this.idGenerator = idGenerator;
-        dirIdentiferCache = cacheRepository.cache("outputFileStates").open().openIndexedCache();
+        dirIdentiferCache = cacheRepository.cache("outputFileStates").open().openIndexedCache(new DefaultSerializer<Long>(), EVICTION_POLICY);
     }
 
     public FileCollectionSnapshot emptySnapshot() {
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.watch;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.File;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * <p>A {@link FileWatcher} which looks for changes on a background thread. Changes are collected until no further
+ * changes have been found for the quiet period, and then passed to the listener as a single batch, so that the
+ * listener is notified once for a burst of changes, such as when a build writes many class files.</p>
+ */
+public abstract class AbstractFileWatcher implements FileWatcher {
+    private static final Logger LOGGER = Logging.getLogger(AbstractFileWatcher.class);
+    private static final long IDLE_TIMEOUT_MILLIS = 60 * 1000;
+    private final FileChangeListener listener;
+    private final long quietPeriodMillis;
+    private final Thread thread;
+    private final Object lock = new Object();
+    private boolean stopped;
+    private boolean notifying;
+
+    protected AbstractFileWatcher(FileChangeListener listener, long quietPeriodMillis) {
+        this.listener = listener;
+        this.quietPeriodMillis = quietPeriodMillis;
+        thread = new Thread(new Runnable() {
+            public void run() {
+                watch();
+            }
+        });
+        thread.setName("File watcher");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching. Should be called once the implementation is ready to look for changes.
+     */
+    protected void start() {
+        thread.start();
+    }
+
+    public void stop() {
+        synchronized (lock) {
+            stopped = true;
+            if (!notifying) {
+                thread.interrupt();
+            }
+        }
+        if (Thread.currentThread() == thread) {
+            // Stopped by the listener. The thread will exit once the listener returns
+            return;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Blocks for up to the given time waiting for changes, and adds the changed files to the given set. Should return
+     * as soon as some changes have been found.
+     *
+     * @return true if some changes were found.
+     */
+    protected abstract boolean waitForChanges(long timeoutMillis, Set<File> changes) throws InterruptedException;
+
+    /**
+     * Releases the resources used to look for changes. Called by the watcher thread as it exits.
+     */
+    protected abstract void close();
+
+    private void watch() {
+        Set<File> changes = new LinkedHashSet<File>();
+        try {
+            while (true) {
+                boolean changed = waitForChanges(changes.isEmpty() ? IDLE_TIMEOUT_MILLIS : quietPeriodMillis, changes);
+                if (changed || changes.isEmpty()) {
+                    continue;
+                }
+                synchronized (lock) {
+                    if (stopped) {
+                        return;
+                    }
+                    notifying = true;
+                }
+                try {
+                    listener.filesChanged(new LinkedHashSet<File>(changes));
+                } catch (Throwable t) {
+                    LOGGER.error("Could not notify listener of changes to watched files.", t);
+                } finally {
+                    changes.clear();
+                    synchronized (lock) {
+                        notifying = false;
+                        if (stopped) {
+                            return;
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stopped
+        } finally {
+            close();
+        }
+    }
+}
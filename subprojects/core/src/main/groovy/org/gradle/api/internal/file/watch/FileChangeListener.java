@@ -0,0 +1,32 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.watch;
+
+import java.io.File;
+import java.util.Set;
+
+/**
+ * Receives notifications of changes to watched files.
+ */
+public interface FileChangeListener {
+    /**
+     * Called when some watched files have been created, modified or deleted, once the changes have settled down.
+     *
+     * @param files The changed files. For a change which could not be attributed to a particular file, contains the
+     * directory in which the change happened.
+     */
+    void filesChanged(Set<File> files);
+}
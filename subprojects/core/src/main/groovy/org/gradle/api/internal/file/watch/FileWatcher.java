@@ -0,0 +1,29 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.watch;
+
+import org.gradle.messaging.concurrent.Stoppable;
+
+/**
+ * Watches a set of files and directories for changes, and notifies a {@link FileChangeListener} of them on a separate
+ * thread. Use a {@link FileWatcherFactory} to create instances.
+ */
+public interface FileWatcher extends Stoppable {
+    /**
+     * Stops watching. Blocks until the listener is no longer being notified, unless called by the listener itself.
+     */
+    void stop();
+}
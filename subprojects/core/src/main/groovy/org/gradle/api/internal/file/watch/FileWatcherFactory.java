@@ -0,0 +1,62 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.watch;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.File;
+
+/**
+ * Creates {@link FileWatcher}s. Uses the file change notifications of the JVM when they are available, and polls the
+ * watched files otherwise.
+ */
+public class FileWatcherFactory {
+    public static final long DEFAULT_QUIET_PERIOD_MILLIS = 250;
+    public static final long DEFAULT_POLL_INTERVAL_MILLIS = 1000;
+    private static final Logger LOGGER = Logging.getLogger(FileWatcherFactory.class);
+    private final long quietPeriodMillis;
+    private final long pollIntervalMillis;
+
+    public FileWatcherFactory() {
+        this(DEFAULT_QUIET_PERIOD_MILLIS, DEFAULT_POLL_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param quietPeriodMillis The time to wait for further changes before notifying the listener.
+     * @param pollIntervalMillis The interval between checks for changes, when the watched files need to be polled.
+     */
+    public FileWatcherFactory(long quietPeriodMillis, long pollIntervalMillis) {
+        this.quietPeriodMillis = quietPeriodMillis;
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    /**
+     * Starts watching the given files and directories. Directories are watched recursively. A file or directory which
+     * does not exist yet is watched for creation, provided its parent directory exists.
+     */
+    public FileWatcher watch(Iterable<File> files, FileChangeListener listener) {
+        if (WatchServiceFileWatcher.isAvailable()) {
+            try {
+                return new WatchServiceFileWatcher(files, listener, quietPeriodMillis);
+            } catch (RuntimeException e) {
+                // For example, when the operating system limit on the number of watches has been reached
+                LOGGER.info("Could not watch files for changes using the file system, falling back to polling.", e);
+            }
+        }
+        return new PollingFileWatcher(files, listener, quietPeriodMillis, pollIntervalMillis);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.watch;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * A {@link FileWatcher} which periodically compares the size and timestamp of each watched file with those found the
+ * last time. Used when the JVM does not provide file change notifications.
+ */
+public class PollingFileWatcher extends AbstractFileWatcher {
+    private final List<File> roots;
+    private final long intervalMillis;
+    private Map<File, FileState> snapshot;
+
+    public PollingFileWatcher(Iterable<File> roots, FileChangeListener listener, long quietPeriodMillis, long intervalMillis) {
+        super(listener, quietPeriodMillis);
+        this.roots = new ArrayList<File>();
+        for (File root : roots) {
+            this.roots.add(root.getAbsoluteFile());
+        }
+        this.intervalMillis = intervalMillis;
+        snapshot = takeSnapshot();
+        start();
+    }
+
+    @Override
+    protected boolean waitForChanges(long timeoutMillis, Set<File> changes) throws InterruptedException {
+        Thread.sleep(Math.min(timeoutMillis, intervalMillis));
+        Map<File, FileState> current = takeSnapshot();
+        boolean changed = false;
+        for (Map.Entry<File, FileState> entry : current.entrySet()) {
+            if (!entry.getValue().equals(snapshot.get(entry.getKey()))) {
+                changes.add(entry.getKey());
+                changed = true;
+            }
+        }
+        for (File file : snapshot.keySet()) {
+            if (!current.containsKey(file)) {
+                changes.add(file);
+                changed = true;
+            }
+        }
+        snapshot = current;
+        return changed;
+    }
+
+    @Override
+    protected void close() {
+        snapshot = null;
+    }
+
+    private Map<File, FileState> takeSnapshot() {
+        Map<File, FileState> snapshot = new HashMap<File, FileState>();
+        for (File root : roots) {
+            addFile(root, snapshot);
+        }
+        return snapshot;
+    }
+
+    private void addFile(File file, Map<File, FileState> snapshot) {
+        if (snapshot.containsKey(file)) {
+            return;
+        }
+        if (file.isDirectory()) {
+            snapshot.put(file, FileState.DIRECTORY);
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    addFile(child, snapshot);
+                }
+            }
+        } else if (file.exists()) {
+            snapshot.put(file, new FileState(file.lastModified(), file.length()));
+        }
+    }
+
+    private static class FileState {
+        static final FileState DIRECTORY = new FileState(-1, -1);
+        private final long lastModified;
+        private final long length;
+
+        private FileState(long lastModified, long length) {
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            FileState other = (FileState) obj;
+            return lastModified == other.lastModified && length == other.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (lastModified ^ length);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.watch;
+
+import org.gradle.util.UncheckedException;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A {@link FileWatcher} which uses the {@code java.nio.file.WatchService} of the JVM, which is notified of changes
+ * by the operating system where possible, such as through inotify on Linux. Each watched directory and its
+ * subdirectories are registered with the watch service, as are the subdirectories created while watching. For each
+ * watched file, its parent directory is registered, and changes to the other files of that directory are ignored.</p>
+ *
+ * <p>The watch service is only available in Java 7 and later, and is used reflectively, so that Gradle can still run
+ * on earlier versions. Use {@link #isAvailable()} to check whether it can be used.</p>
+ */
+public class WatchServiceFileWatcher extends AbstractFileWatcher {
+    private static final Nio NIO = Nio.create();
+    private final Object watchService;
+    private final Map<Object, WatchedDir> watchedDirs = new HashMap<Object, WatchedDir>();
+    private final Set<File> watchedFiles = new HashSet<File>();
+
+    public WatchServiceFileWatcher(Iterable<File> roots, FileChangeListener listener, long quietPeriodMillis) {
+        super(listener, quietPeriodMillis);
+        if (NIO == null) {
+            throw new UnsupportedOperationException("The java.nio.file.WatchService is not available in this JVM.");
+        }
+        watchService = NIO.newWatchService();
+        try {
+            for (File root : roots) {
+                root = root.getAbsoluteFile();
+                if (root.isDirectory()) {
+                    register(root, true);
+                } else {
+                    // Also covers a file which does not exist yet, so that its creation is noticed
+                    watchedFiles.add(root);
+                    File parent = root.getParentFile();
+                    if (parent != null && parent.isDirectory()) {
+                        register(parent, false);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+        start();
+    }
+
+    /**
+     * Returns true if the watch service is available in this JVM.
+     */
+    public static boolean isAvailable() {
+        return NIO != null;
+    }
+
+    @Override
+    protected boolean waitForChanges(long timeoutMillis, Set<File> changes) throws InterruptedException {
+        Object key = NIO.poll(watchService, timeoutMillis);
+        boolean changed = false;
+        while (key != null) {
+            WatchedDir dir = watchedDirs.get(key);
+            for (Object event : NIO.pollEvents(key)) {
+                Object kind = NIO.kind(event);
+                if (kind == NIO.overflow) {
+                    // Some events were lost
+                    changes.add(dir.dir);
+                    changed = true;
+                    continue;
+                }
+                File file = new File(dir.dir, NIO.context(event).toString());
+                if (!dir.recursive && !watchedFiles.contains(file)) {
+                    continue;
+                }
+                changes.add(file);
+                changed = true;
+                if (dir.recursive && kind == NIO.entryCreate && file.isDirectory()) {
+                    // Files may have been created in the new directory before it was registered
+                    register(file, true);
+                    addFiles(file, changes);
+                }
+            }
+            if (!NIO.reset(key)) {
+                // The directory is no longer accessible, such as when it has been deleted
+                watchedDirs.remove(key);
+            }
+            key = NIO.poll(watchService);
+        }
+        return changed;
+    }
+
+    @Override
+    protected void close() {
+        NIO.close(watchService);
+    }
+
+    private void register(File dir, boolean recursive) {
+        Object key = NIO.register(dir, watchService);
+        WatchedDir previous = watchedDirs.get(key);
+        watchedDirs.put(key, new WatchedDir(dir, recursive || (previous != null && previous.recursive)));
+        if (!recursive) {
+            return;
+        }
+        File[] children = dir.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                if (child.isDirectory()) {
+                    register(child, true);
+                }
+            }
+        }
+    }
+
+    private void addFiles(File dir, Set<File> changes) {
+        File[] children = dir.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                changes.add(child);
+                if (child.isDirectory()) {
+                    addFiles(child, changes);
+                }
+            }
+        }
+    }
+
+    private static class WatchedDir {
+        final File dir;
+        final boolean recursive;
+
+        private WatchedDir(File dir, boolean recursive) {
+            this.dir = dir;
+            this.recursive = recursive;
+        }
+    }
+
+    /**
+     * The reflective view of the {@code java.nio.file} API.
+     */
+    private static class Nio {
+        private Object fileSystem;
+        private Object kinds;
+        private Object entryCreate;
+        private Object overflow;
+        private Method toPath;
+        private Method newWatchService;
+        private Method register;
+        private Method pollWithTimeout;
+        private Method poll;
+        private Method close;
+        private Method pollEvents;
+        private Method reset;
+        private Method kind;
+        private Method context;
+
+        static Nio create() {
+            try {
+                ClassLoader classLoader = ClassLoader.getSystemClassLoader();
+                Class<?> fileSystemsClass = Class.forName("java.nio.file.FileSystems", true, classLoader);
+                Class<?> fileSystemClass = Class.forName("java.nio.file.FileSystem", true, classLoader);
+                Class<?> pathClass = Class.forName("java.nio.file.Path", true, classLoader);
+                Class<?> watchServiceClass = Class.forName("java.nio.file.WatchService", true, classLoader);
+                Class<?> watchKeyClass = Class.forName("java.nio.file.WatchKey", true, classLoader);
+                Class<?> watchEventClass = Class.forName("java.nio.file.WatchEvent", true, classLoader);
+                Class<?> kindClass = Class.forName("java.nio.file.WatchEvent$Kind", true, classLoader);
+                Class<?> kindsClass = Class.forName("java.nio.file.StandardWatchEventKinds", true, classLoader);
+
+                Nio nio = new Nio();
+                nio.fileSystem = fileSystemsClass.getMethod("getDefault").invoke(null);
+                nio.entryCreate = kindsClass.getField("ENTRY_CREATE").get(null);
+                nio.overflow = kindsClass.getField("OVERFLOW").get(null);
+                nio.kinds = Array.newInstance(kindClass, 3);
+                Array.set(nio.kinds, 0, nio.entryCreate);
+                Array.set(nio.kinds, 1, kindsClass.getField("ENTRY_DELETE").get(null));
+                Array.set(nio.kinds, 2, kindsClass.getField("ENTRY_MODIFY").get(null));
+                nio.toPath = File.class.getMethod("toPath");
+                nio.newWatchService = fileSystemClass.getMethod("newWatchService");
+                nio.register = pathClass.getMethod("register", watchServiceClass, nio.kinds.getClass());
+                nio.pollWithTimeout = watchServiceClass.getMethod("poll", Long.TYPE, TimeUnit.class);
+                nio.poll = watchServiceClass.getMethod("poll");
+                nio.close = watchServiceClass.getMethod("close");
+                nio.pollEvents = watchKeyClass.getMethod("pollEvents");
+                nio.reset = watchKeyClass.getMethod("reset");
+                nio.kind = watchEventClass.getMethod("kind");
+                nio.context = watchEventClass.getMethod("context");
+                return nio;
+            } catch (Exception e) {
+                // Not Java 7 or later
+                return null;
+            }
+        }
+
+        Object newWatchService() {
+            return invoke(newWatchService, fileSystem);
+        }
+
+        Object register(File dir, Object watchService) {
+            return invoke(register, invoke(toPath, dir), watchService, kinds);
+        }
+
+        Object poll(Object watchService, long timeoutMillis) throws InterruptedException {
+            try {
+                return pollWithTimeout.invoke(watchService, timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof InterruptedException) {
+                    throw (InterruptedException) e.getCause();
+                }
+                throw UncheckedException.asUncheckedException(e.getCause());
+            } catch (IllegalAccessException e) {
+                throw UncheckedException.asUncheckedException(e);
+            }
+        }
+
+        Object poll(Object watchService) {
+            return invoke(poll, watchService);
+        }
+
+        void close(Object watchService) {
+            invoke(close, watchService);
+        }
+
+        List<?> pollEvents(Object key) {
+            return (List<?>) invoke(pollEvents, key);
+        }
+
+        boolean reset(Object key) {
+            return (Boolean) invoke(reset, key);
+        }
+
+        Object kind(Object event) {
+            return invoke(kind, event);
+        }
+
+        Object context(Object event) {
+            return invoke(context, event);
+        }
+
+        private Object invoke(Method method, Object target, Object... args) {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw UncheckedException.asUncheckedException(e.getCause());
+            } catch (IllegalAccessException e) {
+                throw UncheckedException.asUncheckedException(e);
+            }
+        }
+    }
+}
@@ -442,11 +442,23 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public void subprojects(Action<? super Project> action) {
-        configure(getSubprojects(), action);
+        configure(getSubprojectsForConfiguration("subprojects()"), action);
     }
 
     public void allprojects(Action<? super Project> action) {
-        configure(getAllprojects(), action);
+        configure(getAllprojectsForConfiguration("allprojects()"), action);
+    }
+
+    private Set<Project> getSubprojectsForConfiguration(String operation) {
+        Set<Project> subprojects = getSubprojects();
+        IsolatedProjectEvaluation.checkCanAccess(operation, subprojects);
+        return subprojects;
+    }
+
+    private Set<Project> getAllprojectsForConfiguration(String operation) {
+        Set<Project> allprojects = getAllprojects();
+        IsolatedProjectEvaluation.checkCanAccess(operation, allprojects);
+        return allprojects;
     }
 
     public <T> Iterable<T> configure(Iterable<T> objects, Action<? super T> configureAction) {
@@ -590,6 +602,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
             throw new InvalidUserDataException("You must specify a project!");
         }
         DefaultProject projectToEvaluate = (DefaultProject) project(path);
+        IsolatedProjectEvaluation.checkCanAccess("evaluationDependsOn()", Collections.singleton(projectToEvaluate));
         if (projectToEvaluate.getState().getExecuting()) {
             throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.",
                     projectToEvaluate));
@@ -598,6 +611,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public Project childrenDependOnMe() {
+        IsolatedProjectEvaluation.checkCanAccess("childrenDependOnMe()", childProjects.values());
         for (Project project : childProjects.values()) {
             project.dependsOn(getPath(), false);
         }
@@ -850,15 +864,17 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public void subprojects(Closure configureClosure) {
-        configure(getSubprojects(), configureClosure);
+        configure(getSubprojectsForConfiguration("subprojects()"), configureClosure);
     }
 
     public void allprojects(Closure configureClosure) {
-        configure(getAllprojects(), configureClosure);
+        configure(getAllprojectsForConfiguration("allprojects()"), configureClosure);
     }
 
     public Project project(String path, Closure configureClosure) {
-        return ConfigureUtil.configure(configureClosure, project(path));
+        Project project = project(path);
+        IsolatedProjectEvaluation.checkCanAccess("project()", Collections.singleton(project));
+        return ConfigureUtil.configure(configureClosure, project);
     }
 
     public Object configure(Object object, Closure configureClosure) {
@@ -17,17 +17,27 @@ package org.gradle.api.internal.project;
 
 import org.gradle.api.Project;
 import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.artifacts.configurations.ParallelConfigurationResolver;
 import org.gradle.api.internal.artifacts.dsl.dependencies.ProjectFinder;
 import org.gradle.api.internal.plugins.DefaultPluginRegistry;
 import org.gradle.api.internal.plugins.PluginRegistry;
 import org.gradle.execution.DefaultTaskGraphExecuter;
 import org.gradle.execution.TaskGraphExecuter;
 import org.gradle.listener.ListenerManager;
+import org.gradle.messaging.concurrent.ExecutorFactory;
 
 /**
  * Contains the services for a given {@link GradleInternal} instance.
  */
 public class GradleInternalServiceRegistry extends DefaultServiceRegistry implements ServiceRegistryFactory {
+    /**
+     * The system property which enables parallel resolution of the configurations used by the tasks to be executed.
+     * The value is either {@code true} or the maximum number of projects whose configurations are resolved
+     * concurrently.
+     *
+     * @see ParallelConfigurationResolver
+     */
+    public static final String PARALLEL_RESOLUTION_PROPERTY = "org.gradle.dependency.resolution.parallel";
     private final GradleInternal gradle;
 
     public GradleInternalServiceRegistry(ServiceRegistry parent, final GradleInternal gradle) {
@@ -48,6 +58,12 @@ public class GradleInternalServiceRegistry extends DefaultServiceRegistry implem
     }
 
     protected TaskGraphExecuter createTaskGraphExecuter() {
+        String parallelResolution = System.getProperty(PARALLEL_RESOLUTION_PROPERTY, "false");
+        if (parallelResolution.equals("true")) {
+            return new DefaultTaskGraphExecuter(get(ListenerManager.class), new ParallelConfigurationResolver(get(ExecutorFactory.class), Runtime.getRuntime().availableProcessors()));
+        } else if (parallelResolution.matches("\\d+")) {
+            return new DefaultTaskGraphExecuter(get(ListenerManager.class), new ParallelConfigurationResolver(get(ExecutorFactory.class), Integer.parseInt(parallelResolution)));
+        }
         return new DefaultTaskGraphExecuter(get(ListenerManager.class));
     }
 
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.project;
+
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.Project;
+
+/**
+ * <p>Tracks the project which the current thread is evaluating while projects are evaluated in parallel. Configuration
+ * which reaches into another project is reported, rather than left to race with the evaluation of that project.</p>
+ *
+ * <p>Only the operations which exist to configure or evaluate other projects are checked: {@code allprojects()},
+ * {@code subprojects()}, {@code project(path, closure)}, {@code evaluationDependsOn()} and {@code
+ * childrenDependOnMe()}. A project can still get hold of another project in other ways, and these are not checked:</p>
+ *
+ * <ul>
+ *
+ * <li>{@code project(path)} and {@code findProject(path)}, without a closure. These are also used to declare project
+ * dependencies, which only refer to the other project, so they cannot be rejected. Reading or changing the state of a
+ * sibling project obtained this way races with the evaluation of that project.</li>
+ *
+ * <li>{@code parent} and {@code rootProject}. The parent and root projects have always finished evaluating before a
+ * child project is evaluated, so reading their state is safe. Changing their state races with the sibling projects
+ * which read it.</li>
+ *
+ * </ul>
+ */
+public class IsolatedProjectEvaluation {
+    private static final ThreadLocal<Project> EVALUATING = new ThreadLocal<Project>();
+
+    /**
+     * Marks the start of the isolated evaluation of the given project by the current thread.
+     */
+    public static void start(Project project) {
+        EVALUATING.set(project);
+    }
+
+    /**
+     * Marks the end of the isolated evaluation by the current thread.
+     */
+    public static void finish() {
+        EVALUATING.remove();
+    }
+
+    /**
+     * Fails if the current thread is evaluating a project in isolation, and any of the given projects is not that
+     * project.
+     *
+     * @param operation The display name of the operation which would access the given projects.
+     */
+    public static void checkCanAccess(String operation, Iterable<? extends Project> targets) {
+        Project evaluating = EVALUATING.get();
+        if (evaluating == null) {
+            return;
+        }
+        for (Project target : targets) {
+            if (target != evaluating) {
+                throw new InvalidUserDataException(String.format(
+                        "Cannot use %s to access %s while evaluating %s, as projects are being evaluated in parallel. Move this configuration into the root project build script, or disable parallel project evaluation.",
+                        operation, target, evaluating));
+            }
+        }
+    }
+}
@@ -64,6 +64,13 @@ import java.io.File;
  * invocation.
  */
 public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry implements ServiceRegistryFactory {
+    /**
+     * The system property which enables parallel evaluation of projects. The value is either {@code true} or the
+     * maximum number of projects to evaluate concurrently.
+     *
+     * @see ParallelBuildConfigurer
+     */
+    public static final String PARALLEL_EVALUATION_PROPERTY = "org.gradle.configuration.parallel";
     private final StartParameter startParameter;
 
     public TopLevelBuildServiceRegistry(final ServiceRegistry parent, final StartParameter startParameter) {
@@ -152,13 +159,14 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
                         cacheRepository));
 
         FileSnapshotter outputFilesSnapshotter = new OutputFilesSnapshotter(fileSnapshotter, new RandomLongIdGenerator(), cacheRepository);
-        return new FileCacheBroadcastTaskArtifactStateRepository(
-                new ShortCircuitTaskArtifactStateRepository(
-                        startParameter,
-                        new DefaultTaskArtifactStateRepository(cacheRepository,
-                                fileSnapshotter,
-                                outputFilesSnapshotter)),
-                new DefaultFileCacheListener());
+        return new CacheLockingTaskArtifactStateRepository(
+                new FileCacheBroadcastTaskArtifactStateRepository(
+                        new ShortCircuitTaskArtifactStateRepository(
+                                startParameter,
+                                new DefaultTaskArtifactStateRepository(cacheRepository,
+                                        fileSnapshotter,
+                                        outputFilesSnapshotter)),
+                        new DefaultFileCacheListener()));
     }
 
     protected ScriptCompilerFactory createScriptCompileFactory() {
@@ -223,10 +231,17 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
     }
 
     protected BuildConfigurer createBuildConfigurer() {
-        return new DefaultBuildConfigurer(
+        BuildConfigurer configurer = new DefaultBuildConfigurer(
                 new ProjectEvaluationConfigurer(),
                 new ProjectDependencies2TaskResolver(),
                 new ImplicitTasksConfigurer());
+        String parallelEvaluation = System.getProperty(PARALLEL_EVALUATION_PROPERTY, "false");
+        if (parallelEvaluation.equals("true")) {
+            return new ParallelBuildConfigurer(configurer, get(ExecutorFactory.class), Runtime.getRuntime().availableProcessors());
+        } else if (parallelEvaluation.matches("\\d+")) {
+            return new ParallelBuildConfigurer(configurer, get(ExecutorFactory.class), Integer.parseInt(parallelEvaluation));
+        }
+        return configurer;
     }
 
     protected MavenFactory createMavenFactory() {
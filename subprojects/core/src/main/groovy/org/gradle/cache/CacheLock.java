@@ -0,0 +1,362 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <p>A reader/writer lock which guards some files, and which is shared by the threads of this process and by other
+ * processes. The lock is held by locking a lock file using {@link java.nio.channels.FileChannel#lock}. Any number of
+ * readers may hold the lock at the same time, whereas a writer holds it exclusively. Both modes are reentrant.</p>
+ *
+ * <p>The lock file records the number of times the lock has been held exclusively. When this lock is acquired after
+ * another lock instance, in this process or in another one, has held it exclusively, the given action is run with the
+ * lock held exclusively, so that the owner can discard any state which it has read from the guarded files.</p>
+ *
+ * <p>A thread which holds the lock exclusively may also acquire it for reading, but a thread which holds the lock for
+ * reading must not attempt to acquire it exclusively.</p>
+ *
+ * <p>Outside of an operation, the lock file is locked and unlocked each time the lock is acquired and released. While
+ * an operation is running, see {@link #beginOperation()}, a lock file is kept locked once it has been locked, and the
+ * lock is acquired and released without touching the lock file, unless a shared lock has to be made exclusive. The
+ * version of the guarded files is only read when the lock file is locked again.</p>
+ */
+public class CacheLock {
+    private static final long LOCK_TIMEOUT = 60000;
+    private static final Map<File, LockFile> LOCK_FILES = new HashMap<File, LockFile>();
+    private static final AtomicInteger OPERATIONS = new AtomicInteger();
+    private final File file;
+    private final Runnable changeAction;
+    private LockFile lockFile;
+    private volatile long version = -1;
+
+    /**
+     * Creates a lock for files whose owner does not keep any state read from them.
+     *
+     * @param file The lock file.
+     */
+    public CacheLock(File file) {
+        this(file, new Runnable() {
+            public void run() {
+            }
+        });
+    }
+
+    /**
+     * @param file The lock file.
+     * @param changeAction The action to run when the guarded files may have been changed by another lock instance.
+     */
+    public CacheLock(File file, Runnable changeAction) {
+        this.file = GFileUtils.canonicalise(file);
+        this.changeAction = changeAction;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("lock '%s'", file);
+    }
+
+    /**
+     * Marks the start of an operation, such as checking whether a task is up-to-date, which may use several caches
+     * several times. Other processes cannot use the caches until the operation ends, so operations should be short.
+     * Operations may be nested, and may run in several threads at the same time.
+     */
+    public static void beginOperation() {
+        OPERATIONS.incrementAndGet();
+    }
+
+    /**
+     * Marks the end of an operation. When no other operation is running, unlocks each lock file which was kept locked
+     * and which is not currently held.
+     */
+    public static void endOperation() {
+        if (OPERATIONS.decrementAndGet() > 0) {
+            return;
+        }
+        List<LockFile> lockFiles;
+        synchronized (LOCK_FILES) {
+            lockFiles = new ArrayList<LockFile>(LOCK_FILES.values());
+        }
+        for (LockFile lockFile : lockFiles) {
+            lockFile.unlockIfIdle();
+        }
+    }
+
+    public void lockShared() {
+        while (true) {
+            LockFile lockFile = getLockFile();
+            lockFile.lockShared();
+            if (version < 0) {
+                // Nothing has been read yet
+                version = lockFile.version;
+            }
+            if (isCurrent(lockFile)) {
+                return;
+            }
+            // Another lock instance has changed the files. Bring the state of the owner up to date
+            lockFile.unlockShared();
+            lockExclusive();
+            getLockFile().unlockExclusive(false);
+        }
+    }
+
+    public void unlockShared() {
+        getLockFile().unlockShared();
+    }
+
+    public void lockExclusive() {
+        LockFile lockFile = getLockFile();
+        lockFile.lockExclusive();
+        try {
+            if (!isCurrent(lockFile)) {
+                if (version >= 0) {
+                    changeAction.run();
+                }
+                version = lockFile.version;
+            }
+        } catch (RuntimeException e) {
+            lockFile.unlockExclusive(false);
+            throw e;
+        }
+    }
+
+    public void unlockExclusive() {
+        LockFile lockFile = getLockFile();
+        long newVersion = lockFile.unlockExclusive(true);
+        if (newVersion >= 0) {
+            version = newVersion;
+        }
+    }
+
+    /**
+     * Releases the lock file. The lock must not be held when this method is called. The lock can be used again
+     * afterwards.
+     */
+    public void close() {
+        synchronized (LOCK_FILES) {
+            if (lockFile != null && --lockFile.references == 0) {
+                LOCK_FILES.remove(file);
+                lockFile.close();
+            }
+            lockFile = null;
+        }
+    }
+
+    private boolean isCurrent(LockFile lockFile) {
+        return version == lockFile.version;
+    }
+
+    private LockFile getLockFile() {
+        synchronized (LOCK_FILES) {
+            if (lockFile == null) {
+                lockFile = LOCK_FILES.get(file);
+                if (lockFile == null) {
+                    lockFile = new LockFile(file);
+                    LOCK_FILES.put(file, lockFile);
+                }
+                lockFile.references++;
+            }
+            return lockFile;
+        }
+    }
+
+    /**
+     * The state of a lock file which is shared by all lock instances in this process, as a process cannot hold
+     * overlapping locks on a file.
+     */
+    private static class LockFile {
+        private final File file;
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private int references;
+        private RandomAccessFile lockFileAccess;
+        private FileLock fileLock;
+        private int sharedCount;
+        private boolean exclusive;
+        private boolean changedWhileHeld;
+        // The version of the files, as at when the lock file was last locked. Guarded by the lock
+        private volatile long version;
+
+        private LockFile(File file) {
+            this.file = file;
+        }
+
+        void lockShared() {
+            lock.readLock().lock();
+            try {
+                synchronized (this) {
+                    if (sharedCount == 0 && fileLock == null) {
+                        acquire(true);
+                    }
+                    sharedCount++;
+                }
+            } catch (RuntimeException e) {
+                lock.readLock().unlock();
+                throw e;
+            }
+        }
+
+        void unlockShared() {
+            try {
+                synchronized (this) {
+                    sharedCount--;
+                    if (sharedCount == 0 && fileLock != null && fileLock.isShared() && OPERATIONS.get() == 0) {
+                        release();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Could not unlock '%s'.", file), e);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void lockExclusive() {
+            lock.writeLock().lock();
+            try {
+                synchronized (this) {
+                    if (lock.getWriteHoldCount() == 1) {
+                        if (fileLock != null && fileLock.isShared()) {
+                            // Kept locked by an operation, but cannot be upgraded
+                            unlock();
+                        }
+                        if (fileLock == null) {
+                            acquire(false);
+                        }
+                        exclusive = true;
+                    }
+                }
+            } catch (RuntimeException e) {
+                lock.writeLock().unlock();
+                throw e;
+            }
+        }
+
+        /**
+         * Returns the new version of the files, or -1 if the lock is still held.
+         *
+         * @param changed Whether the files may have been changed while the lock was held.
+         */
+        long unlockExclusive(boolean changed) {
+            try {
+                synchronized (this) {
+                    if (lock.getWriteHoldCount() > 1) {
+                        changedWhileHeld |= changed;
+                        return -1;
+                    }
+                    exclusive = false;
+                    try {
+                        if (changed || changedWhileHeld) {
+                            changedWhileHeld = false;
+                            version++;
+                            lockFileAccess.seek(0);
+                            lockFileAccess.writeLong(version);
+                        }
+                    } finally {
+                        if (OPERATIONS.get() == 0) {
+                            release();
+                        }
+                    }
+                    return version;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Could not update lock file '%s'.", file), e);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void acquire(boolean shared) {
+            try {
+                if (lockFileAccess == null) {
+                    file.getParentFile().mkdirs();
+                    lockFileAccess = new RandomAccessFile(file, "rw");
+                }
+                long timeout = System.currentTimeMillis() + LOCK_TIMEOUT;
+                fileLock = lockFileAccess.getChannel().tryLock(0, Long.MAX_VALUE, shared);
+                while (fileLock == null) {
+                    if (System.currentTimeMillis() > timeout) {
+                        throw new GradleException(String.format("Timeout waiting to lock '%s'. It is currently in use by another process.", file));
+                    }
+                    Thread.sleep(200);
+                    fileLock = lockFileAccess.getChannel().tryLock(0, Long.MAX_VALUE, shared);
+                }
+                try {
+                    version = readVersion();
+                } catch (IOException e) {
+                    release();
+                    throw e;
+                }
+            } catch (InterruptedException e) {
+                throw new GradleException(String.format("Interrupted while waiting to lock '%s'.", file), e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Could not lock '%s'.", file), e);
+            }
+        }
+
+        private long readVersion() throws IOException {
+            if (lockFileAccess.length() < 8) {
+                return 0;
+            }
+            lockFileAccess.seek(0);
+            return lockFileAccess.readLong();
+        }
+
+        synchronized void unlockIfIdle() {
+            if (fileLock != null && sharedCount == 0 && !exclusive) {
+                unlock();
+            }
+        }
+
+        private void unlock() {
+            try {
+                release();
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Could not unlock '%s'.", file), e);
+            }
+        }
+
+        private void release() throws IOException {
+            FileLock fileLock = this.fileLock;
+            this.fileLock = null;
+            fileLock.release();
+        }
+
+        synchronized void close() {
+            // Closing the file also unlocks it, if it is still kept locked by an operation
+            fileLock = null;
+            try {
+                if (lockFileAccess != null) {
+                    lockFileAccess.close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
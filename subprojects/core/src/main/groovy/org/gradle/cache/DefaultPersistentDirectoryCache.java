@@ -24,9 +24,16 @@ import java.io.File;
 import java.util.Map;
 import java.util.Properties;
 
+/**
+ * <p>A cache directory which may be shared with other processes. The directory is guarded by a {@link CacheLock}, which
+ * is held while the cache is validated or rebuilt, and while its properties are updated. The lock files of the caches
+ * in the directory are kept when the cache is rebuilt, as other processes may be holding them.</p>
+ */
 public class DefaultPersistentDirectoryCache implements PersistentCache {
+    private static final String LOCK_FILE_SUFFIX = ".lock";
     private final File dir;
     private final File propertiesFile;
+    private final CacheLock lock;
     private final Properties properties = new Properties();
     private boolean valid;
     private BTreePersistentIndexedCache indexedCache;
@@ -35,9 +42,15 @@ public class DefaultPersistentDirectoryCache implements PersistentCache {
     public DefaultPersistentDirectoryCache(File dir, CacheUsage cacheUsage, Map<String, ?> properties) {
         this.dir = dir;
         propertiesFile = new File(dir, "cache.properties");
+        lock = new CacheLock(new File(dir, "cache" + LOCK_FILE_SUFFIX));
         this.properties.putAll(properties);
-        determineIfCacheIsValid(cacheUsage, properties);
-        buildCacheDir();
+        lock.lockExclusive();
+        try {
+            determineIfCacheIsValid(cacheUsage, properties);
+            buildCacheDir();
+        } finally {
+            lock.unlockExclusive();
+        }
     }
 
     @Override
@@ -47,10 +60,11 @@ public class DefaultPersistentDirectoryCache implements PersistentCache {
 
     private void buildCacheDir() {
         if (!valid) {
-            GFileUtils.deleteDirectory(dir);
-        }
-        if (!dir.isDirectory()) {
-            dir.mkdirs();
+            for (File file : dir.listFiles()) {
+                if (!file.getName().endsWith(LOCK_FILE_SUFFIX)) {
+                    GFileUtils.forceDelete(file);
+                }
+            }
         }
     }
 
@@ -75,8 +89,12 @@ public class DefaultPersistentDirectoryCache implements PersistentCache {
     }
 
     public <K, V> BTreePersistentIndexedCache<K, V> openIndexedCache(Serializer<V> serializer) {
+        return openIndexedCache(serializer, EvictionPolicy.NONE);
+    }
+
+    public <K, V> BTreePersistentIndexedCache<K, V> openIndexedCache(Serializer<V> serializer, EvictionPolicy evictionPolicy) {
         if (indexedCache == null) {
-            indexedCache = new BTreePersistentIndexedCache<K, V>(this, serializer);
+            indexedCache = new BTreePersistentIndexedCache<K, V>(this, serializer, evictionPolicy);
         }
         return indexedCache;
     }
@@ -105,13 +123,25 @@ public class DefaultPersistentDirectoryCache implements PersistentCache {
     }
 
     public void markValid() {
-        GUtil.saveProperties(properties, propertiesFile);
+        lock.lockExclusive();
+        try {
+            GUtil.saveProperties(properties, propertiesFile);
+        } finally {
+            lock.unlockExclusive();
+        }
         valid = true;
     }
 
     public void close() {
-        if (indexedCache != null) {
-            indexedCache.close();
+        try {
+            if (indexedCache != null) {
+                indexedCache.close();
+            }
+            if (stateCache != null) {
+                stateCache.close();
+            }
+        } finally {
+            lock.close();
         }
     }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache;
+
+/**
+ * <p>Limits the size of a {@link PersistentIndexedCache}. Entries which have not been used for longer than the maximum
+ * age are evicted, and the least recently used entries are evicted while the entries take up more than the maximum
+ * size. Eviction is carried out when the cache is closed, at most once a day, and the cache file is compacted when
+ * much of it is unused.</p>
+ *
+ * <p>Only caches whose entries can be recreated when they are missing should use a policy which evicts entries.</p>
+ */
+public class EvictionPolicy {
+    /**
+     * A policy which never evicts entries.
+     */
+    public static final EvictionPolicy NONE = new EvictionPolicy(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+    private final long maxSize;
+    private final long maxAge;
+
+    /**
+     * @param maxSize The maximum size of the entries of the cache, in bytes.
+     * @param maxAge The maximum time since an entry was last used, in milliseconds.
+     */
+    public EvictionPolicy(long maxSize, long maxAge) {
+        this.maxSize = maxSize;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Creates a policy which evicts entries which have not been used for the given number of days.
+     */
+    public static EvictionPolicy maxAgeInDays(int days) {
+        return new EvictionPolicy(Long.MAX_VALUE, days * DAY);
+    }
+
+    /**
+     * Returns a copy of this policy, which also limits the size of the entries of the cache to the given number of
+     * megabytes.
+     */
+    public EvictionPolicy maxSizeInMegabytes(int megabytes) {
+        return new EvictionPolicy(megabytes * 1024L * 1024L, maxAge);
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public long getMaxAge() {
+        return maxAge;
+    }
+
+    public boolean isEnabled() {
+        return maxSize != Long.MAX_VALUE || maxAge != Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("max size: %s bytes, max age: %s ms", maxSize, maxAge);
+    }
+}
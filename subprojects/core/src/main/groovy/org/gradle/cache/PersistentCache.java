@@ -46,6 +46,16 @@ public interface PersistentCache {
      */
     <K, V> PersistentIndexedCache<K, V> openIndexedCache(Serializer<V> serializer);
 
+    /**
+     * Opens an indexed cache backed by this cache, which evicts entries according to the given policy. The policy is
+     * ignored when the indexed cache is already open.
+     *
+     * @param serializer The serializer to use to serialise the cache entries.
+     * @param evictionPolicy The policy which limits the size of the cache.
+     * @return The cache.
+     */
+    <K, V> PersistentIndexedCache<K, V> openIndexedCache(Serializer<V> serializer, EvictionPolicy evictionPolicy);
+
     /**
      * Opens an indexed cache backed by this cache.
      *
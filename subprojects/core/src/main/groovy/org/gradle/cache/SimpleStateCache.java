@@ -23,15 +23,26 @@ import java.io.*;
 public class SimpleStateCache<T> implements PersistentStateCache<T> {
     private final Serializer<T> serializer;
     private final File cacheFile;
+    private final CacheLock lock;
     private PersistentCache cache;
 
     public SimpleStateCache(PersistentCache cache, Serializer<T> serializer) {
         this.cache = cache;
         this.serializer = serializer;
         cacheFile = new File(cache.getBaseDir(), "state.bin");
+        lock = new CacheLock(new File(cache.getBaseDir(), "state.bin.lock"));
     }
 
     public T get() {
+        lock.lockShared();
+        try {
+            return read();
+        } finally {
+            lock.unlockShared();
+        }
+    }
+
+    private T read() {
         if (!cacheFile.isFile()) {
             return null;
         }
@@ -48,6 +59,16 @@ public class SimpleStateCache<T> implements PersistentStateCache<T> {
     }
 
     public void set(T newValue) {
+        lock.lockExclusive();
+        try {
+            write(newValue);
+        } finally {
+            lock.unlockExclusive();
+        }
+        cache.markValid();
+    }
+
+    private void write(T newValue) {
         try {
             OutputStream outStr = new BufferedOutputStream(new FileOutputStream(cacheFile));
             try {
@@ -58,6 +79,9 @@ public class SimpleStateCache<T> implements PersistentStateCache<T> {
         } catch (Exception e) {
             throw new GradleException(String.format("Could not write cache value to '%s'.", cacheFile), e);
         }
-        cache.markValid();
+    }
+
+    public void close() {
+        lock.close();
     }
 }
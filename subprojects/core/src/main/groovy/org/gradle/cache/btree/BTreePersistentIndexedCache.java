@@ -16,9 +16,13 @@
 package org.gradle.cache.btree;
 
 import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.CacheLock;
+import org.gradle.cache.EvictionPolicy;
 import org.gradle.cache.PersistentCache;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.Serializer;
+import org.gradle.util.TimeProvider;
+import org.gradle.util.TrueTimeProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,7 +33,6 @@ import java.util.*;
 // todo - handle hash collisions
 // todo - don't store null links to child blocks in leaf index blocks
 // todo - align block boundaries
-// todo - concurrency control
 // todo - remove the check-sum from each block
 // todo - merge small values into a single data block
 // todo - discard when file corrupt
@@ -37,33 +40,74 @@ import java.util.*;
 // todo - free list leaks disk space
 // todo - merge adjacent free blocks
 // todo - use more efficient lookup for free block with nearest size
+/**
+ * <p>A {@link PersistentIndexedCache} which stores its entries in a B-tree in a single file.</p>
+ *
+ * <p>The cache can be used by several threads, and by several processes, at the same time. Entries are read holding a
+ * shared {@link CacheLock}, and are added or removed holding the lock exclusively. When the cache file has been changed
+ * by another process, the blocks read from it are discarded.</p>
+ *
+ * <p>Each entry records when it was last used. When the cache has an {@link EvictionPolicy}, the entries which the
+ * policy rejects are evicted when the cache is closed. Whether or not it has a policy, the cache file is rewritten
+ * without its unused space when it has become mostly unused.</p>
+ */
 public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache<K, V> {
     private static final Logger LOGGER = LoggerFactory.getLogger(BTreePersistentIndexedCache.class);
+    private static final long MAINTENANCE_INTERVAL = 24 * 60 * 60 * 1000L;
+    // The time since an entry was last used before a use of the entry is recorded
+    private static final long USAGE_RESOLUTION = 60 * 60 * 1000L;
+    private static final long MIN_COMPACTION_LENGTH = 1024 * 1024;
+    private static final int COMPACTION_FLUSH_INTERVAL = 100;
     private final File cacheFile;
+    private final CacheLock lock;
     private final PersistentCache backingCache;
     private final Serializer<V> serializer;
     private final short maxChildIndexEntries;
     private final int minIndexChildNodes;
-    private final StateCheckBlockStore store;
+    private final int maxFreeListEntries;
+    private StateCheckBlockStore store;
+    private final EvictionPolicy evictionPolicy;
+    private final TimeProvider timeProvider;
+    private final Set<Long> usedEntries = Collections.synchronizedSet(new HashSet<Long>());
     private HeaderBlock header;
 
     public BTreePersistentIndexedCache(PersistentCache backingCache, Serializer<V> serializer) {
-        this(backingCache, serializer, (short) 512, 512);
+        this(backingCache, serializer, EvictionPolicy.NONE);
+    }
+
+    public BTreePersistentIndexedCache(PersistentCache backingCache, Serializer<V> serializer, EvictionPolicy evictionPolicy) {
+        this(backingCache, serializer, (short) 512, 512, evictionPolicy, new TrueTimeProvider());
     }
 
     public BTreePersistentIndexedCache(PersistentCache backingCache, Serializer<V> serializer,
                                        short maxChildIndexEntries, int maxFreeListEntries) {
+        this(backingCache, serializer, maxChildIndexEntries, maxFreeListEntries, EvictionPolicy.NONE, new TrueTimeProvider());
+    }
+
+    public BTreePersistentIndexedCache(PersistentCache backingCache, Serializer<V> serializer,
+                                       short maxChildIndexEntries, int maxFreeListEntries,
+                                       EvictionPolicy evictionPolicy, TimeProvider timeProvider) {
         this.backingCache = backingCache;
+        this.evictionPolicy = evictionPolicy;
+        this.timeProvider = timeProvider;
         this.serializer = serializer;
         this.maxChildIndexEntries = maxChildIndexEntries;
         this.minIndexChildNodes = maxChildIndexEntries / 2;
+        this.maxFreeListEntries = maxFreeListEntries;
         cacheFile = new File(backingCache.getBaseDir(), "cache.bin");
-        BlockStore cachingStore = new CachingBlockStore(new FileBackedBlockStore(cacheFile), IndexBlock.class, FreeListBlockStore.FreeListBlock.class);
-        store = new StateCheckBlockStore(new FreeListBlockStore(cachingStore, maxFreeListEntries));
+        store = createStore(cacheFile);
+        lock = new CacheLock(new File(cacheFile.getPath() + ".lock"), new Runnable() {
+            public void run() {
+                LOGGER.debug("{} has been changed by another process. Reopening.", BTreePersistentIndexedCache.this);
+                store.close();
+                openQuietly();
+            }
+        });
+        lock.lockExclusive();
         try {
-            open();
-        } catch (Exception e) {
-            throw new UncheckedIOException(String.format("Could not open %s.", this), e);
+            openQuietly();
+        } finally {
+            lock.unlockExclusive();
         }
     }
 
@@ -72,6 +116,19 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         return String.format("cache '%s'", cacheFile);
     }
 
+    private StateCheckBlockStore createStore(File file) {
+        BlockStore cachingStore = new CachingBlockStore(new FileBackedBlockStore(file), IndexBlock.class, FreeListBlockStore.FreeListBlock.class);
+        return new StateCheckBlockStore(new FreeListBlockStore(cachingStore, maxFreeListEntries));
+    }
+
+    private void openQuietly() {
+        try {
+            open();
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not open %s.", this), e);
+        }
+    }
+
     private void open() throws Exception {
         try {
             doOpen();
@@ -111,22 +168,39 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
     public V get(K key) {
         try {
+            lock.lockShared();
             try {
                 DataBlock block = header.getRoot().get(key);
                 if (block != null) {
+                    maybeRecordUse(key, block);
                     return block.getValue();
                 }
                 return null;
             } catch (CorruptedCacheException e) {
+                // Rebuild below, once no longer reading
+            } finally {
+                lock.unlockShared();
+            }
+            lock.lockExclusive();
+            try {
                 rebuild();
-                return null;
+            } finally {
+                lock.unlockExclusive();
             }
+            return null;
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Could not read entry '%s' from %s.", key, this), e);
         }
     }
 
+    private void maybeRecordUse(K key, DataBlock block) {
+        if (evictionPolicy.isEnabled() && block.lastUsed < timeProvider.getCurrentTime() - USAGE_RESOLUTION) {
+            usedEntries.add((long) key.toString().hashCode());
+        }
+    }
+
     public void put(K key, V value) {
+        lock.lockExclusive();
         try {
             String keyString = key.toString();
             long hashCode = keyString.hashCode();
@@ -140,17 +214,20 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
                 }
             }
             if (needNewBlock) {
-                DataBlock block = new DataBlock(keyString, value);
+                DataBlock block = new DataBlock(value);
                 store.write(block);
                 lookup.indexBlock.put(hashCode, block.getPos());
             }
             store.flush();
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, this), e);
+        } finally {
+            lock.unlockExclusive();
         }
     }
 
     public void remove(K key) {
+        lock.lockExclusive();
         try {
             Lookup lookup = header.getRoot().find(key.toString());
             if (lookup.entry == null) {
@@ -162,6 +239,8 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
             store.flush();
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Could not remove entry '%s' from %s.", key, this), e);
+        } finally {
+            lock.unlockExclusive();
         }
     }
 
@@ -175,18 +254,35 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
     public void reset() {
         close();
+        lock.lockExclusive();
         try {
             open();
         } catch (Exception e) {
             throw new UncheckedIOException(e);
+        } finally {
+            lock.unlockExclusive();
         }
     }
 
+    /**
+     * Closes this cache, first evicting entries and compacting the cache file if required. Should not be called while
+     * other threads are using the cache.
+     */
     public void close() {
         try {
+            if (store.isOpen() && (!usedEntries.isEmpty() || isMaintenanceDue())) {
+                lock.lockExclusive();
+                try {
+                    maintain();
+                } finally {
+                    lock.unlockExclusive();
+                }
+            }
             store.close();
         } catch (Exception e) {
             throw new UncheckedIOException(e);
+        } finally {
+            lock.close();
         }
     }
 
@@ -194,19 +290,146 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         return store.isOpen();
     }
 
+    private boolean isMaintenanceDue() {
+        return header.lastMaintained < timeProvider.getCurrentTime() - MAINTENANCE_INTERVAL;
+    }
+
+    private void maintain() throws Exception {
+        long now = timeProvider.getCurrentTime();
+        Set<Long> used;
+        synchronized (usedEntries) {
+            used = new HashSet<Long>(usedEntries);
+            usedEntries.clear();
+        }
+        for (Long hashCode : used) {
+            Lookup lookup = header.getRoot().find(hashCode);
+            if (lookup.entry != null) {
+                DataBlock block = store.read(lookup.entry.dataBlock, DataBlock.class);
+                block.lastUsed = now;
+                store.write(block);
+            }
+        }
+        if (isMaintenanceDue()) {
+            evict(now);
+            header.lastMaintained = now;
+            store.write(header);
+        }
+        store.flush();
+    }
+
+    private void evict(long now) throws Exception {
+        List<EntryUsage> entries = new ArrayList<EntryUsage>();
+        collectUsage(header.getRoot(), entries);
+        Collections.sort(entries);
+
+        // Keep the most recently used entries which are young enough and which fit within the maximum size. Without a
+        // policy, every entry is kept
+        long expiry = evictionPolicy.getMaxAge() == Long.MAX_VALUE ? Long.MIN_VALUE : now - evictionPolicy.getMaxAge();
+        List<EntryUsage> live = new ArrayList<EntryUsage>();
+        List<EntryUsage> evicted = new ArrayList<EntryUsage>();
+        long liveSize = 0;
+        for (EntryUsage entry : entries) {
+            if (evicted.isEmpty() && entry.lastUsed >= expiry && liveSize + entry.size <= evictionPolicy.getMaxSize()) {
+                live.add(entry);
+                liveSize += entry.size;
+            } else {
+                evicted.add(entry);
+            }
+        }
+
+        long length = cacheFile.length();
+        if (length <= MIN_COMPACTION_LENGTH || length <= 2 * liveSize || !compact(live)) {
+            for (EntryUsage entry : evicted) {
+                Lookup lookup = header.getRoot().find(entry.hashCode);
+                if (lookup.entry != null) {
+                    lookup.indexBlock.remove(lookup.entry);
+                    store.remove(store.read(lookup.entry.dataBlock, DataBlock.class));
+                }
+            }
+        }
+        LOGGER.debug(String.format("Evicted %s of %s entries from %s. Reclaimed %s bytes.", evicted.size(),
+                entries.size(), this, length - cacheFile.length()));
+    }
+
+    private void collectUsage(IndexBlock block, Collection<EntryUsage> entries) throws Exception {
+        for (IndexEntry entry : block.entries) {
+            if (!entry.childIndexBlock.isNull()) {
+                collectUsage(store.read(entry.childIndexBlock, IndexBlock.class), entries);
+            }
+            DataBlock dataBlock = store.read(entry.dataBlock, DataBlock.class);
+            entries.add(new EntryUsage(entry.hashCode, entry.dataBlock, dataBlock.lastUsed, dataBlock.getBlock().getSize()));
+        }
+        if (!block.tailPos.isNull()) {
+            collectUsage(store.read(block.tailPos, IndexBlock.class), entries);
+        }
+    }
+
+    /**
+     * Rewrites the cache file, so that it contains only the given entries. The entries are copied to a new file beside
+     * the cache file, which then replaces the cache file, so that the entries are kept should the process stop part way
+     * through. The cache file cannot be replaced while another process has it open on some platforms, in which case the
+     * cache file is left as it is.
+     *
+     * @return true if the cache file was replaced.
+     */
+    private boolean compact(List<EntryUsage> entries) throws Exception {
+        File compactedFile = new File(cacheFile.getPath() + ".compact");
+        try {
+            compactedFile.delete();
+            StateCheckBlockStore cacheStore = store;
+            HeaderBlock cacheHeader = header;
+            store = createStore(compactedFile);
+            try {
+                doOpen();
+                for (int i = 0; i < entries.size(); i++) {
+                    EntryUsage entry = entries.get(i);
+                    DataBlock original = cacheStore.read(entry.dataBlock, DataBlock.class);
+                    DataBlock block = new DataBlock(original.serialisedValue, original.lastUsed);
+                    store.write(block);
+                    header.getRoot().find(entry.hashCode).indexBlock.put(entry.hashCode, block.getPos());
+                    if (i % COMPACTION_FLUSH_INTERVAL == 0) {
+                        store.flush();
+                    }
+                }
+                store.flush();
+            } finally {
+                store.close();
+                store = cacheStore;
+                header = cacheHeader;
+            }
+
+            store.close();
+            boolean replaced = replaceCacheFile(compactedFile);
+            doOpen();
+            if (!replaced) {
+                LOGGER.debug(String.format("Could not replace %s with compacted file %s. Skipping compaction.", this, compactedFile));
+            }
+            return replaced;
+        } finally {
+            compactedFile.delete();
+        }
+    }
+
+    boolean replaceCacheFile(File compactedFile) {
+        return compactedFile.renameTo(cacheFile) || (cacheFile.delete() && compactedFile.renameTo(cacheFile));
+    }
+
     private void rebuild() throws Exception {
         LOGGER.warn(String.format("%s is corrupt. Discarding.", this));
         store.clear();
-        close();
+        store.close();
         doOpen();
     }
 
     public void verify() {
+        lock.lockShared();
         try {
             doVerify();
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Some problems were found when checking the integrity of %s.",
                     this), e);
+        } finally {
+            lock.unlockShared();
         }
     }
 
@@ -299,6 +522,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
     private class HeaderBlock extends BlockPayload {
         private IndexRoot index;
+        private long lastMaintained;
 
         private HeaderBlock() {
             index = new IndexRoot(this);
@@ -306,12 +530,12 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
         @Override
         protected int getType() {
-            return 0x55;
+            return 0x56;
         }
 
         @Override
         protected int getSize() {
-            return Block.LONG_SIZE + Block.SHORT_SIZE;
+            return 2 * Block.LONG_SIZE + Block.SHORT_SIZE;
         }
 
         @Override
@@ -322,12 +546,14 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
             if (actualChildIndexEntries != maxChildIndexEntries) {
                 throw blockCorruptedException();
             }
+            lastMaintained = instr.readLong();
         }
 
         @Override
         protected void write(DataOutputStream outstr) throws Exception {
             outstr.writeLong(index.rootPos.getPos());
             outstr.writeShort(maxChildIndexEntries);
+            outstr.writeLong(lastMaintained);
         }
 
         public IndexBlock getRoot() throws Exception {
@@ -612,6 +838,33 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
     }
 
+    private static class EntryUsage implements Comparable<EntryUsage> {
+        final long hashCode;
+        final BlockPointer dataBlock;
+        final long lastUsed;
+        final int size;
+
+        private EntryUsage(long hashCode, BlockPointer dataBlock, long lastUsed, int size) {
+            this.hashCode = hashCode;
+            this.dataBlock = dataBlock;
+            this.lastUsed = lastUsed;
+            this.size = size;
+        }
+
+        /**
+         * Orders entries from most to least recently used.
+         */
+        public int compareTo(EntryUsage other) {
+            if (lastUsed > other.lastUsed) {
+                return -1;
+            }
+            if (lastUsed < other.lastUsed) {
+                return 1;
+            }
+            return 0;
+        }
+    }
+
     private class Lookup {
         final IndexBlock indexBlock;
         final IndexEntry entry;
@@ -624,22 +877,30 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
     private class DataBlock extends BlockPayload {
         private int size;
+        private long lastUsed;
         private byte[] serialisedValue;
         private V value;
 
         private DataBlock() {
         }
 
-        public DataBlock(String key, V value) throws Exception {
+        public DataBlock(V value) throws Exception {
             this.value = value;
             setValue(value);
             size = serialisedValue.length;
         }
 
+        private DataBlock(byte[] serialisedValue, long lastUsed) {
+            this.serialisedValue = serialisedValue;
+            this.lastUsed = lastUsed;
+            size = serialisedValue.length;
+        }
+
         public void setValue(V value) throws Exception {
             ByteArrayOutputStream outStr = new ByteArrayOutputStream();
             serializer.write(outStr, value);
             this.serialisedValue = outStr.toByteArray();
+            lastUsed = timeProvider.getCurrentTime();
         }
 
         public V getValue() throws Exception {
@@ -651,15 +912,16 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
         @Override
         protected int getType() {
-            return 0x33;
+            return 0x34;
         }
 
         @Override
         protected int getSize() {
-            return 2 * Block.INT_SIZE + size;
+            return Block.LONG_SIZE + 2 * Block.INT_SIZE + size;
         }
 
         public void read(DataInputStream instr) throws Exception {
+            lastUsed = instr.readLong();
             size = instr.readInt();
             int bytes = instr.readInt();
             serialisedValue = new byte[bytes];
@@ -667,6 +929,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
 
         public void write(DataOutputStream outstr) throws Exception {
+            outstr.writeLong(lastUsed);
             outstr.writeInt(size);
             outstr.writeInt(serialisedValue.length);
             outstr.write(serialisedValue);
@@ -1,100 +1,104 @@
-/*
- * Copyright 2009 the original author or authors.
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.gradle.cache.btree;
-
-import org.apache.commons.collections.map.LRUMap;
-
-import java.util.*;
-
-public class CachingBlockStore implements BlockStore {
-    private final BlockStore store;
-    private final Map<BlockPointer, BlockPayload> dirty = new LinkedHashMap<BlockPointer, BlockPayload>();
-    private final Map<BlockPointer, BlockPayload> indexBlockCache = new LRUMap(100);
-    private final Set<Class<?>> cachableTypes = new HashSet<Class<?>>();
-
-    public CachingBlockStore(BlockStore store, Class<? extends BlockPayload>... cacheableBlockTypes) {
-        this.store = store;
-        cachableTypes.addAll(Arrays.asList(cacheableBlockTypes));
-    }
-
-    public void open(Runnable initAction, Factory factory) {
-        store.open(initAction, factory);
-    }
-
-    public void close() {
-        flush();
-        indexBlockCache.clear();
-        store.close();
-    }
-
-    public void clear() {
-        dirty.clear();
-        indexBlockCache.clear();
-        store.clear();
-    }
-
-    public void flush() {
-        Iterator<BlockPayload> iterator = dirty.values().iterator();
-        while (iterator.hasNext()) {
-            BlockPayload block = iterator.next();
-            iterator.remove();
-            store.write(block);
-        }
-        store.flush();
-    }
-
-    public void attach(BlockPayload block) {
-        store.attach(block);
-    }
-
-    public void remove(BlockPayload block) {
-        dirty.remove(block.getPos());
-        indexBlockCache.remove(block.getPos());
-        store.remove(block);
-    }
-
-    public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
-        T block = store.readFirst(payloadType);
-        maybeCache(block);
-        return block;
-    }
-
-    public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
-        T block = payloadType.cast(dirty.get(pos));
-        if (block != null) {
-            return block;
-        }
-        block = payloadType.cast(indexBlockCache.get(pos));
-        if (block != null) {
-            return block;
-        }
-        block = store.read(pos, payloadType);
-        maybeCache(block);
-        return block;
-    }
-
-    public void write(BlockPayload block) {
-        store.attach(block);
-        maybeCache(block);
-        dirty.put(block.getPos(), block);
-    }
-
-    private <T extends BlockPayload> void maybeCache(T block) {
-        if (cachableTypes.contains(block.getClass())) {
-            indexBlockCache.put(block.getPos(), block);
-        }
-    }
-}
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.btree;
+
+import org.apache.commons.collections.map.LRUMap;
+
+import java.util.*;
+
+/**
+ * A {@link BlockStore} which caches blocks of the given types, and buffers writes until the store is flushed. Can be
+ * used by several threads to read blocks at the same time.
+ */
+public class CachingBlockStore implements BlockStore {
+    private final BlockStore store;
+    private final Map<BlockPointer, BlockPayload> dirty = new LinkedHashMap<BlockPointer, BlockPayload>();
+    private final Map<BlockPointer, BlockPayload> indexBlockCache = new LRUMap(100);
+    private final Set<Class<?>> cachableTypes = new HashSet<Class<?>>();
+
+    public CachingBlockStore(BlockStore store, Class<? extends BlockPayload>... cacheableBlockTypes) {
+        this.store = store;
+        cachableTypes.addAll(Arrays.asList(cacheableBlockTypes));
+    }
+
+    public synchronized void open(Runnable initAction, Factory factory) {
+        store.open(initAction, factory);
+    }
+
+    public synchronized void close() {
+        flush();
+        indexBlockCache.clear();
+        store.close();
+    }
+
+    public synchronized void clear() {
+        dirty.clear();
+        indexBlockCache.clear();
+        store.clear();
+    }
+
+    public synchronized void flush() {
+        Iterator<BlockPayload> iterator = dirty.values().iterator();
+        while (iterator.hasNext()) {
+            BlockPayload block = iterator.next();
+            iterator.remove();
+            store.write(block);
+        }
+        store.flush();
+    }
+
+    public synchronized void attach(BlockPayload block) {
+        store.attach(block);
+    }
+
+    public synchronized void remove(BlockPayload block) {
+        dirty.remove(block.getPos());
+        indexBlockCache.remove(block.getPos());
+        store.remove(block);
+    }
+
+    public synchronized <T extends BlockPayload> T readFirst(Class<T> payloadType) {
+        T block = store.readFirst(payloadType);
+        maybeCache(block);
+        return block;
+    }
+
+    public synchronized <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
+        T block = payloadType.cast(dirty.get(pos));
+        if (block != null) {
+            return block;
+        }
+        block = payloadType.cast(indexBlockCache.get(pos));
+        if (block != null) {
+            return block;
+        }
+        block = store.read(pos, payloadType);
+        maybeCache(block);
+        return block;
+    }
+
+    public synchronized void write(BlockPayload block) {
+        store.attach(block);
+        maybeCache(block);
+        dirty.put(block.getPos(), block);
+    }
+
+    private <T extends BlockPayload> void maybeCache(T block) {
+        if (cachableTypes.contains(block.getClass())) {
+            indexBlockCache.put(block.getPos(), block);
+        }
+    }
+}
@@ -20,14 +20,25 @@ import org.gradle.api.UncheckedIOException;
 import java.io.*;
 import java.util.zip.CRC32;
 
+/**
+ * A {@link BlockStore} which stores blocks in a file. Keeps recently used blocks, in their serialized form, in an
+ * {@link OffHeapBlockCache}, so that reading a recently used block does not touch the file. By default, the cache is
+ * shared with the other cache files.
+ */
 public class FileBackedBlockStore implements BlockStore {
     private RandomAccessFile file;
     private final File cacheFile;
     private long nextBlock;
+    private final OffHeapBlockCache blockCache;
     private Factory factory;
 
     public FileBackedBlockStore(File cacheFile) {
+        this(cacheFile, OffHeapBlockCache.getShared());
+    }
+
+    public FileBackedBlockStore(File cacheFile, OffHeapBlockCache blockCache) {
         this.cacheFile = cacheFile;
+        this.blockCache = blockCache;
     }
 
     @Override
@@ -49,6 +60,7 @@ public class FileBackedBlockStore implements BlockStore {
     }
 
     public void close() {
+        blockCache.clear(cacheFile);
         try {
             file.close();
         } catch (IOException e) {
@@ -63,6 +75,7 @@ public class FileBackedBlockStore implements BlockStore {
             throw new UncheckedIOException(e);
         }
         nextBlock = 0;
+        blockCache.clear(cacheFile);
     }
 
     public void attach(BlockPayload block) {
@@ -73,6 +86,9 @@ public class FileBackedBlockStore implements BlockStore {
 
     public void remove(BlockPayload block) {
         BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        if (blockImpl.hasPos()) {
+            blockCache.remove(cacheFile, blockImpl.getPos().getPos());
+        }
         blockImpl.detach();
     }
 
@@ -168,10 +184,9 @@ public class FileBackedBlockStore implements BlockStore {
 
         public void write() throws Exception {
             long pos = getPos().getPos();
-            file.seek(pos);
 
-            Crc32OutputStream checkSumOutputStream = new Crc32OutputStream(new BufferedOutputStream(
-                    new RandomAccessFileOutputStream(file)));
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_SIZE + TAIL_SIZE + payloadSize);
+            Crc32OutputStream checkSumOutputStream = new Crc32OutputStream(bytes);
             DataOutputStream outputStream = new DataOutputStream(checkSumOutputStream);
 
             BlockPayload payload = getPayload();
@@ -189,22 +204,48 @@ public class FileBackedBlockStore implements BlockStore {
             outputStream.writeLong(checkSumOutputStream.checksum.getValue());
             outputStream.close();
 
+            byte[] block = bytes.toByteArray();
+            file.seek(pos);
+            file.write(block);
+
             // Pad
             if (file.length() < finalSize) {
                 file.setLength(finalSize);
             }
+            blockCache.put(cacheFile, pos, block, block.length);
         }
 
         public void read() throws Exception {
             long pos = getPos().getPos();
             assert pos >= 0;
+            byte[] bytes = blockCache.get(cacheFile, pos);
+            if (bytes != null) {
+                parse(bytes);
+                return;
+            }
+
             if (pos + HEADER_SIZE >= file.length()) {
                 throw blockCorruptedException();
             }
+            file.seek(pos + 2);
+            int size = HEADER_SIZE + TAIL_SIZE + file.readInt();
+            if (size < HEADER_SIZE + TAIL_SIZE || pos + size > file.length()) {
+                throw blockCorruptedException();
+            }
+            bytes = new byte[size];
             file.seek(pos);
+            file.readFully(bytes);
 
-            Crc32InputStream checkSumInputStream = new Crc32InputStream(new BufferedInputStream(
-                    new RandomAccessFileInputStream(file)));
+            int length = parse(bytes);
+            blockCache.put(cacheFile, pos, bytes, length);
+        }
+
+        /**
+         * Reads the payload from the given serialized block, and returns the length of the block.
+         */
+        private int parse(byte[] bytes) throws Exception {
+            ByteArrayInputStream bytesInputStream = new ByteArrayInputStream(bytes);
+            Crc32InputStream checkSumInputStream = new Crc32InputStream(bytesInputStream);
             DataInputStream inputStream = new DataInputStream(checkSumInputStream);
 
             BlockPayload payload = getPayload();
@@ -221,10 +262,11 @@ public class FileBackedBlockStore implements BlockStore {
 
             // Read body
             payloadSize = inputStream.readInt();
-            if (pos + HEADER_SIZE + TAIL_SIZE + payloadSize > file.length()) {
+            try {
+                payload.read(inputStream);
+            } catch (EOFException e) {
                 throw blockCorruptedException();
             }
-            payload.read(inputStream);
 
             // Read and verify checksum
             long actualChecksum = checkSumInputStream.checksum.getValue();
@@ -232,7 +274,7 @@ public class FileBackedBlockStore implements BlockStore {
             if (actualChecksum != checksum) {
                 throw blockCorruptedException();
             }
-            inputStream.close();
+            return bytes.length - bytesInputStream.available();
         }
 
         public RuntimeException blockCorruptedException() {
@@ -241,52 +283,6 @@ public class FileBackedBlockStore implements BlockStore {
         }
     }
 
-    private static class RandomAccessFileInputStream extends InputStream {
-        private final RandomAccessFile file;
-
-        private RandomAccessFileInputStream(RandomAccessFile file) {
-            this.file = file;
-        }
-
-        @Override
-        public int read(byte[] bytes) throws IOException {
-            return file.read(bytes);
-        }
-
-        @Override
-        public int read() throws IOException {
-            return file.read();
-        }
-
-        @Override
-        public int read(byte[] bytes, int offset, int length) throws IOException {
-            return file.read(bytes, offset, length);
-        }
-    }
-
-    private static class RandomAccessFileOutputStream extends OutputStream {
-        private final RandomAccessFile file;
-
-        private RandomAccessFileOutputStream(RandomAccessFile file) {
-            this.file = file;
-        }
-
-        @Override
-        public void write(int i) throws IOException {
-            file.write(i);
-        }
-
-        @Override
-        public void write(byte[] bytes) throws IOException {
-            file.write(bytes);
-        }
-
-        @Override
-        public void write(byte[] bytes, int offset, int length) throws IOException {
-            file.write(bytes, offset, length);
-        }
-    }
-
     private static class Crc32InputStream extends FilterInputStream {
         private final CRC32 checksum;
 
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.btree;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>A bounded cache of serialized blocks, keyed by cache file and block position. The blocks are held outside the
+ * heap, in a direct buffer whose size is the budget of the cache. The buffer is divided into pages, and a block is held
+ * in as many pages as it needs. When there are not enough free pages for a block, the least recently used blocks are
+ * evicted.</p>
+ *
+ * <p>The buffer is allocated when the first block is added, and is reused for the lifetime of the cache. A single
+ * cache, returned by {@link #getShared()}, is shared by all cache files, so that the budget bounds the memory used by
+ * the process.</p>
+ */
+public class OffHeapBlockCache {
+    /**
+     * The system property which specifies the budget of the shared block cache, in megabytes.
+     */
+    public static final String BUDGET_PROPERTY = "org.gradle.cache.blockCacheSize";
+    private static final int DEFAULT_BUDGET = 16 * 1024 * 1024;
+    private static final int PAGE_SIZE = 512;
+    private static final OffHeapBlockCache SHARED = new OffHeapBlockCache(getDefaultBudget());
+    private final int pageCount;
+    private final Map<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+    private ByteBuffer buffer;
+    private int[] freePages;
+    private int freeCount;
+
+    public OffHeapBlockCache(long budget) {
+        pageCount = (int) Math.min(budget / PAGE_SIZE, Integer.MAX_VALUE / PAGE_SIZE);
+    }
+
+    /**
+     * Returns the cache shared by all cache files. Its budget is given by the {@value #BUDGET_PROPERTY} system
+     * property.
+     */
+    public static OffHeapBlockCache getShared() {
+        return SHARED;
+    }
+
+    private static long getDefaultBudget() {
+        Integer budget = Integer.getInteger(BUDGET_PROPERTY);
+        return budget == null ? DEFAULT_BUDGET : budget * 1024L * 1024L;
+    }
+
+    /**
+     * Returns a copy of the block at the given position of the given file, or null if the block is not cached.
+     */
+    public synchronized byte[] get(File file, long pos) {
+        Entry entry = entries.get(new Key(file, pos));
+        if (entry == null) {
+            return null;
+        }
+        byte[] bytes = new byte[entry.length];
+        for (int i = 0; i < entry.pages.length; i++) {
+            int offset = i * PAGE_SIZE;
+            buffer.position(entry.pages[i] * PAGE_SIZE);
+            buffer.get(bytes, offset, Math.min(PAGE_SIZE, entry.length - offset));
+        }
+        return bytes;
+    }
+
+    /**
+     * Adds a block to this cache, replacing any block at the same position of the same file.
+     */
+    public synchronized void put(File file, long pos, byte[] bytes, int length) {
+        Key key = new Key(file, pos);
+        remove(key);
+        int required = (length + PAGE_SIZE - 1) / PAGE_SIZE;
+        if (required > pageCount) {
+            return;
+        }
+        if (buffer == null) {
+            allocate();
+        }
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (freeCount < required) {
+            release(iterator.next());
+            iterator.remove();
+        }
+
+        Entry entry = new Entry(length, required);
+        for (int i = 0; i < required; i++) {
+            int page = freePages[--freeCount];
+            int offset = i * PAGE_SIZE;
+            buffer.position(page * PAGE_SIZE);
+            buffer.put(bytes, offset, Math.min(PAGE_SIZE, length - offset));
+            entry.pages[i] = page;
+        }
+        entries.put(key, entry);
+    }
+
+    public synchronized void remove(File file, long pos) {
+        remove(new Key(file, pos));
+    }
+
+    /**
+     * Discards the blocks of the given file. Their pages are kept for reuse.
+     */
+    public synchronized void clear(File file) {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Entry> entry = iterator.next();
+            if (entry.getKey().file.equals(file)) {
+                release(entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    private void remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            release(entry);
+        }
+    }
+
+    private void allocate() {
+        buffer = ByteBuffer.allocateDirect(pageCount * PAGE_SIZE);
+        freePages = new int[pageCount];
+        for (int i = 0; i < pageCount; i++) {
+            freePages[i] = pageCount - 1 - i;
+        }
+        freeCount = pageCount;
+    }
+
+    private void release(Entry entry) {
+        for (int page : entry.pages) {
+            freePages[freeCount++] = page;
+        }
+    }
+
+    private static class Key {
+        final File file;
+        final long pos;
+
+        private Key(File file, long pos) {
+            this.file = file;
+            this.pos = pos;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return pos == other.pos && file.equals(other.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return file.hashCode() ^ (int) (pos ^ (pos >>> 32));
+        }
+    }
+
+    private static class Entry {
+        final int length;
+        final int[] pages;
+
+        private Entry(int length, int pageCount) {
+            this.length = length;
+            pages = new int[pageCount];
+        }
+    }
+}
@@ -32,6 +32,7 @@ public class DefaultScriptPluginFactory implements ScriptPluginFactory {
     private final ScriptHandlerFactory scriptHandlerFactory;
     private final ClassLoader defaultClassLoader;
     private final Factory<LoggingManagerInternal> loggingManagerFactory;
+    private final Object compileLock = new Object();
 
     public DefaultScriptPluginFactory(ScriptCompilerFactory scriptCompilerFactory,
                                                 ImportsReader importsReader,
@@ -89,36 +90,41 @@ public class DefaultScriptPluginFactory implements ScriptPluginFactory {
             services.add(ScriptPluginFactory.class, DefaultScriptPluginFactory.this);
             services.add(LoggingManagerInternal.class, loggingManagerFactory.create());
 
+            // Compiling scripts and resolving the script classpath use shared caches, so projects which are evaluated
+            // in parallel take turns to do this
             ScriptAware scriptAware = null;
-            if (target instanceof ScriptAware) {
-                scriptAware = (ScriptAware) target;
-                scriptAware.beforeCompile(this);
-            }
-            ScriptClassLoaderProvider classLoaderProvider = this.classLoaderProvider;
-            ScriptSource withImports = importsReader.withImports(scriptSource);
-
-            if (classLoaderProvider == null) {
-                ScriptHandlerInternal defaultScriptHandler = scriptHandlerFactory.create(withImports, classLoader);
-                services.add(ScriptHandlerInternal.class, defaultScriptHandler);
-                classLoaderProvider = defaultScriptHandler;
-            }
+            ScriptRunner<? extends BasicScript> runner;
+            synchronized (compileLock) {
+                if (target instanceof ScriptAware) {
+                    scriptAware = (ScriptAware) target;
+                    scriptAware.beforeCompile(this);
+                }
+                ScriptClassLoaderProvider classLoaderProvider = this.classLoaderProvider;
+                ScriptSource withImports = importsReader.withImports(scriptSource);
+
+                if (classLoaderProvider == null) {
+                    ScriptHandlerInternal defaultScriptHandler = scriptHandlerFactory.create(withImports, classLoader);
+                    services.add(ScriptHandlerInternal.class, defaultScriptHandler);
+                    classLoaderProvider = defaultScriptHandler;
+                }
             
-            ScriptCompiler compiler = scriptCompilerFactory.createCompiler(withImports);
+                ScriptCompiler compiler = scriptCompilerFactory.createCompiler(withImports);
 
-            compiler.setClassloader(classLoaderProvider.getClassLoader());
+                compiler.setClassloader(classLoaderProvider.getClassLoader());
 
-            BuildScriptClasspathScriptTransformer classpathScriptTransformer
-                    = new BuildScriptClasspathScriptTransformer(classpathClosureName);
-            compiler.setTransformer(classpathScriptTransformer);
+                BuildScriptClasspathScriptTransformer classpathScriptTransformer
+                        = new BuildScriptClasspathScriptTransformer(classpathClosureName);
+                compiler.setTransformer(classpathScriptTransformer);
 
-            ScriptRunner<? extends BasicScript> classPathScriptRunner = compiler.compile(scriptType);
-            classPathScriptRunner.getScript().init(target, services);
-            classPathScriptRunner.run();
+                ScriptRunner<? extends BasicScript> classPathScriptRunner = compiler.compile(scriptType);
+                classPathScriptRunner.getScript().init(target, services);
+                classPathScriptRunner.run();
 
-            classLoaderProvider.updateClassPath();
+                classLoaderProvider.updateClassPath();
 
-            compiler.setTransformer(new BuildScriptTransformer(classpathScriptTransformer));
-            ScriptRunner<? extends BasicScript> runner = compiler.compile(scriptType);
+                compiler.setTransformer(new BuildScriptTransformer(classpathScriptTransformer));
+                runner = compiler.compile(scriptType);
+            }
 
             runner.getScript().init(target, services);
             if (scriptAware != null) {
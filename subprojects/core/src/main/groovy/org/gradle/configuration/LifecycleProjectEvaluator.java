@@ -20,12 +20,15 @@ import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.ProjectStateInternal;
 
 /**
- * Manages lifecycle concerns while delegating actual evaluation to another evaluator
- * 
+ * Manages lifecycle concerns while delegating actual evaluation to another evaluator. Project evaluation listeners are
+ * never notified concurrently, even when projects are evaluated in parallel.
+ *
+ * @see org.gradle.api.ProjectEvaluationListener
  * @see org.gradle.api.internal.project.TopLevelBuildServiceRegistry#createProjectEvaluator()
  */
 public class LifecycleProjectEvaluator implements ProjectEvaluator {
     private final ProjectEvaluator evaluator;
+    private final Object notificationLock = new Object();
 
     public LifecycleProjectEvaluator(ProjectEvaluator evaluator) {
         this.evaluator = evaluator;
@@ -37,14 +40,18 @@ public class LifecycleProjectEvaluator implements ProjectEvaluator {
         }
 
         ProjectEvaluationListener listener = project.getProjectEvaluationBroadcaster();
-        listener.beforeEvaluate(project);
+        synchronized (notificationLock) {
+            listener.beforeEvaluate(project);
+        }
         state.setExecuting(true);
         try {
             evaluator.evaluate(project, state);
         } finally {
             state.setExecuting(false);
             state.executed();
-            listener.afterEvaluate(project, state);
+            synchronized (notificationLock) {
+                listener.afterEvaluate(project, state);
+            }
         }
     }
 }
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration;
+
+import org.gradle.api.Project;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.project.IsolatedProjectEvaluation;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.resource.Resource;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+import org.gradle.util.UncheckedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * <p>A {@link BuildConfigurer} which evaluates the projects of a build in parallel, before delegating the remainder of
+ * the configuration to another configurer.</p>
+ *
+ * <p>The root project is evaluated first, by itself, so that it can inject configuration into the other projects using
+ * {@code allprojects { }} and {@code subprojects { }}. The remaining projects are then evaluated concurrently, using up
+ * to the given number of threads. A project is always evaluated after its parent project.</p>
+ *
+ * <p>Before the remaining projects are evaluated in parallel, their build scripts are scanned for the operations which
+ * configure or evaluate another project, such as {@code allprojects { }}, {@code project(path) { }} or {@code
+ * evaluationDependsOn()}. If any build script appears to use one of these, the projects are evaluated serially
+ * instead. The scan is conservative, and only looks at the build script itself, not at the scripts and plugins it
+ * applies.</p>
+ *
+ * <p>While the projects are being evaluated in parallel, an attempt by a project to configure or evaluate another
+ * project which was not found by the scan fails the build rather than racing with the evaluation of the other project.
+ * Other access to another project is not detected. See {@link IsolatedProjectEvaluation} for the details.</p>
+ */
+public class ParallelBuildConfigurer implements BuildConfigurer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelBuildConfigurer.class);
+    // Matches the uses of the operations which IsolatedProjectEvaluation checks, with or without an explicit receiver
+    private static final Pattern CROSS_PROJECT_CONFIGURATION = Pattern.compile(
+            "\\b(?:(?:allprojects|subprojects)\\s*[({]|(?:evaluationDependsOn|evaluationDependsOnChildren|childrenDependOnMe|dependsOnChildren)\\b|project\\s*\\([^(){}]*(?:,|\\))\\s*\\{)");
+    private final BuildConfigurer delegate;
+    private final ExecutorFactory executorFactory;
+    private final int maxThreads;
+
+    public ParallelBuildConfigurer(BuildConfigurer delegate, ExecutorFactory executorFactory, int maxThreads) {
+        this.delegate = delegate;
+        this.executorFactory = executorFactory;
+        this.maxThreads = maxThreads;
+    }
+
+    public void configure(GradleInternal gradle) {
+        ProjectInternal rootProject = gradle.getRootProject();
+        rootProject.evaluate();
+
+        List<ProjectInternal> projects = new ArrayList<ProjectInternal>();
+        for (Project project : rootProject.getSubprojects()) {
+            projects.add((ProjectInternal) project);
+        }
+        ProjectInternal configuresOtherProjects = findCrossProjectConfiguration(projects);
+        if (configuresOtherProjects != null) {
+            LOGGER.info("Evaluating projects serially, as the build script of {} may configure other projects.", configuresOtherProjects);
+        } else if (!projects.isEmpty()) {
+            evaluate(rootProject, projects);
+        }
+
+        delegate.configure(gradle);
+    }
+
+    /**
+     * Returns the first of the given projects whose build script appears to configure or evaluate other projects, or
+     * null if there is no such project.
+     */
+    private ProjectInternal findCrossProjectConfiguration(List<ProjectInternal> projects) {
+        for (ProjectInternal project : projects) {
+            Resource buildScript = project.getBuildScriptSource().getResource();
+            if (buildScript.getExists() && CROSS_PROJECT_CONFIGURATION.matcher(buildScript.getText()).find()) {
+                return project;
+            }
+        }
+        return null;
+    }
+
+    private void evaluate(ProjectInternal rootProject, List<ProjectInternal> projects) {
+        Evaluation evaluation = new Evaluation(rootProject, projects.size());
+        StoppableExecutor executor = executorFactory.create("Project evaluation");
+        try {
+            int threads = Math.min(maxThreads, projects.size());
+            for (int i = 0; i < threads; i++) {
+                executor.execute(evaluation);
+            }
+        } finally {
+            executor.stop();
+        }
+
+        // Report the failure of the first failed project in build order, as would happen when evaluating serially
+        for (ProjectInternal project : projects) {
+            Throwable failure = evaluation.failures.get(project);
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            if (failure != null) {
+                throw UncheckedException.asUncheckedException(failure);
+            }
+        }
+    }
+
+    /**
+     * Hands out projects to the evaluation threads. A project is not evaluated until its parent has been evaluated, so
+     * that the properties which it inherits from its parent are not changing while it is evaluated.
+     */
+    private static class Evaluation implements Runnable {
+        private final Object lock = new Object();
+        private final LinkedList<ProjectInternal> ready = new LinkedList<ProjectInternal>();
+        private final Map<ProjectInternal, Throwable> failures = new HashMap<ProjectInternal, Throwable>();
+        private int pending;
+        private boolean failed;
+
+        private Evaluation(ProjectInternal rootProject, int projectCount) {
+            pending = projectCount;
+            addChildren(rootProject);
+        }
+
+        public void run() {
+            ProjectInternal project;
+            while ((project = next()) != null) {
+                Throwable failure = null;
+                IsolatedProjectEvaluation.start(project);
+                try {
+                    project.evaluate();
+                } catch (Throwable t) {
+                    failure = t;
+                } finally {
+                    IsolatedProjectEvaluation.finish();
+                }
+                completed(project, failure);
+            }
+        }
+
+        private ProjectInternal next() {
+            synchronized (lock) {
+                while (!failed && ready.isEmpty() && pending > 0) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.asUncheckedException(e);
+                    }
+                }
+                if (failed || ready.isEmpty()) {
+                    return null;
+                }
+                return ready.removeFirst();
+            }
+        }
+
+        private void completed(ProjectInternal project, Throwable failure) {
+            synchronized (lock) {
+                pending--;
+                if (failure != null) {
+                    failures.put(project, failure);
+                    failed = true;
+                } else {
+                    addChildren(project);
+                }
+                lock.notifyAll();
+            }
+        }
+
+        private void addChildren(ProjectInternal project) {
+            for (Project child : new TreeSet<Project>(project.getChildProjects().values())) {
+                ready.add((ProjectInternal) child);
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.execution;
 
 import groovy.lang.Closure;
+import org.gradle.api.Action;
 import org.gradle.api.CircularReferenceException;
 import org.gradle.api.Task;
 import org.gradle.api.execution.TaskExecutionGraphListener;
@@ -44,8 +45,18 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
     private final Set<Task> executionPlan = new LinkedHashSet<Task>();
     private boolean populated;
     private Spec<? super Task> filter = Specs.satisfyAll();
+    private final Action<? super Collection<Task>> beforeExecution;
 
     public DefaultTaskGraphExecuter(ListenerManager listenerManager) {
+        this(listenerManager, null);
+    }
+
+    /**
+     * @param beforeExecution An action to apply to the tasks to be executed, once the graph listeners have been
+     * notified and immediately before the first task is executed. May be null.
+     */
+    public DefaultTaskGraphExecuter(ListenerManager listenerManager, Action<? super Collection<Task>> beforeExecution) {
+        this.beforeExecution = beforeExecution;
         graphListeners = listenerManager.createAnonymousBroadcaster(TaskExecutionGraphListener.class);
         taskListeners = listenerManager.createAnonymousBroadcaster(TaskExecutionListener.class);
     }
@@ -75,6 +86,9 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         graphListeners.getSource().graphPopulated(this);
 
         try {
+            if (beforeExecution != null) {
+                beforeExecution.execute(Collections.unmodifiableSet(executionPlan));
+            }
             doExecute(executionPlan);
             logger.debug("Timing: Executing the DAG took " + clock.getTime());
         } finally {
@@ -92,9 +92,9 @@ public class DefaultListenerManager implements ListenerManager {
             if (broadcaster == null) {
                 broadcaster = new ListenerBroadcast<T>(listenerClass);
                 broadcaster.add(getLogger(listenerClass));
-                broadcaster.add(getDispatcher(listenerClass));
+                broadcaster.add(getDispatcher(listenerClass).getSource());
                 if (parent != null) {
-                    broadcaster.add(parent.getDispatcher(listenerClass));
+                    broadcaster.add(parent.getDispatcher(listenerClass).getSource());
                 }
                 broadcasters.put(listenerClass, broadcaster);
             }
@@ -160,7 +160,7 @@ public class DefaultListenerManager implements ListenerManager {
 
     private static class LoggerDispatch implements Dispatch<MethodInvocation> {
         private final Class<?> type;
-        private Dispatch<MethodInvocation> dispatch;
+        private volatile Dispatch<MethodInvocation> dispatch;
 
         private LoggerDispatch(Class<?> type, LoggerDispatch parentDispatch) {
             this.type = type;
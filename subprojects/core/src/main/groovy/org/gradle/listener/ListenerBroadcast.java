@@ -28,10 +28,12 @@ import org.gradle.messaging.dispatch.*;
  * <p>Ordering is maintained for events, so that events are delivered to listeners in the order they are generated.
  * Events are delivered to listeners in the order that listeners are added to this broadcaster.</p>
  *
+ * <p>Listeners may be added and removed concurrently with the delivery of events.</p>
+ *
  * @param <T> The listener type.
  */
 public class ListenerBroadcast<T> implements StoppableDispatch<MethodInvocation> {
-    private final ProxyDispatchAdapter<T> source;
+    private final T source;
     private final BroadcastDispatch<T> broadcast;
     private final Class<T> type;
     private final StoppableDispatch<MethodInvocation> dispatch;
@@ -48,7 +50,11 @@ public class ListenerBroadcast<T> implements StoppableDispatch<MethodInvocation>
         this.type = type;
         broadcast = new BroadcastDispatch<T>(type);
         dispatch = transformer.transform(broadcast);
-        source = new ProxyDispatchAdapter<T>(type, dispatch);
+        if (dispatch == broadcast) {
+            source = broadcast.getSource();
+        } else {
+            source = new ProxyDispatchAdapter<T>(type, dispatch).getSource();
+        }
     }
 
     /**
@@ -57,7 +63,7 @@ public class ListenerBroadcast<T> implements StoppableDispatch<MethodInvocation>
      * @return The broadcaster.
      */
     public T getSource() {
-        return source.getSource();
+        return source;
     }
 
     /**
@@ -32,6 +32,12 @@ import java.io.FileDescriptor;
  * A {@link org.gradle.api.internal.project.ServiceRegistry} implementation which provides the logging services.
  */
 public class LoggingServiceRegistry extends DefaultServiceRegistry {
+    /**
+     * The system property which enables rendering of output on a separate thread. The value is either {@code true} or
+     * the maximum number of output events to queue.
+     */
+    public static final String ASYNC_OUTPUT_PROPERTY = "org.gradle.logging.async";
+    private static final int DEFAULT_ASYNC_OUTPUT_BUFFER_SIZE = 4096;
     private TextStreamOutputEventListener stdoutListener;
     private final boolean detectConsole;
 
@@ -112,6 +118,13 @@ public class LoggingServiceRegistry extends DefaultServiceRegistry {
         } else {
             terminalDetector = Specs.satisfyNone();
         }
-        return new OutputEventRenderer(terminalDetector).addStandardOutputAndError();
+        OutputEventRenderer renderer = new OutputEventRenderer(terminalDetector).addStandardOutputAndError();
+        String asyncOutput = System.getProperty(ASYNC_OUTPUT_PROPERTY, "false");
+        if (asyncOutput.equals("true")) {
+            renderer.enableAsyncRendering(DEFAULT_ASYNC_OUTPUT_BUFFER_SIZE);
+        } else if (asyncOutput.matches("\\d+")) {
+            renderer.enableAsyncRendering(Integer.parseInt(asyncOutput));
+        }
+        return renderer;
     }
 }
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.logging.internal;
+
+import org.gradle.messaging.concurrent.Stoppable;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>An {@link OutputEventListener} which forwards events to a {@link BatchListener} on a separate rendering thread, so
+ * that the threads which generate output do not block on I/O. Events are forwarded in batches, in the order they were
+ * generated.</p>
+ *
+ * <p>The events are held in a bounded {@link OutputEventBuffer}. When the buffer is full, {@link ProgressEvent}s are
+ * discarded, as they are superseded by the next progress event, and all other events wait for space. Consecutive
+ * progress events in a batch are merged, so that only the most recent status is forwarded.</p>
+ */
+public class AsyncOutputEventListener implements OutputEventListener, Stoppable {
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private final OutputEventBuffer buffer;
+    private final BatchListener listener;
+    private final Thread thread;
+    private volatile boolean waiting;
+    private volatile boolean stopped;
+    private volatile long rendered;
+    private final AtomicLong discarded = new AtomicLong();
+    // The number of threads which are adding an event to the buffer
+    private final AtomicInteger adding = new AtomicInteger();
+
+    public AsyncOutputEventListener(BatchListener listener, int bufferSize) {
+        this.listener = listener;
+        buffer = new OutputEventBuffer(bufferSize);
+        thread = new Thread(new Runnable() {
+            public void run() {
+                render();
+            }
+        });
+        thread.setName("Output renderer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void onOutput(OutputEvent event) {
+        if (Thread.currentThread() == thread) {
+            // A listener generated some output while rendering, so render it now rather than wait for ourselves
+            listener.onOutput(Collections.singletonList(event));
+            return;
+        }
+        adding.incrementAndGet();
+        try {
+            if (stopped) {
+                listener.onOutput(Collections.singletonList(event));
+                return;
+            }
+            add(event);
+        } finally {
+            adding.decrementAndGet();
+        }
+    }
+
+    private void add(OutputEvent event) {
+        if (!buffer.offer(event)) {
+            if (event.getClass() == ProgressEvent.class) {
+                discarded.incrementAndGet();
+                return;
+            }
+            long backoff = 1;
+            do {
+                wakeRenderer();
+                if (backoff < 16) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(Math.min(backoff, IDLE_WAIT_NANOS));
+                }
+                backoff <<= 1;
+            } while (!buffer.offer(event));
+        }
+        if (waiting) {
+            wakeRenderer();
+        }
+    }
+
+    /**
+     * Blocks until all events generated before this method was called have been forwarded.
+     */
+    public void flush() {
+        if (Thread.currentThread() == thread) {
+            return;
+        }
+        long target = buffer.getAddedCount();
+        while (rendered < target && thread.isAlive()) {
+            wakeRenderer();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Returns the number of progress events discarded because the buffer was full.
+     */
+    public long getDiscardedCount() {
+        return discarded.get();
+    }
+
+    /**
+     * Forwards all pending events and stops the rendering thread. Events received after this method has been called
+     * are forwarded synchronously.
+     */
+    public void stop() {
+        flush();
+        stopped = true;
+        // Wait for the threads which did not see the stop to add their events, so that none are left in the buffer
+        while (adding.get() > 0) {
+            wakeRenderer();
+            Thread.yield();
+        }
+        wakeRenderer();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<OutputEvent> remaining = new ArrayList<OutputEvent>();
+        buffer.drainTo(remaining, Integer.MAX_VALUE);
+        if (!remaining.isEmpty()) {
+            listener.onOutput(remaining);
+        }
+    }
+
+    private void wakeRenderer() {
+        LockSupport.unpark(thread);
+    }
+
+    private void render() {
+        List<OutputEvent> batch = new ArrayList<OutputEvent>(MAX_BATCH_SIZE);
+        while (true) {
+            int count = buffer.drainTo(batch, MAX_BATCH_SIZE);
+            if (count == 0) {
+                if (stopped) {
+                    return;
+                }
+                waiting = true;
+                if (buffer.isEmpty() && !stopped) {
+                    LockSupport.parkNanos(IDLE_WAIT_NANOS);
+                }
+                waiting = false;
+                continue;
+            }
+            try {
+                listener.onOutput(merge(batch));
+            } catch (Throwable t) {
+                reportFailure(t);
+            } finally {
+                batch.clear();
+                rendered += count;
+            }
+        }
+    }
+
+    private void reportFailure(Throwable failure) {
+        // Cannot log the failure, as we are the thing which renders log output, so write it directly to the process' stderr
+        PrintStream stderr = new PrintStream(new FileOutputStream(FileDescriptor.err), true);
+        stderr.println("Could not render output events.");
+        failure.printStackTrace(stderr);
+    }
+
+    private List<OutputEvent> merge(List<OutputEvent> batch) {
+        List<OutputEvent> merged = null;
+        for (int i = 0; i < batch.size(); i++) {
+            OutputEvent event = batch.get(i);
+            boolean superseded = i + 1 < batch.size() && isSupersededBy(event, batch.get(i + 1));
+            if (superseded && merged == null) {
+                merged = new ArrayList<OutputEvent>(batch.subList(0, i));
+            } else if (!superseded && merged != null) {
+                merged.add(event);
+            }
+        }
+        return merged == null ? batch : merged;
+    }
+
+    private boolean isSupersededBy(OutputEvent event, OutputEvent next) {
+        if (event.getClass() != ProgressEvent.class || next.getClass() != ProgressEvent.class) {
+            return false;
+        }
+        String category = ((ProgressEvent) event).getCategory();
+        String nextCategory = ((ProgressEvent) next).getCategory();
+        return category == null ? nextCategory == null : category.equals(nextCategory);
+    }
+
+    /**
+     * Receives batches of events on the rendering thread.
+     */
+    public interface BatchListener {
+        void onOutput(List<OutputEvent> events);
+    }
+}
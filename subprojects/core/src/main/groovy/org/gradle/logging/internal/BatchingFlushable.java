@@ -0,0 +1,52 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.logging.internal;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * A {@link Flushable} which can defer flushing its target until the end of a batch of output. Not thread-safe.
+ */
+public class BatchingFlushable implements Flushable {
+    private final Flushable target;
+    private boolean batching;
+    private boolean flushRequired;
+
+    public BatchingFlushable(Flushable target) {
+        this.target = target;
+    }
+
+    public void startBatch() {
+        batching = true;
+    }
+
+    public void endBatch() throws IOException {
+        batching = false;
+        if (flushRequired) {
+            flush();
+        }
+    }
+
+    public void flush() throws IOException {
+        if (batching) {
+            flushRequired = true;
+            return;
+        }
+        flushRequired = false;
+        target.flush();
+    }
+}
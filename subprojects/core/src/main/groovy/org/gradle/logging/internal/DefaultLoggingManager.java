@@ -159,6 +159,10 @@ public class DefaultLoggingManager implements LoggingManagerInternal {
         loggingOutput.colorStdOutAndStdErr(colorOutput);
     }
 
+    public void flush() {
+        loggingOutput.flush();
+    }
+
     private static class StartableLoggingSystem implements Stoppable {
         private final LoggingSystem loggingSystem;
         private LogLevel level;
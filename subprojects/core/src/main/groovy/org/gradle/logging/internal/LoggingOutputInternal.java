@@ -23,4 +23,9 @@ public interface LoggingOutputInternal extends LoggingOutput {
     void addOutputEventListener(OutputEventListener listener);
 
     void removeOutputEventListener(OutputEventListener listener);
+
+    /**
+     * Blocks until all output generated so far has been rendered.
+     */
+    void flush();
 }
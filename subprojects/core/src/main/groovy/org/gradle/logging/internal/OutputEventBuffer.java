@@ -0,0 +1,120 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.logging.internal;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free ring buffer of output events. Any number of threads may add events, but only a single thread
+ * may remove them.
+ */
+public class OutputEventBuffer {
+    private final int mask;
+    private final AtomicReferenceArray<OutputEvent> events;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity The minimum capacity of this buffer. It is rounded up to a power of 2.
+     */
+    public OutputEventBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Buffer capacity must be at least 2.");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        mask = size - 1;
+        events = new AtomicReferenceArray<OutputEvent>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Adds an event to this buffer, if there is space available. Does not block.
+     *
+     * @return true if the event was added, false if this buffer is full.
+     */
+    public boolean offer(OutputEvent event) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    events.set(index, event);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (sequence < position) {
+                // The consumer has not yet removed the event which previously occupied this slot
+                return false;
+            }
+            // Another producer claimed this slot first, so try again
+        }
+    }
+
+    /**
+     * Removes available events from this buffer and adds them to the given list. Must only be called by the consuming
+     * thread.
+     *
+     * @return The number of events removed.
+     */
+    public int drainTo(List<? super OutputEvent> target, int maxEvents) {
+        long position = head.get();
+        int count = 0;
+        while (count < maxEvents) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                // Empty, or a producer has claimed the slot but not yet published its event
+                break;
+            }
+            target.add(events.get(index));
+            events.set(index, null);
+            sequences.set(index, position + mask + 1);
+            position++;
+            count++;
+        }
+        head.set(position);
+        return count;
+    }
+
+    /**
+     * Returns the total number of events added to this buffer.
+     */
+    public long getAddedCount() {
+        return tail.get();
+    }
+
+    /**
+     * Returns the total number of events removed from this buffer.
+     */
+    public long getRemovedCount() {
+        return head.get();
+    }
+
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+}
@@ -15,17 +15,26 @@
  */
 package org.gradle.logging.internal;
 
+import org.gradle.api.UncheckedIOException;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.StandardOutputListener;
 import org.gradle.api.specs.Spec;
 import org.gradle.listener.ListenerBroadcast;
 
 import java.io.FileDescriptor;
+import java.io.Flushable;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * A {@link org.gradle.logging.internal.OutputEventListener} implementation which renders output events to various
- * destinations. This implementation is thread-safe.
+ * <p>A {@link org.gradle.logging.internal.OutputEventListener} implementation which renders output events to various
+ * destinations. This implementation is thread-safe.</p>
+ *
+ * <p>By default, events are rendered on the thread which generates them. When asynchronous rendering is enabled, events
+ * are instead queued and rendered in batches on a separate thread, and the console and streams are flushed once per
+ * batch. Use {@link #flush()} to wait for queued events to be rendered.</p>
  */
 public class OutputEventRenderer implements OutputEventListener, LoggingConfigurer, LoggingOutputInternal {
     private final ListenerBroadcast<OutputEventListener> formatters = new ListenerBroadcast<OutputEventListener>(OutputEventListener.class);
@@ -34,7 +43,9 @@ public class OutputEventRenderer implements OutputEventListener, LoggingConfigur
     private final Spec<FileDescriptor> terminalDetector;
     private final Object lock = new Object();
     private final DefaultColorMap colourMap = new DefaultColorMap();
-    private LogLevel logLevel = LogLevel.LIFECYCLE;
+    private final List<BatchingFlushable> flushables = new ArrayList<BatchingFlushable>();
+    private volatile LogLevel logLevel = LogLevel.LIFECYCLE;
+    private volatile AsyncOutputEventListener asyncRenderer;
 
     public OutputEventRenderer(Spec<FileDescriptor> terminalDetector) {
         OutputEventListener stdOutChain = onNonError(new ProgressLogEventGenerator(new StyledTextOutputBackedRenderer(new StreamingStyledTextOutput(stdoutListeners.getSource())), false));
@@ -55,12 +66,12 @@ public class OutputEventRenderer implements OutputEventListener, LoggingConfigur
         boolean stdErrIsTerminal = terminalDetector.isSatisfiedBy(FileDescriptor.err);
         if (stdOutIsTerminal) {
             PrintStream outStr = org.fusesource.jansi.AnsiConsole.out();
-            Console console = new AnsiConsole(outStr, outStr, colourMap);
+            Console console = new AnsiConsole(outStr, batching(outStr), colourMap);
             addConsole(console, true, stdErrIsTerminal);
         } else if (stdErrIsTerminal) {
             // Only stderr is connected to a terminal
             PrintStream errStr = org.fusesource.jansi.AnsiConsole.err();
-            Console console = new AnsiConsole(errStr, errStr, colourMap);
+            Console console = new AnsiConsole(errStr, batching(errStr), colourMap);
             addConsole(console, false, true);
         }
         if (!stdOutIsTerminal) {
@@ -73,15 +84,55 @@ public class OutputEventRenderer implements OutputEventListener, LoggingConfigur
     }
 
     public OutputEventRenderer addStandardOutput(final Appendable out) {
-        addStandardOutputListener(new StreamBackedStandardOutputListener(out));
+        addStandardOutputListener(streamListener(out));
         return this;
     }
 
     public OutputEventRenderer addStandardError(final Appendable err) {
-        addStandardErrorListener(new StreamBackedStandardOutputListener(err));
+        addStandardErrorListener(streamListener(err));
         return this;
     }
 
+    private StandardOutputListener streamListener(Appendable target) {
+        if (target instanceof Flushable) {
+            return new StreamBackedStandardOutputListener(target, batching((Flushable) target));
+        }
+        return new StreamBackedStandardOutputListener(target);
+    }
+
+    private Flushable batching(Flushable target) {
+        BatchingFlushable flushable = new BatchingFlushable(target);
+        synchronized (lock) {
+            flushables.add(flushable);
+        }
+        return flushable;
+    }
+
+    /**
+     * Starts rendering events on a separate thread.
+     *
+     * @param bufferSize The maximum number of events to queue before the threads which generate output are blocked.
+     */
+    public OutputEventRenderer enableAsyncRendering(int bufferSize) {
+        synchronized (lock) {
+            if (asyncRenderer == null) {
+                asyncRenderer = new AsyncOutputEventListener(new AsyncOutputEventListener.BatchListener() {
+                    public void onOutput(List<OutputEvent> events) {
+                        render(events);
+                    }
+                }, bufferSize);
+            }
+        }
+        return this;
+    }
+
+    public void flush() {
+        AsyncOutputEventListener renderer = asyncRenderer;
+        if (renderer != null) {
+            renderer.flush();
+        }
+    }
+
     public void addOutputEventListener(OutputEventListener listener) {
         formatters.add(listener);
     }
@@ -153,19 +204,52 @@ public class OutputEventRenderer implements OutputEventListener, LoggingConfigur
     }
 
     public void onOutput(OutputEvent event) {
-        synchronized (lock) {
-            if (event.getLogLevel() != null && event.getLogLevel().compareTo(logLevel) < 0) {
-                return;
-            }
-            if (event instanceof LogLevelChangeEvent) {
+        if (event.getLogLevel() != null && event.getLogLevel().compareTo(logLevel) < 0) {
+            return;
+        }
+        if (event instanceof LogLevelChangeEvent) {
+            synchronized (lock) {
                 LogLevelChangeEvent changeEvent = (LogLevelChangeEvent) event;
                 LogLevel newLogLevel = changeEvent.getNewLogLevel();
                 if (newLogLevel == this.logLevel) {
                     return;
                 }
                 this.logLevel = newLogLevel;
+                if (asyncRenderer == null) {
+                    formatters.getSource().onOutput(event);
+                    return;
+                }
             }
+        }
+        // Don't hold the lock when queueing, as the rendering thread holds it while it writes a batch
+        AsyncOutputEventListener renderer = asyncRenderer;
+        if (renderer != null) {
+            renderer.onOutput(event);
+            return;
+        }
+        synchronized (lock) {
             formatters.getSource().onOutput(event);
         }
     }
+
+    private void render(List<OutputEvent> events) {
+        synchronized (lock) {
+            for (BatchingFlushable flushable : flushables) {
+                flushable.startBatch();
+            }
+            try {
+                for (OutputEvent event : events) {
+                    formatters.getSource().onOutput(event);
+                }
+            } finally {
+                try {
+                    for (BatchingFlushable flushable : flushables) {
+                        flushable.endBatch();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
 }
@@ -36,6 +36,11 @@ public class StreamBackedStandardOutputListener implements StandardOutputListene
         }
     }
 
+    public StreamBackedStandardOutputListener(Appendable appendable, Flushable flushable) {
+        this.appendable = appendable;
+        this.flushable = flushable;
+    }
+
     public StreamBackedStandardOutputListener(OutputStream outputStream) {
         this(new OutputStreamWriter(outputStream));
     }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.messaging.dispatch;
+
+import java.lang.reflect.Method;
+
+/**
+ * The base class for the broadcasters generated by {@link AsmBackedBroadcastGenerator}. Generated subclasses implement
+ * the listener interface, and call each listener of the {@link BroadcastDispatch} directly.
+ */
+public abstract class AbstractBroadcaster {
+    private final BroadcastDispatch<?> broadcast;
+    private final Method[] methods;
+
+    protected AbstractBroadcaster(BroadcastDispatch<?> broadcast, Method[] methods) {
+        this.broadcast = broadcast;
+        this.methods = methods;
+    }
+
+    protected final Object[] getHandlers() {
+        return broadcast.getHandlers();
+    }
+
+    protected final MethodInvocation invocation(int method, Object[] arguments) {
+        return new MethodInvocation(methods[method], arguments);
+    }
+
+    protected final Throwable failed(Throwable previous, Throwable failure) {
+        return broadcast.failed(previous, failure);
+    }
+
+    protected final void complete(Throwable failure) {
+        broadcast.complete(failure);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s broadcast", broadcast.getType().getSimpleName());
+    }
+}
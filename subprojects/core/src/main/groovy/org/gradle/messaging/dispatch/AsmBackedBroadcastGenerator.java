@@ -0,0 +1,340 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.messaging.dispatch;
+
+import org.gradle.util.ReflectionUtil;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * <p>Generates an implementation of a listener interface which broadcasts each method call to the handlers of a {@link
+ * BroadcastDispatch}. Listeners are called directly through the interface, rather than reflectively.</p>
+ *
+ * <p>The generated classes are cached only weakly, so that the ClassLoader of a listener type, such as a build script
+ * ClassLoader, can still be collected. The generated class is defined in the listener type's ClassLoader, and is reused
+ * from there if its cache entry has been collected.</p>
+ */
+public class AsmBackedBroadcastGenerator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsmBackedBroadcastGenerator.class);
+    private static final Map<Class<?>, WeakReference<GeneratedBroadcaster>> CACHED_CLASSES = new WeakHashMap<Class<?>, WeakReference<GeneratedBroadcaster>>();
+    private final Type broadcasterType = Type.getType(AbstractBroadcaster.class);
+    private final Type broadcastDispatchType = Type.getType(BroadcastDispatch.class);
+    private final Type dispatchType = Type.getType(Dispatch.class);
+    private final Type methodInvocationType = Type.getType(MethodInvocation.class);
+    private final Type objectType = Type.getType(Object.class);
+    private final Type throwableType = Type.getType(Throwable.class);
+
+    /**
+     * Creates a broadcaster for the given dispatch.
+     *
+     * @return The broadcaster, or null when no broadcaster class can be generated for the listener type.
+     */
+    public <T> T newInstance(Class<T> type, BroadcastDispatch<T> broadcast) {
+        GeneratedBroadcaster broadcaster;
+        synchronized (CACHED_CLASSES) {
+            WeakReference<GeneratedBroadcaster> reference = CACHED_CLASSES.get(type);
+            broadcaster = reference == null ? null : reference.get();
+            if (broadcaster == null) {
+                Method[] methods = getMethods(type);
+                Constructor<?> constructor = null;
+                if (methods != null) {
+                    try {
+                        constructor = generate(type, methods).getConstructor(BroadcastDispatch.class, Method[].class);
+                    } catch (Throwable e) {
+                        LOGGER.debug(String.format("Could not generate a broadcaster class for %s.", type.getName()), e);
+                    }
+                }
+                broadcaster = new GeneratedBroadcaster(constructor, methods);
+                CACHED_CLASSES.put(type, new WeakReference<GeneratedBroadcaster>(broadcaster));
+            }
+        }
+        if (broadcaster.constructor == null) {
+            return null;
+        }
+        try {
+            return type.cast(broadcaster.constructor.newInstance(broadcast, broadcaster.methods));
+        } catch (Exception e) {
+            throw new DispatchException(String.format("Could not create a broadcaster for %s.", type.getName()), e);
+        }
+    }
+
+    /**
+     * Returns the methods to generate, or null when the type is not suitable for a generated broadcaster.
+     */
+    private Method[] getMethods(Class<?> type) {
+        if (!type.isInterface() || type.getClassLoader() == null) {
+            return null;
+        }
+        for (Class<?> c = type; c != null; c = c.getEnclosingClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                return null;
+            }
+        }
+        try {
+            if (Class.forName(AbstractBroadcaster.class.getName(), false, type.getClassLoader())
+                    != AbstractBroadcaster.class) {
+                return null;
+            }
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+
+        Map<String, Method> methods = new TreeMap<String, Method>();
+        for (Method method : type.getMethods()) {
+            if (method.getReturnType() != void.class) {
+                // Proxy based broadcasts return null from these methods, so leave them to the proxy
+                return null;
+            }
+            String key = method.getName() + Type.getMethodDescriptor(method);
+            if (!methods.containsKey(key)) {
+                methods.put(key, method);
+            }
+        }
+        return methods.values().toArray(new Method[methods.size()]);
+    }
+
+    private Class<?> generate(Class<?> type, Method[] methods) {
+        String typeName = type.getName() + "_Broadcast";
+        Class<?> existing = (Class<?>) ReflectionUtil.invoke(type.getClassLoader(), "findLoadedClass", typeName);
+        if (existing != null) {
+            return existing;
+        }
+
+        ClassWriter visitor = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        Type generatedType = Type.getType("L" + typeName.replaceAll("\\.", "/") + ";");
+        Type listenerType = Type.getType(type);
+        visitor.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL, generatedType.getInternalName(), null,
+                broadcasterType.getInternalName(), new String[]{listenerType.getInternalName()});
+
+        // GENERATE public <init>(BroadcastDispatch broadcast, Method[] methods) { super(broadcast, methods); }
+
+        String constructorDescriptor = Type.getMethodDescriptor(Type.VOID_TYPE, new Type[]{
+                broadcastDispatchType, Type.getType(Method[].class)
+        });
+        MethodVisitor methodVisitor = visitor.visitMethod(Opcodes.ACC_PUBLIC, "<init>", constructorDescriptor, null,
+                new String[0]);
+        methodVisitor.visitCode();
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 1);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 2);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, broadcasterType.getInternalName(), "<init>",
+                constructorDescriptor);
+        methodVisitor.visitInsn(Opcodes.RETURN);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+
+        for (int i = 0; i < methods.length; i++) {
+            addBroadcastMethod(visitor, listenerType, i, methods[i]);
+        }
+
+        visitor.visitEnd();
+
+        byte[] bytecode = visitor.toByteArray();
+        return (Class<?>) ReflectionUtil.invoke(type.getClassLoader(), "defineClass", new Object[]{
+                typeName, bytecode, 0, bytecode.length
+        });
+    }
+
+    private void addBroadcastMethod(ClassWriter visitor, Type listenerType, int methodIndex, Method method) {
+        String methodDescriptor = Type.getMethodDescriptor(method);
+        Type[] paramTypes = Type.getArgumentTypes(method);
+        MethodVisitor methodVisitor = visitor.visitMethod(Opcodes.ACC_PUBLIC, method.getName(), methodDescriptor,
+                null, new String[0]);
+        methodVisitor.visitCode();
+
+        int handlersVar = 1;
+        for (Type paramType : paramTypes) {
+            handlersVar += paramType.getSize();
+        }
+        int indexVar = handlersVar + 1;
+        int handlerVar = handlersVar + 2;
+        int invocationVar = handlersVar + 3;
+        int failureVar = handlersVar + 4;
+        int caughtVar = handlersVar + 5;
+
+        Label loopStart = new Label();
+        Label loopCondition = new Label();
+        Label tryStart = new Label();
+        Label tryEnd = new Label();
+        Label catchStart = new Label();
+        Label notListener = new Label();
+        Label haveInvocation = new Label();
+        Label next = new Label();
+        methodVisitor.visitTryCatchBlock(tryStart, tryEnd, catchStart, throwableType.getInternalName());
+
+        // GENERATE Object[] handlers = getHandlers(); MethodInvocation invocation = null; Throwable failure = null;
+
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, broadcasterType.getInternalName(), "getHandlers",
+                Type.getMethodDescriptor(Type.getType(Object[].class), new Type[0]));
+        methodVisitor.visitVarInsn(Opcodes.ASTORE, handlersVar);
+        methodVisitor.visitInsn(Opcodes.ACONST_NULL);
+        methodVisitor.visitVarInsn(Opcodes.ASTORE, invocationVar);
+        methodVisitor.visitInsn(Opcodes.ACONST_NULL);
+        methodVisitor.visitVarInsn(Opcodes.ASTORE, failureVar);
+
+        // GENERATE for (int i = 0; i < handlers.length; i++) { Object handler = handlers[i]; ... }
+
+        methodVisitor.visitInsn(Opcodes.ICONST_0);
+        methodVisitor.visitVarInsn(Opcodes.ISTORE, indexVar);
+        methodVisitor.visitJumpInsn(Opcodes.GOTO, loopCondition);
+        methodVisitor.visitLabel(loopStart);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, handlersVar);
+        methodVisitor.visitVarInsn(Opcodes.ILOAD, indexVar);
+        methodVisitor.visitInsn(Opcodes.AALOAD);
+        methodVisitor.visitVarInsn(Opcodes.ASTORE, handlerVar);
+
+        methodVisitor.visitLabel(tryStart);
+
+        // GENERATE if (handler instanceof <type>) { ((<type>) handler).<method>(p0 .. pn); }
+
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, handlerVar);
+        methodVisitor.visitTypeInsn(Opcodes.INSTANCEOF, listenerType.getInternalName());
+        methodVisitor.visitJumpInsn(Opcodes.IFEQ, notListener);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, handlerVar);
+        methodVisitor.visitTypeInsn(Opcodes.CHECKCAST, listenerType.getInternalName());
+        int var = 1;
+        for (Type paramType : paramTypes) {
+            methodVisitor.visitVarInsn(paramType.getOpcode(Opcodes.ILOAD), var);
+            var += paramType.getSize();
+        }
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEINTERFACE, listenerType.getInternalName(), method.getName(),
+                methodDescriptor);
+        methodVisitor.visitJumpInsn(Opcodes.GOTO, tryEnd);
+
+        // GENERATE else { if (invocation == null) { invocation = invocation(index, new Object[]{p0 .. pn}); } ((Dispatch) handler).dispatch(invocation); }
+
+        methodVisitor.visitLabel(notListener);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, invocationVar);
+        methodVisitor.visitJumpInsn(Opcodes.IFNONNULL, haveInvocation);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        methodVisitor.visitLdcInsn(methodIndex);
+        addArguments(methodVisitor, paramTypes);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, broadcasterType.getInternalName(), "invocation",
+                Type.getMethodDescriptor(methodInvocationType, new Type[]{Type.INT_TYPE, Type.getType(Object[].class)}));
+        methodVisitor.visitVarInsn(Opcodes.ASTORE, invocationVar);
+        methodVisitor.visitLabel(haveInvocation);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, handlerVar);
+        methodVisitor.visitTypeInsn(Opcodes.CHECKCAST, dispatchType.getInternalName());
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, invocationVar);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEINTERFACE, dispatchType.getInternalName(), "dispatch",
+                Type.getMethodDescriptor(Type.VOID_TYPE, new Type[]{objectType}));
+
+        methodVisitor.visitLabel(tryEnd);
+        methodVisitor.visitJumpInsn(Opcodes.GOTO, next);
+
+        // GENERATE catch (Throwable t) { failure = failed(failure, t); }
+
+        methodVisitor.visitLabel(catchStart);
+        methodVisitor.visitVarInsn(Opcodes.ASTORE, caughtVar);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, failureVar);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, caughtVar);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, broadcasterType.getInternalName(), "failed",
+                Type.getMethodDescriptor(throwableType, new Type[]{throwableType, throwableType}));
+        methodVisitor.visitVarInsn(Opcodes.ASTORE, failureVar);
+
+        methodVisitor.visitLabel(next);
+        methodVisitor.visitIincInsn(indexVar, 1);
+        methodVisitor.visitLabel(loopCondition);
+        methodVisitor.visitVarInsn(Opcodes.ILOAD, indexVar);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, handlersVar);
+        methodVisitor.visitInsn(Opcodes.ARRAYLENGTH);
+        methodVisitor.visitJumpInsn(Opcodes.IF_ICMPLT, loopStart);
+
+        // GENERATE complete(failure)
+
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, failureVar);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, broadcasterType.getInternalName(), "complete",
+                Type.getMethodDescriptor(Type.VOID_TYPE, new Type[]{throwableType}));
+
+        methodVisitor.visitInsn(Opcodes.RETURN);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+    }
+
+    private void addArguments(MethodVisitor methodVisitor, Type[] paramTypes) {
+        if (paramTypes.length == 0) {
+            // Match the arguments a java.lang.reflect.Proxy receives for a method with no parameters
+            methodVisitor.visitInsn(Opcodes.ACONST_NULL);
+            return;
+        }
+
+        // GENERATE new Object[]{p0 .. pn}, boxing primitive values
+
+        methodVisitor.visitLdcInsn(paramTypes.length);
+        methodVisitor.visitTypeInsn(Opcodes.ANEWARRAY, objectType.getInternalName());
+        int var = 1;
+        for (int i = 0; i < paramTypes.length; i++) {
+            Type paramType = paramTypes[i];
+            methodVisitor.visitInsn(Opcodes.DUP);
+            methodVisitor.visitLdcInsn(i);
+            methodVisitor.visitVarInsn(paramType.getOpcode(Opcodes.ILOAD), var);
+            Type boxedType = getBoxedType(paramType);
+            if (boxedType != null) {
+                methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, boxedType.getInternalName(), "valueOf",
+                        Type.getMethodDescriptor(boxedType, new Type[]{paramType}));
+            }
+            methodVisitor.visitInsn(Opcodes.AASTORE);
+            var += paramType.getSize();
+        }
+    }
+
+    private Type getBoxedType(Type type) {
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+                return Type.getType(Boolean.class);
+            case Type.CHAR:
+                return Type.getType(Character.class);
+            case Type.BYTE:
+                return Type.getType(Byte.class);
+            case Type.SHORT:
+                return Type.getType(Short.class);
+            case Type.INT:
+                return Type.getType(Integer.class);
+            case Type.FLOAT:
+                return Type.getType(Float.class);
+            case Type.LONG:
+                return Type.getType(Long.class);
+            case Type.DOUBLE:
+                return Type.getType(Double.class);
+            default:
+                return null;
+        }
+    }
+
+    private static class GeneratedBroadcaster {
+        private final Constructor<?> constructor;
+        private final Method[] methods;
+
+        private GeneratedBroadcaster(Constructor<?> constructor, Method[] methods) {
+            this.constructor = constructor;
+            this.methods = methods;
+        }
+    }
+}
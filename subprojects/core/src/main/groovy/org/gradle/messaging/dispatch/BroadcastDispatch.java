@@ -23,17 +23,27 @@ import org.gradle.util.UncheckedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * <p>Broadcasts method invocations to a set of handlers.</p>
+ *
+ * <p>The handlers are held in a copy-on-write array, so that dispatching does not need to lock, and handlers can be
+ * added or removed from any thread while a dispatch is in progress. A dispatch delivers to the handlers which were
+ * registered when it started.</p>
+ */
 public class BroadcastDispatch<T> implements StoppableDispatch<MethodInvocation> {
     private static final Logger LOGGER = LoggerFactory.getLogger(BroadcastDispatch.class);
+    private static final AsmBackedBroadcastGenerator GENERATOR = new AsmBackedBroadcastGenerator();
+    private static final Object[] NO_HANDLERS = new Object[0];
     private final Class<T> type;
-    private final Map<Object, Dispatch<MethodInvocation>> handlers
-            = new LinkedHashMap<Object, Dispatch<MethodInvocation>>();
+    private final Map<Object, Object> handlers = new LinkedHashMap<Object, Object>();
+    private volatile Object[] handlerArray = NO_HANDLERS;
+    private T source;
 
     public BroadcastDispatch(Class<T> type) {
         this.type = type;
@@ -43,22 +53,40 @@ public class BroadcastDispatch<T> implements StoppableDispatch<MethodInvocation>
         return type;
     }
 
+    /**
+     * Returns an implementation of T which broadcasts to the handlers of this dispatch.
+     */
+    public synchronized T getSource() {
+        if (source == null) {
+            source = GENERATOR.newInstance(type, this);
+            if (source == null) {
+                source = new ProxyDispatchAdapter<T>(type, this).getSource();
+            }
+        }
+        return source;
+    }
+
     public void add(Dispatch<MethodInvocation> dispatch) {
-        handlers.put(dispatch, dispatch);
+        if (type.isInstance(dispatch)) {
+            // Make sure the dispatch is not mistaken for a listener
+            put(dispatch, new DispatchHandler(dispatch));
+        } else {
+            put(dispatch, dispatch);
+        }
     }
 
     public void add(T listener) {
-        handlers.put(listener, new ReflectionDispatch(listener));
+        put(listener, listener);
     }
 
     public void add(String methodName, Closure closure) {
         assertIsMethod(methodName);
-        handlers.put(closure, new ClosureInvocationHandler(methodName, closure));
+        put(closure, new ClosureInvocationHandler(methodName, closure));
     }
 
     public void add(String methodName, Action<?> action) {
         assertIsMethod(methodName);
-        handlers.put(action, new ActionInvocationHandler(methodName, action));
+        put(action, new ActionInvocationHandler(methodName, action));
     }
 
     private void assertIsMethod(String methodName) {
@@ -71,8 +99,23 @@ public class BroadcastDispatch<T> implements StoppableDispatch<MethodInvocation>
                 type.getSimpleName()));
     }
 
-    public void remove(Object listener) {
-        handlers.remove(listener);
+    private synchronized void put(Object key, Object handler) {
+        handlers.put(key, handler);
+        handlerArray = handlers.values().toArray();
+    }
+
+    public synchronized void remove(Object listener) {
+        if (handlers.remove(listener) != null) {
+            handlerArray = handlers.isEmpty() ? NO_HANDLERS : handlers.values().toArray();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the handlers. Each element is either a listener of type T, or a {@link Dispatch} which
+     * does not implement T.
+     */
+    Object[] getHandlers() {
+        return handlerArray;
     }
 
     private String getErrorMessage() {
@@ -81,26 +124,63 @@ public class BroadcastDispatch<T> implements StoppableDispatch<MethodInvocation>
     }
 
     public void dispatch(MethodInvocation invocation) {
-        try {
-            ExceptionTrackingFailureHandler tracker = new ExceptionTrackingFailureHandler(LOGGER);
-            for (Dispatch<MethodInvocation> handler : new ArrayList<Dispatch<MethodInvocation>>(handlers.values())) {
-                try {
-                    handler.dispatch(invocation);
-                } catch (UncheckedException e) {
-                    tracker.dispatchFailed(invocation, e.getCause());
-                } catch (Throwable t) {
-                    tracker.dispatchFailed(invocation, t);
+        Throwable failure = null;
+        for (Object handler : handlerArray) {
+            try {
+                if (type.isInstance(handler)) {
+                    Method method = invocation.getMethod();
+                    method.setAccessible(true);
+                    method.invoke(handler, invocation.getArguments());
+                } else {
+                    ((Dispatch<MethodInvocation>) handler).dispatch(invocation);
                 }
+            } catch (InvocationTargetException e) {
+                failure = failed(failure, e.getCause());
+            } catch (Throwable t) {
+                failure = failed(failure, t);
             }
-            tracker.stop();
-        } catch (DispatchException t) {
-            throw new ListenerNotificationException(getErrorMessage(), t.getCause());
+        }
+        complete(failure);
+    }
+
+    /**
+     * Records a failure to notify a handler. The first failure is retained and rethrown by {@link #complete}, and any
+     * subsequent failures are logged.
+     *
+     * @return The failure to retain.
+     */
+    Throwable failed(Throwable previous, Throwable failure) {
+        if (failure instanceof UncheckedException) {
+            failure = failure.getCause();
+        }
+        if (previous != null) {
+            LOGGER.error(failure.getMessage(), failure);
+            return previous;
+        }
+        return failure;
+    }
+
+    void complete(Throwable failure) {
+        if (failure != null) {
+            throw new ListenerNotificationException(getErrorMessage(), failure);
         }
     }
 
     public void stop() {
     }
 
+    private static class DispatchHandler implements Dispatch<MethodInvocation> {
+        private final Dispatch<MethodInvocation> dispatch;
+
+        private DispatchHandler(Dispatch<MethodInvocation> dispatch) {
+            this.dispatch = dispatch;
+        }
+
+        public void dispatch(MethodInvocation message) {
+            dispatch.dispatch(message);
+        }
+    }
+
     private class ClosureInvocationHandler implements Dispatch<MethodInvocation> {
         private final String methodName;
         private final Closure closure;
@@ -44,6 +44,10 @@ public class InMemoryCacheFactory implements CacheFactory {
                 return new InMemoryIndexedCache<K, V>();
             }
 
+            public <K, V> PersistentIndexedCache<K, V> openIndexedCache(Serializer<V> serializer, EvictionPolicy evictionPolicy) {
+                return new InMemoryIndexedCache<K, V>();
+            }
+
             public <K, V> PersistentIndexedCache<K, V> openIndexedCache() {
                 return new InMemoryIndexedCache<K, V>();
             }
@@ -88,4 +88,7 @@ public class NoOpLoggingManager implements LoggingManagerInternal {
 
     public void colorStdOutAndStdErr(boolean colorOutput) {
     }
+
+    public void flush() {
+    }
 }
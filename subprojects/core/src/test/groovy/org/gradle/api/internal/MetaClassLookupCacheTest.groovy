@@ -0,0 +1,50 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal
+
+import spock.lang.Specification
+
+class MetaClassLookupCacheTest extends Specification {
+    def bean = new LookupBean()
+
+    def findsPropertiesOfBean() {
+        def metaClass = GroovySystem.metaClassRegistry.getMetaClass(LookupBean)
+
+        expect:
+        MetaClassLookupCache.getProperty(metaClass, bean, 'prop').name == 'prop'
+        MetaClassLookupCache.getProperty(metaClass, bean, 'prop').is(MetaClassLookupCache.getProperty(metaClass, bean, 'prop'))
+        MetaClassLookupCache.getProperty(metaClass, bean, 'unknown') == null
+        MetaClassLookupCache.getProperty(metaClass, bean, 'unknown') == null
+    }
+
+    def findsMethodsOfBeanForArguments() {
+        def metaClass = GroovySystem.metaClassRegistry.getMetaClass(LookupBean)
+
+        expect:
+        MetaClassLookupCache.hasMethod(metaClass, bean, 'doStuff', 'param')
+        MetaClassLookupCache.hasMethod(metaClass, bean, 'doStuff', [null] as Object[])
+        !MetaClassLookupCache.hasMethod(metaClass, bean, 'doStuff', 12)
+        !MetaClassLookupCache.hasMethod(metaClass, bean, 'doStuff')
+        !MetaClassLookupCache.hasMethod(metaClass, bean, 'unknown', 'param')
+    }
+}
+
+class LookupBean {
+    String prop
+
+    void doStuff(String param) {
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.configurations
+
+import org.apache.ivy.plugins.resolver.DependencyResolver
+import org.gradle.api.Task
+import org.gradle.api.artifacts.Configuration
+import org.gradle.api.artifacts.ResolvedConfiguration
+import org.gradle.api.internal.artifacts.IvyService
+import org.gradle.api.internal.artifacts.ivyservice.DefaultIvyService
+import org.gradle.api.internal.artifacts.ivyservice.ErrorHandlingIvyService
+import org.gradle.api.internal.file.UnionFileCollection
+import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.api.tasks.TaskInputs
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+class ParallelConfigurationResolverTest extends Specification {
+    private final IvyService ivyService1 = Mock()
+    private final IvyService ivyService2 = Mock()
+    private final ConfigurationsProvider configurationsProvider = Mock()
+    private final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    private final ParallelConfigurationResolver resolver = new ParallelConfigurationResolver(executorFactory, 4)
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def resolvesTheConfigurationsUsedAsInputFilesByEachTask() {
+        def compile1 = configuration('compile', ivyService1)
+        def runtime1 = configuration('runtime', ivyService1)
+        def compile2 = configuration('compile', ivyService2)
+        def task1 = task(new UnionFileCollection(compile1, new SimpleFileCollection(new File('file'))))
+        def task2 = task(new UnionFileCollection(runtime1.fileCollection({ true }), compile2))
+        def task3 = task(compile1)
+
+        when:
+        resolver.execute([task1, task2, task3])
+
+        then:
+        1 * ivyService1.resolve(compile1) >> resolvedConfiguration()
+        1 * ivyService1.resolve(runtime1) >> resolvedConfiguration()
+        1 * ivyService2.resolve(compile2) >> resolvedConfiguration()
+        compile1.state == Configuration.State.RESOLVED
+        runtime1.state == Configuration.State.RESOLVED
+        compile2.state == Configuration.State.RESOLVED
+    }
+
+    def doesNotResolveWhenTheConfigurationsBelongToASingleProject() {
+        def compile1 = configuration('compile', ivyService1)
+        def runtime1 = configuration('runtime', ivyService1)
+
+        when:
+        resolver.execute([task(compile1), task(runtime1)])
+
+        then:
+        0 * ivyService1._
+        compile1.state == Configuration.State.UNRESOLVED
+    }
+
+    def leavesConfigurationUnresolvedWhenItCannotBeResolved() {
+        def compile1 = configuration('compile', ivyService1)
+        def compile2 = configuration('compile', ivyService2)
+
+        when:
+        resolver.execute([task(compile1), task(compile2)])
+
+        then:
+        1 * ivyService1.resolve(compile1) >> { throw new RuntimeException() }
+        1 * ivyService2.resolve(compile2) >> resolvedConfiguration()
+        compile1.state == Configuration.State.UNRESOLVED
+        compile2.state == Configuration.State.RESOLVED
+    }
+
+    def resolvesProjectsWhichShareAResolverInTheSameThread() {
+        DependencyResolver sharedResolver = Mock()
+        DefaultIvyService ivyService3 = Mock()
+        DefaultIvyService ivyService4 = Mock()
+        _ * ivyService3.getResolverProvider() >> resolverProvider(sharedResolver)
+        _ * ivyService4.getResolverProvider() >> resolverProvider(sharedResolver)
+        def compile1 = configuration('compile', ivyService1)
+        def compile3 = configuration('compile', new ErrorHandlingIvyService(ivyService3))
+        def compile4 = configuration('compile', new ErrorHandlingIvyService(ivyService4))
+        def threads = Collections.synchronizedMap([:])
+
+        when:
+        resolver.execute([task(compile1), task(compile3), task(compile4)])
+
+        then:
+        1 * ivyService1.resolve(compile1) >> resolvedConfiguration()
+        1 * ivyService3.resolve(compile3) >> { threads[3] = Thread.currentThread(); resolvedConfiguration() }
+        1 * ivyService4.resolve(compile4) >> { threads[4] = Thread.currentThread(); resolvedConfiguration() }
+        threads[3].is(threads[4])
+        compile3.state == Configuration.State.RESOLVED
+        compile4.state == Configuration.State.RESOLVED
+    }
+
+    def resolverProvider(DependencyResolver... resolvers) {
+        return [getResolvers: { resolvers as List }] as ResolverProvider
+    }
+
+    def configuration(String name, IvyService ivyService) {
+        return new DefaultConfiguration(name, name, configurationsProvider, ivyService)
+    }
+
+    def resolvedConfiguration() {
+        ResolvedConfiguration resolvedConfiguration = Mock()
+        return resolvedConfiguration
+    }
+
+    def task(def files) {
+        TaskInputs inputs = [getFiles: { files }] as TaskInputs
+        return [getInputs: { inputs }] as Task
+    }
+}
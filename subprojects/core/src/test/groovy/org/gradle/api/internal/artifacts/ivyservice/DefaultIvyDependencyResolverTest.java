@@ -41,6 +41,7 @@ import org.junit.runner.RunWith;
 import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -136,6 +137,162 @@ public class DefaultIvyDependencyResolverTest {
         assertThat(actualDeps, equalTo(toSet(resolvedDependency1, resolvedDependency2)));
     }
 
+    @Test
+    public void testGetFilesWalksTheGraphOfEachFirstLevelDependencyOnce() throws IOException, ParseException {
+        prepareResolveReport();
+        final ModuleDependency moduleDependencyDummy1 = context.mock(ModuleDependency.class, "dep1");
+        final ModuleDependency moduleDependencyDummy2 = context.mock(ModuleDependency.class, "dep2");
+        final ResolvedDependency root = context.mock(ResolvedDependency.class, "root");
+        final ResolvedDependency resolvedDependency1 = context.mock(ResolvedDependency.class, "resolved1");
+        final ResolvedDependency resolvedDependency2 = context.mock(ResolvedDependency.class, "resolved2");
+        final IvyConversionResult conversionResultStub = context.mock(IvyConversionResult.class);
+        final Map<Dependency, Set<ResolvedDependency>> firstLevelResolvedDependencies = GUtil.map(
+                moduleDependencyDummy1,
+                toSet(resolvedDependency1),
+                moduleDependencyDummy2,
+                toSet(resolvedDependency2));
+
+        context.checking(new Expectations() {{
+            one(resolvedDependency1).getParentArtifacts(root);
+            will(returnValue(toSet()));
+            one(resolvedDependency1).getModuleArtifacts();
+            will(returnValue(toSet(DefaultResolvedArtifactTest.createResolvedArtifact(context, "dep1", "someType", "someExtension", new File("dep1")))));
+            one(resolvedDependency1).getChildren();
+            will(returnValue(toSet()));
+            one(resolvedDependency2).getParentArtifacts(root);
+            will(returnValue(toSet()));
+            one(resolvedDependency2).getModuleArtifacts();
+            will(returnValue(toSet(DefaultResolvedArtifactTest.createResolvedArtifact(context, "dep2", "someType", "someExtension", new File("dep2")))));
+            one(resolvedDependency2).getChildren();
+            will(returnValue(toSet()));
+            allowing(configurationStub).getAllDependencies(ModuleDependency.class);
+            will(returnValue(toSet(moduleDependencyDummy1, moduleDependencyDummy2)));
+            allowing(ivyReportConverterStub).convertReport(resolveReportMock, configurationStub);
+            will(returnValue(conversionResultStub));
+            allowing(conversionResultStub).getFirstLevelResolvedDependencies();
+            will(returnValue(firstLevelResolvedDependencies));
+            allowing(conversionResultStub).getRoot();
+            will(returnValue(root));
+        }});
+        ModuleDescriptor moduleDescriptor = createAnonymousModuleDescriptor();
+        prepareTestsThatRetrieveDependencies(moduleDescriptor);
+
+        ResolvedConfiguration resolvedConfig = ivyDependencyResolver.resolve(configurationStub, ivyStub, moduleDescriptor);
+        Spec<Dependency> dep1Only = new Spec<Dependency>() {
+            public boolean isSatisfiedBy(Dependency element) {
+                return element == moduleDependencyDummy1;
+            }
+        };
+
+        assertThat(resolvedConfig.getFiles(dep1Only), equalTo(toSet(new File("dep1"))));
+        assertThat(resolvedConfig.getFiles(Specs.SATISFIES_ALL), equalTo(toSet(new File("dep1"), new File("dep2"))));
+        assertThat(resolvedConfig.getFiles(dep1Only), equalTo(toSet(new File("dep1"))));
+        assertThat(resolvedConfig.getFiles(Specs.SATISFIES_ALL), equalTo(toSet(new File("dep1"), new File("dep2"))));
+    }
+
+    @Test
+    public void testGetFilesOrderDoesNotDependOnWhichSpecsWereQueriedBefore() throws IOException, ParseException {
+        prepareResolveReport();
+        final ModuleDependency moduleDependencyDummy1 = context.mock(ModuleDependency.class, "dep1");
+        final ModuleDependency moduleDependencyDummy2 = context.mock(ModuleDependency.class, "dep2");
+        final ResolvedDependency root = context.mock(ResolvedDependency.class, "root");
+        final ResolvedDependency resolvedDependency1 = context.mock(ResolvedDependency.class, "resolved1");
+        final ResolvedDependency resolvedDependency2 = context.mock(ResolvedDependency.class, "resolved2");
+        final IvyConversionResult conversionResultStub = context.mock(IvyConversionResult.class);
+        final Map<Dependency, Set<ResolvedDependency>> firstLevelResolvedDependencies = GUtil.map(
+                moduleDependencyDummy1,
+                toSet(resolvedDependency1),
+                moduleDependencyDummy2,
+                toSet(resolvedDependency2));
+
+        context.checking(new Expectations() {{
+            allowing(resolvedDependency1).getParentArtifacts(root);
+            will(returnValue(toSet()));
+            allowing(resolvedDependency1).getModuleArtifacts();
+            will(returnValue(toSet(DefaultResolvedArtifactTest.createResolvedArtifact(context, "dep1", "someType", "someExtension", new File("dep1")))));
+            allowing(resolvedDependency1).getChildren();
+            will(returnValue(toSet()));
+            allowing(resolvedDependency2).getParentArtifacts(root);
+            will(returnValue(toSet()));
+            allowing(resolvedDependency2).getModuleArtifacts();
+            will(returnValue(toSet(DefaultResolvedArtifactTest.createResolvedArtifact(context, "dep2", "someType", "someExtension", new File("dep2")))));
+            allowing(resolvedDependency2).getChildren();
+            will(returnValue(toSet()));
+            allowing(configurationStub).getAllDependencies(ModuleDependency.class);
+            will(returnValue(toLinkedSet(moduleDependencyDummy1, moduleDependencyDummy2)));
+            allowing(ivyReportConverterStub).convertReport(resolveReportMock, configurationStub);
+            will(returnValue(conversionResultStub));
+            allowing(conversionResultStub).getFirstLevelResolvedDependencies();
+            will(returnValue(firstLevelResolvedDependencies));
+            allowing(conversionResultStub).getRoot();
+            will(returnValue(root));
+        }});
+        ModuleDescriptor moduleDescriptor = createAnonymousModuleDescriptor();
+        prepareTestsThatRetrieveDependencies(moduleDescriptor);
+
+        ResolvedConfiguration resolvedConfig = ivyDependencyResolver.resolve(configurationStub, ivyStub, moduleDescriptor);
+        Spec<Dependency> dep2Only = new Spec<Dependency>() {
+            public boolean isSatisfiedBy(Dependency element) {
+                return element == moduleDependencyDummy2;
+            }
+        };
+
+        assertThat(resolvedConfig.getFiles(dep2Only), equalTo(toSet(new File("dep2"))));
+        assertThat(new ArrayList<File>(resolvedConfig.getFiles(Specs.SATISFIES_ALL)), equalTo(Arrays.asList(new File("dep1"), new File("dep2"))));
+    }
+
+    @Test
+    public void testGetFilesReturnsArtifactsOfFirstLevelDependenciesBeforeTransitiveArtifacts() throws IOException, ParseException {
+        prepareResolveReport();
+        final ModuleDependency moduleDependencyDummy1 = context.mock(ModuleDependency.class, "dep1");
+        final ModuleDependency moduleDependencyDummy2 = context.mock(ModuleDependency.class, "dep2");
+        final ResolvedDependency root = context.mock(ResolvedDependency.class, "root");
+        final ResolvedDependency resolvedDependency1 = context.mock(ResolvedDependency.class, "resolved1");
+        final ResolvedDependency resolvedDependency2 = context.mock(ResolvedDependency.class, "resolved2");
+        final ResolvedDependency transitiveResolvedDependency = context.mock(ResolvedDependency.class, "transitive");
+        final IvyConversionResult conversionResultStub = context.mock(IvyConversionResult.class);
+        final Map<Dependency, Set<ResolvedDependency>> firstLevelResolvedDependencies = GUtil.map(
+                moduleDependencyDummy1,
+                toSet(resolvedDependency1),
+                moduleDependencyDummy2,
+                toSet(resolvedDependency2));
+
+        context.checking(new Expectations() {{
+            allowing(resolvedDependency1).getParentArtifacts(root);
+            will(returnValue(toSet(DefaultResolvedArtifactTest.createResolvedArtifact(context, "dep1", "someType", "someExtension", new File("dep1")))));
+            allowing(resolvedDependency1).getModuleArtifacts();
+            will(returnValue(toSet()));
+            allowing(resolvedDependency1).getChildren();
+            will(returnValue(toSet(transitiveResolvedDependency)));
+            allowing(transitiveResolvedDependency).getParentArtifacts(resolvedDependency1);
+            will(returnValue(toSet(DefaultResolvedArtifactTest.createResolvedArtifact(context, "transitive", "someType", "someExtension", new File("transitive")))));
+            allowing(transitiveResolvedDependency).getModuleArtifacts();
+            will(returnValue(toSet()));
+            allowing(transitiveResolvedDependency).getChildren();
+            will(returnValue(toSet()));
+            allowing(resolvedDependency2).getParentArtifacts(root);
+            will(returnValue(toSet(DefaultResolvedArtifactTest.createResolvedArtifact(context, "dep2", "someType", "someExtension", new File("dep2")))));
+            allowing(resolvedDependency2).getModuleArtifacts();
+            will(returnValue(toSet()));
+            allowing(resolvedDependency2).getChildren();
+            will(returnValue(toSet()));
+            allowing(configurationStub).getAllDependencies(ModuleDependency.class);
+            will(returnValue(toLinkedSet(moduleDependencyDummy1, moduleDependencyDummy2)));
+            allowing(ivyReportConverterStub).convertReport(resolveReportMock, configurationStub);
+            will(returnValue(conversionResultStub));
+            allowing(conversionResultStub).getFirstLevelResolvedDependencies();
+            will(returnValue(firstLevelResolvedDependencies));
+            allowing(conversionResultStub).getRoot();
+            will(returnValue(root));
+        }});
+        ModuleDescriptor moduleDescriptor = createAnonymousModuleDescriptor();
+        prepareTestsThatRetrieveDependencies(moduleDescriptor);
+
+        ResolvedConfiguration resolvedConfig = ivyDependencyResolver.resolve(configurationStub, ivyStub, moduleDescriptor);
+
+        assertThat(new ArrayList<File>(resolvedConfig.getFiles(Specs.SATISFIES_ALL)), equalTo(Arrays.asList(new File("dep1"), new File("dep2"), new File("transitive"))));
+    }
+
     @Test
     public void testGetModuleDependencies() throws IOException, ParseException {
         prepareResolveReport();
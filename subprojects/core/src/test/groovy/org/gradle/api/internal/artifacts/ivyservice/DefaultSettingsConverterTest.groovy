@@ -114,6 +114,21 @@ class DefaultSettingsConverterTest {
 
     }
 
+    @Test
+    public void repositoryCacheManagerShouldNotBeSharedBetweenThreads() {
+        IvySettings settings1 = converter.convertForResolve([testResolver], testGradleUserHome,
+                testBuildResolver, clientModuleRegistry)
+        IvySettings settings2
+        Thread thread = new Thread({
+            settings2 = converter.convertForResolve([testResolver], testGradleUserHome, testBuildResolver, clientModuleRegistry)
+        } as Runnable)
+        thread.start()
+        thread.join()
+
+        assert !settings1.getDefaultRepositoryCacheManager().is(settings2.getDefaultRepositoryCacheManager())
+        assert testResolver.getRepositoryCacheManager().is(settings2.getDefaultRepositoryCacheManager())
+    }
+
     @Test public void testWithGivenSettings() {
         IvySettings ivySettings = [:] as IvySettings
         converter.ivySettings = ivySettings
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.apache.ivy.core.module.id.ModuleRevisionId
+import org.gradle.cache.CacheBuilder
+import org.gradle.cache.CacheRepository
+import org.gradle.cache.PersistentCache
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.cache.Serializer
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class ModuleMetaDataIndexTest extends Specification {
+    @Rule public final TemporaryFolder tmpDir = new TemporaryFolder()
+    final CacheRepository cacheRepository = Mock()
+    final Map<String, byte[]> entries = [:]
+    Serializer<Object> serializer
+    final PersistentIndexedCache<String, Object> indexedCache = [
+            get: { entries[it] == null ? null : serializer.read(new ByteArrayInputStream(entries[it])) },
+            put: { key, value -> def outstr = new ByteArrayOutputStream(); serializer.write(outstr, value); entries[key] = outstr.toByteArray() }
+    ] as PersistentIndexedCache
+    final ModuleMetaDataIndex index = new ModuleMetaDataIndex(cacheRepository)
+    final ModuleRevisionId id = ModuleRevisionId.newInstance('org', 'module', '1.0')
+
+    def setup() {
+        CacheBuilder builder = Mock()
+        PersistentCache cache = Mock()
+        _ * cacheRepository.cache("moduleMetaData") >> builder
+        _ * builder.open() >> cache
+        _ * cache.openIndexedCache(!null, !null) >> { serializer = it[0]; indexedCache }
+    }
+
+    def "returns entry for module whose files are unchanged"() {
+        def descriptor = tmpDir.createFile('ivy-1.0.xml') << 'descriptor'
+        def data = tmpDir.createFile('ivydata-1.0.properties') << 'data'
+
+        when:
+        index.put(id, descriptor, data, 'resolver', 'artifactResolver')
+        index.putArtifact(id, descriptor, data, 'artifact', false, 'http://repo/artifact.jar')
+        def module = index.get(id, descriptor, data)
+
+        then:
+        module.resolverName == 'resolver'
+        module.artifactResolverName == 'artifactResolver'
+        !module.getArtifact('artifact').local
+        module.getArtifact('artifact').location == 'http://repo/artifact.jar'
+        module.getArtifact('other') == null
+    }
+
+    def "returns entry for module with no resolver names or artifact location"() {
+        def descriptor = tmpDir.createFile('ivy-1.0.xml') << 'descriptor'
+        def data = tmpDir.createFile('ivydata-1.0.properties') << 'data'
+
+        when:
+        index.put(id, descriptor, data, null, null)
+        index.putArtifact(id, descriptor, data, 'artifact', true, null)
+        def module = index.get(id, descriptor, data)
+
+        then:
+        module.resolverName == null
+        module.artifactResolverName == null
+        module.getArtifact('artifact').local
+        module.getArtifact('artifact').location == null
+    }
+
+    def "does not return entry for module whose files have changed"() {
+        def descriptor = tmpDir.createFile('ivy-1.0.xml') << 'descriptor'
+        def data = tmpDir.createFile('ivydata-1.0.properties') << 'data'
+
+        when:
+        index.put(id, descriptor, data, 'resolver', 'artifactResolver')
+        descriptor << 'changed'
+
+        then:
+        index.get(id, descriptor, data) == null
+    }
+
+    def "does not return entry for module with no entry"() {
+        expect:
+        index.get(id, tmpDir.file('ivy-1.0.xml'), tmpDir.file('ivydata-1.0.properties')) == null
+    }
+}
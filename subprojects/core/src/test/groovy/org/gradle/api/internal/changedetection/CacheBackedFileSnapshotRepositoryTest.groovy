@@ -20,10 +20,12 @@ import org.gradle.cache.CacheRepository
 import org.gradle.cache.CacheBuilder
 import org.gradle.cache.PersistentCache
 import org.gradle.cache.PersistentIndexedCache
+import org.gradle.cache.PersistentStateCache
 
 class CacheBackedFileSnapshotRepositoryTest extends Specification {
     final CacheRepository cacheRepository = Mock()
     final PersistentIndexedCache<Object, Object> indexedCache = Mock()
+    final PersistentStateCache<Long> nextId = Mock()
     final FileSnapshotRepository repository = new CacheBackedFileSnapshotRepository(cacheRepository)
 
     def "assigns an id when a snapshot is added"() {
@@ -37,12 +39,48 @@ class CacheBackedFileSnapshotRepositoryTest extends Specification {
         interaction {
             expectCacheOpened()
         }
+        1 * nextId.get() >> (4 as Long)
+        1 * nextId.set(5)
+        1 * indexedCache.put(4, snapshot)
+        0 * _._
+    }
+
+    def "continues from the id kept in the indexed cache by earlier versions"() {
+        FileCollectionSnapshot snapshot = Mock()
+
+        when:
+        def id = repository.add(snapshot)
+
+        then:
+        id == 4
+        interaction {
+            expectCacheOpened()
+        }
+        1 * nextId.get() >> null
         1 * indexedCache.get("nextId") >> (4 as Long)
-        1 * indexedCache.put("nextId", 5)
+        1 * nextId.set(5)
         1 * indexedCache.put(4, snapshot)
         0 * _._
     }
 
+    def "starts ids at 1"() {
+        FileCollectionSnapshot snapshot = Mock()
+
+        when:
+        def id = repository.add(snapshot)
+
+        then:
+        id == 1
+        interaction {
+            expectCacheOpened()
+        }
+        1 * nextId.get() >> null
+        1 * indexedCache.get("nextId") >> null
+        1 * nextId.set(2)
+        1 * indexedCache.put(1, snapshot)
+        0 * _._
+    }
+
     def "can fetch a snapshot by id"() {
         FileCollectionSnapshot snapshot = Mock()
 
@@ -75,6 +113,7 @@ class CacheBackedFileSnapshotRepositoryTest extends Specification {
         PersistentCache cache = Mock()
         1 * cacheRepository.cache("fileSnapshots") >> builder
         1 * builder.open() >> cache
-        1 * cache.openIndexedCache() >> indexedCache
+        1 * cache.openIndexedCache(!null, !null) >> indexedCache
+        1 * cache.openStateCache() >> nextId
     }
 }
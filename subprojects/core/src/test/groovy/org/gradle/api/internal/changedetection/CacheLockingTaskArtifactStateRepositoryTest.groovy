@@ -0,0 +1,96 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection
+
+import java.nio.channels.OverlappingFileLockException
+import org.gradle.api.internal.TaskInternal
+import org.gradle.cache.CacheLock
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class CacheLockingTaskArtifactStateRepositoryTest extends Specification {
+    @Rule public final TemporaryFolder tmpDir = new TemporaryFolder()
+    final TaskArtifactStateRepository target = Mock()
+    final TaskArtifactState targetState = Mock()
+    final TaskInternal task = Mock()
+    final CacheLockingTaskArtifactStateRepository repository = new CacheLockingTaskArtifactStateRepository(target)
+    CacheLock lock
+
+    def setup() {
+        lock = new CacheLock(tmpDir.file('cache.lock'))
+    }
+
+    def cleanup() {
+        lock.close()
+    }
+
+    def keepsCachesLockedUntilEachStepCompletes() {
+        when:
+        def state = repository.getStateFor(task)
+
+        then:
+        1 * target.getStateFor(task) >> { useCache(); targetState }
+        !lockFileLocked()
+
+        when:
+        def upToDate = state.isUpToDate()
+
+        then:
+        1 * targetState.isUpToDate() >> { useCache(); true }
+        upToDate
+        !lockFileLocked()
+
+        when:
+        state.afterTask()
+
+        then:
+        1 * targetState.afterTask() >> { useCache() }
+        !lockFileLocked()
+    }
+
+    def unlocksCachesWhenStepFails() {
+        def failure = new RuntimeException()
+
+        when:
+        repository.getStateFor(task).beforeTask()
+
+        then:
+        1 * target.getStateFor(task) >> targetState
+        1 * targetState.beforeTask() >> { useCache(); throw failure }
+        def e = thrown(RuntimeException)
+        e == failure
+        !lockFileLocked()
+    }
+
+    def useCache() {
+        lock.lockShared()
+        lock.unlockShared()
+        assert lockFileLocked()
+    }
+
+    def lockFileLocked() {
+        def file = new RandomAccessFile(tmpDir.file('cache.lock'), 'rw')
+        try {
+            file.channel.tryLock().release()
+            return false
+        } catch (OverlappingFileLockException e) {
+            return true
+        } finally {
+            file.close()
+        }
+    }
+}
@@ -56,7 +56,7 @@ public class CachingHasherTest {
             one(cacheBuilder).open();
             will(returnValue(persistentCache));
 
-            one(persistentCache).openIndexedCache(with(notNullValue(Serializer.class)));
+            one(persistentCache).openIndexedCache(with(notNullValue(Serializer.class)), with(notNullValue(EvictionPolicy.class)));
             will(returnValue(cache));
         }});
         hasher = new CachingHasher(delegate, cacheRepository);
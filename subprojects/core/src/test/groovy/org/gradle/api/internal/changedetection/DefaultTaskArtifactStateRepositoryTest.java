@@ -74,7 +74,7 @@ public class DefaultTaskArtifactStateRepositoryTest {
             one(builder).open();
             will(returnValue(persistentCache));
 
-            one(persistentCache).openIndexedCache();
+            one(persistentCache).openIndexedCache(with(notNullValue(Serializer.class)), with(notNullValue(EvictionPolicy.class)));
             will(returnValue(new InMemoryIndexedCache()));
         }});
 
@@ -585,11 +585,24 @@ public class DefaultTaskArtifactStateRepositoryTest {
             atMost(1).of(fileSnapshotCacheBuilder).open();
             will(returnValue(persistentCache));
 
-            one(persistentCache).openIndexedCache(with(notNullValue(Serializer.class)));
+            one(persistentCache).openIndexedCache(with(notNullValue(Serializer.class)), with(notNullValue(EvictionPolicy.class)));
             will(returnValue(new InMemoryIndexedCache()));
 
-            atMost(1).of(persistentCache).openIndexedCache();
+            atMost(1).of(persistentCache).openIndexedCache(with(notNullValue(Serializer.class)), with(notNullValue(EvictionPolicy.class)));
             will(returnValue(new InMemoryIndexedCache()));
+
+            atMost(1).of(persistentCache).openStateCache();
+            will(returnValue(new PersistentStateCache<Long>() {
+                private Long value;
+
+                public Long get() {
+                    return value;
+                }
+
+                public void set(Long newValue) {
+                    value = newValue;
+                }
+            }));
         }});
     }
 
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.watch
+
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class FileWatcherFactoryTest extends Specification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final LinkedBlockingQueue<Set<File>> changes = new LinkedBlockingQueue<Set<File>>()
+    final FileChangeListener listener = { files -> changes.add(files) } as FileChangeListener
+    final FileWatcherFactory factory = new FileWatcherFactory(100, 100)
+    FileWatcher watcher
+
+    def cleanup() {
+        watcher?.stop()
+    }
+
+    def "notifies listener of changes to files in watched directory and its subdirectories"() {
+        def dir = tmpDir.createDir('dir')
+        def subDir = dir.createDir('subdir')
+        watcher = factory.watch([dir], listener)
+
+        when:
+        subDir.file('file.txt').text = 'content'
+
+        then:
+        nextChanges().contains(subDir.file('file.txt'))
+
+        when:
+        def newDir = dir.createDir('new')
+        nextChanges()
+        newDir.file('other.txt').text = 'content'
+
+        then:
+        nextChanges().contains(newDir.file('other.txt'))
+    }
+
+    def "notifies listener of changes to watched file only"() {
+        def dir = tmpDir.createDir('dir')
+        def file = dir.file('watched.txt')
+        watcher = factory.watch([file], listener)
+
+        when:
+        dir.file('ignored.txt').text = 'content'
+        file.text = 'content'
+
+        then:
+        nextChanges() == [file] as Set
+    }
+
+    def "polling watcher notifies listener of changes"() {
+        def dir = tmpDir.createDir('dir')
+        watcher = new PollingFileWatcher([dir], listener, 100, 100)
+
+        when:
+        dir.file('file.txt').text = 'content'
+
+        then:
+        nextChanges() == [dir.file('file.txt')] as Set
+    }
+
+    private Set<File> nextChanges() {
+        def files = changes.poll(10, TimeUnit.SECONDS)
+        assert files != null
+        return files
+    }
+}
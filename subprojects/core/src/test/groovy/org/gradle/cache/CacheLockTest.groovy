@@ -0,0 +1,200 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache
+
+import java.nio.channels.OverlappingFileLockException
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class CacheLockTest extends Specification {
+    @Rule public final TemporaryFolder tmpDir = new TemporaryFolder()
+    final Runnable changeAction = Mock()
+    final Runnable otherChangeAction = Mock()
+    CacheLock lock
+    CacheLock other
+
+    def setup() {
+        lock = new CacheLock(tmpDir.file('cache.lock'), changeAction)
+        other = new CacheLock(tmpDir.file('cache.lock'), otherChangeAction)
+    }
+
+    def cleanup() {
+        lock.close()
+        other.close()
+    }
+
+    def "runs change action when another lock has held the lock exclusively"() {
+        given:
+        lock.lockShared()
+        lock.unlockShared()
+
+        when:
+        other.lockExclusive()
+        other.unlockExclusive()
+        lock.lockShared()
+        lock.unlockShared()
+
+        then:
+        1 * changeAction.run()
+        0 * otherChangeAction.run()
+    }
+
+    def "does not run change action when the lock was last held exclusively by the same lock"() {
+        when:
+        lock.lockExclusive()
+        lock.unlockExclusive()
+        lock.lockExclusive()
+        lock.lockShared()
+        lock.unlockShared()
+        lock.unlockExclusive()
+        lock.lockShared()
+        lock.unlockShared()
+
+        then:
+        0 * changeAction.run()
+    }
+
+    def "lock can be held for reading by several threads at the same time"() {
+        def held = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def thread = new Thread({
+            other.lockShared()
+            held.countDown()
+            release.await()
+            other.unlockShared()
+        } as Runnable)
+
+        when:
+        thread.start()
+        held.await()
+        lock.lockShared()
+        lock.unlockShared()
+        release.countDown()
+        thread.join()
+
+        then:
+        notThrown(Exception)
+    }
+
+    def "lock cannot be held for reading while another thread holds it exclusively"() {
+        def acquired = new CountDownLatch(1)
+        def thread = new Thread({
+            other.lockShared()
+            acquired.countDown()
+            other.unlockShared()
+        } as Runnable)
+
+        when:
+        lock.lockExclusive()
+        thread.start()
+        def acquiredWhileHeld = acquired.await(200, TimeUnit.MILLISECONDS)
+        lock.unlockExclusive()
+        thread.join()
+
+        then:
+        !acquiredWhileHeld
+        acquired.count == 0
+    }
+
+    def "lock can be used again after it is closed"() {
+        when:
+        lock.lockExclusive()
+        lock.unlockExclusive()
+        lock.close()
+        lock.lockShared()
+        lock.unlockShared()
+
+        then:
+        0 * changeAction.run()
+        tmpDir.file('cache.lock').assertIsFile()
+    }
+
+    def "unlocks lock file when lock is released outside an operation"() {
+        when:
+        lock.lockShared()
+        lock.unlockShared()
+        lock.lockExclusive()
+        lock.unlockExclusive()
+
+        then:
+        !lockFileLocked()
+    }
+
+    def "keeps lock file locked until the operation ends"() {
+        when:
+        CacheLock.beginOperation()
+        lock.lockShared()
+        lock.unlockShared()
+        lock.lockExclusive()
+        lock.unlockExclusive()
+
+        then:
+        lockFileLocked()
+
+        when:
+        CacheLock.endOperation()
+
+        then:
+        !lockFileLocked()
+    }
+
+    def "runs change action when another lock has held the lock exclusively during an operation"() {
+        when:
+        CacheLock.beginOperation()
+        lock.lockShared()
+        lock.unlockShared()
+        other.lockExclusive()
+        other.unlockExclusive()
+        lock.lockShared()
+        lock.unlockShared()
+        CacheLock.endOperation()
+
+        then:
+        1 * changeAction.run()
+        0 * otherChangeAction.run()
+        !lockFileLocked()
+    }
+
+    def "lock file is unlocked when lock is closed during an operation"() {
+        when:
+        CacheLock.beginOperation()
+        lock.lockShared()
+        lock.unlockShared()
+        lock.close()
+        other.close()
+
+        then:
+        !lockFileLocked()
+
+        cleanup:
+        CacheLock.endOperation()
+    }
+
+    def lockFileLocked() {
+        def file = new RandomAccessFile(tmpDir.file('cache.lock'), 'rw')
+        try {
+            file.channel.tryLock().release()
+            return false
+        } catch (OverlappingFileLockException e) {
+            return true
+        } finally {
+            file.close()
+        }
+    }
+}
@@ -63,7 +63,7 @@ public class DefaultPersistentDirectoryCacheTest {
         DefaultPersistentDirectoryCache cache = new DefaultPersistentDirectoryCache(dir, CacheUsage.ON, properties);
         assertFalse(cache.isValid());
 
-        dir.assertHasDescendants();
+        dir.assertHasDescendants("cache.lock");
     }
 
     @Test
@@ -73,7 +73,7 @@ public class DefaultPersistentDirectoryCacheTest {
         DefaultPersistentDirectoryCache cache = new DefaultPersistentDirectoryCache(dir, CacheUsage.REBUILD, properties);
         assertFalse(cache.isValid());
 
-        dir.assertHasDescendants();
+        dir.assertHasDescendants("cache.lock");
     }
 
     @Test
@@ -16,8 +16,10 @@
 package org.gradle.cache.btree;
 
 import org.gradle.cache.DefaultSerializer;
+import org.gradle.cache.EvictionPolicy;
 import org.gradle.cache.PersistentCache;
 import org.gradle.cache.Serializer;
+import org.gradle.util.TimeProvider;
 import org.gradle.util.TestFile;
 import org.gradle.util.TemporaryFolder;
 import org.jmock.Expectations;
@@ -149,6 +151,226 @@ public class BTreePersistentIndexedCacheTest {
         assertThat(cacheFile.length(), equalTo(len));
     }
     
+    @Test
+    public void readsBlockRewrittenAtSamePositionWithDifferentSize() {
+        BTreePersistentIndexedCache<String, String> cache = new BTreePersistentIndexedCache<String, String>(
+                backingCache, new DefaultSerializer<String>(), (short) 4, 100);
+        TestFile cacheFile = tmpDir.getDir().file("cache.bin");
+
+        cache.put("key_1", "a much longer value");
+        cache.put("key_2", "abcd");
+        assertThat(cache.get("key_1"), equalTo("a much longer value"));
+        long len = cacheFile.length();
+
+        cache.put("key_1", "short");
+        assertThat(cacheFile.length(), equalTo(len));
+        assertThat(cache.get("key_1"), equalTo("short"));
+
+        cache.put("key_1", "a longer value");
+        assertThat(cacheFile.length(), equalTo(len));
+        assertThat(cache.get("key_1"), equalTo("a longer value"));
+
+        cache.reset();
+        assertThat(cache.get("key_1"), equalTo("a longer value"));
+        assertThat(cache.get("key_2"), equalTo("abcd"));
+        cache.verify();
+    }
+
+    @Test
+    public void readsBlockWhosePositionIsReusedFromTheFreeList() {
+        BTreePersistentIndexedCache<String, String> cache = new BTreePersistentIndexedCache<String, String>(
+                backingCache, new DefaultSerializer<String>(), (short) 4, 100);
+        TestFile cacheFile = tmpDir.getDir().file("cache.bin");
+
+        cache.put("key_1", "abcd");
+        cache.put("key_2", "abcd");
+        assertThat(cache.get("key_1"), equalTo("abcd"));
+        long len = cacheFile.length();
+
+        cache.remove("key_1");
+        cache.put("key_new", "wxyz");
+        assertThat(cacheFile.length(), equalTo(len));
+        assertThat(cache.get("key_new"), equalTo("wxyz"));
+        assertNull(cache.get("key_1"));
+
+        cache.reset();
+        assertThat(cache.get("key_new"), equalTo("wxyz"));
+        assertNull(cache.get("key_1"));
+        cache.verify();
+    }
+
+    @Test
+    public void readsBlocksWrittenByAnotherProcessAfterReopening() {
+        final TestFile otherDir = tmpDir.getDir().file("other").createDir();
+        final PersistentCache otherBackingCache = context.mock(PersistentCache.class, "otherBackingCache");
+        context.checking(new Expectations(){{
+            allowing(otherBackingCache).getBaseDir();
+            will(returnValue(otherDir));
+            allowing(otherBackingCache).markValid();
+        }});
+
+        cache.put("key_1", 1);
+        cache.put("key_2", 2);
+        assertThat(cache.get("key_1"), equalTo(1));
+        cache.close();
+
+        BTreePersistentIndexedCache<String, Integer> other = new BTreePersistentIndexedCache<String, Integer>(
+                otherBackingCache, serializer, (short) 4, 100);
+        other.put("key_1", 11);
+        other.put("key_3", 3);
+        other.close();
+        otherDir.file("cache.bin").copyTo(tmpDir.getDir().file("cache.bin"));
+
+        cache = new BTreePersistentIndexedCache<String, Integer>(backingCache, serializer, (short) 4, 100);
+        assertThat(cache.get("key_1"), equalTo(11));
+        assertNull(cache.get("key_2"));
+        assertThat(cache.get("key_3"), equalTo(3));
+        cache.verify();
+    }
+
+    @Test
+    public void seesChangesMadeThroughAnotherCacheInstance() {
+        BTreePersistentIndexedCache<String, Integer> other = new BTreePersistentIndexedCache<String, Integer>(
+                backingCache, serializer, (short) 4, 100);
+        assertNull(other.get("key_1"));
+
+        checkAdds(1, 2, 3, 4, 5, 6, 7, 8);
+        for (int i = 1; i <= 8; i++) {
+            assertThat(other.get(String.format("key_%d", i)), equalTo(i));
+        }
+
+        other.put("key_9", 9);
+        other.remove("key_1");
+        other.close();
+
+        assertThat(cache.get("key_9"), equalTo(9));
+        assertNull(cache.get("key_1"));
+        cache.verify();
+    }
+
+    @Test
+    public void evictsEntriesWhichHaveNotBeenUsedWithinMaxAgeWhenClosed() {
+        TestTimeProvider timeProvider = new TestTimeProvider();
+        cache = new BTreePersistentIndexedCache<String, Integer>(backingCache, serializer, (short) 4, 100,
+                EvictionPolicy.maxAgeInDays(2), timeProvider);
+        cache.put("key_1", 1);
+        cache.put("key_2", 2);
+
+        timeProvider.advanceDays(2);
+        cache.put("key_3", 3);
+        assertThat(cache.get("key_2"), equalTo(2));
+
+        timeProvider.advanceDays(1);
+        cache.reset();
+
+        assertNull(cache.get("key_1"));
+        assertThat(cache.get("key_2"), equalTo(2));
+        assertThat(cache.get("key_3"), equalTo(3));
+        cache.verify();
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedEntriesWhenLargerThanMaxSize() {
+        TestTimeProvider timeProvider = new TestTimeProvider();
+        cache = new BTreePersistentIndexedCache<String, Integer>(backingCache, serializer, (short) 4, 100,
+                new EvictionPolicy(300, Long.MAX_VALUE), timeProvider);
+        for (int i = 1; i <= 10; i++) {
+            timeProvider.advanceDays(1);
+            cache.put(String.format("key_%d", i), i);
+        }
+        timeProvider.advanceDays(1);
+        assertThat(cache.get("key_1"), equalTo(1));
+
+        cache.reset();
+
+        assertThat(cache.get("key_1"), equalTo(1));
+        assertThat(cache.get("key_10"), equalTo(10));
+        assertNull(cache.get("key_2"));
+        cache.verify();
+    }
+
+    @Test
+    public void compactsCacheFileWhenMostOfItIsUnused() {
+        TestTimeProvider timeProvider = new TestTimeProvider();
+        cache = new BTreePersistentIndexedCache<String, Integer>(backingCache, serializer, (short) 4, 100,
+                EvictionPolicy.maxAgeInDays(2), timeProvider);
+        TestFile cacheFile = tmpDir.getDir().file("cache.bin");
+        List<Integer> values = new ArrayList<Integer>();
+        for (int i = 0; i < 10000; i++) {
+            values.add(i);
+        }
+        checkAdds(values);
+        long len = cacheFile.length();
+        assertThat(len, greaterThan(1024L * 1024L));
+
+        timeProvider.advanceDays(3);
+        cache.put("key_new", 12);
+        cache.reset();
+
+        assertThat(cacheFile.length(), lessThan(len / 100));
+        assertThat(cache.get("key_new"), equalTo(12));
+        assertNull(cache.get("key_1"));
+        cache.verify();
+    }
+
+    @Test
+    public void compactsCacheFileWithoutEvictionPolicyWhenMostOfItIsUnused() {
+        TestTimeProvider timeProvider = new TestTimeProvider();
+        cache = new BTreePersistentIndexedCache<String, Integer>(backingCache, serializer, (short) 4, 100,
+                EvictionPolicy.NONE, timeProvider);
+        TestFile cacheFile = tmpDir.getDir().file("cache.bin");
+        List<Integer> values = new ArrayList<Integer>();
+        for (int i = 0; i < 10000; i++) {
+            values.add(i);
+        }
+        checkAdds(values);
+        for (int i = 1; i < 10000; i++) {
+            cache.remove(String.format("key_%d", i));
+        }
+        long len = cacheFile.length();
+        assertThat(len, greaterThan(1024L * 1024L));
+
+        timeProvider.advanceDays(2);
+        cache.reset();
+
+        assertThat(cacheFile.length(), lessThan(len / 100));
+        assertFalse(tmpDir.getDir().file("cache.bin.compact").exists());
+        assertThat(cache.get("key_0"), equalTo(0));
+        assertNull(cache.get("key_1"));
+        cache.verify();
+    }
+
+    @Test
+    public void keepsCacheFileWhenItCannotBeReplacedWithCompactedFile() {
+        TestTimeProvider timeProvider = new TestTimeProvider();
+        cache = new BTreePersistentIndexedCache<String, Integer>(backingCache, serializer, (short) 4, 100,
+                EvictionPolicy.NONE, timeProvider) {
+            @Override
+            boolean replaceCacheFile(File compactedFile) {
+                return false;
+            }
+        };
+        TestFile cacheFile = tmpDir.getDir().file("cache.bin");
+        List<Integer> values = new ArrayList<Integer>();
+        for (int i = 0; i < 10000; i++) {
+            values.add(i);
+        }
+        checkAdds(values);
+        for (int i = 1; i < 10000; i++) {
+            cache.remove(String.format("key_%d", i));
+        }
+        long len = cacheFile.length();
+
+        timeProvider.advanceDays(2);
+        cache.reset();
+
+        assertThat(cacheFile.length(), equalTo(len));
+        assertFalse(tmpDir.getDir().file("cache.bin.compact").exists());
+        assertThat(cache.get("key_0"), equalTo(0));
+        assertNull(cache.get("key_1"));
+        cache.verify();
+    }
+
     @Test
     public void canHandleLargeNumberOfEntries() {
 
@@ -318,4 +540,15 @@ public class BTreePersistentIndexedCacheTest {
         }
     }
 
-}
\ No newline at end of file
+    private static class TestTimeProvider implements TimeProvider {
+        private long time = System.currentTimeMillis();
+
+        public long getCurrentTime() {
+            return time;
+        }
+
+        void advanceDays(int days) {
+            time += days * 24L * 60 * 60 * 1000;
+        }
+    }
+}
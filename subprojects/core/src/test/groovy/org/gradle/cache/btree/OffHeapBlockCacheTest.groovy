@@ -0,0 +1,132 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.btree
+
+import spock.lang.Specification
+
+class OffHeapBlockCacheTest extends Specification {
+    final OffHeapBlockCache cache = new OffHeapBlockCache(2048)
+    final File file = new File('cache.bin')
+    final File otherFile = new File('other.bin')
+
+    def "returns copy of block which spans several pages"() {
+        def block = bytes(1200, 3)
+
+        when:
+        cache.put(file, 100, block, block.length)
+
+        then:
+        cache.get(file, 100) == block
+        cache.get(file, 200) == null
+    }
+
+    def "caches only the given length of the block"() {
+        def block = bytes(100, 1)
+
+        when:
+        cache.put(file, 100, block, 40)
+
+        then:
+        cache.get(file, 100) == block[0..<40] as byte[]
+    }
+
+    def "replaces block at same position"() {
+        when:
+        cache.put(file, 100, bytes(600, 1), 600)
+        cache.put(file, 100, bytes(20, 2), 20)
+
+        then:
+        cache.get(file, 100) == bytes(20, 2)
+    }
+
+    def "evicts least recently used blocks when budget is used up"() {
+        given:
+        cache.put(file, 1, bytes(512, 1), 512)
+        cache.put(file, 2, bytes(512, 2), 512)
+        cache.put(file, 3, bytes(1024, 3), 1024)
+        cache.get(file, 1)
+
+        when:
+        cache.put(file, 4, bytes(1000, 4), 1000)
+
+        then:
+        cache.get(file, 1) == bytes(512, 1)
+        cache.get(file, 2) == null
+        cache.get(file, 3) == null
+        cache.get(file, 4) == bytes(1000, 4)
+    }
+
+    def "does not cache block which is larger than budget"() {
+        given:
+        cache.put(file, 1, bytes(512, 1), 512)
+
+        when:
+        cache.put(file, 2, bytes(4096, 2), 4096)
+
+        then:
+        cache.get(file, 1) == bytes(512, 1)
+        cache.get(file, 2) == null
+    }
+
+    def "removes block"() {
+        given:
+        cache.put(file, 1, bytes(512, 1), 512)
+        cache.put(file, 2, bytes(512, 2), 512)
+
+        when:
+        cache.remove(file, 1)
+
+        then:
+        cache.get(file, 1) == null
+        cache.get(file, 2) == bytes(512, 2)
+    }
+
+    def "keeps blocks of different files apart"() {
+        when:
+        cache.put(file, 1, bytes(512, 1), 512)
+        cache.put(otherFile, 1, bytes(512, 2), 512)
+
+        then:
+        cache.get(file, 1) == bytes(512, 1)
+        cache.get(otherFile, 1) == bytes(512, 2)
+    }
+
+    def "clear discards the blocks of the given file and reuses their pages"() {
+        given:
+        cache.put(file, 1, bytes(1024, 1), 1024)
+        cache.put(otherFile, 1, bytes(512, 2), 512)
+
+        when:
+        cache.clear(file)
+
+        then:
+        cache.get(file, 1) == null
+        cache.get(otherFile, 1) == bytes(512, 2)
+
+        when:
+        cache.put(file, 2, bytes(1024, 3), 1024)
+
+        then:
+        cache.get(file, 2) == bytes(1024, 3)
+        cache.get(otherFile, 1) == bytes(512, 2)
+    }
+
+    def bytes(int length, int seed) {
+        byte[] bytes = new byte[length]
+        new Random(seed).nextBytes(bytes)
+        return bytes
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration
+
+import org.gradle.api.InvalidUserDataException
+import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.project.IsolatedProjectEvaluation
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.resource.Resource
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+class ParallelBuildConfigurerTest extends Specification {
+    private final GradleInternal gradle = Mock()
+    private final ProjectInternal rootProject = Mock()
+    private final ProjectInternal child1 = Mock()
+    private final ProjectInternal child2 = Mock()
+    private final ProjectInternal grandChild = Mock()
+    private final BuildConfigurer delegate = Mock()
+    private final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    private final ParallelBuildConfigurer configurer = new ParallelBuildConfigurer(delegate, executorFactory, 4)
+    private final Map<ProjectInternal, String> scripts = [:]
+
+    def setup() {
+        _ * gradle.rootProject >> rootProject
+        _ * rootProject.subprojects >> ([child1, child2, grandChild] as Set)
+        _ * rootProject.childProjects >> [child1: child1, child2: child2]
+        _ * child1.childProjects >> [grandChild: grandChild]
+        _ * child2.childProjects >> [:]
+        _ * grandChild.childProjects >> [:]
+        _ * child1.compareTo(child2) >> -1
+        _ * child2.compareTo(child1) >> 1
+        _ * child1.buildScriptSource >> buildScript(child1)
+        _ * child2.buildScriptSource >> buildScript(child2)
+        _ * grandChild.buildScriptSource >> buildScript(grandChild)
+    }
+
+    def buildScript(ProjectInternal project) {
+        scripts[project] = "dependencies { compile project(':other') }"
+        Resource resource = [getExists: { scripts.containsKey(project) }, getText: { scripts[project] }] as Resource
+        return [getResource: { resource }] as ScriptSource
+    }
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def evaluatesRootProjectThenEachProjectAfterItsParentThenDelegates() {
+        def evaluated = Collections.synchronizedList([])
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        1 * rootProject.evaluate() >> { evaluated << rootProject; rootProject }
+        1 * child1.evaluate() >> { evaluated << child1; child1 }
+        1 * child2.evaluate() >> { evaluated << child2; child2 }
+        1 * grandChild.evaluate() >> { evaluated << grandChild; grandChild }
+
+        then:
+        1 * delegate.configure(gradle)
+
+        and:
+        evaluated[0] == rootProject
+        evaluated.indexOf(child1) < evaluated.indexOf(grandChild)
+    }
+
+    def rethrowsFailureAndDoesNotEvaluateChildrenOfFailedProject() {
+        def failure = new RuntimeException()
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        1 * child1.evaluate() >> { throw failure }
+        0 * grandChild.evaluate()
+        0 * delegate.configure(gradle)
+        def e = thrown(RuntimeException)
+        e == failure
+    }
+
+    def reportsCrossProjectAccessWhileEvaluatingInParallel() {
+        when:
+        configurer.configure(gradle)
+
+        then:
+        1 * child2.evaluate() >> {
+            IsolatedProjectEvaluation.checkCanAccess("allprojects()", [child1])
+            child2
+        }
+        def e = thrown(InvalidUserDataException)
+        e.message.startsWith("Cannot use allprojects() to access ")
+    }
+
+    def allowsProjectToAccessItselfWhileEvaluatingInParallel() {
+        when:
+        configurer.configure(gradle)
+
+        then:
+        1 * child2.evaluate() >> {
+            IsolatedProjectEvaluation.checkCanAccess("allprojects()", [child2])
+            child2
+        }
+        1 * delegate.configure(gradle)
+    }
+
+    def evaluatesProjectsSeriallyWhenBuildScriptConfiguresOtherProjects() {
+        scripts[child2] = "subprojects { apply plugin: 'java' }"
+        def thread = Thread.currentThread()
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        1 * rootProject.evaluate()
+        0 * child1.evaluate()
+        0 * child2.evaluate()
+        0 * grandChild.evaluate()
+
+        then:
+        1 * delegate.configure(gradle) >> {
+            assert Thread.currentThread() == thread
+            IsolatedProjectEvaluation.checkCanAccess("subprojects()", [child1])
+        }
+    }
+
+    def evaluatesProjectsInParallelWhenTheyHaveNoBuildScript() {
+        scripts.clear()
+        def thread = Thread.currentThread()
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        1 * child1.evaluate() >> { assert Thread.currentThread() != thread; child1 }
+        1 * child2.evaluate() >> { assert Thread.currentThread() != thread; child2 }
+        1 * grandChild.evaluate() >> { assert Thread.currentThread() != thread; grandChild }
+        1 * delegate.configure(gradle)
+    }
+
+    def allowsCrossProjectAccessWhenNotEvaluatingInParallel() {
+        when:
+        IsolatedProjectEvaluation.checkCanAccess("allprojects()", [child1, child2])
+
+        then:
+        notThrown(InvalidUserDataException)
+    }
+}
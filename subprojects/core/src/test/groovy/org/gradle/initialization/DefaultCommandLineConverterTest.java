@@ -66,6 +66,7 @@ public class DefaultCommandLineConverterTest {
     private boolean expectedColorOutput = true;
     private StartParameter actualStartParameter;
     private boolean expectedProfile;
+    private boolean expectedContinuous;
 
     private final DefaultCommandLineConverter commandLineConverter = new DefaultCommandLineConverter();
 
@@ -97,6 +98,7 @@ public class DefaultCommandLineConverterTest {
         assertEquals(expectedExcludedTasks, startParameter.getExcludedTaskNames());
         assertEquals(expectedInitScripts, startParameter.getInitScripts());
         assertEquals(expectedProfile, startParameter.isProfile());
+        assertEquals(expectedContinuous, startParameter.isContinuous());
     }
 
     private void checkConversion(final boolean embedded, String... args) {
@@ -354,6 +356,12 @@ public class DefaultCommandLineConverterTest {
         checkConversion("--profile");
     }
 
+    @Test
+    public void withContinuous() {
+        expectedContinuous = true;
+        checkConversion("--continuous");
+    }
+
     @Test(expected = CommandLineArgumentException.class)
     public void withUnknownOption() {
         checkConversion("--unknown");
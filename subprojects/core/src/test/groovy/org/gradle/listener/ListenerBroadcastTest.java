@@ -29,6 +29,12 @@ import org.jmock.integration.junit4.JUnit4Mockery;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.gradle.util.HelperUtil.*;
 import static org.gradle.util.Matchers.*;
 import static org.hamcrest.Matchers.*;
@@ -118,6 +124,108 @@ public class ListenerBroadcastTest {
         broadcast.getSource().event1("param");
     }
 
+    @Test
+    public void boxesPrimitiveParametersWhenNotifyingDispatch() throws NoSuchMethodException {
+        final Dispatch<MethodInvocation> dispatch = context.mock(Dispatch.class);
+        final MethodInvocation invocation = new MethodInvocation(TestListener.class.getMethod("event2", Integer.TYPE, String.class), new Object[]{9, "param"});
+
+        context.checking(new Expectations() {{
+            one(dispatch).dispatch(invocation);
+        }});
+
+        broadcast.add(dispatch);
+
+        broadcast.getSource().event2(9, "param");
+    }
+
+    @Test
+    public void canBroadcastToListenerTypeWithNonVoidMethods() {
+        ListenerBroadcast<QueryListener> broadcast = new ListenerBroadcast<QueryListener>(QueryListener.class);
+        final QueryListener listener = context.mock(QueryListener.class);
+
+        context.checking(new Expectations() {{
+            one(listener).query("param");
+            will(returnValue("ignore me"));
+        }});
+
+        broadcast.add(listener);
+
+        assertThat(broadcast.getSource().query("param"), nullValue());
+        assertThat(broadcast.getSource().toString(), equalTo("QueryListener broadcast"));
+    }
+
+    @Test
+    public void canCreateAndUseBroadcastsForSameTypeFromSeveralThreadsConcurrently() throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger received = new AtomicInteger();
+        final List<Object> sources = new CopyOnWriteArrayList<Object>();
+        final List<Throwable> failures = new CopyOnWriteArrayList<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 10; i++) {
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        ListenerBroadcast<ConcurrentListener> broadcast = new ListenerBroadcast<ConcurrentListener>(ConcurrentListener.class);
+                        for (int j = 0; j < 5; j++) {
+                            broadcast.add(new ConcurrentListener() {
+                                public void event(int value) {
+                                    received.addAndGet(value);
+                                }
+                            });
+                        }
+                        broadcast.getSource().event(2);
+                        sources.add(broadcast.getSource());
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+            };
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertThat(received.get(), equalTo(100));
+        for (Object source : sources) {
+            assertSame(sources.get(0).getClass(), source.getClass());
+        }
+    }
+
+    @Test
+    public void listenersCanBeAddedWhileBroadcastingFromAnotherThread() throws Exception {
+        final ListenerBroadcast<ConcurrentListener> broadcast = new ListenerBroadcast<ConcurrentListener>(ConcurrentListener.class);
+        final AtomicInteger received = new AtomicInteger();
+        final CountDownLatch added = new CountDownLatch(1);
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                while (added.getCount() > 0) {
+                    broadcast.getSource().event(1);
+                }
+            }
+        };
+        thread.start();
+        for (int i = 0; i < 100; i++) {
+            broadcast.add(new ConcurrentListener() {
+                public void event(int value) {
+                    received.addAndGet(value);
+                }
+            });
+        }
+        added.countDown();
+        thread.join();
+
+        int before = received.get();
+        broadcast.getSource().event(1);
+        assertThat(received.get(), equalTo(before + 100));
+    }
+
     @Test
     public void dispatchIsNotUsedAfterItIsRemoved() {
         Dispatch<MethodInvocation> dispatch = context.mock(Dispatch.class);
@@ -331,4 +439,12 @@ public class ListenerBroadcastTest {
 
         void event2(int value, String other);
     }
+
+    public interface ConcurrentListener {
+        void event(int value);
+    }
+
+    public interface QueryListener {
+        String query(String param);
+    }
 }
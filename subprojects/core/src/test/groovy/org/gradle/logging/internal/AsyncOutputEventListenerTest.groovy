@@ -0,0 +1,128 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.logging.internal
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+class AsyncOutputEventListenerTest extends OutputSpecification {
+    final List<OutputEvent> received = new CopyOnWriteArrayList<OutputEvent>()
+    final AsyncOutputEventListener.BatchListener target = { List<OutputEvent> events -> received.addAll(events) } as AsyncOutputEventListener.BatchListener
+    AsyncOutputEventListener listener
+
+    def cleanup() {
+        listener?.stop()
+    }
+
+    def forwardsEventsInOrderWhenFlushed() {
+        listener = new AsyncOutputEventListener(target, 8)
+        def events = (1..100).collect { event("$it") }
+
+        when:
+        events.each { listener.onOutput(it) }
+        listener.flush()
+
+        then:
+        received == events
+    }
+
+    def forwardsEventsFromMultipleThreads() {
+        listener = new AsyncOutputEventListener(target, 8)
+
+        when:
+        def threads = (1..4).collect { thread ->
+            Thread.start { 500.times { listener.onOutput(event("$thread")) } }
+        }
+        threads*.join()
+        listener.flush()
+
+        then:
+        received.size() == 2000
+    }
+
+    def forwardsPendingEventsWhenStopped() {
+        listener = new AsyncOutputEventListener(target, 8)
+        def events = (1..20).collect { event("$it") }
+
+        when:
+        events.each { listener.onOutput(it) }
+        listener.stop()
+
+        then:
+        received == events
+    }
+
+    def forwardsEventsSynchronouslyOnceStopped() {
+        listener = new AsyncOutputEventListener(target, 8)
+        def event = event('message')
+
+        when:
+        listener.stop()
+        listener.onOutput(event)
+
+        then:
+        received == [event]
+    }
+
+    def forwardsEventsAddedWhileStopping() {
+        listener = new AsyncOutputEventListener(target, 8)
+
+        when:
+        def threads = (1..4).collect { thread ->
+            Thread.start { 500.times { listener.onOutput(event("$thread")) } }
+        }
+        listener.stop()
+        threads*.join()
+
+        then:
+        received.size() == 2000
+    }
+
+    def continuesToForwardEventsAfterTargetFails() {
+        def failed = false
+        listener = new AsyncOutputEventListener({ List<OutputEvent> events ->
+            if (!failed) {
+                failed = true
+                throw new RuntimeException('broken')
+            }
+            received.addAll(events)
+        } as AsyncOutputEventListener.BatchListener, 8)
+        def message = event('message')
+
+        when:
+        listener.onOutput(event('broken'))
+        listener.flush()
+        listener.onOutput(message)
+        listener.flush()
+
+        then:
+        received == [message]
+    }
+
+    def discardsAllButTheMostRecentOfConsecutiveProgressEvents() {
+        listener = new AsyncOutputEventListener(target, 4096)
+
+        when:
+        listener.onOutput(start('description'))
+        1000.times { listener.onOutput(progress("status $it")) }
+        listener.onOutput(complete('status'))
+        listener.flush()
+
+        then:
+        received.first() instanceof ProgressStartEvent
+        received.findAll { it instanceof ProgressEvent }.last().status == 'status 999'
+        received.last() instanceof ProgressCompleteEvent
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.logging.internal
+
+class OutputEventBufferTest extends OutputSpecification {
+    def roundsCapacityUpToPowerOfTwo() {
+        expect:
+        new OutputEventBuffer(2).capacity == 2
+        new OutputEventBuffer(5).capacity == 8
+        new OutputEventBuffer(8).capacity == 8
+    }
+
+    def drainsEventsInTheOrderTheyWereAdded() {
+        def buffer = new OutputEventBuffer(4)
+        def events = [event('1'), event('2'), event('3')]
+        def drained = []
+
+        when:
+        events.each { assert buffer.offer(it) }
+        def count = buffer.drainTo(drained, 10)
+
+        then:
+        count == 3
+        drained == events
+        buffer.empty
+    }
+
+    def rejectsEventsWhenFull() {
+        def buffer = new OutputEventBuffer(2)
+        def drained = []
+
+        expect:
+        buffer.offer(event('1'))
+        buffer.offer(event('2'))
+        !buffer.offer(event('3'))
+        buffer.drainTo(drained, 1) == 1
+        buffer.offer(event('3'))
+        buffer.drainTo(drained, 10) == 2
+        drained.collect { it.message } == ['1', '2', '3']
+        buffer.addedCount == 3
+        buffer.removedCount == 3
+    }
+}
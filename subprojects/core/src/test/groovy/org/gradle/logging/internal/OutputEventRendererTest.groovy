@@ -224,6 +224,32 @@ class OutputEventRendererTest extends OutputSpecification {
         then:
         console.value.readLines() == ['{error}error', '{normal}']
     }
+
+    def rendersLogEventsOnRenderingThreadWhenAsyncRenderingEnabled() {
+        def listener = new TestListener()
+
+        when:
+        renderer.enableAsyncRendering(4)
+        renderer.addStandardOutputListener(listener)
+        10.times { renderer.onOutput(event("info $it", LogLevel.INFO)) }
+        renderer.flush()
+
+        then:
+        listener.value.readLines() == (0..9).collect { "info $it" }
+    }
+
+    def appliesLogLevelChangeToEventsQueuedAfterItWhenAsyncRenderingEnabled() {
+        when:
+        renderer.enableAsyncRendering(16)
+        renderer.configure(LogLevel.ERROR)
+        renderer.onOutput(event('info', LogLevel.INFO))
+        renderer.onOutput(event('error', LogLevel.ERROR))
+        renderer.flush()
+
+        then:
+        outputs.stdOut.readLines() == []
+        outputs.stdErr.readLines() == ['error']
+    }
 }
 
 class TestListener implements StandardOutputListener {
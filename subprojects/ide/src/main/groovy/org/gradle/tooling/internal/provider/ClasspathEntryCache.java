@@ -0,0 +1,278 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.tooling.internal.provider;
+
+import org.apache.ivy.plugins.matcher.PatternMatcher;
+import org.apache.ivy.plugins.resolver.AbstractPatternsBasedResolver;
+import org.apache.ivy.plugins.resolver.AbstractResolver;
+import org.apache.ivy.plugins.resolver.ChainResolver;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.*;
+import org.gradle.api.file.DirectoryTree;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.plugins.ide.eclipse.model.ClasspathEntry;
+import org.gradle.plugins.ide.eclipse.model.EclipseClasspath;
+import org.gradle.plugins.ide.eclipse.model.Library;
+import org.gradle.util.ReflectionUtil;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * <p>Caches the resolved Eclipse classpath of each project, so that repeated requests for the model of the same build, for example when an IDE
+ * refreshes, only resolve the dependencies of those projects whose classpath may have changed.</p>
+ *
+ * <p>An entry is keyed by a fingerprint of everything the classpath is built from, taken after the build has been configured: the source
+ * directories, the classpath settings, the repositories and their patterns, and the dependencies declared by the classpath configurations,
+ * including those declared by the configurations of any project dependencies. A classpath which contains dynamic or changing module versions
+ * is not cached, as it may change without any change to the build. A version is changing when its dependency is marked as changing, when it
+ * is a snapshot version, or when it matches the changing pattern of one of the repositories. A cached entry is also discarded when any of the
+ * libraries it refers to no longer exists.</p>
+ *
+ * <p>The cache lives for as long as this class is loaded, which for a daemon is the life of the daemon.</p>
+ */
+public class ClasspathEntryCache {
+    private static final int MAX_PROJECTS = 1000;
+    private static final ClasspathEntryCache INSTANCE = new ClasspathEntryCache();
+    private final Map<File, CachedClasspath> cache = new LinkedHashMap<File, CachedClasspath>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, CachedClasspath> eldest) {
+            return size() > MAX_PROJECTS;
+        }
+    };
+
+    public static ClasspathEntryCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the classpath entries for the given classpath of the given project, reusing the entries resolved by a previous request if
+     * nothing they were resolved from has changed.
+     */
+    public List<ClasspathEntry> resolveDependencies(Project project, EclipseClasspath classpath) {
+        String fingerprint = fingerprint(project, classpath);
+        if (fingerprint != null) {
+            CachedClasspath cached;
+            synchronized (cache) {
+                cached = cache.get(project.getProjectDir());
+            }
+            if (cached != null && cached.fingerprint.equals(fingerprint) && librariesExist(project, cached.entries)) {
+                return cached.entries;
+            }
+        }
+
+        List<ClasspathEntry> entries = Collections.unmodifiableList(new ArrayList<ClasspathEntry>(classpath.resolveDependencies()));
+        synchronized (cache) {
+            if (fingerprint == null) {
+                cache.remove(project.getProjectDir());
+            } else {
+                cache.put(project.getProjectDir(), new CachedClasspath(fingerprint, entries));
+            }
+        }
+        return entries;
+    }
+
+    private boolean librariesExist(Project project, List<ClasspathEntry> entries) {
+        for (ClasspathEntry entry : entries) {
+            if (entry instanceof Library && !project.file(((Library) entry).getPath()).exists()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a fingerprint of the inputs of the given classpath, or null if the classpath cannot be cached.
+     */
+    private String fingerprint(Project project, EclipseClasspath classpath) {
+        StringBuilder fingerprint = new StringBuilder();
+        fingerprint.append(project.getPath()).append('\n');
+        fingerprint.append(classpath.isProjectDependenciesOnly()).append(',');
+        fingerprint.append(classpath.isDownloadSources()).append(',');
+        fingerprint.append(classpath.isDownloadJavadoc()).append('\n');
+        fingerprint.append(classpath.getDefaultOutputDir()).append('\n');
+        fingerprint.append(classpath.getContainers()).append('\n');
+        fingerprint.append(classpath.getClassFolders()).append('\n');
+        fingerprint.append(classpath.getPathVariables()).append('\n');
+
+        if (classpath.getSourceSets() != null) {
+            for (SourceSet sourceSet : classpath.getSourceSets()) {
+                fingerprint.append("sourceSet ").append(sourceSet.getName()).append('\n');
+                for (DirectoryTree tree : sourceSet.getAllSource().getSrcDirTrees()) {
+                    fingerprint.append(tree.getDir()).append(' ').append(tree.getDir().isDirectory()).append(' ');
+                    fingerprint.append(tree.getPatterns().getIncludes()).append(' ').append(tree.getPatterns().getExcludes()).append('\n');
+                }
+            }
+        }
+
+        List<DependencyResolver> resolvers = project.getRepositories().getResolvers();
+        for (DependencyResolver resolver : resolvers) {
+            appendResolver(resolver, fingerprint);
+        }
+
+        Set<Configuration> visited = new HashSet<Configuration>();
+        for (Configuration configuration : classpath.getPlusConfigurations()) {
+            fingerprint.append("plus ");
+            if (!appendConfiguration(configuration, fingerprint, visited, resolvers)) {
+                return null;
+            }
+        }
+        for (Configuration configuration : classpath.getMinusConfigurations()) {
+            fingerprint.append("minus ");
+            if (!appendConfiguration(configuration, fingerprint, visited, resolvers)) {
+                return null;
+            }
+        }
+        return fingerprint.toString();
+    }
+
+    private void appendResolver(DependencyResolver resolver, StringBuilder fingerprint) {
+        fingerprint.append("repository ").append(resolver.getName()).append(' ').append(resolver.getClass().getName()).append('\n');
+        if (resolver instanceof AbstractPatternsBasedResolver) {
+            AbstractPatternsBasedResolver patternsBasedResolver = (AbstractPatternsBasedResolver) resolver;
+            fingerprint.append("ivy ").append(patternsBasedResolver.getIvyPatterns()).append('\n');
+            fingerprint.append("artifact ").append(patternsBasedResolver.getArtifactPatterns()).append('\n');
+            fingerprint.append("m2 ").append(patternsBasedResolver.isM2compatible()).append('\n');
+        }
+        if (resolver instanceof AbstractResolver) {
+            AbstractResolver abstractResolver = (AbstractResolver) resolver;
+            fingerprint.append("changing ").append(getChangingMatcherName(abstractResolver)).append(' ');
+            fingerprint.append(getChangingPattern(abstractResolver)).append('\n');
+        }
+        if (resolver instanceof ChainResolver) {
+            for (Object child : ((ChainResolver) resolver).getResolvers()) {
+                appendResolver((DependencyResolver) child, fingerprint);
+            }
+        }
+    }
+
+    private boolean appendConfiguration(Configuration configuration, StringBuilder fingerprint, Set<Configuration> visited,
+                                        List<DependencyResolver> resolvers) {
+        fingerprint.append(configuration.getName()).append(' ').append(configuration.isTransitive()).append('\n');
+        if (!visited.add(configuration)) {
+            return true;
+        }
+        for (ExcludeRule excludeRule : configuration.getExcludeRules()) {
+            fingerprint.append("exclude ").append(excludeRule.getExcludeArgs()).append('\n');
+        }
+        for (Dependency dependency : configuration.getAllDependencies()) {
+            if (!appendDependency(dependency, fingerprint, visited, resolvers)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean appendDependency(Dependency dependency, StringBuilder fingerprint, Set<Configuration> visited,
+                                     List<DependencyResolver> resolvers) {
+        if (dependency instanceof ProjectDependency) {
+            ProjectDependency projectDependency = (ProjectDependency) dependency;
+            fingerprint.append("project ").append(projectDependency.getDependencyProject().getPath()).append(' ');
+            appendModuleDependency(projectDependency, fingerprint);
+            return appendConfiguration(projectDependency.getProjectConfiguration(), fingerprint, visited, resolvers);
+        }
+        if (dependency instanceof ExternalModuleDependency && !(dependency instanceof ClientModule)) {
+            ExternalModuleDependency moduleDependency = (ExternalModuleDependency) dependency;
+            if (moduleDependency.isChanging() || isDynamic(moduleDependency.getVersion())
+                    || isChanging(moduleDependency.getVersion(), resolvers)) {
+                return false;
+            }
+            fingerprint.append("module ").append(moduleDependency.getGroup()).append(':').append(moduleDependency.getName()).append(':');
+            fingerprint.append(moduleDependency.getVersion()).append(' ');
+            appendModuleDependency(moduleDependency, fingerprint);
+            return true;
+        }
+        if (dependency instanceof SelfResolvingDependency) {
+            fingerprint.append("files ").append(((SelfResolvingDependency) dependency).resolve()).append('\n');
+            return true;
+        }
+        // Some other kind of dependency, which we do not know how to fingerprint
+        return false;
+    }
+
+    private void appendModuleDependency(ModuleDependency dependency, StringBuilder fingerprint) {
+        fingerprint.append(dependency.getConfiguration()).append(' ').append(dependency.isTransitive()).append('\n');
+        for (DependencyArtifact artifact : dependency.getArtifacts()) {
+            fingerprint.append("artifact ").append(artifact.getName()).append(':').append(artifact.getType()).append(':');
+            fingerprint.append(artifact.getExtension()).append(':').append(artifact.getClassifier()).append(':').append(artifact.getUrl()).append('\n');
+        }
+        for (ExcludeRule excludeRule : dependency.getExcludeRules()) {
+            fingerprint.append("exclude ").append(excludeRule.getExcludeArgs()).append('\n');
+        }
+    }
+
+    private boolean isDynamic(String version) {
+        return version == null || version.endsWith("+") || version.startsWith("latest.") || version.startsWith("[") || version.startsWith("]")
+                || version.startsWith("(");
+    }
+
+    private boolean isChanging(String version, List<DependencyResolver> resolvers) {
+        if (version.endsWith("-SNAPSHOT")) {
+            return true;
+        }
+        for (DependencyResolver resolver : resolvers) {
+            if (matchesChangingPattern(resolver, version)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesChangingPattern(DependencyResolver resolver, String version) {
+        if (resolver instanceof ChainResolver) {
+            for (Object child : ((ChainResolver) resolver).getResolvers()) {
+                if (matchesChangingPattern((DependencyResolver) child, version)) {
+                    return true;
+                }
+            }
+        }
+        if (!(resolver instanceof AbstractResolver)) {
+            return false;
+        }
+        AbstractResolver abstractResolver = (AbstractResolver) resolver;
+        String pattern = getChangingPattern(abstractResolver);
+        if (pattern == null) {
+            return false;
+        }
+        PatternMatcher matcher = abstractResolver.getSettings() == null ? null
+                : abstractResolver.getSettings().getMatcher(getChangingMatcherName(abstractResolver));
+        if (matcher == null) {
+            // Not attached to any settings yet, so assume the default regular expression matcher
+            return version.matches(pattern);
+        }
+        return matcher.getMatcher(pattern).matches(version);
+    }
+
+    // The changing pattern of a resolver is only visible to its subclasses
+    private static String getChangingPattern(AbstractResolver resolver) {
+        return (String) ReflectionUtil.invoke(resolver, "getChangingPattern", new Object[0]);
+    }
+
+    private static String getChangingMatcherName(AbstractResolver resolver) {
+        return (String) ReflectionUtil.invoke(resolver, "getChangingMatcherName", new Object[0]);
+    }
+
+    private static class CachedClasspath {
+        final String fingerprint;
+        final List<ClasspathEntry> entries;
+
+        private CachedClasspath(String fingerprint, List<ClasspathEntry> entries) {
+            this.fingerprint = fingerprint;
+            this.entries = entries;
+        }
+    }
+}
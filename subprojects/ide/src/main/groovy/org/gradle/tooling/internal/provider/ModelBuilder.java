@@ -43,10 +43,12 @@ public class ModelBuilder {
     private final Map<String, EclipseProjectVersion3> projectMapping = new HashMap<String, EclipseProjectVersion3>();
     private GradleInternal gradle;
     private final TasksFactory tasksFactory;
+    private final ClasspathEntryCache classpathEntryCache;
 
-    public ModelBuilder(boolean includeTasks, boolean projectDependenciesOnly) {
+    public ModelBuilder(boolean includeTasks, boolean projectDependenciesOnly, ClasspathEntryCache classpathEntryCache) {
         this.tasksFactory = new TasksFactory(includeTasks);
         this.projectDependenciesOnly = projectDependenciesOnly;
+        this.classpathEntryCache = classpathEntryCache;
     }
 
     public Object buildAll(GradleInternal gradle) {
@@ -71,7 +73,7 @@ public class ModelBuilder {
         EclipseClasspath classpath = eclipseModel.getClasspath();
 
         classpath.setProjectDependenciesOnly(projectDependenciesOnly);
-        List<ClasspathEntry> entries = classpath.resolveDependencies();
+        List<ClasspathEntry> entries = classpathEntryCache.resolveDependencies(project, classpath);
 
         final List<ExternalDependencyVersion1> externalDependencies = new LinkedList<ExternalDependencyVersion1>();
         final List<EclipseProjectDependencyVersion2> projectDependencies = new LinkedList<EclipseProjectDependencyVersion2>();
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.tooling.internal.provider
+
+import org.gradle.api.internal.project.DefaultProject
+import org.gradle.plugins.ide.eclipse.EclipsePlugin
+import org.gradle.plugins.ide.eclipse.model.EclipseClasspath
+import org.gradle.util.HelperUtil
+import spock.lang.Specification
+
+class ClasspathEntryCacheTest extends Specification {
+    final DefaultProject project = HelperUtil.createRootProject()
+    final ClasspathEntryCache cache = new ClasspathEntryCache()
+    File jar
+    EclipseClasspath classpath
+
+    def setup() {
+        project.apply(plugin: 'java')
+        project.apply(plugin: 'eclipse')
+        jar = project.file('lib.jar')
+        jar.text = 'jar'
+        project.dependencies { compile project.files(jar) }
+        classpath = project.plugins.getPlugin(EclipsePlugin).model.classpath
+    }
+
+    def "reuses entries when nothing has changed"() {
+        when:
+        def entries = cache.resolveDependencies(project, classpath)
+
+        then:
+        entries.find { it.path == jar.canonicalPath }
+        cache.resolveDependencies(project, classpath).is(entries)
+    }
+
+    def "resolves entries again when a dependency is added"() {
+        def other = project.file('other.jar')
+        other.text = 'jar'
+
+        when:
+        def entries = cache.resolveDependencies(project, classpath)
+        project.dependencies { compile project.files(other) }
+        def newEntries = cache.resolveDependencies(project, classpath)
+
+        then:
+        !newEntries.is(entries)
+        newEntries.find { it.path == other.canonicalPath }
+    }
+
+    def "resolves entries again when a library no longer exists"() {
+        when:
+        def entries = cache.resolveDependencies(project, classpath)
+        jar.delete()
+
+        then:
+        !cache.resolveDependencies(project, classpath).is(entries)
+    }
+
+    def "does not cache entries when there is a dynamic module version"() {
+        classpath.projectDependenciesOnly = true
+        project.dependencies { compile 'group:module:1.+' }
+
+        when:
+        def entries = cache.resolveDependencies(project, classpath)
+
+        then:
+        !cache.resolveDependencies(project, classpath).is(entries)
+    }
+
+    def "does not cache entries when there is a snapshot module version"() {
+        classpath.projectDependenciesOnly = true
+        project.dependencies { compile 'group:module:1.0-SNAPSHOT' }
+
+        when:
+        def entries = cache.resolveDependencies(project, classpath)
+
+        then:
+        !cache.resolveDependencies(project, classpath).is(entries)
+    }
+
+    def "does not cache entries when a module version matches the changing pattern of a repository"() {
+        classpath.projectDependenciesOnly = true
+        def resolver = project.repositories.flatDir(name: 'libs', dirs: 'libs')
+        resolver.changingPattern = '.*-dev'
+        project.dependencies { compile 'group:module:1.0-dev' }
+
+        when:
+        def entries = cache.resolveDependencies(project, classpath)
+
+        then:
+        !cache.resolveDependencies(project, classpath).is(entries)
+    }
+
+    def "resolves entries again when the patterns of a repository change"() {
+        def resolver = project.repositories.flatDir(name: 'libs', dirs: 'libs')
+
+        when:
+        def entries = cache.resolveDependencies(project, classpath)
+        resolver.addArtifactPattern(project.file('other').absolutePath + '/[artifact]-[revision].[ext]')
+
+        then:
+        !cache.resolveDependencies(project, classpath).is(entries)
+    }
+}
@@ -18,6 +18,9 @@ package org.gradle.api.plugins.jetty;
 
 import org.gradle.api.GradleException;
 import org.gradle.api.internal.ConventionTask;
+import org.gradle.api.internal.file.watch.FileChangeListener;
+import org.gradle.api.internal.file.watch.FileWatcher;
+import org.gradle.api.internal.file.watch.FileWatcherFactory;
 import org.gradle.api.plugins.jetty.internal.ConsoleScanner;
 import org.gradle.api.plugins.jetty.internal.JettyPluginServer;
 import org.gradle.api.plugins.jetty.internal.JettyPluginWebAppContext;
@@ -72,7 +75,8 @@ public abstract class AbstractJettyRunTask extends ConventionTask {
 
     /**
      * The interval in seconds to scan the webapp for changes and restart the context if necessary. Ignored if reload is
-     * enabled. Disabled by default.
+     * enabled. Disabled by default. Where the JVM provides file change notifications, any value greater than 0 enables
+     * scanning, and changes are noticed as they happen rather than at this interval.
      */
     private int scanIntervalSeconds;
 
@@ -125,10 +129,18 @@ public abstract class AbstractJettyRunTask extends ConventionTask {
     private RequestLog requestLog;
 
     /**
-     * A scanner to check for changes to the webapp.
+     * Holds the files to check for changes to the webapp. The scanner itself is not started, as the files are watched
+     * by a {@link FileWatcher} instead.
      */
     private Scanner scanner = new Scanner();
 
+    /**
+     * Watches the scan targets of the scanner, and notifies the scanner listeners of changes.
+     */
+    private FileWatcher fileWatcher;
+
+    private List<File> watchedFiles;
+
     /**
      * List of Listeners for the scanner.
      */
@@ -329,16 +341,56 @@ public abstract class AbstractJettyRunTask extends ConventionTask {
             return;
         }
 
-        scanner.setReportExistingFilesOnStartup(false);
-        scanner.setScanInterval(getScanIntervalSeconds());
-        scanner.setRecursive(true);
+        logger.info("Watching the webapp for changes, checking at an interval of " + getScanIntervalSeconds()
+                + " seconds when file change notifications are not available.");
+        watchScanTargets();
+    }
+
+    private synchronized void watchScanTargets() {
+        watchedFiles = new ArrayList<File>();
+        for (Object scanDir : scanner.getScanDirs()) {
+            watchedFiles.add((File) scanDir);
+        }
+        FileWatcherFactory watcherFactory = new FileWatcherFactory(FileWatcherFactory.DEFAULT_QUIET_PERIOD_MILLIS,
+                getScanIntervalSeconds() * 1000L);
+        fileWatcher = watcherFactory.watch(watchedFiles, new FileChangeListener() {
+            public void filesChanged(Set<File> files) {
+                scanTargetsChanged(files);
+            }
+        });
+    }
+
+    private synchronized void scanTargetsChanged(Set<File> files) {
+        List<String> fileNames = new ArrayList<String>();
+        for (File file : files) {
+            fileNames.add(GFileUtils.canonicalise(file).getPath());
+        }
         List listeners = getScannerListeners();
-        Iterator itor = listeners == null ? null : listeners.iterator();
-        while (itor != null && itor.hasNext()) {
-            scanner.addListener((Scanner.Listener) itor.next());
+        for (Object listener : listeners == null ? Collections.emptyList() : listeners) {
+            try {
+                if (listener instanceof Scanner.BulkListener) {
+                    ((Scanner.BulkListener) listener).filesChanged(fileNames);
+                } else if (listener instanceof Scanner.DiscreteListener) {
+                    Scanner.DiscreteListener discreteListener = (Scanner.DiscreteListener) listener;
+                    for (String fileName : fileNames) {
+                        if (new File(fileName).exists()) {
+                            discreteListener.fileChanged(fileName);
+                        } else {
+                            discreteListener.fileRemoved(fileName);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                logger.error("Error notifying scanner listener of changes to watched files", e);
+            }
+        }
+
+        // The listeners may have reconfigured the scanner
+        if (!watchedFiles.equals(scanner.getScanDirs())) {
+            logger.info("Watching the reconfigured scan targets for changes.");
+            fileWatcher.stop();
+            watchScanTargets();
         }
-        logger.info("Starting scanner at interval of " + getScanIntervalSeconds() + " seconds.");
-        scanner.start();
     }
 
     /**
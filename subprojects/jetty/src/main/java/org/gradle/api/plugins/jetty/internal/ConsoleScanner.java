@@ -38,32 +38,15 @@ public class ConsoleScanner extends Thread {
 
     public void run() {
         try {
-            while (true) {
-                checkSystemInput();
-                getSomeSleep();
-            }
-        } catch (IOException e) {
-            logger.warn("Error when checking console input.", e);
-        }
-    }
-
-    private void getSomeSleep() {
-        try {
-            Thread.sleep(500);
-        } catch (InterruptedException e) {
-            logger.debug("Error while sleeping.", e);
-        }
-    }
-
-    private void checkSystemInput() throws IOException {
-        while (System.in.available() > 0) {
-            int inputByte = System.in.read();
-            if (inputByte >= 0) {
-                char c = (char) inputByte;
-                if (c == '\n') {
+            // Block until there is some input, rather than check for input periodically
+            int inputByte;
+            while ((inputByte = System.in.read()) >= 0) {
+                if ((char) inputByte == '\n') {
                     restartWebApp();
                 }
             }
+        } catch (IOException e) {
+            logger.warn("Error when checking console input.", e);
         }
     }
 
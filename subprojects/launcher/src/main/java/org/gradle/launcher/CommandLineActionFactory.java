@@ -216,7 +216,11 @@ public class CommandLineActionFactory {
             loggingManager.setLevel(loggingConfiguration.getLogLevel());
             loggingManager.colorStdOutAndStdErr(loggingConfiguration.isColorOutput());
             loggingManager.start();
-            action.execute(executionListener);
+            try {
+                action.execute(executionListener);
+            } finally {
+                loggingManager.flush();
+            }
         }
     }
 }
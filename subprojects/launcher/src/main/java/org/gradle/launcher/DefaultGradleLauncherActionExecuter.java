@@ -59,6 +59,7 @@ public class DefaultGradleLauncherActionExecuter implements GradleLauncherAction
             exceptionReporter.reportException(throwable);
             throw new ReportedException(throwable);
         } finally {
+            loggingManager.flush();
             loggingManager.stop();
         }
     }
@@ -21,10 +21,35 @@ import org.gradle.initialization.BuildRequestMetaData;
 import org.gradle.initialization.GradleLauncherFactory;
 import org.gradle.StartParameter;
 import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.ProjectEvaluationListener;
+import org.gradle.api.ProjectState;
+import org.gradle.api.Task;
+import org.gradle.api.execution.TaskExecutionListener;
+import org.gradle.api.file.DirectoryTree;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.file.collections.DefaultFileCollectionResolveContext;
+import org.gradle.api.internal.file.collections.FileTreeAdapter;
+import org.gradle.api.internal.file.watch.FileChangeListener;
+import org.gradle.api.internal.file.watch.FileWatcher;
+import org.gradle.api.internal.file.watch.FileWatcherFactory;
 import org.gradle.api.internal.project.ServiceRegistry;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.TaskState;
 import org.gradle.initialization.DefaultGradleLauncherFactory;
+import org.gradle.util.UncheckedException;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 public class RunBuildAction implements Action<ExecutionListener> {
+    private static final Logger LOGGER = Logging.getLogger(RunBuildAction.class);
+    // Some file systems record modification times to the second only
+    private static final long MODIFICATION_TIME_RESOLUTION_MILLIS = 1000;
     private final StartParameter startParameter;
     private final ServiceRegistry loggingServices;
     private final BuildRequestMetaData requestMetaData;
@@ -37,6 +62,10 @@ public class RunBuildAction implements Action<ExecutionListener> {
 
     public void execute(ExecutionListener executionListener) {
         GradleLauncherFactory gradleLauncherFactory = createGradleLauncherFactory(loggingServices);
+        if (startParameter.isContinuous()) {
+            executeContinuously(gradleLauncherFactory, executionListener);
+            return;
+        }
         GradleLauncher gradleLauncher = gradleLauncherFactory.newInstance(startParameter, requestMetaData);
         BuildResult buildResult = gradleLauncher.run();
         Throwable failure = buildResult.getFailure();
@@ -45,7 +74,177 @@ public class RunBuildAction implements Action<ExecutionListener> {
         }
     }
 
+    /**
+     * Executes the build, then waits for a change to the input files of its tasks or to its build scripts, and
+     * executes the build again. Continues until the build has no input files to watch, or the process is killed.
+     *
+     * <p>The watcher is kept running while the build executes, so that a change made during the build triggers
+     * another build. Changes to the output files of the tasks are ignored, as the build itself makes these. A file tree
+     * is watched through its root directory, so that files added to it are noticed. When the build has input files
+     * which were not being watched while it executed, these are checked for changes made since it started.</p>
+     */
+    private void executeContinuously(GradleLauncherFactory gradleLauncherFactory, ExecutionListener executionListener) {
+        FileWatcherFactory watcherFactory = createFileWatcherFactory();
+        ChangeListener changes = new ChangeListener();
+        FileWatcher watcher = null;
+        Set<File> watchedFiles = Collections.emptySet();
+        try {
+            while (true) {
+                long buildStartTime = System.currentTimeMillis();
+                changes.reset();
+                GradleLauncher gradleLauncher = gradleLauncherFactory.newInstance(startParameter, requestMetaData);
+                InputFilesCollector inputFiles = new InputFilesCollector();
+                gradleLauncher.addListener(inputFiles);
+                BuildResult buildResult = gradleLauncher.run();
+                if (inputFiles.files.isEmpty()) {
+                    LOGGER.lifecycle("Exiting continuous build, as there are no input files to watch.");
+                    Throwable failure = buildResult.getFailure();
+                    if (failure != null) {
+                        executionListener.onFailure(failure);
+                    }
+                    return;
+                }
+                changes.setOutputFiles(inputFiles.outputFiles);
+                if (!inputFiles.files.equals(watchedFiles)) {
+                    FileWatcher previous = watcher;
+                    watcher = watcherFactory.watch(inputFiles.files, changes);
+                    if (previous != null) {
+                        previous.stop();
+                    }
+                    Set<File> unwatched = new LinkedHashSet<File>(inputFiles.files);
+                    unwatched.removeAll(watchedFiles);
+                    changes.checkModifiedSince(unwatched, buildStartTime - MODIFICATION_TIME_RESOLUTION_MILLIS);
+                    watchedFiles = inputFiles.files;
+                }
+                LOGGER.lifecycle("Waiting for changes to input files of tasks...");
+                changes.waitForChange();
+            }
+        } catch (InterruptedException e) {
+            throw UncheckedException.asUncheckedException(e);
+        } finally {
+            if (watcher != null) {
+                watcher.stop();
+            }
+        }
+    }
+
+    FileWatcherFactory createFileWatcherFactory() {
+        return new FileWatcherFactory();
+    }
+
     GradleLauncherFactory createGradleLauncherFactory(ServiceRegistry loggingServices) {
         return new DefaultGradleLauncherFactory(loggingServices);
     }
+
+    /**
+     * Collects the files to watch: the build scripts, and the input files of each task, with each directory tree
+     * represented by its root directory. Also collects the output files of each task.
+     */
+    private static class InputFilesCollector implements TaskExecutionListener, ProjectEvaluationListener {
+        final Set<File> files = new LinkedHashSet<File>();
+        final Set<File> outputFiles = new LinkedHashSet<File>();
+
+        public void beforeEvaluate(Project project) {
+        }
+
+        public void afterEvaluate(Project project, ProjectState state) {
+            if (project.getBuildFile() != null) {
+                files.add(project.getBuildFile());
+            }
+        }
+
+        public void beforeExecute(Task task) {
+        }
+
+        public void afterExecute(Task task, TaskState state) {
+            List<FileCollection> collections = new DefaultFileCollectionResolveContext().add(task.getInputs().getFiles()).resolveAsFileCollections();
+            for (FileCollection collection : collections) {
+                if (collection instanceof FileTreeAdapter && ((FileTreeAdapter) collection).getTree() instanceof DirectoryTree) {
+                    files.add(((DirectoryTree) ((FileTreeAdapter) collection).getTree()).getDir());
+                } else {
+                    files.addAll(collection.getFiles());
+                }
+            }
+            outputFiles.addAll(task.getOutputs().getFiles().getFiles());
+        }
+    }
+
+    /**
+     * Records whether any watched file, other than the output files of the build, has changed.
+     */
+    private static class ChangeListener implements FileChangeListener {
+        private final Object lock = new Object();
+        private Set<File> outputFiles = Collections.emptySet();
+        private boolean changed;
+
+        public void filesChanged(Set<File> files) {
+            synchronized (lock) {
+                for (File file : files) {
+                    if (!isOutputFile(file)) {
+                        LOGGER.info("Input files changed: {}", files);
+                        changed = true;
+                        lock.notifyAll();
+                        return;
+                    }
+                }
+            }
+        }
+
+        void setOutputFiles(Set<File> outputFiles) {
+            synchronized (lock) {
+                this.outputFiles = outputFiles;
+            }
+        }
+
+        void reset() {
+            synchronized (lock) {
+                changed = false;
+            }
+        }
+
+        void waitForChange() throws InterruptedException {
+            synchronized (lock) {
+                while (!changed) {
+                    lock.wait();
+                }
+            }
+        }
+
+        /**
+         * Looks for files and directories modified since the given time. A file which was added or removed changes the
+         * modification time of its directory.
+         */
+        void checkModifiedSince(Iterable<File> files, long time) {
+            Set<File> modified = new LinkedHashSet<File>();
+            for (File file : files) {
+                findModified(file, time, modified);
+            }
+            if (!modified.isEmpty()) {
+                filesChanged(modified);
+            }
+        }
+
+        private void findModified(File file, long time, Set<File> modified) {
+            if (file.lastModified() >= time) {
+                modified.add(file);
+            }
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    findModified(child, time, modified);
+                }
+            }
+        }
+
+        private boolean isOutputFile(File file) {
+            String path = file.getAbsolutePath();
+            for (File outputFile : outputFiles) {
+                String outputPath = outputFile.getAbsolutePath();
+                if (path.equals(outputPath) || path.startsWith(outputPath + File.separator)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
@@ -22,6 +22,16 @@ import org.gradle.initialization.GradleLauncherFactory
 import org.gradle.GradleLauncher
 import org.gradle.BuildResult
 import org.gradle.initialization.BuildRequestMetaData
+import org.gradle.api.Task
+import org.gradle.api.file.FileCollection
+import org.gradle.api.internal.file.collections.DirectoryFileTree
+import org.gradle.api.internal.file.collections.FileTreeAdapter
+import org.gradle.api.internal.file.watch.FileChangeListener
+import org.gradle.api.internal.file.watch.FileWatcher
+import org.gradle.api.internal.file.watch.FileWatcherFactory
+import org.gradle.api.tasks.TaskInputs
+import org.gradle.api.tasks.TaskOutputs
+import org.gradle.api.tasks.TaskState
 
 class RunBuildActionTest extends Specification {
     final StartParameter startParameter = new StartParameter()
@@ -31,11 +41,26 @@ class RunBuildActionTest extends Specification {
     final GradleLauncher launcher = Mock()
     final BuildResult result = Mock()
     final BuildRequestMetaData requestMetaData = Mock()
+    final FileWatcher watcher = Mock()
+    final List<Set<File>> watchedFiles = []
+    List<File> changedFiles = null
     final RunBuildAction action = new RunBuildAction(startParameter, loggingServices, requestMetaData) {
         @Override
         GradleLauncherFactory createGradleLauncherFactory(ServiceRegistry loggingServices) {
             return gradleLauncherFactory
         }
+
+        @Override
+        FileWatcherFactory createFileWatcherFactory() {
+            return new FileWatcherFactory() {
+                @Override
+                FileWatcher watch(Iterable<File> files, FileChangeListener listener) {
+                    watchedFiles << (files as Set)
+                    listener.filesChanged((changedFiles ?: files) as Set)
+                    return watcher
+                }
+            }
+        }
     }
 
     def executesBuild() {
@@ -63,4 +88,100 @@ class RunBuildActionTest extends Specification {
         0 * _._
     }
 
+    def executesBuildAgainWhenInputFilesChangeInContinuousMode() {
+        def inputFile = new File('input.txt')
+        def listener = null
+        startParameter.continuous = true
+
+        when:
+        action.execute(completer)
+
+        then:
+        1 * gradleLauncherFactory.newInstance(startParameter, requestMetaData) >> launcher
+        1 * launcher.addListener(!null) >> { listener = it[0] }
+        1 * launcher.run() >> {
+            listener.afterExecute(task(fileCollection(inputFile)), Mock(TaskState))
+            result
+        }
+
+        then:
+        1 * gradleLauncherFactory.newInstance(startParameter, requestMetaData) >> launcher
+        1 * launcher.addListener(!null)
+        1 * launcher.run() >> result
+        _ * result.failure >> null
+
+        then:
+        1 * watcher.stop()
+        0 * _._
+
+        and:
+        watchedFiles == [[inputFile] as Set]
+    }
+
+    def watchesRootDirectoryOfInputFileTree() {
+        def dir = new File('src').absoluteFile
+        def listener = null
+        startParameter.continuous = true
+
+        when:
+        action.execute(completer)
+
+        then:
+        2 * gradleLauncherFactory.newInstance(startParameter, requestMetaData) >> launcher
+        2 * launcher.addListener(!null) >> { listener = it[0] }
+        2 * launcher.run() >> {
+            if (watchedFiles.empty) {
+                listener.afterExecute(task(new FileTreeAdapter(new DirectoryFileTree(dir))), Mock(TaskState))
+            }
+            result
+        }
+        _ * result.failure >> null
+
+        and:
+        watchedFiles == [[dir] as Set]
+    }
+
+    def ignoresChangesToOutputFilesOfTasks() {
+        def inputFile = new File('input.txt').absoluteFile
+        def outputDir = new File('build').absoluteFile
+        def listener = null
+        startParameter.continuous = true
+        changedFiles = [new File(outputDir, 'Thing.class')]
+
+        def thread = new Thread({ action.execute(completer) } as Runnable)
+        thread.daemon = true
+
+        when:
+        thread.start()
+        thread.join(1000)
+
+        then:
+        1 * gradleLauncherFactory.newInstance(startParameter, requestMetaData) >> launcher
+        1 * launcher.addListener(!null) >> { listener = it[0] }
+        1 * launcher.run() >> {
+            listener.afterExecute(task(fileCollection(inputFile), fileCollection(outputDir)), Mock(TaskState))
+            result
+        }
+
+        and:
+        // Still waiting for a change to an input file
+        thread.alive
+    }
+
+    private FileCollection fileCollection(File file) {
+        FileCollection files = Mock()
+        _ * files.files >> ([file] as Set)
+        return files
+    }
+
+    private Task task(FileCollection inputFiles, FileCollection outputFiles = fileCollection(new File('output'))) {
+        TaskInputs inputs = Mock()
+        _ * inputs.files >> inputFiles
+        TaskOutputs outputs = Mock()
+        _ * outputs.files >> outputFiles
+        Task task = Mock()
+        _ * task.inputs >> inputs
+        _ * task.outputs >> outputs
+        return task
+    }
 }
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import groovy.lang.GroovyClassLoader;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.Factory;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.compile.CompileOptions;
+import org.gradle.api.tasks.compile.GroovyCompileOptions;
+import org.gradle.util.FilteringClassLoader;
+
+import java.io.File;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Compiles Groovy and Java source in the build process, using the Groovy compiler API of the Groovy runtime which
+ * Gradle itself uses, so that the compiler classes are already loaded and warm. Java source is compiled using an {@link
+ * InProcessJavaCompiler}. Java stubs of the Groovy classes are kept between compilations by a {@link
+ * StubCachingCompilationUnit}.</p>
+ *
+ * <p>The classloader which loads the classes of the compile classpath, such as AST transformations, is reused by
+ * later compilations with the same classpath, as long as the classpath contains only archives which have not changed
+ * since they were loaded.</p>
+ */
+public class ApiGroovyCompiler implements GroovyJavaJointCompiler {
+    private static final Logger LOGGER = Logging.getLogger(ApiGroovyCompiler.class);
+    private static final int MAX_CACHED_CLASSLOADERS = 8;
+    private static final Pattern VERSION = Pattern.compile("(?:1\\.)?(\\d+)(?:\\D.*)?");
+    private static final String[] GROOVY_PACKAGES = {"groovy", "org.codehaus.groovy", "groovyjarjarantlr", "groovyjarjarasm", "groovyjarjarcommonscli"};
+    private static final Map<List<Object>, GroovyClassLoader> CLASSLOADERS = new LinkedHashMap<List<Object>, GroovyClassLoader>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, GroovyClassLoader> eldest) {
+            return size() > MAX_CACHED_CLASSLOADERS;
+        }
+    };
+    private final GroovyCompileOptions groovyCompileOptions;
+    private final CompileOptions compileOptions;
+    private final Factory<File> stubDirFactory;
+    private FileCollection source;
+    private File destinationDir;
+    private Iterable<File> classpath;
+    private String sourceCompatibility;
+    private String targetCompatibility;
+
+    /**
+     * @param stubDirFactory Provides the directory to keep the Java stubs of the Groovy classes in.
+     */
+    public ApiGroovyCompiler(GroovyCompileOptions groovyCompileOptions, CompileOptions compileOptions, Factory<File> stubDirFactory) {
+        this.groovyCompileOptions = groovyCompileOptions;
+        this.compileOptions = compileOptions;
+        this.stubDirFactory = stubDirFactory;
+    }
+
+    public GroovyCompileOptions getGroovyCompileOptions() {
+        return groovyCompileOptions;
+    }
+
+    public CompileOptions getCompileOptions() {
+        return compileOptions;
+    }
+
+    public void setGroovyClasspath(Iterable<File> classpath) {
+        // Always uses the Groovy runtime of the build process
+    }
+
+    public void setSourceCompatibility(String sourceCompatibility) {
+        this.sourceCompatibility = sourceCompatibility;
+    }
+
+    public void setTargetCompatibility(String targetCompatibility) {
+        this.targetCompatibility = targetCompatibility;
+    }
+
+    public void setSource(FileCollection source) {
+        this.source = source;
+    }
+
+    public void setDestinationDir(File destinationDir) {
+        this.destinationDir = destinationDir;
+    }
+
+    public void setClasspath(Iterable<File> classpath) {
+        this.classpath = classpath;
+    }
+
+    public WorkResult execute() {
+        final List<File> javaSources = new ArrayList<File>();
+        List<File> groovySources = new ArrayList<File>();
+        for (File file : source.getFiles()) {
+            if (file.getName().endsWith(".java")) {
+                javaSources.add(file);
+            } else {
+                groovySources.add(file);
+            }
+        }
+        if (javaSources.isEmpty() && groovySources.isEmpty()) {
+            return new CompileResult(false, null);
+        }
+        if (groovyCompileOptions.isListFiles()) {
+            for (File file : source.getFiles()) {
+                LOGGER.quiet(file.getAbsolutePath());
+            }
+        }
+
+        final List<File> classpathFiles = new ArrayList<File>();
+        for (File file : classpath) {
+            classpathFiles.add(file);
+        }
+        CompilerConfiguration configuration = new CompilerConfiguration();
+        configuration.setTargetDirectory(destinationDir);
+        configuration.setVerbose(groovyCompileOptions.isVerbose());
+        configuration.setDebug(groovyCompileOptions.isStacktrace());
+        if (groovyCompileOptions.getEncoding() != null) {
+            configuration.setSourceEncoding(groovyCompileOptions.getEncoding());
+        }
+        configuration.setTargetBytecode(isJava5OrLater(targetCompatibility) ? CompilerConfiguration.POST_JDK5 : CompilerConfiguration.PRE_JDK5);
+        List<String> classpathPaths = new ArrayList<String>();
+        for (File file : classpathFiles) {
+            classpathPaths.add(file.getAbsolutePath());
+        }
+        configuration.setClasspathList(classpathPaths);
+
+        List<Object> classpathKey = new ArrayList<Object>();
+        for (File file : classpathFiles) {
+            classpathKey.add(file.getAbsoluteFile());
+            classpathKey.add(file.lastModified());
+            classpathKey.add(file.length());
+        }
+        GroovyClassLoader classLoader = getClassLoader(classpathFiles, classpathKey);
+        File stubDir = stubDirFactory.create();
+        String settings = String.format("%s%n%s%n%s", classpathKey, configuration.getTargetBytecode(), configuration.getSourceEncoding());
+        StubCachingCompilationUnit unit = new StubCachingCompilationUnit(configuration, classLoader, stubDir, settings) {
+            @Override
+            protected void compileJava(List<File> javaSources, File stubDir) {
+                ApiGroovyCompiler.this.compileJava(javaSources, stubDir, classpathFiles);
+            }
+        };
+        unit.addSources(groovySources, javaSources);
+
+        try {
+            unit.compile(Phases.OUTPUT);
+        } catch (org.codehaus.groovy.control.CompilationFailedException e) {
+            LOGGER.error(e.getMessage());
+            if (groovyCompileOptions.isFailOnError()) {
+                throw new CompilationFailedException();
+            }
+        }
+        return new CompileResult(true, null);
+    }
+
+    private void compileJava(List<File> javaSources, File stubDir, List<File> classpathFiles) {
+        JavaCompileSpec spec = new JavaCompileSpec();
+        spec.setSource(javaSources);
+        spec.setDestinationDir(destinationDir);
+        spec.setClasspath(classpathFiles);
+        spec.setSourcepath(Collections.singletonList(stubDir));
+        spec.setCompilerOptions(new JavaCompilerArgumentsBuilder(compileOptions)
+                .setSourceCompatibility(sourceCompatibility)
+                .setTargetCompatibility(targetCompatibility)
+                .build());
+        spec.setEncoding(compileOptions.getEncoding());
+        spec.setFailOnError(compileOptions.isFailOnError());
+        new InProcessJavaCompiler().execute(spec);
+    }
+
+    /**
+     * Returns true if the given target compatibility, such as {@code 1.4}, {@code 5} or {@code 1.10}, is Java 5 or
+     * later. Versions which cannot be parsed are assumed to be later versions.
+     */
+    static boolean isJava5OrLater(String version) {
+        if (version == null) {
+            return true;
+        }
+        Matcher matcher = VERSION.matcher(version.trim());
+        return !matcher.matches() || Integer.parseInt(matcher.group(1)) >= 5;
+    }
+
+    private GroovyClassLoader getClassLoader(List<File> classpathFiles, List<Object> key) {
+        boolean cacheable = true;
+        for (File file : classpathFiles) {
+            cacheable &= !file.isDirectory();
+        }
+        synchronized (CLASSLOADERS) {
+            GroovyClassLoader classLoader = CLASSLOADERS.get(key);
+            if (classLoader == null) {
+                // Make only the Groovy runtime of the build process visible, rather than all of Gradle's classes
+                FilteringClassLoader groovyLoader = new FilteringClassLoader(CompilationUnit.class.getClassLoader());
+                for (String packageName : GROOVY_PACKAGES) {
+                    groovyLoader.allowPackage(packageName);
+                }
+                classLoader = new GroovyClassLoader(groovyLoader);
+                for (File file : classpathFiles) {
+                    classLoader.addClasspath(file.getAbsolutePath());
+                }
+                if (cacheable) {
+                    CLASSLOADERS.put(key, classLoader);
+                }
+            }
+            return classLoader;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.UncheckedIOException;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.EmptyVisitor;
+
+import java.io.*;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the {@link ClassFileInfo} of a class file. The dependencies of a class are taken from its constant pool,
+ * which contains every class it refers to, including those used only in signatures and annotations.
+ *
+ * <p>The compile-time constants of a class are its static final fields with a constant value. Some languages, such as
+ * Scala, also inline the value of a method which does nothing but return a constant, for example the accessor of a
+ * Scala {@code final val}. Such a use leaves no reference to the class in the constant pool of the class which uses
+ * it, so these methods are reported as constants too when {@code includeConstantMethods} is set.</p>
+ */
+public class ClassFileAnalyzer {
+    private static final Pattern DESCRIPTOR_TYPE = Pattern.compile("L([\\w/$]+)[;<]");
+    private static final int CONSTANT_POOL_COUNT_OFFSET = 8;
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_CLASS = 7;
+    private final boolean includeConstantMethods;
+
+    public ClassFileAnalyzer() {
+        this(false);
+    }
+
+    /**
+     * @param includeConstantMethods Whether methods which only return a constant value are treated as constants.
+     */
+    public ClassFileAnalyzer(boolean includeConstantMethods) {
+        this.includeConstantMethods = includeConstantMethods;
+    }
+
+    public ClassFileInfo analyze(File classFile) {
+        ClassReader reader;
+        try {
+            InputStream inputStream = new BufferedInputStream(new FileInputStream(classFile));
+            try {
+                reader = new ClassReader(inputStream);
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        String className = reader.getClassName();
+        Set<String> dependencies = new HashSet<String>();
+        char[] buffer = new char[reader.b.length];
+        int constantPoolCount = reader.readUnsignedShort(CONSTANT_POOL_COUNT_OFFSET);
+        for (int i = 1; i < constantPoolCount; i++) {
+            int offset = reader.getItem(i);
+            if (offset == 0) {
+                // The second slot of a long or double constant
+                continue;
+            }
+            int tag = reader.b[offset - 1];
+            if (tag == CONSTANT_CLASS) {
+                addType(reader.readClass(offset, buffer), dependencies);
+            } else if (tag == CONSTANT_UTF8) {
+                Matcher matcher = DESCRIPTOR_TYPE.matcher(readUtf8(reader, offset));
+                while (matcher.find()) {
+                    dependencies.add(matcher.group(1));
+                }
+            }
+        }
+        dependencies.remove(className);
+
+        DeclarationVisitor visitor = new DeclarationVisitor();
+        reader.accept(visitor, includeConstantMethods ? ClassReader.SKIP_FRAMES : ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+
+        return new ClassFileInfo(className, classFile, visitor.sourceFileName, visitor.constants, dependencies);
+    }
+
+    private void addType(String type, Set<String> dependencies) {
+        if (type.startsWith("[")) {
+            Matcher matcher = DESCRIPTOR_TYPE.matcher(type);
+            while (matcher.find()) {
+                dependencies.add(matcher.group(1));
+            }
+        } else {
+            dependencies.add(type);
+        }
+    }
+
+    private String readUtf8(ClassReader reader, int offset) {
+        int length = reader.readUnsignedShort(offset);
+        try {
+            return new String(reader.b, offset + 2, length, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private class DeclarationVisitor extends EmptyVisitor {
+        private String sourceFileName;
+        private final Map<String, Object> constants = new TreeMap<String, Object>();
+
+        @Override
+        public void visitSource(String source, String debug) {
+            sourceFileName = source;
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+            int constantAccess = Opcodes.ACC_STATIC | Opcodes.ACC_FINAL;
+            if ((access & constantAccess) == constantAccess && value != null) {
+                constants.put(name, value);
+            }
+            return null;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+            if (!includeConstantMethods || (access & Opcodes.ACC_ABSTRACT) != 0 || !desc.startsWith("()")
+                    || name.startsWith("<")) {
+                return null;
+            }
+            return new ConstantMethodVisitor(name + desc, constants);
+        }
+    }
+
+    /**
+     * Records the value returned by a method whose body is a single constant load followed by a return.
+     */
+    private static class ConstantMethodVisitor extends EmptyVisitor {
+        private final String key;
+        private final Map<String, Object> constants;
+        private int instructions;
+        private Object value;
+        private boolean returnsConstant;
+
+        private ConstantMethodVisitor(String key, Map<String, Object> constants) {
+            this.key = key;
+            this.constants = constants;
+        }
+
+        @Override
+        public void visitInsn(int opcode) {
+            instructions++;
+            if (instructions == 1) {
+                value = constantOf(opcode);
+            } else if (instructions == 2) {
+                returnsConstant = value != null && opcode >= Opcodes.IRETURN && opcode <= Opcodes.ARETURN;
+            } else {
+                returnsConstant = false;
+            }
+        }
+
+        @Override
+        public void visitIntInsn(int opcode, int operand) {
+            instructions++;
+            returnsConstant = false;
+            if (instructions == 1 && (opcode == Opcodes.BIPUSH || opcode == Opcodes.SIPUSH)) {
+                value = operand;
+            }
+        }
+
+        @Override
+        public void visitLdcInsn(Object cst) {
+            instructions++;
+            returnsConstant = false;
+            if (instructions == 1 && (cst instanceof Number || cst instanceof String)) {
+                // Class literals are not constants
+                value = cst;
+            }
+        }
+
+        @Override
+        public void visitVarInsn(int opcode, int var) {
+            otherInstruction();
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type) {
+            otherInstruction();
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String desc) {
+            otherInstruction();
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String desc) {
+            otherInstruction();
+        }
+
+        @Override
+        public void visitJumpInsn(int opcode, Label label) {
+            otherInstruction();
+        }
+
+        @Override
+        public void visitIincInsn(int var, int increment) {
+            otherInstruction();
+        }
+
+        @Override
+        public void visitTableSwitchInsn(int min, int max, Label dflt, Label[] labels) {
+            otherInstruction();
+        }
+
+        @Override
+        public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+            otherInstruction();
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(String desc, int dims) {
+            otherInstruction();
+        }
+
+        private void otherInstruction() {
+            instructions++;
+            value = null;
+            returnsConstant = false;
+        }
+
+        @Override
+        public void visitEnd() {
+            if (returnsConstant && instructions == 2) {
+                constants.put(key, value);
+            }
+        }
+
+        private static Object constantOf(int opcode) {
+            switch (opcode) {
+                case Opcodes.ICONST_M1:
+                case Opcodes.ICONST_0:
+                case Opcodes.ICONST_1:
+                case Opcodes.ICONST_2:
+                case Opcodes.ICONST_3:
+                case Opcodes.ICONST_4:
+                case Opcodes.ICONST_5:
+                    return opcode - Opcodes.ICONST_0;
+                case Opcodes.LCONST_0:
+                case Opcodes.LCONST_1:
+                    return (long) (opcode - Opcodes.LCONST_0);
+                case Opcodes.FCONST_0:
+                case Opcodes.FCONST_1:
+                case Opcodes.FCONST_2:
+                    return (float) (opcode - Opcodes.FCONST_0);
+                case Opcodes.DCONST_0:
+                case Opcodes.DCONST_1:
+                    return (double) (opcode - Opcodes.DCONST_0);
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The details of a compiled class which are used to decide what to recompile when source files change.
+ */
+public class ClassFileInfo implements Serializable {
+    private final String className;
+    private final File classFile;
+    private final long lastModified;
+    private final long length;
+    private final String sourceFileName;
+    private final Map<String, Object> constants;
+    private final Set<String> dependencies;
+    private File sourceFile;
+
+    public ClassFileInfo(String className, File classFile, String sourceFileName, Map<String, Object> constants,
+                         Set<String> dependencies) {
+        this.className = className;
+        this.classFile = classFile;
+        this.lastModified = classFile.lastModified();
+        this.length = classFile.length();
+        this.sourceFileName = sourceFileName;
+        this.constants = constants;
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * Returns the internal name of this class, such as {@code org/gradle/Thing$Inner}.
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    public File getClassFile() {
+        return classFile;
+    }
+
+    /**
+     * Returns true if the class file has not changed since this info was created.
+     */
+    public boolean isCurrent() {
+        return classFile.lastModified() == lastModified && classFile.length() == length;
+    }
+
+    /**
+     * Returns the name of the source file this class was compiled from, as recorded in the class file, or null if not
+     * recorded.
+     */
+    public String getSourceFileName() {
+        return sourceFileName;
+    }
+
+    /**
+     * Returns the source file this class was compiled from, or null if not known.
+     */
+    public File getSourceFile() {
+        return sourceFile;
+    }
+
+    public void setSourceFile(File sourceFile) {
+        this.sourceFile = sourceFile;
+    }
+
+    /**
+     * Returns the compile-time constants declared by this class. These are inlined into the classes which use them,
+     * so do not show up as dependencies.
+     */
+    public Map<String, Object> getConstants() {
+        return constants;
+    }
+
+    /**
+     * Returns the internal names of the classes which this class refers to.
+     */
+    public Set<String> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Returns true if this class declares the same compile-time constants as the given previous version of this class.
+     */
+    public boolean hasSameConstantsAs(ClassFileInfo previous) {
+        return constants.equals(previous.constants);
+    }
+}
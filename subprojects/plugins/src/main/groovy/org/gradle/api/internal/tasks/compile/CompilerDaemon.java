@@ -0,0 +1,103 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.messaging.concurrent.Stoppable;
+import org.gradle.process.internal.WorkerProcess;
+import org.gradle.process.internal.WorkerProcessBuilder;
+import org.gradle.util.UncheckedException;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A long-lived worker process which compiles source using a given {@link CompilerDaemonAction}. Compilations are
+ * executed one at a time. When the worker process exits unexpectedly, the compilation in progress fails, and the daemon
+ * cannot be used again.
+ *
+ * @param <T> The type of spec which the daemon compiles.
+ */
+public class CompilerDaemon<T> implements CompilerDaemonClient, Stoppable {
+    private final WorkerProcess process;
+    private final CompilerDaemonServer<T> server;
+    private final String displayName;
+    private final BlockingQueue<CompileResult> results = new LinkedBlockingQueue<CompileResult>();
+    private volatile boolean running = true;
+
+    /**
+     * Starts a compiler daemon using the given worker process builder, which should already be configured with the JVM
+     * settings and application classpath of the daemon.
+     *
+     * @param displayName The display name of the daemon, such as "compiler daemon", for use in error messages.
+     */
+    public CompilerDaemon(WorkerProcessBuilder builder, CompilerDaemonAction<T> action, String displayName) {
+        this.displayName = displayName;
+        builder.worker(new CompilerDaemonWorker<T>(action, displayName));
+        process = builder.build();
+        process.start();
+        process.getConnection().addIncoming(CompilerDaemonClient.class, this);
+        server = process.getConnection().addOutgoing(CompilerDaemonServer.class);
+
+        Thread watcher = new Thread(new Runnable() {
+            public void run() {
+                process.waitForStop();
+                running = false;
+                results.add(new CompileResult(false, new GradleException(String.format("The %s stopped unexpectedly.", CompilerDaemon.this.displayName))));
+            }
+        });
+        watcher.setName(String.format("%s watcher", displayName));
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Returns true if this daemon is still able to accept compilations.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    public synchronized WorkResult execute(T spec) {
+        if (!running) {
+            throw new IllegalStateException(String.format("This %s has stopped.", displayName));
+        }
+        server.compile(spec);
+        CompileResult result;
+        try {
+            result = results.take();
+        } catch (InterruptedException e) {
+            throw new UncheckedException(e);
+        }
+        if (result.getFailure() != null) {
+            throw UncheckedException.asUncheckedException(result.getFailure());
+        }
+        return result;
+    }
+
+    public void executed(CompileResult result) {
+        results.add(result);
+    }
+
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        server.stop();
+        process.waitForStop();
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.tasks.WorkResult;
+
+import java.io.Serializable;
+
+/**
+ * The compiler which a {@link CompilerDaemon} uses to execute the specs it receives. The action is sent to the worker
+ * process once, when the daemon starts, and is then used for every compilation which the daemon executes, so that it
+ * can keep the compiler loaded between compilations.
+ *
+ * @param <T> The type of spec which the compiler executes.
+ */
+public interface CompilerDaemonAction<T> extends Serializable {
+    /**
+     * Executes the given spec in the worker process.
+     *
+     * @throws Exception On failure. The failure is rethrown in the build process.
+     */
+    WorkResult execute(T spec) throws Exception;
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.internal.Factory;
+import org.gradle.messaging.concurrent.CompositeStoppable;
+import org.gradle.process.internal.shutdown.ShutdownHookActionRegister;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out compiler daemons. A daemon is started the first time it is required, and is shared by all compilations
+ * which ask for a daemon with the same key. The key should include the type of compiler and everything which
+ * determines how the daemon process is started. Daemons are kept running for the lifetime of the build process, so
+ * that when the build process is itself a daemon, the warm compiler is reused by later builds. A daemon whose process
+ * has died is replaced on next use.
+ */
+public class CompilerDaemonManager {
+    private static final CompilerDaemonManager INSTANCE = new CompilerDaemonManager();
+    private final Map<List<Object>, CompilerDaemon<?>> daemons = new HashMap<List<Object>, CompilerDaemon<?>>();
+
+    static {
+        ShutdownHookActionRegister.addAction(new Runnable() {
+            public void run() {
+                INSTANCE.stop();
+            }
+        });
+    }
+
+    CompilerDaemonManager() {
+    }
+
+    public static CompilerDaemonManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the running daemon with the given key, using the given factory to start one if there is none.
+     */
+    public synchronized <T> CompilerDaemon<T> getDaemon(List<Object> key, Factory<? extends CompilerDaemon<T>> daemonFactory) {
+        @SuppressWarnings("unchecked")
+        CompilerDaemon<T> daemon = (CompilerDaemon<T>) daemons.get(key);
+        if (daemon == null || !daemon.isRunning()) {
+            daemon = daemonFactory.create();
+            daemons.put(key, daemon);
+        }
+        return daemon;
+    }
+
+    void stop() {
+        List<CompilerDaemon<?>> stopping;
+        synchronized (this) {
+            stopping = new ArrayList<CompilerDaemon<?>>(daemons.values());
+            daemons.clear();
+        }
+        new CompositeStoppable(stopping).stop();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.Action;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.messaging.remote.ObjectConnection;
+import org.gradle.process.internal.WorkerProcessContext;
+import org.gradle.util.UncheckedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * The worker action of a compiler daemon. Compiles each spec it receives using the given {@link CompilerDaemonAction},
+ * until it is stopped, and sends the outcome of each compilation back to the build process.
+ *
+ * @param <T> The type of spec which the daemon compiles.
+ */
+public class CompilerDaemonWorker<T> implements Action<WorkerProcessContext>, CompilerDaemonServer<T>, Serializable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompilerDaemonWorker.class);
+    private final CompilerDaemonAction<T> action;
+    private final String displayName;
+    private CountDownLatch stopped;
+    private CompilerDaemonClient client;
+
+    public CompilerDaemonWorker(CompilerDaemonAction<T> action, String displayName) {
+        this.action = action;
+        this.displayName = displayName;
+    }
+
+    public void execute(WorkerProcessContext workerProcessContext) {
+        LOGGER.info("{} started {}.", workerProcessContext.getDisplayName(), displayName);
+
+        stopped = new CountDownLatch(1);
+        ObjectConnection serverConnection = workerProcessContext.getServerConnection();
+        client = serverConnection.addOutgoing(CompilerDaemonClient.class);
+        serverConnection.addIncoming(CompilerDaemonServer.class, this);
+
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            throw new UncheckedException(e);
+        }
+        LOGGER.info("{} stopped {}.", workerProcessContext.getDisplayName(), displayName);
+    }
+
+    public void compile(T spec) {
+        CompileResult result;
+        try {
+            WorkResult workResult = action.execute(spec);
+            result = new CompileResult(workResult.getDidWork(), null);
+        } catch (Throwable t) {
+            result = new CompileResult(true, t);
+        }
+        client.executed(result);
+    }
+
+    public void stop() {
+        stopped.countDown();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import groovy.lang.GroovySystem;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.compile.CompileOptions;
+import org.gradle.api.tasks.compile.GroovyCompileOptions;
+
+import java.io.File;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Uses either the Ant groovyc task or the Groovy compiler API to compile Groovy and Java source, as selected by {@link
+ * GroovyCompileOptions#isUseAnt()} when the compiler is executed. The compiler API is only used when the Groovy
+ * classpath contains the same version of Groovy as the build process, and when neither {@link
+ * GroovyCompileOptions#isFork()} nor {@link GroovyCompileOptions#isIncludeJavaRuntime()} is set, as the compiler API
+ * runs in the build process. Both compilers must share the same compile options.
+ */
+public class DefaultGroovyCompiler implements GroovyJavaJointCompiler {
+    private static final Logger LOGGER = Logging.getLogger(DefaultGroovyCompiler.class);
+    private static final Pattern GROOVY_JAR = Pattern.compile("groovy(?:-all)?-(\\d.*)\\.jar");
+    private final GroovyJavaJointCompiler antCompiler;
+    private final GroovyJavaJointCompiler apiCompiler;
+    private Iterable<File> groovyClasspath;
+
+    public DefaultGroovyCompiler(GroovyJavaJointCompiler antCompiler, GroovyJavaJointCompiler apiCompiler) {
+        this.antCompiler = antCompiler;
+        this.apiCompiler = apiCompiler;
+    }
+
+    public GroovyCompileOptions getGroovyCompileOptions() {
+        return antCompiler.getGroovyCompileOptions();
+    }
+
+    public CompileOptions getCompileOptions() {
+        return antCompiler.getCompileOptions();
+    }
+
+    public void setGroovyClasspath(Iterable<File> classpath) {
+        groovyClasspath = classpath;
+        antCompiler.setGroovyClasspath(classpath);
+        apiCompiler.setGroovyClasspath(classpath);
+    }
+
+    public void setSourceCompatibility(String sourceCompatibility) {
+        antCompiler.setSourceCompatibility(sourceCompatibility);
+        apiCompiler.setSourceCompatibility(sourceCompatibility);
+    }
+
+    public void setTargetCompatibility(String targetCompatibility) {
+        antCompiler.setTargetCompatibility(targetCompatibility);
+        apiCompiler.setTargetCompatibility(targetCompatibility);
+    }
+
+    public void setSource(FileCollection source) {
+        antCompiler.setSource(source);
+        apiCompiler.setSource(source);
+    }
+
+    public void setDestinationDir(File destinationDir) {
+        antCompiler.setDestinationDir(destinationDir);
+        apiCompiler.setDestinationDir(destinationDir);
+    }
+
+    public void setClasspath(Iterable<File> classpath) {
+        antCompiler.setClasspath(classpath);
+        apiCompiler.setClasspath(classpath);
+    }
+
+    public WorkResult execute() {
+        if (getGroovyCompileOptions().isUseAnt()) {
+            return antCompiler.execute();
+        }
+        if (getGroovyCompileOptions().isFork() || getGroovyCompileOptions().isIncludeJavaRuntime()) {
+            LOGGER.warn("Using the Ant groovyc task, as the in-process Groovy compiler does not support the fork or includeJavaRuntime options. Set both to false to compile in-process.");
+            return antCompiler.execute();
+        }
+        String version = GroovySystem.getVersion();
+        if (!containsGroovyVersion(groovyClasspath, version)) {
+            LOGGER.info("Using the Ant groovyc task, as the Groovy classpath does not contain Groovy {}, which is the version used by Gradle.", version);
+            return antCompiler.execute();
+        }
+        return apiCompiler.execute();
+    }
+
+    static boolean containsGroovyVersion(Iterable<File> classpath, String version) {
+        if (classpath == null) {
+            return false;
+        }
+        for (File file : classpath) {
+            Matcher matcher = GROOVY_JAR.matcher(file.getName());
+            if (matcher.matches()) {
+                return matcher.group(1).equals(version);
+            }
+        }
+        return false;
+    }
+}
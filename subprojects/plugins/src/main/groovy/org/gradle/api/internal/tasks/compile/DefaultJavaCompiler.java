@@ -0,0 +1,77 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.compile.CompileOptions;
+
+import java.io.File;
+
+/**
+ * Uses either the Ant javac task or the {@code javax.tools} API to compile Java source, as selected by {@link
+ * CompileOptions#isUseAnt()} when the compiler is executed. Both compilers must share the same compile options.
+ */
+public class DefaultJavaCompiler implements JavaCompiler {
+    private final JavaCompiler antCompiler;
+    private final JavaCompiler jdk6Compiler;
+
+    public DefaultJavaCompiler(JavaCompiler antCompiler, JavaCompiler jdk6Compiler) {
+        this.antCompiler = antCompiler;
+        this.jdk6Compiler = jdk6Compiler;
+    }
+
+    public CompileOptions getCompileOptions() {
+        return antCompiler.getCompileOptions();
+    }
+
+    public void setSourceCompatibility(String sourceCompatibility) {
+        antCompiler.setSourceCompatibility(sourceCompatibility);
+        jdk6Compiler.setSourceCompatibility(sourceCompatibility);
+    }
+
+    public void setTargetCompatibility(String targetCompatibility) {
+        antCompiler.setTargetCompatibility(targetCompatibility);
+        jdk6Compiler.setTargetCompatibility(targetCompatibility);
+    }
+
+    public void setSource(FileCollection source) {
+        antCompiler.setSource(source);
+        jdk6Compiler.setSource(source);
+    }
+
+    public void setDestinationDir(File destinationDir) {
+        antCompiler.setDestinationDir(destinationDir);
+        jdk6Compiler.setDestinationDir(destinationDir);
+    }
+
+    public void setClasspath(Iterable<File> classpath) {
+        antCompiler.setClasspath(classpath);
+        jdk6Compiler.setClasspath(classpath);
+    }
+
+    public void setDependencyCacheDir(File dir) {
+        antCompiler.setDependencyCacheDir(dir);
+        jdk6Compiler.setDependencyCacheDir(dir);
+    }
+
+    public WorkResult execute() {
+        if (getCompileOptions().isUseAnt()) {
+            return antCompiler.execute();
+        }
+        return jdk6Compiler.execute();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.WorkResult;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Compiles Java source using the compiler of the current JVM, through the {@code javax.tools} API.</p>
+ *
+ * <p>The compiler and its file manager are shared by all compilations in this JVM, so that the compiler warms up over
+ * the course of a build, and over the builds of a daemon. The file manager keeps the archives on the classpath open
+ * between compilations. It is discarded when any archive which it may have read has changed since it was last used,
+ * so that a compilation never sees stale classes from a jar which has been rebuilt.</p>
+ *
+ * <p>This compiler is also the action of the Java compiler daemon, which keeps the compiler warm between builds.</p>
+ */
+public class InProcessJavaCompiler implements CompilerDaemonAction<JavaCompileSpec> {
+    private static final Logger LOGGER = Logging.getLogger(InProcessJavaCompiler.class);
+    private static final Object LOCK = new Object();
+    private static JavaCompiler compiler;
+    private static StandardJavaFileManager fileManager;
+    private static Charset fileManagerCharset;
+    private static final Map<File, ArchiveState> ARCHIVES = new HashMap<File, ArchiveState>();
+
+    public WorkResult execute(JavaCompileSpec spec) {
+        if (spec.getSource().isEmpty()) {
+            return new CompileResult(false, null);
+        }
+        if (spec.isListFiles()) {
+            for (File file : spec.getSource()) {
+                LOGGER.quiet(file.getAbsolutePath());
+            }
+        }
+        LOGGER.debug("Compiling with javax.tools compiler using options {}", spec.getCompilerOptions());
+
+        boolean success;
+        synchronized (LOCK) {
+            StandardJavaFileManager manager = getFileManager(spec);
+            try {
+                manager.setLocation(StandardLocation.CLASS_PATH, spec.getClasspath());
+                manager.setLocation(StandardLocation.SOURCE_PATH, spec.getSourcepath());
+                manager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singletonList(spec.getDestinationDir()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Iterable<? extends JavaFileObject> compilationUnits = manager.getJavaFileObjectsFromFiles(spec.getSource());
+            List<String> options = spec.getCompilerOptions();
+            if (!spec.getSourcepath().isEmpty()) {
+                // Use the source path only to resolve references, rather than compile the files found there
+                options = new ArrayList<String>(options);
+                options.add("-implicit:none");
+            }
+            JavaCompiler.CompilationTask task = compiler.getTask(null, manager, null, options, null, compilationUnits);
+            success = task.call();
+        }
+
+        if (!success && spec.isFailOnError()) {
+            throw new CompilationFailedException();
+        }
+        return new CompileResult(true, null);
+    }
+
+    private StandardJavaFileManager getFileManager(JavaCompileSpec spec) {
+        if (compiler == null) {
+            compiler = ToolProvider.getSystemJavaCompiler();
+            if (compiler == null) {
+                throw new GradleException("Cannot find the Java compiler of the current JVM. Check that Gradle is running using a JDK, rather than a JRE.");
+            }
+        }
+
+        Charset charset = spec.getEncoding() == null ? null : Charset.forName(spec.getEncoding());
+        boolean stale = fileManager == null || (charset == null ? fileManagerCharset != null : !charset.equals(fileManagerCharset));
+        Map<File, ArchiveState> archives = new HashMap<File, ArchiveState>();
+        for (File file : spec.getClasspath()) {
+            if (!file.isFile()) {
+                continue;
+            }
+            ArchiveState current = new ArchiveState(file);
+            ArchiveState previous = ARCHIVES.get(file);
+            if (previous != null && !previous.equals(current)) {
+                stale = true;
+            }
+            archives.put(file, current);
+        }
+
+        if (stale) {
+            if (fileManager != null) {
+                LOGGER.debug("Discarding javax.tools file manager, as its charset or classpath archives have changed.");
+                try {
+                    fileManager.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+            fileManager = compiler.getStandardFileManager(null, null, charset);
+            fileManagerCharset = charset;
+            ARCHIVES.clear();
+        }
+        ARCHIVES.putAll(archives);
+        return fileManager;
+    }
+
+    private static class ArchiveState {
+        private final long lastModified;
+        private final long length;
+
+        private ArchiveState(File file) {
+            lastModified = file.lastModified();
+            length = file.length();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            ArchiveState other = (ArchiveState) obj;
+            return lastModified == other.lastModified && length == other.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (lastModified ^ length);
+        }
+    }
+}
@@ -18,8 +18,11 @@ package org.gradle.api.internal.tasks.compile;
 import org.gradle.api.AntBuilder;
 import org.gradle.api.internal.Factory;
 import org.gradle.api.internal.TaskOutputsInternal;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.compile.CompileOptions;
 
 import java.io.File;
+import java.util.List;
 
 public class IncrementalJavaCompiler extends IncrementalJavaSourceCompiler<JavaCompiler> implements JavaCompiler {
     private final Factory<AntBuilder> antBuilderFactory;
@@ -38,6 +41,33 @@ public class IncrementalJavaCompiler extends IncrementalJavaSourceCompiler<JavaC
         getCompiler().setDependencyCacheDir(dir);
     }
 
+    @Override
+    public WorkResult execute() {
+        CompileOptions options = getCompileOptions();
+        if (!options.isIncremental() || options.isUseDepend() || dependencyCacheDir == null) {
+            return super.execute();
+        }
+        SelectiveJavaCompiler selectiveCompiler = new SelectiveJavaCompiler(getCompiler()) {
+            @Override
+            protected WorkResult compileAll() {
+                return IncrementalJavaCompiler.this.compileAll();
+            }
+        };
+        return selectiveCompiler.execute(getSource(), getDestinationDir(), getClasspath(), getSettings(), dependencyCacheDir);
+    }
+
+    /**
+     * Returns a description of the compiler settings. The classes compiled by a previous compilation can only be reused
+     * when these have not changed.
+     */
+    private String getSettings() {
+        List<String> arguments = new JavaCompilerArgumentsBuilder(getCompileOptions())
+                .setSourceCompatibility(getSourceCompatibility())
+                .setTargetCompatibility(getTargetCompatibility())
+                .build();
+        return arguments + "\n" + getCompileOptions().getEncoding();
+    }
+
     protected StaleClassCleaner createCleaner() {
         if (getCompileOptions().isUseDepend()) {
             AntDependsStaleClassCleaner cleaner = new AntDependsStaleClassCleaner((Factory) antBuilderFactory);
@@ -28,6 +28,9 @@ public abstract class IncrementalJavaSourceCompiler<T extends JavaSourceCompiler
     private final T compiler;
     private FileCollection source;
     private File destinationDir;
+    private Iterable<File> classpath;
+    private String sourceCompatibility;
+    private String targetCompatibility;
 
     public IncrementalJavaSourceCompiler(T compiler) {
         this.compiler = compiler;
@@ -41,29 +44,56 @@ public abstract class IncrementalJavaSourceCompiler<T extends JavaSourceCompiler
         return compiler.getCompileOptions();
     }
 
+    protected String getSourceCompatibility() {
+        return sourceCompatibility;
+    }
+
     public void setSourceCompatibility(String sourceCompatibility) {
+        this.sourceCompatibility = sourceCompatibility;
         compiler.setSourceCompatibility(sourceCompatibility);
     }
 
+    protected String getTargetCompatibility() {
+        return targetCompatibility;
+    }
+
     public void setTargetCompatibility(String targetCompatibility) {
+        this.targetCompatibility = targetCompatibility;
         compiler.setTargetCompatibility(targetCompatibility);
     }
 
+    protected FileCollection getSource() {
+        return source;
+    }
+
     public void setSource(FileCollection source) {
         this.source = source;
         compiler.setSource(source);
     }
 
+    protected File getDestinationDir() {
+        return destinationDir;
+    }
+
     public void setDestinationDir(File destinationDir) {
         this.destinationDir = destinationDir;
         compiler.setDestinationDir(destinationDir);
     }
 
+    protected Iterable<File> getClasspath() {
+        return classpath;
+    }
+
     public void setClasspath(Iterable<File> classpath) {
+        this.classpath = classpath;
         compiler.setClasspath(classpath);
     }
 
     public WorkResult execute() {
+        return compileAll();
+    }
+
+    protected WorkResult compileAll() {
         StaleClassCleaner cleaner = createCleaner();
         cleaner.setDestinationDir(destinationDir);
         cleaner.setSource(source);
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A serializable description of a single invocation of the Java compiler.
+ */
+public class JavaCompileSpec implements Serializable {
+    private List<File> source = new ArrayList<File>();
+    private File destinationDir;
+    private List<File> classpath = new ArrayList<File>();
+    private List<File> sourcepath = new ArrayList<File>();
+    private List<String> compilerOptions = new ArrayList<String>();
+    private String encoding;
+    private boolean failOnError = true;
+    private boolean listFiles;
+
+    public List<File> getSource() {
+        return source;
+    }
+
+    public void setSource(List<File> source) {
+        this.source = source;
+    }
+
+    public File getDestinationDir() {
+        return destinationDir;
+    }
+
+    public void setDestinationDir(File destinationDir) {
+        this.destinationDir = destinationDir;
+    }
+
+    public List<File> getClasspath() {
+        return classpath;
+    }
+
+    public void setClasspath(List<File> classpath) {
+        this.classpath = classpath;
+    }
+
+    /**
+     * Returns the locations to search for source files which the source files to compile refer to. Only the source
+     * files returned by {@link #getSource()} are compiled. Empty by default.
+     */
+    public List<File> getSourcepath() {
+        return sourcepath;
+    }
+
+    public void setSourcepath(List<File> sourcepath) {
+        this.sourcepath = sourcepath;
+    }
+
+    /**
+     * Returns the compiler options, excluding the source files, classpath, destination directory and encoding.
+     */
+    public List<String> getCompilerOptions() {
+        return compilerOptions;
+    }
+
+    public void setCompilerOptions(List<String> compilerOptions) {
+        this.compilerOptions = compilerOptions;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    public void setEncoding(String encoding) {
+        this.encoding = encoding;
+    }
+
+    public boolean isFailOnError() {
+        return failOnError;
+    }
+
+    public void setFailOnError(boolean failOnError) {
+        this.failOnError = failOnError;
+    }
+
+    public boolean isListFiles() {
+        return listFiles;
+    }
+
+    public void setListFiles(boolean listFiles) {
+        this.listFiles = listFiles;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.tasks.compile.CompileOptions;
+import org.gradle.util.GUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts a set of {@link CompileOptions} into javac command-line options, in the same way as the Ant javac task.
+ */
+public class JavaCompilerArgumentsBuilder {
+    private final CompileOptions compileOptions;
+    private String sourceCompatibility;
+    private String targetCompatibility;
+
+    public JavaCompilerArgumentsBuilder(CompileOptions compileOptions) {
+        this.compileOptions = compileOptions;
+    }
+
+    public JavaCompilerArgumentsBuilder setSourceCompatibility(String sourceCompatibility) {
+        this.sourceCompatibility = sourceCompatibility;
+        return this;
+    }
+
+    public JavaCompilerArgumentsBuilder setTargetCompatibility(String targetCompatibility) {
+        this.targetCompatibility = targetCompatibility;
+        return this;
+    }
+
+    public List<String> build() {
+        List<String> args = new ArrayList<String>();
+        if (GUtil.isTrue(sourceCompatibility)) {
+            args.add("-source");
+            args.add(sourceCompatibility);
+        }
+        if (GUtil.isTrue(targetCompatibility)) {
+            args.add("-target");
+            args.add(targetCompatibility);
+        }
+        if (compileOptions.isDebug()) {
+            String debugLevel = compileOptions.getDebugOptions().getDebugLevel();
+            args.add(GUtil.isTrue(debugLevel) ? "-g:" + debugLevel.trim() : "-g");
+        } else {
+            args.add("-g:none");
+        }
+        if (!compileOptions.isWarnings()) {
+            args.add("-nowarn");
+        }
+        if (compileOptions.isDeprecation()) {
+            args.add("-deprecation");
+        }
+        if (compileOptions.isVerbose()) {
+            args.add("-verbose");
+        }
+        if (compileOptions.getBootClasspath() != null) {
+            args.add("-bootclasspath");
+            args.add(compileOptions.getBootClasspath());
+        }
+        if (compileOptions.getExtensionDirs() != null) {
+            args.add("-extdirs");
+            args.add(compileOptions.getExtensionDirs());
+        }
+        for (Object arg : compileOptions.getCompilerArgs()) {
+            args.add(arg.toString());
+        }
+        return args;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.Factory;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.compile.CompileOptions;
+import org.gradle.api.tasks.compile.ForkOptions;
+import org.gradle.process.internal.WorkerProcessBuilder;
+import org.gradle.util.OperatingSystem;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compiles Java source using the {@code javax.tools} compiler API, either in the build process or, when the compile
+ * options specify forking, in a compiler daemon. A daemon is shared by all compile tasks which use the same fork
+ * options and log level.
+ */
+public class Jdk6JavaCompiler implements JavaCompiler {
+    private final CompileOptions compileOptions;
+    private final Factory<WorkerProcessBuilder> workerFactory;
+    private FileCollection source;
+    private File destinationDir;
+    private Iterable<File> classpath;
+    private String sourceCompatibility;
+    private String targetCompatibility;
+
+    public Jdk6JavaCompiler(CompileOptions compileOptions, Factory<WorkerProcessBuilder> workerFactory) {
+        this.compileOptions = compileOptions;
+        this.workerFactory = workerFactory;
+    }
+
+    public CompileOptions getCompileOptions() {
+        return compileOptions;
+    }
+
+    public void setSourceCompatibility(String sourceCompatibility) {
+        this.sourceCompatibility = sourceCompatibility;
+    }
+
+    public void setTargetCompatibility(String targetCompatibility) {
+        this.targetCompatibility = targetCompatibility;
+    }
+
+    public void setSource(FileCollection source) {
+        this.source = source;
+    }
+
+    public void setDestinationDir(File destinationDir) {
+        this.destinationDir = destinationDir;
+    }
+
+    public void setClasspath(Iterable<File> classpath) {
+        this.classpath = classpath;
+    }
+
+    public void setDependencyCacheDir(File dir) {
+        // don't care
+    }
+
+    public WorkResult execute() {
+        JavaCompileSpec spec = new JavaCompileSpec();
+        spec.setSource(new ArrayList<File>(source.getFiles()));
+        spec.setDestinationDir(destinationDir);
+        List<File> classpathFiles = new ArrayList<File>();
+        for (File file : classpath) {
+            classpathFiles.add(file);
+        }
+        spec.setClasspath(classpathFiles);
+        spec.setCompilerOptions(new JavaCompilerArgumentsBuilder(compileOptions)
+                .setSourceCompatibility(sourceCompatibility)
+                .setTargetCompatibility(targetCompatibility)
+                .build());
+        spec.setEncoding(compileOptions.getEncoding());
+        spec.setFailOnError(compileOptions.isFailOnError());
+        spec.setListFiles(compileOptions.isListFiles());
+
+        if (compileOptions.isFork()) {
+            return getDaemon().execute(spec);
+        }
+        return new InProcessJavaCompiler().execute(spec);
+    }
+
+    private CompilerDaemon<JavaCompileSpec> getDaemon() {
+        final ForkOptions forkOptions = compileOptions.getForkOptions();
+        final WorkerProcessBuilder builder = workerFactory.create();
+        final File javaExecutable = getJavaExecutable(forkOptions);
+        List<Object> key = Arrays.<Object>asList(InProcessJavaCompiler.class, javaExecutable, forkOptions.getMemoryInitialSize(),
+                forkOptions.getMemoryMaximumSize(), forkOptions.getTempDir(), forkOptions.getJvmArgs(), builder.getLogLevel());
+        return CompilerDaemonManager.getInstance().getDaemon(key, new Factory<CompilerDaemon<JavaCompileSpec>>() {
+            public CompilerDaemon<JavaCompileSpec> create() {
+                if (javaExecutable != null) {
+                    builder.getJavaCommand().setExecutable(javaExecutable);
+                }
+                if (forkOptions.getMemoryInitialSize() != null) {
+                    builder.getJavaCommand().jvmArgs(String.format("-Xms%s", forkOptions.getMemoryInitialSize()));
+                }
+                if (forkOptions.getMemoryMaximumSize() != null) {
+                    builder.getJavaCommand().setMaxHeapSize(forkOptions.getMemoryMaximumSize());
+                }
+                if (forkOptions.getTempDir() != null) {
+                    builder.getJavaCommand().systemProperty("java.io.tmpdir", forkOptions.getTempDir());
+                }
+                if (forkOptions.getJvmArgs() != null) {
+                    builder.getJavaCommand().jvmArgs((Iterable<?>) forkOptions.getJvmArgs());
+                }
+                return new CompilerDaemon<JavaCompileSpec>(builder, new InProcessJavaCompiler(), "compiler daemon");
+            }
+        });
+    }
+
+    /**
+     * Returns the java executable of the JDK which contains the javac executable given in the fork options, or null if
+     * the current JVM should be used.
+     */
+    private File getJavaExecutable(ForkOptions forkOptions) {
+        if (forkOptions.getExecutable() == null) {
+            return null;
+        }
+        File javac = new File(forkOptions.getExecutable()).getAbsoluteFile();
+        File java = new File(javac.getParentFile(), OperatingSystem.current().isWindows() ? "java.exe" : "java");
+        if (!java.isFile()) {
+            throw new InvalidUserDataException(String.format(
+                    "Cannot find the java executable for compiler executable '%s'. The compiler daemon looks for it in the same directory.",
+                    forkOptions.getExecutable()));
+        }
+        return java;
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.internal.file.collections.DirectoryFileTree;
+import org.gradle.api.internal.file.collections.SimpleFileCollection;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.util.ClassLoaderObjectInputStream;
+import org.gradle.util.HashUtil;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * <p>Recompiles only those source files which have changed since the previous compilation, along with the source files
+ * of any classes which depend, directly or indirectly, on the classes compiled from the changed source files.</p>
+ *
+ * <p>The dependencies between classes are extracted from the compiled class files by a {@link ClassFileAnalyzer}, and
+ * are kept in a state file in the dependency cache directory, along with a hash of each source file. A full compilation
+ * is done when there is no usable state from a previous compilation, when the compiler settings or classpath have
+ * changed, when the output classes have been changed by something else, or when a compile-time constant is changed or
+ * removed, as constants are inlined into the classes which use them.</p>
+ */
+public abstract class SelectiveJavaCompiler {
+    private static final Logger LOGGER = Logging.getLogger(SelectiveJavaCompiler.class);
+    private final Compiler compiler;
+    private final ClassFileAnalyzer analyzer;
+
+    /**
+     * @param compiler The compiler to use to compile the selected source files.
+     */
+    public SelectiveJavaCompiler(Compiler compiler) {
+        this(compiler, new ClassFileAnalyzer());
+    }
+
+    /**
+     * @param compiler The compiler to use to compile the selected source files.
+     * @param analyzer The analyzer to use to extract the dependencies and constants of the compiled classes.
+     */
+    protected SelectiveJavaCompiler(Compiler compiler, ClassFileAnalyzer analyzer) {
+        this.compiler = compiler;
+        this.analyzer = analyzer;
+    }
+
+    /**
+     * Compiles all source files, first removing the class files of the previous compilation.
+     */
+    protected abstract WorkResult compileAll();
+
+    /**
+     * @param settings A description of the compiler settings, which must change whenever the output of the compiler
+     * may change for the same source files and classpath.
+     */
+    public WorkResult execute(FileCollection source, File destinationDir, Iterable<File> classpath, String settings,
+                              File dependencyCacheDir) {
+        settings = settings + "\n" + describeClasspath(classpath);
+        File stateFile = getStateFile(dependencyCacheDir, destinationDir);
+        State previous = loadState(stateFile);
+        // Discard the state until the compilation has succeeded, so that a failed compilation is followed by a full one
+        stateFile.delete();
+
+        Map<File, String> sourceHashes = new HashMap<File, String>();
+        for (File file : source.getFiles()) {
+            sourceHashes.put(file, new BigInteger(1, HashUtil.createHash(file)).toString(32));
+        }
+
+        String reason = getFullCompilationReason(previous, settings);
+        if (reason != null) {
+            return fullCompile(sourceHashes, destinationDir, settings, stateFile, reason);
+        }
+
+        Set<File> changedSources = new HashSet<File>();
+        for (Map.Entry<File, String> entry : sourceHashes.entrySet()) {
+            if (!entry.getValue().equals(previous.sourceHashes.get(entry.getKey()))) {
+                changedSources.add(entry.getKey());
+            }
+        }
+        Set<File> removedSources = new HashSet<File>(previous.sourceHashes.keySet());
+        removedSources.removeAll(sourceHashes.keySet());
+
+        if (changedSources.isEmpty() && removedSources.isEmpty()) {
+            saveState(stateFile, previous);
+            return new CompileResult(false, null);
+        }
+
+        Map<File, List<ClassFileInfo>> classesBySource = new HashMap<File, List<ClassFileInfo>>();
+        for (ClassFileInfo info : previous.classes.values()) {
+            if (info.getSourceFile() == null) {
+                return fullCompile(sourceHashes, destinationDir, settings, stateFile, String.format("the source file of class %s is not known", info.getClassName()));
+            }
+            List<ClassFileInfo> classes = classesBySource.get(info.getSourceFile());
+            if (classes == null) {
+                classes = new ArrayList<ClassFileInfo>();
+                classesBySource.put(info.getSourceFile(), classes);
+            }
+            classes.add(info);
+        }
+        for (File removedSource : removedSources) {
+            List<ClassFileInfo> classes = classesBySource.get(removedSource);
+            if (classes == null) {
+                continue;
+            }
+            for (ClassFileInfo info : classes) {
+                if (!info.getConstants().isEmpty()) {
+                    return fullCompile(sourceHashes, destinationDir, settings, stateFile, String.format("removed class %s declares constants", info.getClassName()));
+                }
+            }
+        }
+
+        // Find the classes which depend on the changed classes, and the source files to recompile
+        Map<String, Set<String>> dependents = new HashMap<String, Set<String>>();
+        for (ClassFileInfo info : previous.classes.values()) {
+            for (String dependency : info.getDependencies()) {
+                Set<String> classDependents = dependents.get(dependency);
+                if (classDependents == null) {
+                    classDependents = new HashSet<String>();
+                    dependents.put(dependency, classDependents);
+                }
+                classDependents.add(info.getClassName());
+            }
+        }
+        Set<File> staleSources = new HashSet<File>();
+        Set<String> staleClasses = new HashSet<String>();
+        LinkedList<File> queue = new LinkedList<File>(changedSources);
+        queue.addAll(removedSources);
+        while (!queue.isEmpty()) {
+            File staleSource = queue.removeFirst();
+            if (!staleSources.add(staleSource) || !classesBySource.containsKey(staleSource)) {
+                continue;
+            }
+            for (ClassFileInfo info : classesBySource.get(staleSource)) {
+                staleClasses.add(info.getClassName());
+                Set<String> classDependents = dependents.get(info.getClassName());
+                if (classDependents == null) {
+                    continue;
+                }
+                for (String dependent : classDependents) {
+                    queue.add(previous.classes.get(dependent).getSourceFile());
+                }
+            }
+        }
+
+        Map<String, ClassFileInfo> classes = new HashMap<String, ClassFileInfo>(previous.classes);
+        for (String staleClass : staleClasses) {
+            classes.remove(staleClass).getClassFile().delete();
+        }
+        Set<File> sourcesToCompile = new HashSet<File>(staleSources);
+        sourcesToCompile.retainAll(sourceHashes.keySet());
+        LOGGER.info("Recompiling {} of {} source files, as {} source files have changed and {} have been removed.",
+                new Object[]{sourcesToCompile.size(), sourceHashes.size(), changedSources.size(), removedSources.size()});
+
+        if (!sourcesToCompile.isEmpty()) {
+            List<File> compileClasspath = new ArrayList<File>();
+            compileClasspath.add(destinationDir);
+            for (File file : classpath) {
+                compileClasspath.add(file);
+            }
+            compiler.setSource(new SimpleFileCollection(sourcesToCompile));
+            compiler.setClasspath(compileClasspath);
+            try {
+                compiler.execute();
+            } finally {
+                compiler.setSource(source);
+                compiler.setClasspath(classpath);
+            }
+        }
+
+        Set<File> knownClassFiles = new HashSet<File>();
+        for (ClassFileInfo info : classes.values()) {
+            knownClassFiles.add(info.getClassFile());
+        }
+        SourceFileResolver resolver = new SourceFileResolver(sourceHashes.keySet());
+        for (File classFile : findClassFiles(destinationDir)) {
+            if (knownClassFiles.contains(classFile)) {
+                continue;
+            }
+            ClassFileInfo info = analyzer.analyze(classFile);
+            info.setSourceFile(resolver.resolve(info));
+            ClassFileInfo previousInfo = previous.classes.get(info.getClassName());
+            if (previousInfo != null && !info.hasSameConstantsAs(previousInfo)) {
+                return fullCompile(sourceHashes, destinationDir, settings, stateFile, String.format("the constants of class %s have changed", info.getClassName()));
+            }
+            classes.put(info.getClassName(), info);
+        }
+
+        saveState(stateFile, new State(settings, sourceHashes, classes));
+        return new CompileResult(true, null);
+    }
+
+    /**
+     * Returns the file to keep the state of the compilation into the given destination directory in. The dependency
+     * cache directory is usually shared by all compile tasks of a project.
+     */
+    static File getStateFile(File dependencyCacheDir, File destinationDir) {
+        return new File(dependencyCacheDir, String.format("class-dependencies-%s.bin", HashUtil.createHash(destinationDir.getAbsolutePath())));
+    }
+
+    private String getFullCompilationReason(State previous, String settings) {
+        if (previous == null) {
+            return "there is no state from a previous compilation";
+        }
+        if (!previous.settings.equals(settings)) {
+            return "the compiler settings or classpath have changed";
+        }
+        for (ClassFileInfo info : previous.classes.values()) {
+            if (!info.isCurrent()) {
+                return String.format("class file %s has changed since the previous compilation", info.getClassFile());
+            }
+        }
+        return null;
+    }
+
+    private WorkResult fullCompile(Map<File, String> sourceHashes, File destinationDir, String settings, File stateFile,
+                                   String reason) {
+        LOGGER.info("Compiling all source files, as {}.", reason);
+        WorkResult result = compileAll();
+
+        SourceFileResolver resolver = new SourceFileResolver(sourceHashes.keySet());
+        Map<String, ClassFileInfo> classes = new HashMap<String, ClassFileInfo>();
+        for (File classFile : findClassFiles(destinationDir)) {
+            ClassFileInfo info = analyzer.analyze(classFile);
+            info.setSourceFile(resolver.resolve(info));
+            classes.put(info.getClassName(), info);
+        }
+        saveState(stateFile, new State(settings, sourceHashes, classes));
+        return result;
+    }
+
+    private String describeClasspath(Iterable<File> classpath) {
+        StringBuilder description = new StringBuilder();
+        for (File file : classpath) {
+            description.append(file.getAbsolutePath()).append(':');
+            if (file.isFile()) {
+                description.append(file.lastModified()).append(':').append(file.length());
+            } else if (file.isDirectory()) {
+                DirectorySummary summary = new DirectorySummary();
+                new DirectoryFileTree(file).visit(summary);
+                description.append(summary.count).append(':').append(summary.hash);
+            }
+            description.append('\n');
+        }
+        return description.toString();
+    }
+
+    private List<File> findClassFiles(File destinationDir) {
+        List<File> classFiles = new ArrayList<File>();
+        LinkedList<File> queue = new LinkedList<File>();
+        queue.add(destinationDir);
+        while (!queue.isEmpty()) {
+            File[] files = queue.removeFirst().listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    queue.add(file);
+                } else if (file.getName().endsWith(".class")) {
+                    classFiles.add(file);
+                }
+            }
+        }
+        return classFiles;
+    }
+
+    private State loadState(File stateFile) {
+        if (!stateFile.isFile()) {
+            return null;
+        }
+        try {
+            ObjectInputStream inputStream = new ClassLoaderObjectInputStream(new BufferedInputStream(new FileInputStream(stateFile)), getClass().getClassLoader());
+            try {
+                return (State) inputStream.readObject();
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug(String.format("Could not read compilation state from %s.", stateFile), e);
+            return null;
+        }
+    }
+
+    private void saveState(File stateFile, State state) {
+        stateFile.getParentFile().mkdirs();
+        try {
+            ObjectOutputStream outputStream = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(stateFile)));
+            try {
+                outputStream.writeObject(state);
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Maps a class to the source file it was compiled from, using the package of the class and the source file name
+     * recorded in the class file.
+     */
+    private static class SourceFileResolver {
+        private final Map<String, List<File>> sourcesByName = new HashMap<String, List<File>>();
+
+        private SourceFileResolver(Collection<File> sources) {
+            for (File source : sources) {
+                List<File> files = sourcesByName.get(source.getName());
+                if (files == null) {
+                    files = new ArrayList<File>();
+                    sourcesByName.put(source.getName(), files);
+                }
+                files.add(source);
+            }
+        }
+
+        public File resolve(ClassFileInfo info) {
+            String className = info.getClassName();
+            int packageEnd = className.lastIndexOf('/');
+            String fileName = info.getSourceFileName();
+            if (fileName == null) {
+                String outerClassName = className.substring(packageEnd + 1).replaceFirst("\\$.*", "");
+                fileName = outerClassName + ".java";
+            }
+            List<File> candidates = sourcesByName.get(fileName);
+            if (candidates == null) {
+                return null;
+            }
+            if (candidates.size() == 1) {
+                return candidates.get(0);
+            }
+            String packageDir = File.separator + className.substring(0, packageEnd + 1).replace('/', File.separatorChar);
+            for (File candidate : candidates) {
+                if ((candidate.getParent() + File.separator).endsWith(packageDir)) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static class DirectorySummary implements FileVisitor {
+        private int count;
+        private long hash;
+
+        public void visitDir(FileVisitDetails dirDetails) {
+        }
+
+        public void visitFile(FileVisitDetails fileDetails) {
+            count++;
+            hash = 31 * hash + fileDetails.getRelativePath().hashCode() + fileDetails.getLastModified() + fileDetails.getSize();
+        }
+    }
+
+    private static class State implements Serializable {
+        private final String settings;
+        private final Map<File, String> sourceHashes;
+        private final Map<String, ClassFileInfo> classes;
+
+        private State(String settings, Map<File, String> sourceHashes, Map<String, ClassFileInfo> classes) {
+            this.settings = settings;
+            this.sourceHashes = sourceHashes;
+            this.classes = classes;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import groovy.lang.GroovyClassLoader;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.classgen.GeneratorContext;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.tools.javac.JavaAwareResolveVisitor;
+import org.codehaus.groovy.tools.javac.JavaStubGenerator;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.util.ClassLoaderObjectInputStream;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.HashUtil;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * <p>A compilation unit which jointly compiles Groovy and Java source, in the same way as Groovy's {@code
+ * JavaAwareCompilationUnit}: Java stubs are generated for the Groovy classes, the Java source is compiled against the
+ * stubs, and then the Groovy source is compiled against the Java classes.</p>
+ *
+ * <p>Unlike {@code JavaAwareCompilationUnit}, the stubs are kept in the stub directory after the compilation, along with
+ * the hash of the Groovy source files they were generated from. The stubs are reused when no Groovy source file has
+ * changed, so that a change to Java source only does not require the stubs to be generated again. All stubs are
+ * generated again when any Groovy source file, or the given settings, change, as the stub of a class depends on other
+ * source files as well as its own, such as the constructors of its superclass and the classes which the names in its
+ * source file resolve to.</p>
+ */
+public abstract class StubCachingCompilationUnit extends CompilationUnit {
+    private static final Logger LOGGER = Logging.getLogger(StubCachingCompilationUnit.class);
+    private static final String INDEX_FILE_NAME = "stubs.bin";
+    private final File stubDir;
+    private final JavaStubGenerator stubGenerator;
+    private final List<File> javaSources = new ArrayList<File>();
+    private final Set<String> sourcePaths = new TreeSet<String>();
+    private final String settings;
+    private StubIndex index;
+    private Boolean upToDate;
+    private int generatedCount;
+
+    /**
+     * @param settings A description of everything other than the source files which affects the content of the stubs.
+     */
+    public StubCachingCompilationUnit(CompilerConfiguration configuration, GroovyClassLoader classLoader, File stubDir,
+                                      String settings) {
+        super(configuration, null, classLoader);
+        this.stubDir = stubDir;
+        this.settings = settings;
+        boolean java5 = CompilerConfiguration.POST_JDK5.equals(configuration.getTargetBytecode());
+        stubGenerator = new JavaStubGenerator(stubDir, false, java5);
+
+        addPhaseOperation(new PrimaryClassNodeOperation() {
+            public void call(SourceUnit source, GeneratorContext context, ClassNode classNode) throws CompilationFailedException {
+                if (!javaSources.isEmpty()) {
+                    new JavaAwareResolveVisitor(StubCachingCompilationUnit.this).startResolving(classNode, source);
+                }
+            }
+        }, Phases.CONVERSION);
+        addPhaseOperation(new PrimaryClassNodeOperation() {
+            public void call(SourceUnit source, GeneratorContext context, ClassNode classNode) throws CompilationFailedException {
+                if (!javaSources.isEmpty()) {
+                    generateStub(source, classNode);
+                }
+            }
+        }, Phases.CONVERSION);
+    }
+
+    /**
+     * Adds the given Groovy and Java source files to this compilation unit.
+     */
+    public void addSources(Collection<File> groovySources, Collection<File> javaSources) {
+        for (File file : groovySources) {
+            addSource(file);
+            sourcePaths.add(file.getAbsolutePath());
+        }
+        this.javaSources.addAll(javaSources);
+    }
+
+    /**
+     * Compiles the given Java source files, using the given directory as the source path to locate the stubs of the
+     * Groovy classes.
+     */
+    protected abstract void compileJava(List<File> javaSources, File stubDir);
+
+    @Override
+    public void gotoPhase(int phase) throws CompilationFailedException {
+        super.gotoPhase(phase);
+        if (phase == Phases.SEMANTIC_ANALYSIS && !javaSources.isEmpty()) {
+            // The imports were resolved for stub generation, but need to be resolved again against the Java classes
+            for (Object module : getAST().getModules()) {
+                ((ModuleNode) module).setImportsResolved(false);
+            }
+            if (isUpToDate()) {
+                LOGGER.info("Reusing the Java stubs of the Groovy classes, as no Groovy source file has changed.");
+            } else {
+                LOGGER.info("Generated {} Java stubs for Groovy classes.", generatedCount);
+            }
+            saveIndex();
+            try {
+                compileJava(new ArrayList<File>(javaSources), stubDir);
+            } finally {
+                javaSources.clear();
+            }
+        }
+    }
+
+    private void generateStub(SourceUnit source, ClassNode classNode) {
+        if (isUpToDate()) {
+            return;
+        }
+        try {
+            stubGenerator.generateClass(classNode);
+        } catch (FileNotFoundException e) {
+            source.addException(e);
+            return;
+        }
+        generatedCount++;
+        String stubPath = classNode.getName().replace('.', '/') + ".java";
+        if (new File(stubDir, stubPath).isFile()) {
+            index.stubs.add(stubPath);
+        }
+    }
+
+    private boolean isUpToDate() {
+        if (upToDate != null) {
+            return upToDate;
+        }
+        StringBuilder key = new StringBuilder(settings);
+        for (String sourcePath : sourcePaths) {
+            String hash = new BigInteger(1, HashUtil.createHash(new File(sourcePath))).toString(32);
+            key.append('\n').append(sourcePath).append(':').append(hash);
+        }
+        File indexFile = new File(stubDir, INDEX_FILE_NAME);
+        index = loadIndex(indexFile);
+        upToDate = index != null && index.key.equals(key.toString()) && index.stubsExist(stubDir);
+        if (!upToDate) {
+            GFileUtils.deleteDirectory(stubDir);
+            stubDir.mkdirs();
+            index = new StubIndex(key.toString());
+        }
+        // Discard the index until all stubs have been generated, so that an interrupted compilation leaves no index
+        indexFile.delete();
+        return upToDate;
+    }
+
+    private StubIndex loadIndex(File indexFile) {
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        try {
+            ObjectInputStream inputStream = new ClassLoaderObjectInputStream(new BufferedInputStream(new FileInputStream(indexFile)), getClass().getClassLoader());
+            try {
+                return (StubIndex) inputStream.readObject();
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug(String.format("Could not read stub index from %s.", indexFile), e);
+            return null;
+        }
+    }
+
+    private void saveIndex() {
+        try {
+            ObjectOutputStream outputStream = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(new File(stubDir, INDEX_FILE_NAME))));
+            try {
+                outputStream.writeObject(index);
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class StubIndex implements Serializable {
+        private final String key;
+        private final List<String> stubs = new ArrayList<String>();
+
+        private StubIndex(String key) {
+            this.key = key;
+        }
+
+        boolean stubsExist(File stubDir) {
+            for (String stub : stubs) {
+                if (!new File(stubDir, stub).isFile()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
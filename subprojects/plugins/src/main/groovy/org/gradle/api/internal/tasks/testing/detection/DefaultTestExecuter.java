@@ -22,27 +22,44 @@ import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.internal.tasks.testing.history.HistoryTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.history.TestClassFingerprinter;
+import org.gradle.api.internal.tasks.testing.history.TestClassHistory;
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.api.tasks.testing.Test;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.DefaultSerializer;
+import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.messaging.actor.ActorFactory;
 import org.gradle.process.internal.WorkerProcessBuilder;
 import org.gradle.util.TrueTimeProvider;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
 /**
  * The default test class scanner factory.
  *
  * @author Tom Eyckmans
  */
 public class DefaultTestExecuter implements TestExecuter {
+    private static final Logger LOGGER = Logging.getLogger(DefaultTestExecuter.class);
     private final Factory<WorkerProcessBuilder> workerFactory;
     private final ActorFactory actorFactor;
+    private final CacheRepository cacheRepository;
 
-    public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactor) {
+    public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactor,
+                               CacheRepository cacheRepository) {
         this.workerFactory = workerFactory;
         this.actorFactor = actorFactor;
+        this.cacheRepository = cacheRepository;
     }
 
     public void execute(final Test testTask, TestResultProcessor testResultProcessor) {
@@ -62,6 +79,9 @@ public class DefaultTestExecuter implements TestExecuter {
 
         TestClassProcessor processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(),
                 reforkingProcessorFactory, actorFactor);
+        if (testTask.isRunFailedTestsFirst() || testTask.isSkipUnchangedTests()) {
+            processor = createHistoryProcessor(testTask, processor);
+        }
 
         final FileTree testClassFiles = testTask.getCandidateClassFiles();
 
@@ -74,4 +94,23 @@ public class DefaultTestExecuter implements TestExecuter {
         }
         new TestMainAction(detector, processor, testResultProcessor, new TrueTimeProvider()).run();
     }
+
+    private TestClassProcessor createHistoryProcessor(Test testTask, TestClassProcessor processor) {
+        PersistentIndexedCache<String, TestClassHistory> history = cacheRepository.cache("testHistory").forObject(
+                testTask.getProject().getGradle()).open().openIndexedCache(new DefaultSerializer<TestClassHistory>(
+                TestClassHistory.class.getClassLoader()));
+
+        // A change to how the tests are run may change their outcome, so is treated as a change to every test class
+        List<String> settings = new ArrayList<String>(testTask.getAllJvmArgs());
+        for (Map.Entry<String, Object> entry : new TreeMap<String, Object>(testTask.getEnvironment()).entrySet()) {
+            settings.add(entry.getKey() + '=' + entry.getValue());
+        }
+        TestClassFingerprinter fingerprinter = new TestClassFingerprinter(testTask.getClasspath(), settings);
+        if (testTask.isSkipUnchangedTests()) {
+            LOGGER.warn("{} skips unchanged test classes. A test class which uses a changed class only reflectively, such as through Class.forName() or a ServiceLoader, may be skipped.", testTask);
+        }
+
+        return new HistoryTestClassProcessor(processor, history, testTask.getPath() + ':', fingerprinter,
+                testTask.isRunFailedTestsFirst(), testTask.isSkipUnchangedTests());
+    }
 }
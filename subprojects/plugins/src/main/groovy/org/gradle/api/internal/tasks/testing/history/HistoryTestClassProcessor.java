@@ -0,0 +1,238 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.history;
+
+import org.gradle.api.internal.tasks.testing.*;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.testing.TestResult;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.util.CompositeIdGenerator;
+import org.gradle.util.IdGenerator;
+import org.gradle.util.LongIdGenerator;
+import org.gradle.util.TimeProvider;
+import org.gradle.util.TrueTimeProvider;
+
+import java.util.*;
+
+/**
+ * <p>A {@link TestClassProcessor} which uses the outcome of previous executions of each test class to decide whether,
+ * and in which order, the test classes are passed on to the given processor. The outcome of each test class executed is
+ * recorded in the given history once processing is complete.</p>
+ *
+ * <p>When reordering, the test classes which failed last time are passed on as soon as they are found, so that they
+ * start executing while the remaining test classes are still being found. The remaining test classes are held back
+ * until processing is stopped, and are then passed on with those which have changed or are new first. Within each of
+ * these groups, the quickest test classes are passed on first, so that failures are reported as early as
+ * possible.</p>
+ *
+ * <p>When skipping unchanged test classes, a test class is not passed on when it passed last time and neither it nor
+ * any class it uses has changed since, as determined by the {@link TestClassFingerprinter}. Each skipped test class is
+ * reported to the result processor as a skipped test, once the other test classes have completed.</p>
+ */
+public class HistoryTestClassProcessor implements TestClassProcessor {
+    private static final Logger LOGGER = Logging.getLogger(HistoryTestClassProcessor.class);
+    private final TestClassProcessor processor;
+    private final PersistentIndexedCache<String, TestClassHistory> history;
+    private final String keyPrefix;
+    private final TestClassFingerprinter fingerprinter;
+    private final boolean reorder;
+    private final boolean skipUnchanged;
+    private final List<PendingTestClass> pending = new ArrayList<PendingTestClass>();
+    private final Map<String, String> fingerprints = new HashMap<String, String>();
+    private final Map<String, ClassOutcome> outcomes = new HashMap<String, ClassOutcome>();
+    private final Map<Object, String> classNames = new HashMap<Object, String>();
+    private final List<String> skipped = new ArrayList<String>();
+    private final IdGenerator<?> idGenerator = new CompositeIdGenerator("skipped", new LongIdGenerator());
+    private final TimeProvider timeProvider = new TrueTimeProvider();
+    private TestResultProcessor resultProcessor;
+
+    /**
+     * @param keyPrefix The prefix for the keys of the history entries, which makes the keys unique to a test task.
+     */
+    public HistoryTestClassProcessor(TestClassProcessor processor, PersistentIndexedCache<String, TestClassHistory> history,
+                                     String keyPrefix, TestClassFingerprinter fingerprinter, boolean reorder,
+                                     boolean skipUnchanged) {
+        this.processor = processor;
+        this.history = history;
+        this.keyPrefix = keyPrefix;
+        this.fingerprinter = fingerprinter;
+        this.reorder = reorder;
+        this.skipUnchanged = skipUnchanged;
+    }
+
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        this.resultProcessor = resultProcessor;
+        processor.startProcessing(new RecordingResultProcessor(resultProcessor));
+    }
+
+    public void processTestClass(TestClassRunInfo testClass) {
+        String className = testClass.getTestClassName();
+        String fingerprint = fingerprinter.fingerprint(className);
+        TestClassHistory previous = history.get(keyPrefix + className);
+        if (skipUnchanged && previous != null && !previous.isFailed() && previous.getFingerprint().equals(fingerprint)) {
+            LOGGER.debug("Skipping test class {}, as it passed last time and has not changed since.", className);
+            skipped.add(className);
+            return;
+        }
+
+        synchronized (outcomes) {
+            fingerprints.put(className, fingerprint);
+        }
+        if (reorder && (previous == null || !previous.isFailed())) {
+            pending.add(new PendingTestClass(testClass, previous, fingerprint));
+        } else {
+            processor.processTestClass(testClass);
+        }
+    }
+
+    public void stop() {
+        try {
+            Collections.sort(pending);
+            for (PendingTestClass testClass : pending) {
+                processor.processTestClass(testClass.testClass);
+            }
+            pending.clear();
+            processor.stop();
+            // Results are no longer being forwarded by the processor, so the skipped test classes can be reported
+            reportSkipped();
+        } finally {
+            recordOutcomes();
+        }
+    }
+
+    private void reportSkipped() {
+        if (skipped.isEmpty()) {
+            return;
+        }
+        LOGGER.info("Skipped {} test classes which passed last time and have not changed since.", skipped.size());
+        for (String className : skipped) {
+            long time = timeProvider.getCurrentTime();
+            Object classId = idGenerator.generateId();
+            resultProcessor.started(new DefaultTestClassDescriptor(classId, className), new TestStartEvent(time));
+            Object testId = idGenerator.generateId();
+            resultProcessor.started(new DefaultTestDescriptor(testId, className, "unchanged since it last passed"),
+                    new TestStartEvent(time, classId));
+            resultProcessor.completed(testId, new TestCompleteEvent(time, TestResult.ResultType.SKIPPED));
+            resultProcessor.completed(classId, new TestCompleteEvent(time));
+        }
+        skipped.clear();
+    }
+
+    private void recordOutcomes() {
+        synchronized (outcomes) {
+            for (Map.Entry<String, ClassOutcome> entry : outcomes.entrySet()) {
+                String className = entry.getKey();
+                ClassOutcome outcome = entry.getValue();
+                // A test class which never completed, such as when its worker process crashed, is treated as failed
+                boolean completed = outcome.endTime >= outcome.startTime;
+                long duration = completed ? outcome.endTime - outcome.startTime : 0;
+                history.put(keyPrefix + className, new TestClassHistory(fingerprints.get(className), duration,
+                        outcome.failed || !completed));
+            }
+            outcomes.clear();
+        }
+    }
+
+    private static class PendingTestClass implements Comparable<PendingTestClass> {
+        final TestClassRunInfo testClass;
+        final int rank;
+        final long duration;
+
+        private PendingTestClass(TestClassRunInfo testClass, TestClassHistory previous, String fingerprint) {
+            this.testClass = testClass;
+            if (previous == null) {
+                rank = 0;
+                duration = 0;
+            } else {
+                rank = previous.getFingerprint().equals(fingerprint) ? 1 : 0;
+                duration = previous.getDuration();
+            }
+        }
+
+        public int compareTo(PendingTestClass other) {
+            if (rank != other.rank) {
+                return rank < other.rank ? -1 : 1;
+            }
+            return duration < other.duration ? -1 : duration > other.duration ? 1 : 0;
+        }
+    }
+
+    private static class ClassOutcome {
+        long startTime = Long.MAX_VALUE;
+        long endTime = Long.MIN_VALUE;
+        boolean failed;
+    }
+
+    /**
+     * Collects the outcome of each test class from the results of its tests, as they are forwarded.
+     */
+    private class RecordingResultProcessor implements TestResultProcessor {
+        private final TestResultProcessor resultProcessor;
+
+        private RecordingResultProcessor(TestResultProcessor resultProcessor) {
+            this.resultProcessor = resultProcessor;
+        }
+
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            String className = test.getClassName();
+            synchronized (outcomes) {
+                if (className != null && fingerprints.containsKey(className)) {
+                    classNames.put(test.getId(), className);
+                    ClassOutcome outcome = outcomes.get(className);
+                    if (outcome == null) {
+                        outcome = new ClassOutcome();
+                        outcomes.put(className, outcome);
+                    }
+                    outcome.startTime = Math.min(outcome.startTime, event.getStartTime());
+                }
+            }
+            resultProcessor.started(test, event);
+        }
+
+        public void completed(Object testId, TestCompleteEvent event) {
+            synchronized (outcomes) {
+                ClassOutcome outcome = getOutcome(testId);
+                if (outcome != null) {
+                    outcome.endTime = Math.max(outcome.endTime, event.getEndTime());
+                    if (event.getResultType() == TestResult.ResultType.FAILURE) {
+                        outcome.failed = true;
+                    }
+                }
+            }
+            resultProcessor.completed(testId, event);
+        }
+
+        public void output(Object testId, TestOutputEvent event) {
+            resultProcessor.output(testId, event);
+        }
+
+        public void failure(Object testId, Throwable result) {
+            synchronized (outcomes) {
+                ClassOutcome outcome = getOutcome(testId);
+                if (outcome != null) {
+                    outcome.failed = true;
+                }
+            }
+            resultProcessor.failure(testId, result);
+        }
+
+        private ClassOutcome getOutcome(Object testId) {
+            String className = classNames.get(testId);
+            return className == null ? null : outcomes.get(className);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.history;
+
+import org.gradle.api.internal.tasks.compile.ClassFileAnalyzer;
+import org.gradle.util.HashUtil;
+import org.gradle.util.UncheckedException;
+
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * <p>Calculates a fingerprint for a test class, which changes whenever the byte code of the test class, or of any class
+ * it uses directly or indirectly, changes. The classes used by a test class are taken from the constant pools of the
+ * class files found in the directories of the test classpath.</p>
+ *
+ * <p>The archives on the classpath, the resources in its directories, and the given settings, such as the JVM
+ * arguments, are not tracked per test class. A change to any of them changes the fingerprint of every test class.</p>
+ *
+ * <p>A class which is used only reflectively, such as one loaded using {@code Class.forName()}, located by a {@code
+ * ServiceLoader}, or instantiated by a dependency injection container, does not appear in the constant pool of the
+ * classes which use it. A change to such a class does not change the fingerprint of the test classes which use it,
+ * unless the class is also referenced by name from some other class they use.</p>
+ */
+public class TestClassFingerprinter {
+    private static final ClassState MISSING = new ClassState(null, Collections.<String>emptySet());
+    private final ClassFileAnalyzer analyzer = new ClassFileAnalyzer();
+    private final List<File> classDirs = new ArrayList<File>();
+    private final Map<String, ClassState> classes = new HashMap<String, ClassState>();
+    private final byte[] environment;
+
+    public TestClassFingerprinter(Iterable<File> classpath, Collection<String> settings) {
+        MessageDigest digest = createDigest();
+        for (String setting : settings) {
+            update(digest, setting);
+        }
+        for (File file : classpath) {
+            if (file.isDirectory()) {
+                classDirs.add(file);
+                addResources(file, "", digest);
+            } else if (file.isFile()) {
+                update(digest, file.getAbsolutePath() + ':' + file.length() + ':' + file.lastModified());
+            }
+        }
+        environment = digest.digest();
+    }
+
+    /**
+     * Returns the fingerprint of the given test class.
+     *
+     * @param className The fully qualified name of the class.
+     */
+    public String fingerprint(String className) {
+        SortedMap<String, byte[]> hashes = new TreeMap<String, byte[]>();
+        LinkedList<String> queue = new LinkedList<String>();
+        Set<String> seen = new HashSet<String>();
+        String start = className.replace('.', '/');
+        queue.add(start);
+        seen.add(start);
+        while (!queue.isEmpty()) {
+            String name = queue.removeFirst();
+            ClassState state = getState(name);
+            if (state == MISSING) {
+                // A class from an archive or from the JVM
+                continue;
+            }
+            hashes.put(name, state.hash);
+            for (String dependency : state.dependencies) {
+                if (seen.add(dependency)) {
+                    queue.add(dependency);
+                }
+            }
+        }
+
+        MessageDigest digest = createDigest();
+        digest.update(environment);
+        for (Map.Entry<String, byte[]> entry : hashes.entrySet()) {
+            update(digest, entry.getKey());
+            digest.update(entry.getValue());
+        }
+        return new BigInteger(1, digest.digest()).toString(32);
+    }
+
+    private ClassState getState(String internalName) {
+        ClassState state = classes.get(internalName);
+        if (state == null) {
+            state = MISSING;
+            for (File classDir : classDirs) {
+                File classFile = new File(classDir, internalName + ".class");
+                if (classFile.isFile()) {
+                    state = new ClassState(HashUtil.createHash(classFile), analyzer.analyze(classFile).getDependencies());
+                    break;
+                }
+            }
+            classes.put(internalName, state);
+        }
+        return state;
+    }
+
+    private void addResources(File dir, String path, MessageDigest digest) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            String relativePath = path + '/' + file.getName();
+            if (file.isDirectory()) {
+                addResources(file, relativePath, digest);
+            } else if (!file.getName().endsWith(".class")) {
+                update(digest, relativePath + ':' + file.length() + ':' + file.lastModified());
+            }
+        }
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw UncheckedException.asUncheckedException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        try {
+            digest.update(value.getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw UncheckedException.asUncheckedException(e);
+        }
+        digest.update((byte) 0);
+    }
+
+    private static class ClassState {
+        final byte[] hash;
+        final Set<String> dependencies;
+
+        private ClassState(byte[] hash, Set<String> dependencies) {
+            this.hash = hash;
+            this.dependencies = dependencies;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.history;
+
+import java.io.Serializable;
+
+/**
+ * The outcome of the most recent execution of a test class.
+ */
+public class TestClassHistory implements Serializable {
+    private final String fingerprint;
+    private final long duration;
+    private final boolean failed;
+
+    public TestClassHistory(String fingerprint, long duration, boolean failed) {
+        this.fingerprint = fingerprint;
+        this.duration = duration;
+        this.failed = failed;
+    }
+
+    /**
+     * Returns the fingerprint of the test class and the classes it uses, at the time it was executed.
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns the time taken to execute the test class, in milliseconds.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+}
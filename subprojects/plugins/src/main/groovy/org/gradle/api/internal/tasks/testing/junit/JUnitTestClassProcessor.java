@@ -21,7 +21,6 @@ import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.processors.CaptureTestOutputTestResultProcessor;
 import org.gradle.api.internal.tasks.testing.results.AttachParentTestResultProcessor;
-import org.gradle.listener.ListenerBroadcast;
 import org.gradle.logging.StandardOutputRedirector;
 import org.gradle.util.IdGenerator;
 import org.gradle.util.TimeProvider;
@@ -29,30 +28,21 @@ import org.gradle.util.TrueTimeProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
-
 public class JUnitTestClassProcessor implements TestClassProcessor {
     private static final Logger LOGGER = LoggerFactory.getLogger(JUnitTestClassProcessor.class);
-    private final File testResultsDir;
     private final IdGenerator<?> idGenerator;
     private final StandardOutputRedirector outputRedirector;
     private final TimeProvider timeProvider = new TrueTimeProvider();
     private JUnitTestClassExecuter executer;
 
-    public JUnitTestClassProcessor(File testResultsDir, IdGenerator<?> idGenerator,
-                                   StandardOutputRedirector standardOutputRedirector) {
-        this.testResultsDir = testResultsDir;
+    public JUnitTestClassProcessor(IdGenerator<?> idGenerator, StandardOutputRedirector standardOutputRedirector) {
         this.idGenerator = idGenerator;
         this.outputRedirector = standardOutputRedirector;
     }
 
     public void startProcessing(TestResultProcessor resultProcessor) {
         ClassLoader applicationClassLoader = Thread.currentThread().getContextClassLoader();
-        ListenerBroadcast<TestResultProcessor> processors = new ListenerBroadcast<TestResultProcessor>(
-                TestResultProcessor.class);
-        processors.add(new JUnitXmlReportGenerator(testResultsDir));
-        processors.add(resultProcessor);
-        TestResultProcessor resultProcessorChain = new AttachParentTestResultProcessor(new CaptureTestOutputTestResultProcessor(processors.getSource(), outputRedirector));
+        TestResultProcessor resultProcessorChain = new AttachParentTestResultProcessor(new CaptureTestOutputTestResultProcessor(resultProcessor, outputRedirector));
         JUnitTestResultProcessorAdapter listener = new JUnitTestResultProcessorAdapter(resultProcessorChain,
                 timeProvider, idGenerator);
         executer = new JUnitTestClassExecuter(applicationClassLoader, listener, resultProcessorChain, idGenerator, timeProvider);
@@ -23,6 +23,8 @@ import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.api.internal.tasks.testing.junit.report.DefaultTestReport;
 import org.gradle.api.internal.tasks.testing.junit.report.TestReporter;
+import org.gradle.api.internal.tasks.testing.results.BinaryTestResultsReader;
+import org.gradle.api.internal.tasks.testing.results.BinaryTestResultsWriter;
 import org.gradle.api.tasks.testing.Test;
 import org.gradle.api.tasks.testing.junit.JUnitOptions;
 import org.gradle.process.internal.WorkerProcessBuilder;
@@ -48,8 +50,7 @@ public class JUnitTestFramework implements TestFramework {
     }
 
     public WorkerTestClassProcessorFactory getProcessorFactory() {
-        final File testResultsDir = testTask.getTestResultsDir();
-        return new TestClassProcessorFactoryImpl(testResultsDir);
+        return new TestClassProcessorFactoryImpl();
     }
 
     public Action<WorkerProcessBuilder> getWorkerConfigurationAction() {
@@ -63,11 +64,17 @@ public class JUnitTestFramework implements TestFramework {
     }
 
     public void report() {
+        File testResultsDir = testTask.getTestResultsDir();
+        BinaryTestResultsReader results = new BinaryTestResultsReader(BinaryTestResultsWriter.getResultsFile(testResultsDir));
+        if (results.isAvailable()) {
+            results.replay(new JUnitXmlReportGenerator(testResultsDir));
+        }
+
         if (!testTask.isTestReport()) {
             return;
         }
         reporter.setTestReportDir(testTask.getTestReportDir());
-        reporter.setTestResultsDir(testTask.getTestResultsDir());
+        reporter.setTestResultsDir(testResultsDir);
         reporter.generateReport();
     }
 
@@ -92,14 +99,8 @@ public class JUnitTestFramework implements TestFramework {
     }
 
     private static class TestClassProcessorFactoryImpl implements WorkerTestClassProcessorFactory, Serializable {
-        private final File testResultsDir;
-
-        public TestClassProcessorFactoryImpl(File testResultsDir) {
-            this.testResultsDir = testResultsDir;
-        }
-
         public TestClassProcessor create(ServiceRegistry serviceRegistry) {
-            return new JUnitTestClassProcessor(testResultsDir, serviceRegistry.get(IdGenerator.class), new JULRedirector());
+            return new JUnitTestClassProcessor(serviceRegistry.get(IdGenerator.class), new JULRedirector());
         }
     }
 }
@@ -19,141 +19,231 @@ package org.gradle.api.internal.tasks.testing.junit;
 import org.apache.tools.ant.util.DOMElementWriter;
 import org.apache.tools.ant.util.DateUtils;
 import org.gradle.api.GradleException;
+import org.gradle.api.UncheckedIOException;
 import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
 import org.gradle.api.internal.tasks.testing.TestOutputEvent;
+import org.gradle.api.internal.tasks.testing.results.RecordedTestFailure;
 import org.gradle.api.internal.tasks.testing.results.StateTrackingTestResultProcessor;
 import org.gradle.api.tasks.testing.TestResult;
-import org.gradle.util.UncheckedException;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.*;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * <p>Writes a JUnit XML report file for each test class. The report is streamed: each {@code testcase} element is
+ * written to a temporary file as its test completes, and the output captured from the test class is held in memory
+ * only up to a threshold, after which it is spilled to a temporary file. The report file is assembled from these when
+ * the test class completes, so the memory used does not depend on the number of tests or the amount of output.</p>
+ *
+ * <p>The report is formatted in the same way as Ant's {@link DOMElementWriter} formats the equivalent DOM.</p>
+ */
 public class JUnitXmlReportGenerator extends StateTrackingTestResultProcessor {
+    static final int DEFAULT_OUTPUT_THRESHOLD = 64 * 1024;
+    private static final String CHARSET = "UTF-8";
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+    private static final String INDENT = "  ";
     private final File testResultsDir;
-    private final DocumentBuilder documentBuilder;
+    private final int outputThreshold;
     private final String hostName;
-    private Document testSuiteReport;
+    private final DOMElementWriter encoder = new DOMElementWriter(true);
     private TestState testSuite;
-    private Element rootElement;
-    private Map<TestOutputEvent.Destination, StringBuilder> outputs
-            = new EnumMap<TestOutputEvent.Destination, StringBuilder>(TestOutputEvent.Destination.class);
+    private File testCasesFile;
+    private Writer testCases;
+    private final Map<TestOutputEvent.Destination, SpillingOutputBuffer> outputs
+            = new EnumMap<TestOutputEvent.Destination, SpillingOutputBuffer>(TestOutputEvent.Destination.class);
 
     public JUnitXmlReportGenerator(File testResultsDir) {
+        this(testResultsDir, DEFAULT_OUTPUT_THRESHOLD);
+    }
+
+    JUnitXmlReportGenerator(File testResultsDir, int outputThreshold) {
         this.testResultsDir = testResultsDir;
-        try {
-            documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-        } catch (Exception e) {
-            throw UncheckedException.asUncheckedException(e);
-        }
+        this.outputThreshold = outputThreshold;
         hostName = getHostname();
     }
 
     @Override
     public void output(Object testId, TestOutputEvent event) {
-        outputs.get(event.getDestination()).append(event.getMessage());
+        SpillingOutputBuffer buffer = outputs.get(event.getDestination());
+        if (buffer == null) {
+            return;
+        }
+        try {
+            buffer.append(event.getMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @Override
     protected void started(TestState state) {
         TestDescriptorInternal test = state.test;
         if (test.getName().equals(test.getClassName())) {
-            testSuiteReport = documentBuilder.newDocument();
-            rootElement = testSuiteReport.createElement("testsuite");
-            testSuiteReport.appendChild(rootElement);
-            // Add an empty properties element for compatibility
-            rootElement.appendChild(testSuiteReport.createElement("properties"));
-            outputs.put(TestOutputEvent.Destination.StdOut, new StringBuilder());
-            outputs.put(TestOutputEvent.Destination.StdErr, new StringBuilder());
+            discard();
+            try {
+                testCasesFile = File.createTempFile("test-cases", ".tmp", testResultsDir);
+                testCases = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(testCasesFile), CHARSET));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            outputs.put(TestOutputEvent.Destination.StdOut, new SpillingOutputBuffer(testResultsDir, outputThreshold));
+            outputs.put(TestOutputEvent.Destination.StdErr, new SpillingOutputBuffer(testResultsDir, outputThreshold));
             testSuite = state;
         }
     }
 
     @Override
     protected void completed(TestState state) {
-        String testClassName = state.test.getClassName();
-        Element element;
+        if (testSuite == null) {
+            return;
+        }
         if (!state.equals(testSuite)) {
-            element = testSuiteReport.createElement(state.resultType == TestResult.ResultType.SKIPPED ? "ignored-testcase" : "testcase");
-            element.setAttribute("name", state.test.getName());
-            element.setAttribute("classname", testClassName);
-            rootElement.appendChild(element);
-        } else {
-            element = rootElement;
-            rootElement.setAttribute("name", testClassName);
-            rootElement.setAttribute("tests", String.valueOf(state.testCount));
-            rootElement.setAttribute("failures", String.valueOf(state.failedCount));
-            rootElement.setAttribute("errors", "0");
-            rootElement.setAttribute("timestamp", DateUtils.format(state.getStartTime(), DateUtils.ISO8601_DATETIME_PATTERN));
-            rootElement.setAttribute("hostname", hostName);
-            Element stdoutElement = testSuiteReport.createElement("system-out");
-            stdoutElement.appendChild(testSuiteReport.createCDATASection(outputs.get(TestOutputEvent.Destination.StdOut)
-                    .toString()));
-            rootElement.appendChild(stdoutElement);
-            Element stderrElement = testSuiteReport.createElement("system-err");
-            stderrElement.appendChild(testSuiteReport.createCDATASection(outputs.get(TestOutputEvent.Destination.StdErr)
-                    .toString()));
-            rootElement.appendChild(stderrElement);
-        }
-
-        element.setAttribute("time", String.valueOf(state.getExecutionTime() / 1000.0));
-        for (Throwable failure : state.failures) {
-            Element failureElement = testSuiteReport.createElement("failure");
-            element.appendChild(failureElement);
-            failureElement.setAttribute("message", failureMessage(failure));
-            failureElement.setAttribute("type", failure.getClass().getName());
-            failureElement.appendChild(testSuiteReport.createTextNode(stackTrace(failure)));
-        }
-
-        if (state.equals(testSuite)) {
-            File reportFile = new File(testResultsDir, "TEST-" + testClassName + ".xml");
             try {
-                OutputStream outstr = new BufferedOutputStream(new FileOutputStream(reportFile));
-                try {
-                    new DOMElementWriter(true).write(rootElement, outstr);
-                } finally {
-                    outstr.close();
-                }
+                writeTestCase(state);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return;
+        }
+
+        File reportFile = new File(testResultsDir, "TEST-" + state.test.getClassName() + ".xml");
+        try {
+            try {
+                writeReport(state, reportFile);
             } catch (IOException e) {
                 throw new GradleException(String.format("Could not write test report file '%s'.", reportFile), e);
             }
+        } finally {
+            discard();
+        }
+    }
 
-            testSuite = null;
-            outputs.clear();
+    private void writeTestCase(TestState state) throws IOException {
+        Writer out = testCases;
+        out.write(INDENT);
+        out.write('<');
+        out.write(state.resultType == TestResult.ResultType.SKIPPED ? "ignored-testcase" : "testcase");
+        writeAttribute(out, "classname", state.test.getClassName());
+        writeAttribute(out, "name", state.test.getName());
+        writeAttribute(out, "time", String.valueOf(state.getExecutionTime() / 1000.0));
+        if (state.failures.isEmpty()) {
+            out.write(" />");
+            out.write(LINE_SEPARATOR);
+            return;
         }
+        out.write('>');
+        out.write(LINE_SEPARATOR);
+        writeFailures(out, state.failures, 2);
+        out.write(INDENT);
+        out.write("</");
+        out.write(state.resultType == TestResult.ResultType.SKIPPED ? "ignored-testcase" : "testcase");
+        out.write('>');
+        out.write(LINE_SEPARATOR);
     }
 
-    private String stackTrace(Throwable throwable) {
+    private void writeReport(TestState state, File reportFile) throws IOException {
+        testCases.close();
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(reportFile), CHARSET));
         try {
-            StringWriter stringWriter = new StringWriter();
-            PrintWriter writer = new PrintWriter(stringWriter);
-            throwable.printStackTrace(writer);
-            writer.close();
-            return stringWriter.toString();
-        } catch (Throwable t) {
-            StringWriter stringWriter = new StringWriter();
-            PrintWriter writer = new PrintWriter(stringWriter);
-            t.printStackTrace(writer);
-            writer.close();
-            return stringWriter.toString();
+            encoder.writeXMLDeclaration(out);
+            // Attributes are written in alphabetical order, as the DOM would hold them
+            out.write("<testsuite");
+            writeAttribute(out, "errors", "0");
+            writeAttribute(out, "failures", String.valueOf(state.failedCount));
+            writeAttribute(out, "hostname", hostName);
+            writeAttribute(out, "name", state.test.getClassName());
+            writeAttribute(out, "tests", String.valueOf(state.testCount));
+            writeAttribute(out, "time", String.valueOf(state.getExecutionTime() / 1000.0));
+            writeAttribute(out, "timestamp", DateUtils.format(state.getStartTime(), DateUtils.ISO8601_DATETIME_PATTERN));
+            out.write('>');
+            out.write(LINE_SEPARATOR);
+            // Add an empty properties element for compatibility
+            out.write(INDENT);
+            out.write("<properties />");
+            out.write(LINE_SEPARATOR);
+            copyTestCases(out);
+            writeOutput(out, "system-out", outputs.get(TestOutputEvent.Destination.StdOut));
+            writeOutput(out, "system-err", outputs.get(TestOutputEvent.Destination.StdErr));
+            writeFailures(out, state.failures, 1);
+            out.write("</testsuite>");
+            out.write(LINE_SEPARATOR);
+        } finally {
+            out.close();
         }
     }
 
-    private String failureMessage(Throwable throwable) {
+    private void copyTestCases(Writer out) throws IOException {
+        Reader reader = new InputStreamReader(new FileInputStream(testCasesFile), CHARSET);
         try {
-            return throwable.toString();
-        } catch (Throwable t) {
-            return String.format("Could not determine failure message for exception of type %s: %s",
-                    throwable.getClass().getName(), t);
+            char[] buffer = new char[8192];
+            int count;
+            while ((count = reader.read(buffer)) > 0) {
+                out.write(buffer, 0, count);
+            }
+        } finally {
+            reader.close();
         }
     }
 
+    private void writeOutput(Writer out, String elementName, SpillingOutputBuffer output) throws IOException {
+        out.write(INDENT);
+        out.write('<');
+        out.write(elementName);
+        out.write("><![CDATA[");
+        output.writeTo(new CDataEncodingWriter(out));
+        out.write("]]></");
+        out.write(elementName);
+        out.write('>');
+        out.write(LINE_SEPARATOR);
+    }
+
+    private void writeFailures(Writer out, List<Throwable> failures, int indent) throws IOException {
+        for (Throwable failure : failures) {
+            for (int i = 0; i < indent; i++) {
+                out.write(INDENT);
+            }
+            out.write("<failure");
+            writeAttribute(out, "message", RecordedTestFailure.getDescription(failure));
+            writeAttribute(out, "type", RecordedTestFailure.getExceptionType(failure));
+            out.write('>');
+            out.write(encoder.encode(RecordedTestFailure.getStackTrace(failure)));
+            out.write("</failure>");
+            out.write(LINE_SEPARATOR);
+        }
+    }
+
+    private void writeAttribute(Writer out, String name, String value) throws IOException {
+        out.write(' ');
+        out.write(name);
+        out.write("=\"");
+        out.write(encoder.encodeAttributeValue(value));
+        out.write('"');
+    }
+
+    private void discard() {
+        if (testCases != null) {
+            try {
+                testCases.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+            testCases = null;
+        }
+        if (testCasesFile != null) {
+            testCasesFile.delete();
+            testCasesFile = null;
+        }
+        for (SpillingOutputBuffer output : outputs.values()) {
+            output.discard();
+        }
+        outputs.clear();
+        testSuite = null;
+    }
+
     private String getHostname() {
         try {
             return InetAddress.getLocalHost().getHostName();
@@ -161,4 +251,67 @@ public class JUnitXmlReportGenerator extends StateTrackingTestResultProcessor {
             return "localhost";
         }
     }
+
+    /**
+     * Encodes text written to it for use in a CDATA section, in the same way as {@link DOMElementWriter#encodedata(String)}:
+     * characters which are not legal in XML are dropped, and each {@code ]]>} is split across two CDATA sections. Keeps
+     * track of the preceding characters, so that text may be written in any number of chunks.
+     */
+    private static class CDataEncodingWriter extends FilterWriter {
+        private int brackets;
+
+        private CDataEncodingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            write(new char[]{(char) c}, 0, 1);
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            int end = offset + length;
+            int start = offset;
+            for (int i = offset; i < end; i++) {
+                char c = chars[i];
+                if (!isLegalCharacter(c)) {
+                    out.write(chars, start, i - start);
+                    // Dropping the character must not hide a ']]>' which spans it
+                    start = i + 1;
+                } else if (c == ']') {
+                    brackets++;
+                } else {
+                    if (c == '>' && brackets >= 2) {
+                        out.write(chars, start, i - start);
+                        out.write("]]><![CDATA[");
+                        start = i;
+                    }
+                    brackets = 0;
+                }
+            }
+            out.write(chars, start, end - start);
+        }
+
+        @Override
+        public void write(String str, int offset, int length) throws IOException {
+            write(str.toCharArray(), offset, length);
+        }
+
+        private static boolean isLegalCharacter(char c) {
+            if (c == 0x9 || c == 0xA || c == 0xD) {
+                return true;
+            }
+            if (c < 0x20) {
+                return false;
+            }
+            if (c <= 0xD7FF) {
+                return true;
+            }
+            if (c < 0xE000) {
+                return false;
+            }
+            return c <= 0xFFFD;
+        }
+    }
 }
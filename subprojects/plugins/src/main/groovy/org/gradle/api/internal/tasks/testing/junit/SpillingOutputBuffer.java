@@ -0,0 +1,98 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit;
+
+import java.io.*;
+
+/**
+ * <p>Accumulates text in memory, up to a threshold. Once the threshold is exceeded, the text is moved to a temporary
+ * file and all further text is appended to that file, so that the memory used by this buffer stays constant however
+ * much text is added to it.</p>
+ */
+class SpillingOutputBuffer {
+    private static final String CHARSET = "UTF-8";
+    private final File tempDir;
+    private final int threshold;
+    private StringBuilder text = new StringBuilder();
+    private File spillFile;
+    private Writer spillWriter;
+
+    SpillingOutputBuffer(File tempDir, int threshold) {
+        this.tempDir = tempDir;
+        this.threshold = threshold;
+    }
+
+    boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    void append(String message) throws IOException {
+        if (spillWriter != null) {
+            spillWriter.write(message);
+            return;
+        }
+        if (text.length() + message.length() <= threshold) {
+            text.append(message);
+            return;
+        }
+        spillFile = File.createTempFile("test-output", ".tmp", tempDir);
+        spillWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(spillFile), CHARSET));
+        spillWriter.write(text.toString());
+        spillWriter.write(message);
+        text = null;
+    }
+
+    /**
+     * Writes the content of this buffer to the given writer, in chunks.
+     */
+    void writeTo(Writer writer) throws IOException {
+        if (spillWriter == null) {
+            writer.write(text.toString());
+            return;
+        }
+        spillWriter.flush();
+        Reader reader = new InputStreamReader(new FileInputStream(spillFile), CHARSET);
+        try {
+            char[] buffer = new char[8192];
+            int count;
+            while ((count = reader.read(buffer)) > 0) {
+                writer.write(buffer, 0, count);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Discards the content of this buffer, and removes its temporary file, if any.
+     */
+    void discard() {
+        text = new StringBuilder();
+        if (spillWriter != null) {
+            try {
+                spillWriter.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+            spillWriter = null;
+        }
+        if (spillFile != null) {
+            spillFile.delete();
+            spillFile = null;
+        }
+    }
+}
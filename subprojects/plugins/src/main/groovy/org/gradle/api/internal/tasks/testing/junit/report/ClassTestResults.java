@@ -15,11 +15,13 @@
  */
 package org.gradle.api.internal.tasks.testing.junit.report;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
+import org.gradle.api.UncheckedIOException;
 
-import java.util.Collection;
-import java.util.Set;
-import java.util.TreeSet;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
 
 /**
  * Test results for a given class.
@@ -28,8 +30,8 @@ public class ClassTestResults extends CompositeTestResults {
     private final String name;
     private final PackageTestResults packageResults;
     private final Set<TestResult> results = new TreeSet<TestResult>();
-    private final StringBuilder standardOutput = new StringBuilder();
-    private final StringBuilder standardError = new StringBuilder();
+    private final List<File> standardOutput = new ArrayList<File>();
+    private final List<File> standardError = new ArrayList<File>();
 
     public ClassTestResults(String name, PackageTestResults packageResults) {
         super(packageResults);
@@ -62,12 +64,26 @@ public class ClassTestResults extends CompositeTestResults {
         return results;
     }
 
+    public boolean hasStandardError() {
+        return hasContent(standardError);
+    }
+
+    public boolean hasStandardOutput() {
+        return hasContent(standardOutput);
+    }
+
+    /**
+     * Returns the standard error of this class. It is read from disk each time this method is called.
+     */
     public CharSequence getStandardError() {
-        return standardError;
+        return readContent(standardError);
     }
 
+    /**
+     * Returns the standard output of this class. It is read from disk each time this method is called.
+     */
     public CharSequence getStandardOutput() {
-        return standardOutput;
+        return readContent(standardOutput);
     }
 
     public TestResult addTest(String testName, long duration) {
@@ -76,11 +92,35 @@ public class ClassTestResults extends CompositeTestResults {
         return addTest(test);
     }
 
-    public void addStandardOutput(String textContent) {
-        standardOutput.append(textContent);
+    public void addStandardOutput(File file) {
+        standardOutput.add(file);
+    }
+
+    public void addStandardError(File file) {
+        standardError.add(file);
     }
 
-    public void addStandardError(String textContent) {
-        standardError.append(textContent);
+    private boolean hasContent(List<File> files) {
+        for (File file : files) {
+            if (file.length() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CharSequence readContent(List<File> files) {
+        StringBuilder content = new StringBuilder();
+        for (File file : files) {
+            if (!file.isFile()) {
+                continue;
+            }
+            try {
+                content.append(FileUtils.readFileToString(file, "UTF-8"));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return content;
     }
 }
@@ -16,11 +16,15 @@
 package org.gradle.api.internal.tasks.testing.junit.report;
 
 import org.apache.commons.io.IOUtils;
+import org.gradle.api.Action;
 import org.gradle.api.GradleException;
+import org.gradle.api.internal.tasks.testing.results.BinaryTestResultsReader;
+import org.gradle.api.internal.tasks.testing.results.BinaryTestResultsWriter;
+import org.gradle.messaging.concurrent.DefaultExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.UncheckedException;
 import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -30,13 +34,35 @@ import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import java.io.*;
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * <p>Generates the HTML test report. The report is built from the binary results file written by the test task, when
+ * there is one. Otherwise, it is built from the JUnit XML results files.</p>
+ *
+ * <p>The XML results files are parsed concurrently, using a streaming parser, and the pages of the report are then
+ * rendered concurrently, using up to the given number of threads. The standard output and error of each test class are
+ * kept on disk, and are only read when the page for the class is rendered.</p>
+ */
 public class DefaultTestReport implements TestReporter {
+    private final int maxThreads;
+    private final ThreadLocal<DocumentBuilder> documentBuilder = new ThreadLocal<DocumentBuilder>();
+    private final ThreadLocal<Transformer> transformer = new ThreadLocal<Transformer>();
     private File resultDir;
     private File reportDir;
-    private DocumentBuilder documentBuilder;
-    private Transformer transformer;
+
+    public DefaultTestReport() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public DefaultTestReport(int maxThreads) {
+        this.maxThreads = maxThreads;
+    }
 
     public void setTestResultsDir(File resultDir) {
         this.resultDir = resultDir;
@@ -47,77 +73,84 @@ public class DefaultTestReport implements TestReporter {
     }
 
     public void generateReport() {
-        AllTestResults model = loadModel();
-        generateFiles(model);
+        File outputDir = createOutputDir();
+        DefaultExecutorFactory executorFactory = new DefaultExecutorFactory();
+        try {
+            AllTestResults model = loadModel(outputDir, executorFactory);
+            generateFiles(model, executorFactory);
+        } finally {
+            executorFactory.stop();
+            GFileUtils.deleteQuietly(outputDir);
+        }
     }
 
-    private AllTestResults loadModel() {
+    private File createOutputDir() {
+        try {
+            File outputDir = File.createTempFile("test-output", "");
+            outputDir.delete();
+            outputDir.mkdirs();
+            return outputDir;
+        } catch (IOException e) {
+            throw new GradleException("Could not create temporary directory for test output.", e);
+        }
+    }
+
+    private AllTestResults loadModel(File outputDir, DefaultExecutorFactory executorFactory) {
         AllTestResults model = new AllTestResults();
-        if (resultDir.exists()) {
-            for (File file : resultDir.listFiles()) {
-                if (file.getName().startsWith("TEST-") && file.getName().endsWith(".xml")) {
-                    mergeFromFile(file, model);
+        if (!resultDir.exists()) {
+            return model;
+        }
+
+        BinaryTestResultsReader results = new BinaryTestResultsReader(BinaryTestResultsWriter.getResultsFile(resultDir));
+        if (results.isAvailable()) {
+            results.replay(new TestReportDataCollector(model, outputDir));
+            return model;
+        }
+
+        List<ResultsFile> resultsFiles = new ArrayList<ResultsFile>();
+        for (File file : resultDir.listFiles()) {
+            if (file.getName().startsWith("TEST-") && file.getName().endsWith(".xml")) {
+                resultsFiles.add(new ResultsFile(file, new TestResultsFileParser(outputDir, String.valueOf(resultsFiles.size()))));
+            }
+        }
+        execute(executorFactory, "Test results parser", resultsFiles, new Action<ResultsFile>() {
+            public void execute(ResultsFile resultsFile) {
+                try {
+                    resultsFile.parser.parse(resultsFile.file);
+                } catch (Exception e) {
+                    throw new GradleException(String.format("Could not load test results from '%s'.", resultsFile.file), e);
                 }
             }
+        });
+
+        // Merge in a fixed order, so that the model does not depend on the order in which the files were parsed
+        for (ResultsFile resultsFile : resultsFiles) {
+            resultsFile.parser.mergeInto(model);
         }
         return model;
     }
 
-    private void mergeFromFile(File file, AllTestResults model) {
-        try {
-            InputStream inputStream = new FileInputStream(file);
-            Document document;
-            try {
-                document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(inputStream));
-            } finally {
-                inputStream.close();
-            }
-            NodeList testCases = document.getElementsByTagName("testcase");
-            for (int i = 0; i < testCases.getLength(); i++) {
-                Element testCase = (Element) testCases.item(i);
-                String className = testCase.getAttribute("classname");
-                String testName = testCase.getAttribute("name");
-                LocaleSafeDecimalFormat format = new LocaleSafeDecimalFormat();
-                BigDecimal duration = format.parse(testCase.getAttribute("time"));
-                duration = duration.multiply(BigDecimal.valueOf(1000));
-                NodeList failures = testCase.getElementsByTagName("failure");
-                TestResult testResult = model.addTest(className, testName, duration.longValue());
-                for (int j = 0; j < failures.getLength(); j++) {
-                    Element failure = (Element) failures.item(j);
-                    testResult.addFailure(failure.getAttribute("message"), failure.getTextContent());
-                }
-            }
-            NodeList ignoredTestCases = document.getElementsByTagName("ignored-testcase");
-            for (int i = 0; i < ignoredTestCases.getLength(); i++) {
-                Element testCase = (Element) ignoredTestCases.item(i);
-                String className = testCase.getAttribute("classname");
-                String testName = testCase.getAttribute("name");
-                model.addTest(className, testName, 0).ignored();
-            }
-            String suiteClassName = document.getDocumentElement().getAttribute("name");
-            ClassTestResults suiteResults = model.addTestClass(suiteClassName);
-            NodeList stdOutElements = document.getElementsByTagName("system-out");
-            for (int i = 0; i < stdOutElements.getLength(); i++) {
-                suiteResults.addStandardOutput(stdOutElements.item(i).getTextContent());
-            }
-            NodeList stdErrElements = document.getElementsByTagName("system-err");
-            for (int i = 0; i < stdErrElements.getLength(); i++) {
-                suiteResults.addStandardError(stdErrElements.item(i).getTextContent());
+    private void generateFiles(AllTestResults model, DefaultExecutorFactory executorFactory) {
+        List<Page<?>> pages = new ArrayList<Page<?>>();
+        pages.add(new Page<AllTestResults>(model, new OverviewPageRenderer(), new File(reportDir, "index.html")));
+        for (PackageTestResults packageResults : model.getPackages()) {
+            pages.add(new Page<PackageTestResults>(packageResults, new PackagePageRenderer(), new File(reportDir, packageResults.getName() + ".html")));
+            for (ClassTestResults classResults : packageResults.getClasses()) {
+                pages.add(new Page<ClassTestResults>(classResults, new ClassPageRenderer(), new File(reportDir, classResults.getName() + ".html")));
             }
-        } catch (Exception e) {
-            throw new GradleException(String.format("Could not load test results from '%s'.", file), e);
         }
-    }
 
-    private void generateFiles(AllTestResults model) {
         try {
-            generatePage(model, new OverviewPageRenderer(), new File(reportDir, "index.html"));
-            for (PackageTestResults packageResults : model.getPackages()) {
-                generatePage(packageResults, new PackagePageRenderer(), new File(reportDir, packageResults.getName() + ".html"));
-                for (ClassTestResults classResults : packageResults.getClasses()) {
-                    generatePage(classResults, new ClassPageRenderer(), new File(reportDir, classResults.getName() + ".html"));
+            reportDir.mkdirs();
+            execute(executorFactory, "Test report renderer", pages, new Action<Page<?>>() {
+                public void execute(Page<?> page) {
+                    try {
+                        page.generate();
+                    } catch (Exception e) {
+                        throw UncheckedException.asUncheckedException(e);
+                    }
                 }
-            }
+            });
 
             copyResources();
 
@@ -126,31 +159,84 @@ public class DefaultTestReport implements TestReporter {
         }
     }
 
-    private <T extends CompositeTestResults> void generatePage(T model, PageRenderer<T> renderer, File outputFile) throws Exception {
-        if (documentBuilder == null) {
-            documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+    /**
+     * Executes the given action for each of the given items, using up to {@link #maxThreads} threads. Stops at the
+     * first failure, and rethrows it.
+     */
+    private <T> void execute(DefaultExecutorFactory executorFactory, String displayName, Collection<T> items, final Action<? super T> action) {
+        final Queue<T> queue = new ConcurrentLinkedQueue<T>(items);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Runnable worker = new Runnable() {
+            public void run() {
+                T item;
+                while (failure.get() == null && (item = queue.poll()) != null) {
+                    try {
+                        action.execute(item);
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            }
+        };
+
+        int threads = Math.min(maxThreads, items.size());
+        if (threads <= 1) {
+            worker.run();
+        } else {
+            StoppableExecutor executor = executorFactory.create(displayName);
+            try {
+                for (int i = 0; i < threads; i++) {
+                    executor.execute(worker);
+                }
+            } finally {
+                executor.stop();
+            }
         }
-        Document document = documentBuilder.newDocument();
-        renderer.render(document, model);
 
-        if (transformer == null) {
-            TransformerFactory factory = TransformerFactory.newInstance();
-            transformer = factory.newTransformer();
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty(OutputKeys.METHOD, "html");
-            transformer.setOutputProperty(OutputKeys.MEDIA_TYPE, "text/html");
+        Throwable t = failure.get();
+        if (t instanceof Error) {
+            throw (Error) t;
         }
+        if (t != null) {
+            throw UncheckedException.asUncheckedException(t);
+        }
+    }
+
+    private <T extends CompositeTestResults> void generatePage(T model, PageRenderer<T> renderer, File outputFile) throws Exception {
+        Document document = getDocumentBuilder().newDocument();
+        renderer.render(document, model);
 
-        outputFile.getParentFile().mkdirs();
         Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFile), "utf-8"));
         try {
             writer.write("<!DOCTYPE HTML PUBLIC \"-//W3C//DTD HTML 4.01//EN\" \"http://www.w3.org/TR/html4/strict.dtd\">\n");
-            transformer.transform(new DOMSource(document), new StreamResult(writer));
+            getTransformer().transform(new DOMSource(document), new StreamResult(writer));
         } finally {
             writer.close();
         }
     }
 
+    private DocumentBuilder getDocumentBuilder() throws Exception {
+        DocumentBuilder builder = documentBuilder.get();
+        if (builder == null) {
+            builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            documentBuilder.set(builder);
+        }
+        return builder;
+    }
+
+    private Transformer getTransformer() throws Exception {
+        Transformer transformer = this.transformer.get();
+        if (transformer == null) {
+            TransformerFactory factory = TransformerFactory.newInstance();
+            transformer = factory.newTransformer();
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+            transformer.setOutputProperty(OutputKeys.METHOD, "html");
+            transformer.setOutputProperty(OutputKeys.MEDIA_TYPE, "text/html");
+            this.transformer.set(transformer);
+        }
+        return transformer;
+    }
+
     private void copyResources() throws IOException {
         copyResource("style.css");
         copyResource("report.js");
@@ -171,4 +257,30 @@ public class DefaultTestReport implements TestReporter {
             outputStream.close();
         }
     }
+
+    private static class ResultsFile {
+        private final File file;
+        private final TestResultsFileParser parser;
+
+        private ResultsFile(File file, TestResultsFileParser parser) {
+            this.file = file;
+            this.parser = parser;
+        }
+    }
+
+    private class Page<T extends CompositeTestResults> {
+        private final T model;
+        private final PageRenderer<T> renderer;
+        private final File outputFile;
+
+        private Page(T model, PageRenderer<T> renderer, File outputFile) {
+            this.model = model;
+            this.renderer = renderer;
+            this.outputFile = outputFile;
+        }
+
+        void generate() throws Exception {
+            generatePage(model, renderer, outputFile);
+        }
+    }
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.junit.report;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestOutputEvent;
+import org.gradle.api.internal.tasks.testing.results.RecordedTestFailure;
+import org.gradle.api.internal.tasks.testing.results.StateTrackingTestResultProcessor;
+
+import java.io.*;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.gradle.api.tasks.testing.TestResult.ResultType;
+
+/**
+ * Builds the test report model from test events, such as those replayed from a binary results file. The standard
+ * output and error of each test class are written to files in the given output directory, rather than held in memory.
+ */
+class TestReportDataCollector extends StateTrackingTestResultProcessor {
+    private final AllTestResults model;
+    private final File outputDir;
+    private final Map<Object, String> classNames = new HashMap<Object, String>();
+    private final Map<String, ClassOutput> outputs = new HashMap<String, ClassOutput>();
+    private int outputCount;
+
+    TestReportDataCollector(AllTestResults model, File outputDir) {
+        this.model = model;
+        this.outputDir = outputDir;
+    }
+
+    @Override
+    protected void started(TestState state) {
+        if (state.test.getClassName() != null) {
+            classNames.put(state.test.getId(), state.test.getClassName());
+        }
+    }
+
+    @Override
+    protected void completed(TestState state) {
+        TestDescriptorInternal test = state.test;
+        classNames.remove(test.getId());
+        if (!test.isComposite()) {
+            boolean ignored = state.resultType == ResultType.SKIPPED;
+            TestResult testResult = model.addTest(test.getClassName(), test.getName(), ignored ? 0 : state.getExecutionTime());
+            if (ignored) {
+                testResult.ignored();
+            }
+            for (Throwable failure : state.failures) {
+                testResult.addFailure(RecordedTestFailure.getDescription(failure), RecordedTestFailure.getStackTrace(failure));
+            }
+        } else if (test.getName().equals(test.getClassName())) {
+            ClassTestResults classResults = model.addTestClass(test.getClassName());
+            ClassOutput output = outputs.remove(test.getClassName());
+            if (output != null) {
+                output.close();
+                classResults.addStandardOutput(output.getFile(TestOutputEvent.Destination.StdOut));
+                classResults.addStandardError(output.getFile(TestOutputEvent.Destination.StdErr));
+            }
+        }
+    }
+
+    @Override
+    public void output(Object testId, TestOutputEvent event) {
+        String className = classNames.get(testId);
+        if (className == null) {
+            return;
+        }
+        ClassOutput output = outputs.get(className);
+        if (output == null) {
+            output = new ClassOutput(String.valueOf(outputCount++));
+            outputs.put(className, output);
+        }
+        output.write(event.getDestination(), event.getMessage());
+    }
+
+    private class ClassOutput {
+        private final String fileName;
+        private final Map<TestOutputEvent.Destination, Writer> writers = new EnumMap<TestOutputEvent.Destination, Writer>(TestOutputEvent.Destination.class);
+
+        private ClassOutput(String fileName) {
+            this.fileName = fileName;
+        }
+
+        File getFile(TestOutputEvent.Destination destination) {
+            return new File(outputDir, fileName + (destination == TestOutputEvent.Destination.StdOut ? ".out" : ".err"));
+        }
+
+        void write(TestOutputEvent.Destination destination, String message) {
+            try {
+                Writer writer = writers.get(destination);
+                if (writer == null) {
+                    writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(getFile(destination)), "UTF-8"));
+                    writers.put(destination, writer);
+                }
+                writer.write(message);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void close() {
+            try {
+                for (Writer writer : writers.values()) {
+                    writer.close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.junit.report;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.*;
+import java.math.BigDecimal;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Parses a JUnit XML results file using a SAX parser, so that the results file is never held in memory as a whole.
+ * The standard output and error of the test class are copied to files in the given output directory as they are
+ * parsed, rather than held in memory.</p>
+ *
+ * <p>A parser does not touch the model while parsing, so that files may be parsed concurrently. The results of a file
+ * are added to the model afterwards, using {@link #mergeInto(AllTestResults)}.</p>
+ */
+class TestResultsFileParser extends DefaultHandler {
+    private static final SAXParserFactory PARSER_FACTORY = SAXParserFactory.newInstance();
+    private final File outputDir;
+    private final String outputFileName;
+    private final List<TestCase> testCases = new ArrayList<TestCase>();
+    private String suiteName;
+    private TestCase testCase;
+    private String failureMessage;
+    private StringBuilder failureText;
+    private File standardOutput;
+    private File standardError;
+    private File outputFile;
+    private Writer output;
+
+    /**
+     * @param outputDir The directory to write the standard output and error of the test class to.
+     * @param outputFileName A name which is unique within the output directory, used for the output files.
+     */
+    TestResultsFileParser(File outputDir, String outputFileName) {
+        this.outputDir = outputDir;
+        this.outputFileName = outputFileName;
+    }
+
+    void parse(File file) throws Exception {
+        try {
+            InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+            try {
+                newParser().parse(inputStream, this);
+            } finally {
+                inputStream.close();
+            }
+        } finally {
+            closeOutput();
+        }
+    }
+
+    private static SAXParser newParser() throws Exception {
+        synchronized (PARSER_FACTORY) {
+            return PARSER_FACTORY.newSAXParser();
+        }
+    }
+
+    /**
+     * Adds the results parsed from the file to the given model.
+     */
+    void mergeInto(AllTestResults model) {
+        for (TestCase testCase : testCases) {
+            TestResult testResult = model.addTest(testCase.className, testCase.name, testCase.duration);
+            if (testCase.ignored) {
+                testResult.ignored();
+            }
+            for (TestFailure failure : testCase.failures) {
+                testResult.addFailure(failure.getMessage(), failure.getStackTrace());
+            }
+        }
+        ClassTestResults suiteResults = model.addTestClass(suiteName);
+        if (standardOutput != null) {
+            suiteResults.addStandardOutput(standardOutput);
+        }
+        if (standardError != null) {
+            suiteResults.addStandardError(standardError);
+        }
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+        if (suiteName == null) {
+            suiteName = getAttribute(attributes, "name");
+        }
+        if (qName.equals("testcase")) {
+            BigDecimal duration;
+            try {
+                duration = new LocaleSafeDecimalFormat().parse(getAttribute(attributes, "time"));
+            } catch (ParseException e) {
+                throw new SAXException(e);
+            }
+            duration = duration.multiply(BigDecimal.valueOf(1000));
+            testCase = new TestCase(getAttribute(attributes, "classname"), getAttribute(attributes, "name"), duration.longValue(), false);
+            testCases.add(testCase);
+        } else if (qName.equals("ignored-testcase")) {
+            testCase = new TestCase(getAttribute(attributes, "classname"), getAttribute(attributes, "name"), 0, true);
+            testCases.add(testCase);
+        } else if (qName.equals("failure") && testCase != null && !testCase.ignored) {
+            failureMessage = getAttribute(attributes, "message");
+            failureText = new StringBuilder();
+        } else if (qName.equals("system-out")) {
+            if (standardOutput == null) {
+                standardOutput = new File(outputDir, outputFileName + ".out");
+            }
+            outputFile = standardOutput;
+        } else if (qName.equals("system-err")) {
+            if (standardError == null) {
+                standardError = new File(outputDir, outputFileName + ".err");
+            }
+            outputFile = standardError;
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if (qName.equals("testcase") || qName.equals("ignored-testcase")) {
+            testCase = null;
+        } else if (qName.equals("failure") && failureText != null) {
+            testCase.failures.add(new TestFailure(failureMessage, failureText.toString()));
+            failureText = null;
+        } else if (qName.equals("system-out") || qName.equals("system-err")) {
+            closeOutput();
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        if (failureText != null) {
+            failureText.append(ch, start, length);
+        }
+        if (outputFile != null && length > 0) {
+            try {
+                if (output == null) {
+                    output = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFile, true), "UTF-8"));
+                }
+                output.write(ch, start, length);
+            } catch (IOException e) {
+                throw new SAXException(e);
+            }
+        }
+    }
+
+    private void closeOutput() throws SAXException {
+        outputFile = null;
+        if (output != null) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                throw new SAXException(e);
+            } finally {
+                output = null;
+            }
+        }
+    }
+
+    private static String getAttribute(Attributes attributes, String name) {
+        String value = attributes.getValue(name);
+        return value == null ? "" : value;
+    }
+
+    private static class TestCase {
+        private final String className;
+        private final String name;
+        private final long duration;
+        private final boolean ignored;
+        private final List<TestFailure> failures = new ArrayList<TestFailure>();
+
+        private TestCase(String className, String name, long duration, boolean ignored) {
+            this.className = className;
+            this.name = name;
+            this.duration = duration;
+            this.ignored = ignored;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.results;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.tasks.testing.*;
+import org.gradle.api.tasks.testing.TestResult;
+
+import java.io.*;
+
+import static org.gradle.api.internal.tasks.testing.results.BinaryTestResultsWriter.*;
+
+/**
+ * Reads a binary results file written by a {@link BinaryTestResultsWriter}, and replays the events it contains to a
+ * {@link TestResultProcessor}, in the order in which they were originally received. The file is read sequentially, so
+ * the results of any number of tests can be replayed in constant memory.
+ */
+public class BinaryTestResultsReader {
+    private final File resultsFile;
+
+    public BinaryTestResultsReader(File resultsFile) {
+        this.resultsFile = resultsFile;
+    }
+
+    public boolean isAvailable() {
+        return resultsFile.isFile();
+    }
+
+    public void replay(TestResultProcessor processor) {
+        try {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(resultsFile)));
+            try {
+                if (input.readInt() != MAGIC) {
+                    throw new UncheckedIOException(String.format("Test results file '%s' has an unexpected format.", resultsFile));
+                }
+                replay(input, processor);
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not read test results from '%s'.", resultsFile), e);
+        }
+    }
+
+    private void replay(DataInputStream input, TestResultProcessor processor) throws IOException {
+        TestResult.ResultType[] resultTypes = TestResult.ResultType.values();
+        TestOutputEvent.Destination[] destinations = TestOutputEvent.Destination.values();
+        while (true) {
+            int type = input.read();
+            if (type < 0) {
+                return;
+            }
+            try {
+                switch (type) {
+                    case STARTED: {
+                        Object id = readId(input);
+                        Object parentId = readId(input);
+                        boolean composite = input.readBoolean();
+                        String name = readString(input);
+                        String className = readString(input);
+                        long startTime = input.readLong();
+                        TestDescriptorInternal test;
+                        if (!composite) {
+                            test = new DefaultTestDescriptor(id, className, name);
+                        } else if (name != null && name.equals(className)) {
+                            test = new DefaultTestClassDescriptor(id, className);
+                        } else {
+                            test = new DefaultTestSuiteDescriptor(id, name);
+                        }
+                        processor.started(test, new TestStartEvent(startTime, parentId));
+                        break;
+                    }
+                    case COMPLETED: {
+                        Object id = readId(input);
+                        long endTime = input.readLong();
+                        int resultType = input.readByte();
+                        processor.completed(id, new TestCompleteEvent(endTime, resultType < 0 ? null : resultTypes[resultType]));
+                        break;
+                    }
+                    case OUTPUT: {
+                        Object id = readId(input);
+                        TestOutputEvent.Destination destination = destinations[input.readByte()];
+                        processor.output(id, new TestOutputEvent(destination, readString(input)));
+                        break;
+                    }
+                    case FAILURE: {
+                        Object id = readId(input);
+                        processor.failure(id, new RecordedTestFailure(readString(input), readString(input), readString(input)));
+                        break;
+                    }
+                    default:
+                        throw new UncheckedIOException(String.format("Test results file '%s' has an unexpected format.", resultsFile));
+                }
+            } catch (EOFException e) {
+                // The file was truncated, for example because the build was killed while the tests were running
+                return;
+            }
+        }
+    }
+
+    private Object readId(DataInputStream input) throws IOException {
+        int id = input.readInt();
+        return id == NO_ID ? null : id;
+    }
+
+    private String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+}
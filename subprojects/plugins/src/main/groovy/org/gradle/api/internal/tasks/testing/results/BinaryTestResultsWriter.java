@@ -0,0 +1,148 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.results;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.tasks.testing.*;
+import org.gradle.messaging.concurrent.Stoppable;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>A {@link TestResultProcessor} which appends each event it receives to a binary results file, and then forwards the
+ * event to another processor. The reports for a test run are generated from this file, using a {@link
+ * BinaryTestResultsReader}, rather than by the test workers.</p>
+ *
+ * <p>Test ids are replaced with small integers, and failures are recorded as their type name, description and stack
+ * trace, so that the file can be read back without any of the classes of the tests being loadable.</p>
+ */
+public class BinaryTestResultsWriter implements TestResultProcessor, Stoppable {
+    private static final String RESULTS_FILE_NAME = "results.bin";
+    static final int MAGIC = 0x47545231;
+    static final byte STARTED = 1;
+    static final byte COMPLETED = 2;
+    static final byte OUTPUT = 3;
+    static final byte FAILURE = 4;
+    static final int NO_ID = -1;
+    private final File resultsFile;
+    private final TestResultProcessor processor;
+    private final Map<Object, Integer> ids = new HashMap<Object, Integer>();
+    private final DataOutputStream output;
+    private int nextId;
+
+    public BinaryTestResultsWriter(File resultsFile, TestResultProcessor processor) {
+        this.resultsFile = resultsFile;
+        this.processor = processor;
+        try {
+            resultsFile.getParentFile().mkdirs();
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(resultsFile)));
+            output.writeInt(MAGIC);
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    /**
+     * Returns the results file for the given test results directory.
+     */
+    public static File getResultsFile(File testResultsDir) {
+        return new File(testResultsDir, RESULTS_FILE_NAME);
+    }
+
+    public void started(TestDescriptorInternal test, TestStartEvent event) {
+        int id = nextId++;
+        ids.put(test.getId(), id);
+        try {
+            output.writeByte(STARTED);
+            output.writeInt(id);
+            output.writeInt(getId(event.getParentId()));
+            output.writeBoolean(test.isComposite());
+            writeString(test.getName());
+            writeString(test.getClassName());
+            output.writeLong(event.getStartTime());
+        } catch (IOException e) {
+            throw failed(e);
+        }
+        processor.started(test, event);
+    }
+
+    public void completed(Object testId, TestCompleteEvent event) {
+        Integer id = ids.remove(testId);
+        try {
+            output.writeByte(COMPLETED);
+            output.writeInt(id == null ? NO_ID : id);
+            output.writeLong(event.getEndTime());
+            output.writeByte(event.getResultType() == null ? -1 : event.getResultType().ordinal());
+        } catch (IOException e) {
+            throw failed(e);
+        }
+        processor.completed(testId, event);
+    }
+
+    public void output(Object testId, TestOutputEvent event) {
+        try {
+            output.writeByte(OUTPUT);
+            output.writeInt(getId(testId));
+            output.writeByte(event.getDestination().ordinal());
+            writeString(event.getMessage());
+        } catch (IOException e) {
+            throw failed(e);
+        }
+        processor.output(testId, event);
+    }
+
+    public void failure(Object testId, Throwable result) {
+        try {
+            output.writeByte(FAILURE);
+            output.writeInt(getId(testId));
+            writeString(RecordedTestFailure.getExceptionType(result));
+            writeString(RecordedTestFailure.getDescription(result));
+            writeString(RecordedTestFailure.getStackTrace(result));
+        } catch (IOException e) {
+            throw failed(e);
+        }
+        processor.failure(testId, result);
+    }
+
+    public void stop() {
+        try {
+            output.close();
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    private int getId(Object testId) {
+        Integer id = testId == null ? null : ids.get(testId);
+        return id == null ? NO_ID : id;
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes("UTF-8");
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private UncheckedIOException failed(IOException e) {
+        return new UncheckedIOException(String.format("Could not write test results to '%s'.", resultsFile), e);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.results;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * A test failure read back from a binary results file. Reproduces the type name, message and stack trace of the
+ * original failure, without needing the original exception class to be loadable.
+ */
+public class RecordedTestFailure extends RuntimeException {
+    private final String exceptionType;
+    private final String description;
+    private final String stackTrace;
+
+    public RecordedTestFailure(String exceptionType, String description, String stackTrace) {
+        super(description);
+        this.exceptionType = exceptionType;
+        this.description = description;
+        this.stackTrace = stackTrace;
+    }
+
+    /**
+     * Returns the type name of the given failure.
+     */
+    public static String getExceptionType(Throwable failure) {
+        if (failure instanceof RecordedTestFailure) {
+            return ((RecordedTestFailure) failure).exceptionType;
+        }
+        return failure.getClass().getName();
+    }
+
+    /**
+     * Returns the description of the given failure, as returned by its {@code toString()} method.
+     */
+    public static String getDescription(Throwable failure) {
+        try {
+            return failure.toString();
+        } catch (Throwable t) {
+            return String.format("Could not determine failure message for exception of type %s: %s",
+                    failure.getClass().getName(), t);
+        }
+    }
+
+    /**
+     * Returns the stack trace of the given failure, as printed by its {@code printStackTrace()} method.
+     */
+    public static String getStackTrace(Throwable failure) {
+        try {
+            return printStackTrace(failure);
+        } catch (Throwable t) {
+            return printStackTrace(t);
+        }
+    }
+
+    private static String printStackTrace(Throwable failure) {
+        StringWriter stringWriter = new StringWriter();
+        PrintWriter writer = new PrintWriter(stringWriter);
+        failure.printStackTrace(writer);
+        writer.close();
+        return stringWriter.toString();
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    @Override
+    public void printStackTrace(PrintWriter writer) {
+        writer.print(stackTrace);
+    }
+
+    @Override
+    public void printStackTrace(PrintStream stream) {
+        stream.print(stackTrace);
+    }
+}
@@ -19,12 +19,15 @@ package org.gradle.api.tasks.compile;
 import org.gradle.api.AntBuilder;
 import org.gradle.api.internal.Factory;
 import org.gradle.api.internal.tasks.compile.AntJavaCompiler;
+import org.gradle.api.internal.tasks.compile.DefaultJavaCompiler;
 import org.gradle.api.internal.tasks.compile.IncrementalJavaCompiler;
 import org.gradle.api.internal.tasks.compile.JavaCompiler;
+import org.gradle.api.internal.tasks.compile.Jdk6JavaCompiler;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.OutputDirectory;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.WorkResult;
+import org.gradle.process.internal.WorkerProcessBuilder;
 
 import java.io.File;
 
@@ -41,7 +44,10 @@ public class Compile extends AbstractCompile {
 
     public Compile() {
         Factory<AntBuilder> antBuilderFactory = getServices().getFactory(AntBuilder.class);
-        javaCompiler = new IncrementalJavaCompiler(new AntJavaCompiler(antBuilderFactory), antBuilderFactory, getOutputs());
+        AntJavaCompiler antCompiler = new AntJavaCompiler(antBuilderFactory);
+        Jdk6JavaCompiler jdk6Compiler = new Jdk6JavaCompiler(antCompiler.getCompileOptions(),
+                getServices().getFactory(WorkerProcessBuilder.class));
+        javaCompiler = new IncrementalJavaCompiler(new DefaultJavaCompiler(antCompiler, jdk6Compiler), antBuilderFactory, getOutputs());
     }
 
     @TaskAction
@@ -64,7 +64,11 @@ class CompileOptions extends AbstractOptions {
     DebugOptions debugOptions = new DebugOptions()
 
     /**
-     * Specifies whether to run the compiler in a child process. The default is {@code false}.
+     * Specifies whether to run the compiler in a child process. The default is {@code false}. When the Ant javac task
+     * is not used, the compiler runs in a long-lived child process, which is shared by all compile tasks with the same
+     * fork options, and is reused by later builds run by the same Gradle daemon. The child process runs on the
+     * {@code java} executable from the same directory as the {@link ForkOptions#executable} compiler, when one is
+     * given.
      */
     boolean fork = false
 
@@ -79,6 +83,21 @@ class CompileOptions extends AbstractOptions {
      */
     boolean useDepend = false
 
+    /**
+     * Specifies whether to use the Ant {@code <javac>} task. The default is {@code true}. When {@code false}, the
+     * Java compiler of the JVM running Gradle is used directly through the {@code javax.tools} API, and stays warm
+     * across compile tasks and builds. This requires Gradle to run on a JDK of version 1.6 or later.
+     */
+    boolean useAnt = true
+
+    /**
+     * Specifies whether to recompile only the source files which have changed, along with the source files of the
+     * classes which depend on them. The default is {@code false}. The dependencies between classes are kept in the
+     * dependency cache directory of the compile task. All source files are recompiled when the compiler settings or
+     * classpath change, or when a compile-time constant changes. Ignored when the Ant {@code <depend>} task is used.
+     */
+    boolean incremental = false
+
     /**
      * The options for using the Ant {@code <depend>} task.
      */
@@ -134,7 +153,7 @@ class CompileOptions extends AbstractOptions {
     }
 
     List excludedFieldsFromOptionMap() {
-        ['debugOptions', 'forkOptions', 'compilerArgs', 'dependOptions', 'useDepend']
+        ['debugOptions', 'forkOptions', 'compilerArgs', 'dependOptions', 'useDepend', 'useAnt', 'incremental']
     }
 
     Map fieldName2AntMap() {
@@ -19,8 +19,11 @@ package org.gradle.api.tasks.compile;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.ClassPathRegistry;
+import org.gradle.api.internal.Factory;
 import org.gradle.api.internal.project.IsolatedAntBuilder;
 import org.gradle.api.internal.tasks.compile.AntGroovyCompiler;
+import org.gradle.api.internal.tasks.compile.ApiGroovyCompiler;
+import org.gradle.api.internal.tasks.compile.DefaultGroovyCompiler;
 import org.gradle.api.internal.tasks.compile.GroovyJavaJointCompiler;
 import org.gradle.api.internal.tasks.compile.IncrementalGroovyCompiler;
 import org.gradle.api.tasks.InputFiles;
@@ -45,7 +48,13 @@ public class GroovyCompile extends AbstractCompile {
     public GroovyCompile() {
         IsolatedAntBuilder antBuilder = getServices().get(IsolatedAntBuilder.class);
         ClassPathRegistry classPathRegistry = getServices().get(ClassPathRegistry.class);
-        compiler = new IncrementalGroovyCompiler(new AntGroovyCompiler(antBuilder, classPathRegistry), getOutputs());
+        AntGroovyCompiler antCompiler = new AntGroovyCompiler(antBuilder, classPathRegistry);
+        ApiGroovyCompiler apiCompiler = new ApiGroovyCompiler(antCompiler.getGroovyCompileOptions(), antCompiler.getCompileOptions(), new Factory<File>() {
+            public File create() {
+                return new File(getTemporaryDir(), "stubs");
+            }
+        });
+        compiler = new IncrementalGroovyCompiler(new DefaultGroovyCompiler(antCompiler, apiCompiler), getOutputs());
     }
 
     protected void compile() {
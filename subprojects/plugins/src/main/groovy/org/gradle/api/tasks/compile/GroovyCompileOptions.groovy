@@ -27,20 +27,46 @@ public class GroovyCompileOptions extends AbstractOptions {
     boolean listFiles = false
     @Input @Optional
     String encoding = null
+    /**
+     * Whether to run the compiler in a separate process. The default is {@code true} when {@link #useAnt} is {@code
+     * true}, and {@code false} otherwise.
+     */
     boolean fork = true
+    private boolean forkSet
     GroovyForkOptions forkOptions = new GroovyForkOptions()
     @Input
     boolean includeJavaRuntime = false
     boolean stacktrace
 
+    /**
+     * Whether to use the Ant groovyc task. The default is {@code true}. When {@code false}, {@link #fork} and {@link
+     * #includeJavaRuntime} are both {@code false}, and the Groovy classpath contains the same version of Groovy as
+     * Gradle itself, the source is compiled in the build process using the Groovy compiler API, the Java compiler of
+     * the build process is used for joint compilation, and the Java stubs generated for Groovy source files are kept
+     * between compilations and reused while no Groovy source file changes. Otherwise, the Ant groovyc task is used.
+     */
+    boolean useAnt = true
+
+    void setFork(boolean fork) {
+        this.fork = fork
+        forkSet = true
+    }
+
+    void setUseAnt(boolean useAnt) {
+        this.useAnt = useAnt
+        if (!forkSet) {
+            this.fork = useAnt
+        }
+    }
+
     GroovyCompileOptions fork(Map forkArgs) {
-        fork = true
+        setFork(true)
         forkOptions.define(forkArgs)
         this
     }
 
     List excludedFieldsFromOptionMap() {
-        ['forkOptions']
+        ['forkOptions', 'useAnt', 'forkSet']
     }
 
     Map fieldName2AntMap() {
@@ -28,6 +28,7 @@ import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter;
 import org.gradle.api.internal.tasks.testing.detection.TestExecuter;
 import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
+import org.gradle.api.internal.tasks.testing.results.BinaryTestResultsWriter;
 import org.gradle.api.internal.tasks.testing.results.TestListenerAdapter;
 import org.gradle.api.internal.tasks.testing.results.TestLogger;
 import org.gradle.api.internal.tasks.testing.results.TestSummaryListener;
@@ -36,6 +37,7 @@ import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.*;
 import org.gradle.api.tasks.util.PatternFilterable;
 import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.cache.CacheRepository;
 import org.gradle.listener.ListenerBroadcast;
 import org.gradle.listener.ListenerManager;
 import org.gradle.logging.ProgressLoggerFactory;
@@ -73,13 +75,15 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
     private boolean scanForTestClasses = true;
     private long forkEvery;
     private int maxParallelForks = 1;
+    private boolean runFailedTestsFirst;
+    private boolean skipUnchangedTests;
     private ListenerBroadcast<TestListener> testListenerBroadcaster;
 
     public Test() {
         testListenerBroadcaster = getServices().get(ListenerManager.class).createAnonymousBroadcaster(
                 TestListener.class);
         this.testExecuter = new DefaultTestExecuter(getServices().getFactory(WorkerProcessBuilder.class), getServices().get(
-                ActorFactory.class));
+                ActorFactory.class), getServices().get(CacheRepository.class));
         options = new DefaultJavaForkOptions(getServices().get(FileResolver.class));
         options.setEnableAssertions(true);
     }
@@ -328,8 +332,14 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         addTestListener(listener);
         addTestListener(new TestLogger(getServices().get(ProgressLoggerFactory.class)));
 
+        // Record the results as they arrive, so that the reports can be generated from them without the test workers
         TestResultProcessor resultProcessor = new TestListenerAdapter(getTestListenerBroadcaster().getSource());
-        testExecuter.execute(this, resultProcessor);
+        BinaryTestResultsWriter resultsWriter = new BinaryTestResultsWriter(BinaryTestResultsWriter.getResultsFile(getTestResultsDir()), resultProcessor);
+        try {
+            testExecuter.execute(this, resultsWriter);
+        } finally {
+            resultsWriter.stop();
+        }
 
         testFramework.report();
 
@@ -771,6 +781,43 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         this.maxParallelForks = maxParallelForks;
     }
 
+    /**
+     * Specifies whether the test classes which failed the last time this task was executed should be executed first,
+     * followed by the test classes which have changed since. When {@code true}, the test classes which failed last time
+     * start executing as soon as they are found, and the remaining test classes are not executed until all test classes
+     * have been found. The default value is {@code false}.
+     */
+    @Input
+    public boolean isRunFailedTestsFirst() {
+        return runFailedTestsFirst;
+    }
+
+    public void setRunFailedTestsFirst(boolean runFailedTestsFirst) {
+        this.runFailedTestsFirst = runFailedTestsFirst;
+    }
+
+    /**
+     * Specifies whether to skip the test classes which passed the last time this task was executed, and which have not
+     * changed since. A test class is considered to have changed when its byte code, or the byte code of any class it
+     * uses from a directory on the test classpath, has changed. A change to the archives or resources on the test
+     * classpath, or to the JVM arguments or environment used to execute the tests, is considered a change to every test
+     * class. Each skipped test class is reported in the test results as a skipped test. The default value is {@code
+     * false}.
+     *
+     * <p>A class which is used only reflectively, such as a class loaded using {@code Class.forName()}, a service
+     * located using a {@code ServiceLoader}, or a class wired up by a dependency injection container, is not detected
+     * as used by a test class. A change to such a class does not cause the test classes which use it to be executed
+     * again. A warning is logged whenever this option is used.</p>
+     */
+    @Input
+    public boolean isSkipUnchangedTests() {
+        return skipUnchangedTests;
+    }
+
+    public void setSkipUnchangedTests(boolean skipUnchangedTests) {
+        this.skipUnchangedTests = skipUnchangedTests;
+    }
+
     /**
      * Returns the classes files to scan for test classes.
      *
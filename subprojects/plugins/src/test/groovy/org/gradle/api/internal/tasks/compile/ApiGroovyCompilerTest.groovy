@@ -0,0 +1,153 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.api.internal.Factory
+import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.api.tasks.compile.CompileOptions
+import org.gradle.api.tasks.compile.GroovyCompileOptions
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class ApiGroovyCompilerTest extends Specification {
+    @Rule public final TemporaryFolder tmpDir = new TemporaryFolder()
+    private final File stubDir = tmpDir.file('stubs')
+    private final ApiGroovyCompiler compiler = new ApiGroovyCompiler(new GroovyCompileOptions(), new CompileOptions(), { stubDir } as Factory)
+
+    def setup() {
+        compiler.destinationDir = tmpDir.file('classes').createDir()
+        compiler.classpath = []
+    }
+
+    def compilesGroovySource() {
+        def source = tmpDir.file('src/org/Thing.groovy')
+        source.text = 'package org; class Thing { String name }'
+        compiler.source = new SimpleFileCollection(source)
+
+        when:
+        def result = compiler.execute()
+
+        then:
+        result.didWork
+        tmpDir.file('classes/org/Thing.class').file
+    }
+
+    def jointlyCompilesGroovyAndJavaSource() {
+        def groovySource = tmpDir.file('src/org/Thing.groovy')
+        groovySource.text = 'package org; class Thing { Person person }'
+        def javaSource = tmpDir.file('src/org/Person.java')
+        javaSource.text = 'package org; public class Person { Thing thing; }'
+        compiler.source = new SimpleFileCollection(groovySource, javaSource)
+
+        when:
+        compiler.execute()
+
+        then:
+        tmpDir.file('classes/org/Thing.class').file
+        tmpDir.file('classes/org/Person.class').file
+        stubDir.file('org/Thing.java').file
+    }
+
+    def reusesStubsWhenOnlyJavaSourceHasChanged() {
+        def thing = tmpDir.file('src/org/Thing.groovy')
+        thing.text = 'package org; class Thing { }'
+        def javaSource = tmpDir.file('src/org/Person.java')
+        javaSource.text = 'package org; public class Person { Thing thing; }'
+        compiler.source = new SimpleFileCollection(thing, javaSource)
+        compiler.execute()
+        stubDir.file('org/Thing.java').lastModified = 0
+
+        when:
+        javaSource.text = 'package org; public class Person { Thing thing; String name; }'
+        compiler.execute()
+
+        then:
+        stubDir.file('org/Thing.java').lastModified() == 0
+        tmpDir.file('classes/org/Person.class').file
+    }
+
+    def regeneratesAllStubsWhenAnyGroovySourceHasChanged() {
+        def base = tmpDir.file('src/org/Base.groovy')
+        base.text = 'package org; class Base { Base(String name) { } }'
+        def thing = tmpDir.file('src/org/Thing.groovy')
+        thing.text = 'package org; class Thing extends Base { Thing() { super("thing") } }'
+        def javaSource = tmpDir.file('src/org/Person.java')
+        javaSource.text = 'package org; public class Person { Thing thing; }'
+        compiler.source = new SimpleFileCollection(base, thing, javaSource)
+        compiler.execute()
+        stubDir.file('org/Base.java').lastModified = 0
+        stubDir.file('org/Thing.java').lastModified = 0
+
+        when:
+        base.text = 'package org; class Base { Base(int count) { } }'
+        thing.text = 'package org; class Thing extends Base { Thing() { super(1) } }'
+        compiler.execute()
+
+        then:
+        stubDir.file('org/Base.java').lastModified() != 0
+        stubDir.file('org/Thing.java').lastModified() != 0
+        tmpDir.file('classes/org/Person.class').file
+    }
+
+    def failsWhenGroovySourceDoesNotCompile() {
+        def source = tmpDir.file('src/org/Broken.groovy')
+        source.text = 'package org; class Broken { void m( }'
+        compiler.source = new SimpleFileCollection(source)
+
+        when:
+        compiler.execute()
+
+        then:
+        thrown(CompilationFailedException)
+    }
+
+    def parsesTargetCompatibility() {
+        expect:
+        ApiGroovyCompiler.isJava5OrLater(null)
+        ApiGroovyCompiler.isJava5OrLater('1.5')
+        ApiGroovyCompiler.isJava5OrLater('1.6')
+        ApiGroovyCompiler.isJava5OrLater('5')
+        ApiGroovyCompiler.isJava5OrLater('1.10')
+        !ApiGroovyCompiler.isJava5OrLater('1.4')
+        !ApiGroovyCompiler.isJava5OrLater('1.3')
+    }
+
+    def usesAntCompilerWhenForkIsSet() {
+        def antCompiler = Mock(GroovyJavaJointCompiler)
+        def apiCompiler = Mock(GroovyJavaJointCompiler)
+        def options = new GroovyCompileOptions()
+        options.useAnt = false
+        options.fork = true
+        antCompiler.getGroovyCompileOptions() >> options
+        def compiler = new DefaultGroovyCompiler(antCompiler, apiCompiler)
+
+        when:
+        compiler.execute()
+
+        then:
+        1 * antCompiler.execute()
+        0 * apiCompiler.execute()
+    }
+
+    def detectsGroovyVersionFromGroovyClasspath() {
+        expect:
+        DefaultGroovyCompiler.containsGroovyVersion([new File('lib/groovy-all-1.7.10.jar')], '1.7.10')
+        DefaultGroovyCompiler.containsGroovyVersion([new File('lib/other.jar'), new File('lib/groovy-1.7.10.jar')], '1.7.10')
+        !DefaultGroovyCompiler.containsGroovyVersion([new File('lib/groovy-all-1.6.9.jar')], '1.7.10')
+        !DefaultGroovyCompiler.containsGroovyVersion([new File('lib/other.jar')], '1.7.10')
+    }
+}
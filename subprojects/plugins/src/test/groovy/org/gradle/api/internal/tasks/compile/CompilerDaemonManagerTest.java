@@ -0,0 +1,108 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.internal.Factory;
+import org.jmock.Expectations;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+@RunWith(JMock.class)
+public class CompilerDaemonManagerTest {
+    private final JUnit4Mockery context = new JUnit4Mockery() {{
+        setImposteriser(ClassImposteriser.INSTANCE);
+    }};
+    private final CompilerDaemonManager manager = new CompilerDaemonManager();
+    private final Factory<CompilerDaemon<String>> factory = context.mock(Factory.class);
+    private final CompilerDaemon<String> daemon = context.mock(CompilerDaemon.class, "daemon");
+    private final CompilerDaemon<String> other = context.mock(CompilerDaemon.class, "other");
+    private final List<Object> key = Arrays.<Object>asList("compiler", "-Xmx64m");
+
+    @Test
+    public void startsDaemonOnFirstUseAndReusesItWhileItIsRunning() {
+        context.checking(new Expectations() {{
+            one(factory).create();
+            will(returnValue(daemon));
+            allowing(daemon).isRunning();
+            will(returnValue(true));
+        }});
+
+        assertThat(manager.getDaemon(key, factory), sameInstance(daemon));
+        assertThat(manager.getDaemon(Arrays.<Object>asList("compiler", "-Xmx64m"), factory), sameInstance(daemon));
+    }
+
+    @Test
+    public void startsSeparateDaemonForEachKey() {
+        context.checking(new Expectations() {{
+            one(factory).create();
+            will(returnValue(daemon));
+            one(factory).create();
+            will(returnValue(other));
+            allowing(daemon).isRunning();
+            will(returnValue(true));
+            allowing(other).isRunning();
+            will(returnValue(true));
+        }});
+
+        assertThat(manager.getDaemon(key, factory), sameInstance(daemon));
+        assertThat(manager.getDaemon(Arrays.<Object>asList("compiler", "-Xmx128m"), factory), sameInstance(other));
+        assertThat(manager.getDaemon(key, factory), sameInstance(daemon));
+    }
+
+    @Test
+    public void replacesDaemonWhichHasStopped() {
+        context.checking(new Expectations() {{
+            one(factory).create();
+            will(returnValue(daemon));
+            one(daemon).isRunning();
+            will(returnValue(false));
+            one(factory).create();
+            will(returnValue(other));
+        }});
+
+        assertThat(manager.getDaemon(key, factory), sameInstance(daemon));
+        assertThat(manager.getDaemon(key, factory), sameInstance(other));
+    }
+
+    @Test
+    public void stopsAllDaemonsAndStartsNewDaemonOnNextUse() {
+        context.checking(new Expectations() {{
+            one(factory).create();
+            will(returnValue(daemon));
+            one(factory).create();
+            will(returnValue(other));
+            one(daemon).stop();
+            one(other).stop();
+            one(factory).create();
+            will(returnValue(daemon));
+        }});
+
+        manager.getDaemon(key, factory);
+        manager.getDaemon(Arrays.<Object>asList("compiler", "-Xmx128m"), factory);
+        manager.stop();
+
+        assertThat(manager.getDaemon(key, factory), sameInstance(daemon));
+    }
+}
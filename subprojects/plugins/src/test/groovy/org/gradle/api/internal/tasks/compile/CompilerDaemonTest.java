@@ -0,0 +1,143 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.messaging.remote.ObjectConnection;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.WorkerProcess;
+import org.gradle.process.internal.WorkerProcessBuilder;
+import org.gradle.util.UncheckedException;
+import org.jmock.Expectations;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+@RunWith(JMock.class)
+public class CompilerDaemonTest {
+    private final JUnit4Mockery context = new JUnit4Mockery() {{
+        setImposteriser(ClassImposteriser.INSTANCE);
+    }};
+    private final WorkerProcessBuilder builder = context.mock(WorkerProcessBuilder.class);
+    private final ObjectConnection connection = context.mock(ObjectConnection.class);
+    private final TestWorkerProcess process = new TestWorkerProcess();
+    private final TestServer server = new TestServer();
+    private final JavaCompileSpec spec = new JavaCompileSpec();
+    private final CompilerDaemonAction<JavaCompileSpec> action = new InProcessJavaCompiler();
+    private CompilerDaemon<JavaCompileSpec> daemon;
+
+    @Before
+    public void setUp() {
+        context.checking(new Expectations() {{
+            one(builder).worker(with(notNullValue(CompilerDaemonWorker.class)));
+            one(builder).build();
+            will(returnValue(process));
+            allowing(connection).addIncoming(with(equalTo(CompilerDaemonClient.class)), with(notNullValue(CompilerDaemonClient.class)));
+            allowing(connection).addOutgoing(CompilerDaemonServer.class);
+            will(returnValue(server));
+        }});
+        daemon = new CompilerDaemon<JavaCompileSpec>(builder, action, "compiler daemon");
+    }
+
+    @Test
+    public void returnsResultFromWorkerProcess() {
+        CompileResult result = new CompileResult(true, null);
+        server.result = result;
+
+        WorkResult workResult = daemon.execute(spec);
+
+        assertThat(workResult, sameInstance((WorkResult) result));
+        assertTrue(daemon.isRunning());
+    }
+
+    @Test
+    public void rethrowsFailureFromWorkerProcess() {
+        RuntimeException failure = new RuntimeException("broken");
+        server.result = new CompileResult(true, failure);
+
+        try {
+            daemon.execute(spec);
+            fail();
+        } catch (RuntimeException e) {
+            assertThat(e, sameInstance(failure));
+        }
+    }
+
+    @Test
+    public void failsCompilationWhenWorkerProcessExits() {
+        server.exitProcess = true;
+
+        try {
+            daemon.execute(spec);
+            fail();
+        } catch (GradleException e) {
+            assertThat(e.getMessage(), equalTo("The compiler daemon stopped unexpectedly."));
+        }
+        assertFalse(daemon.isRunning());
+
+        try {
+            daemon.execute(spec);
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), equalTo("This compiler daemon has stopped."));
+        }
+    }
+
+    private class TestServer implements CompilerDaemonServer<JavaCompileSpec> {
+        CompileResult result;
+        boolean exitProcess;
+
+        public void compile(JavaCompileSpec spec) {
+            if (exitProcess) {
+                process.exited.countDown();
+            } else {
+                daemon.executed(result);
+            }
+        }
+
+        public void stop() {
+        }
+    }
+
+    private class TestWorkerProcess implements WorkerProcess {
+        final CountDownLatch exited = new CountDownLatch(1);
+
+        public ObjectConnection getConnection() {
+            return connection;
+        }
+
+        public void start() {
+        }
+
+        public ExecResult waitForStop() {
+            try {
+                exited.await();
+            } catch (InterruptedException e) {
+                throw new UncheckedException(e);
+            }
+            return null;
+        }
+    }
+}
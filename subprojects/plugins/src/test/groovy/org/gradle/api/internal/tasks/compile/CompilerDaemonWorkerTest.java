@@ -0,0 +1,259 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.Action;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.messaging.dispatch.Dispatch;
+import org.gradle.messaging.dispatch.MethodInvocation;
+import org.gradle.messaging.remote.Address;
+import org.gradle.messaging.remote.ObjectConnection;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.WorkerProcess;
+import org.gradle.process.internal.WorkerProcessBuilder;
+import org.gradle.process.internal.WorkerProcessContext;
+import org.gradle.util.UncheckedException;
+import org.jmock.Expectations;
+import org.jmock.api.Invocation;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.action.CustomAction;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.*;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Runs a compiler daemon and its worker in this process, connected by a connection which copies each message by
+ * serializing it, as the connection to a worker process does.
+ */
+@RunWith(JMock.class)
+public class CompilerDaemonWorkerTest {
+    private static TestWorkerProcess current;
+    private final JUnit4Mockery context = new JUnit4Mockery() {{
+        setImposteriser(ClassImposteriser.INSTANCE);
+    }};
+    private final WorkerProcessBuilder builder = context.mock(WorkerProcessBuilder.class);
+    private final InMemoryConnection connection = new InMemoryConnection();
+    private final TestWorkerProcess process = new TestWorkerProcess();
+    private CompilerDaemon<TestSpec> daemon;
+
+    @Before
+    public void setUp() {
+        context.checking(new Expectations() {{
+            one(builder).worker(with(notNullValue(CompilerDaemonWorker.class)));
+            will(new CustomAction("capture worker") {
+                public Object invoke(Invocation invocation) throws Throwable {
+                    // The worker is sent to the worker process
+                    process.worker = (CompilerDaemonWorker<?>) copy(invocation.getParameter(0));
+                    return null;
+                }
+            });
+            one(builder).build();
+            will(returnValue(process));
+        }});
+        daemon = new CompilerDaemon<TestSpec>(builder, new TestAction(), "test compiler daemon");
+    }
+
+    @After
+    public void tearDown() {
+        daemon.stop();
+    }
+
+    @Test
+    public void compilesEachSpecInWorkerAndReturnsResult() {
+        WorkResult result = daemon.execute(new TestSpec("a"));
+
+        assertTrue(result.getDidWork());
+        assertThat(process.compiled.toString(), equalTo("[a]"));
+
+        result = daemon.execute(new TestSpec(""));
+
+        assertFalse(result.getDidWork());
+        assertThat(process.compiled.toString(), equalTo("[a, ]"));
+    }
+
+    @Test
+    public void usesTheSameActionForEachCompilation() {
+        daemon.execute(new TestSpec("a"));
+        daemon.execute(new TestSpec("b"));
+
+        assertThat(process.actionInstances.size(), equalTo(1));
+        assertTrue(daemon.isRunning());
+    }
+
+    @Test
+    public void rethrowsCompilationFailureInBuildProcess() {
+        try {
+            daemon.execute(new TestSpec("broken"));
+            fail();
+        } catch (CompilationFailedException e) {
+            assertThat(e.getMessage(), equalTo("Compilation failed; see the compiler error output for details."));
+        }
+
+        assertTrue(daemon.execute(new TestSpec("a")).getDidWork());
+    }
+
+    @Test
+    public void stopsWorkerWhenDaemonIsStopped() throws InterruptedException {
+        daemon.stop();
+
+        process.thread.join(5000);
+        assertFalse(process.thread.isAlive());
+    }
+
+    private static Object copy(Object object) {
+        try {
+            ByteArrayOutputStream outstr = new ByteArrayOutputStream();
+            ObjectOutputStream objectOutputStream = new ObjectOutputStream(outstr);
+            objectOutputStream.writeObject(object);
+            objectOutputStream.close();
+            return new ObjectInputStream(new ByteArrayInputStream(outstr.toByteArray())).readObject();
+        } catch (Exception e) {
+            throw UncheckedException.asUncheckedException(e);
+        }
+    }
+
+    private static class TestSpec implements Serializable {
+        final String source;
+
+        private TestSpec(String source) {
+            this.source = source;
+        }
+    }
+
+    private static class TestAction implements CompilerDaemonAction<TestSpec> {
+        public WorkResult execute(TestSpec spec) {
+            current.compiled.add(spec.source);
+            current.actionInstances.put(System.identityHashCode(this), this);
+            if (spec.source.equals("broken")) {
+                throw new CompilationFailedException();
+            }
+            return new CompileResult(spec.source.length() > 0, null);
+        }
+    }
+
+    private class TestWorkerProcess implements WorkerProcess, WorkerProcessContext {
+        final List<String> compiled = new CopyOnWriteArrayList<String>();
+        final Map<Integer, Object> actionInstances = new ConcurrentHashMap<Integer, Object>();
+        CompilerDaemonWorker<?> worker;
+        Thread thread;
+
+        public ObjectConnection getConnection() {
+            return connection;
+        }
+
+        public void start() {
+            current = this;
+            thread = new Thread(new Runnable() {
+                public void run() {
+                    worker.execute(TestWorkerProcess.this);
+                }
+            });
+            thread.start();
+        }
+
+        public ExecResult waitForStop() {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                throw new UncheckedException(e);
+            }
+            return null;
+        }
+
+        public Object getWorkerId() {
+            return 1;
+        }
+
+        public String getDisplayName() {
+            return "Test worker";
+        }
+
+        public ObjectConnection getServerConnection() {
+            return connection;
+        }
+
+        public ClassLoader getApplicationClassLoader() {
+            return getClass().getClassLoader();
+        }
+    }
+
+    /**
+     * Connects both ends in this process. A message is dispatched to the incoming object for its type, once the
+     * receiving end has registered one.
+     */
+    private static class InMemoryConnection implements ObjectConnection {
+        private final Map<Class<?>, Object> incoming = new ConcurrentHashMap<Class<?>, Object>();
+
+        public <T> T addOutgoing(final Class<T> type) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    Object target = waitForIncoming(type);
+                    try {
+                        return method.invoke(target, (Object[]) copy(args));
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            }));
+        }
+
+        private synchronized Object waitForIncoming(Class<?> type) throws InterruptedException {
+            while (!incoming.containsKey(type)) {
+                wait();
+            }
+            return incoming.get(type);
+        }
+
+        public synchronized <T> void addIncoming(Class<T> type, T instance) {
+            incoming.put(type, instance);
+            notifyAll();
+        }
+
+        public void addIncoming(Class<?> type, Dispatch<? super MethodInvocation> dispatch) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void requestStop() {
+        }
+
+        public void stop() {
+        }
+
+        public Address getLocalAddress() {
+            throw new UnsupportedOperationException();
+        }
+
+        public Address getRemoteAddress() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class InProcessJavaCompilerTest extends Specification {
+    @Rule public final TemporaryFolder tmpDir = new TemporaryFolder()
+    private final InProcessJavaCompiler compiler = new InProcessJavaCompiler()
+
+    def compilesSourceAgainstClasspath() {
+        def libSource = tmpDir.file('lib/src/Lib.java')
+        libSource.text = 'public class Lib { public static String value() { return "lib"; } }'
+        def libClasses = tmpDir.file('lib/classes').createDir()
+        def appSource = tmpDir.file('app/src/App.java')
+        appSource.text = 'public class App { String value = Lib.value(); }'
+        def appClasses = tmpDir.file('app/classes').createDir()
+
+        when:
+        def libResult = compiler.execute(spec([libSource], libClasses, []))
+        def appResult = compiler.execute(spec([appSource], appClasses, [libClasses]))
+
+        then:
+        libResult.didWork
+        appResult.didWork
+        libClasses.file('Lib.class').file
+        appClasses.file('App.class').file
+    }
+
+    def failsWhenSourceDoesNotCompile() {
+        def source = tmpDir.file('src/Broken.java')
+        source.text = 'public class Broken { unknown field; }'
+
+        when:
+        compiler.execute(spec([source], tmpDir.file('classes').createDir(), []))
+
+        then:
+        thrown(CompilationFailedException)
+    }
+
+    def doesNotFailWhenFailOnErrorIsDisabled() {
+        def source = tmpDir.file('src/Broken.java')
+        source.text = 'public class Broken { unknown field; }'
+        def spec = spec([source], tmpDir.file('classes').createDir(), [])
+        spec.failOnError = false
+
+        expect:
+        compiler.execute(spec)
+    }
+
+    private JavaCompileSpec spec(List<File> source, File destinationDir, List<File> classpath) {
+        JavaCompileSpec spec = new JavaCompileSpec()
+        spec.source = source
+        spec.destinationDir = destinationDir
+        spec.classpath = classpath
+        spec.compilerOptions = ['-nowarn']
+        return spec
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.api.tasks.compile.CompileOptions
+import spock.lang.Specification
+
+class JavaCompilerArgumentsBuilderTest extends Specification {
+    private final CompileOptions options = new CompileOptions()
+    private final JavaCompilerArgumentsBuilder builder = new JavaCompilerArgumentsBuilder(options)
+
+    def generatesDefaultOptions() {
+        expect:
+        builder.build() == ['-g']
+    }
+
+    def generatesOptionsForCompatibilityAndDebugLevel() {
+        options.debugOptions.debugLevel = 'source,lines'
+        builder.sourceCompatibility = '1.5'
+        builder.targetCompatibility = '1.6'
+
+        expect:
+        builder.build() == ['-source', '1.5', '-target', '1.6', '-g:source,lines']
+    }
+
+    def generatesOptionsForFlagsAndCompilerArgs() {
+        options.debug = false
+        options.warnings = false
+        options.deprecation = true
+        options.bootClasspath = 'boot.jar'
+        options.compilerArgs = ['-Xlint:unchecked']
+
+        expect:
+        builder.build() == ['-g:none', '-nowarn', '-deprecation', '-bootclasspath', 'boot.jar', '-Xlint:unchecked']
+    }
+}
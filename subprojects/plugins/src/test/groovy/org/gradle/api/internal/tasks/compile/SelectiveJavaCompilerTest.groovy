@@ -0,0 +1,174 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.api.file.FileCollection
+import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.api.tasks.WorkResult
+import org.gradle.api.tasks.compile.CompileOptions
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class SelectiveJavaCompilerTest extends Specification {
+    @Rule public final TemporaryFolder tmpDir = new TemporaryFolder()
+    private final RecordingCompiler javaCompiler = new RecordingCompiler()
+    private final List<String> fullCompilations = []
+    private final SelectiveJavaCompiler compiler = new SelectiveJavaCompiler(javaCompiler) {
+        protected WorkResult compileAll() {
+            fullCompilations << 'all'
+            destinationDir.deleteDir()
+            destinationDir.mkdirs()
+            return javaCompiler.execute()
+        }
+    }
+    private final File sourceDir = tmpDir.file('src')
+    private final File destinationDir = tmpDir.file('classes')
+    private final File cacheDir = tmpDir.file('cache')
+
+    def setup() {
+        source('org/a/A.java', 'package org.a; public class A { org.b.B b; }')
+        source('org/b/B.java', 'package org.b; public class B { public int value() { return 1; } class Inner { } }')
+        source('org/c/C.java', 'package org.c; public class C { }')
+    }
+
+    def compilesAllSourceFilesWhenThereIsNoPreviousState() {
+        when:
+        def result = compile()
+
+        then:
+        result.didWork
+        fullCompilations.size() == 1
+        destinationDir.file('org/a/A.class').file
+        SelectiveJavaCompiler.getStateFile(cacheDir, destinationDir).file
+    }
+
+    def doesNothingWhenNoSourceFileHasChanged() {
+        compile()
+
+        when:
+        def result = compile()
+
+        then:
+        !result.didWork
+        fullCompilations.size() == 1
+        javaCompiler.compiled.size() == 1
+    }
+
+    def recompilesChangedSourceFileAndItsDependents() {
+        compile()
+        source('org/b/B.java', 'package org.b; public class B { public int value() { return 2; } class Inner { } }')
+
+        when:
+        def result = compile()
+
+        then:
+        result.didWork
+        fullCompilations.size() == 1
+        javaCompiler.compiled.last() == ['A.java', 'B.java'] as Set
+        destinationDir.file('org/b/B$Inner.class').file
+        destinationDir.file('org/c/C.class').file
+    }
+
+    def removesClassesOfRemovedSourceFile() {
+        compile()
+        sourceDir.file('org/c/C.java').delete()
+
+        when:
+        compile()
+
+        then:
+        fullCompilations.size() == 1
+        javaCompiler.compiled.size() == 1
+        !destinationDir.file('org/c/C.class').exists()
+        destinationDir.file('org/a/A.class').file
+    }
+
+    def compilesAllSourceFilesWhenConstantChanges() {
+        source('org/c/C.java', 'package org.c; public class C { public static final int VALUE = 1; }')
+        compile()
+        source('org/c/C.java', 'package org.c; public class C { public static final int VALUE = 2; }')
+
+        when:
+        compile()
+
+        then:
+        fullCompilations.size() == 2
+    }
+
+    def compilesAllSourceFilesWhenSettingsChange() {
+        compile()
+
+        when:
+        compile('other settings')
+
+        then:
+        fullCompilations.size() == 2
+    }
+
+    def compilesAllSourceFilesAfterFailedCompilation() {
+        compile()
+        source('org/c/C.java', 'package org.c; public class C { broken }')
+
+        when:
+        compile()
+
+        then:
+        thrown(CompilationFailedException)
+
+        when:
+        source('org/c/C.java', 'package org.c; public class C { }')
+        compile()
+
+        then:
+        fullCompilations.size() == 2
+    }
+
+    private WorkResult compile(String settings = 'settings') {
+        FileCollection source = new SimpleFileCollection(sourceDir.file('org').listFiles().collect { it.listFiles() as List }.flatten())
+        javaCompiler.source = source
+        javaCompiler.destinationDir = destinationDir
+        javaCompiler.classpath = []
+        return compiler.execute(source, destinationDir, [], settings, cacheDir)
+    }
+
+    private void source(String path, String text) {
+        def file = sourceDir.file(path)
+        file.parentFile.mkdirs()
+        file.text = text
+    }
+
+    private static class RecordingCompiler implements JavaCompiler {
+        final CompileOptions compileOptions = new CompileOptions()
+        final List<Set<String>> compiled = []
+        FileCollection source
+        File destinationDir
+        Iterable<File> classpath
+        String sourceCompatibility
+        String targetCompatibility
+        File dependencyCacheDir
+
+        WorkResult execute() {
+            compiled << (source.files*.name as Set)
+            JavaCompileSpec spec = new JavaCompileSpec()
+            spec.source = source.files as List
+            spec.destinationDir = destinationDir
+            spec.classpath = classpath as List
+            spec.compilerOptions = ['-nowarn']
+            return new InProcessJavaCompiler().execute(spec)
+        }
+    }
+}
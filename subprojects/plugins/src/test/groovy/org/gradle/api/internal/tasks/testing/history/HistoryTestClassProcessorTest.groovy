@@ -0,0 +1,169 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.history
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.api.tasks.testing.TestResult
+import org.gradle.cache.PersistentIndexedCache
+import spock.lang.Specification
+
+class HistoryTestClassProcessorTest extends Specification {
+    final TestResultProcessor resultProcessor = Mock()
+    final Map<String, TestClassHistory> entries = [:]
+    final PersistentIndexedCache<String, TestClassHistory> history = [
+            get: { key -> entries[key] },
+            put: { key, value -> entries[key] = value },
+            remove: { key -> entries.remove(key) }
+    ] as PersistentIndexedCache
+    final FakeTestClassProcessor target = new FakeTestClassProcessor()
+
+    def "forwards test classes and records their outcome"() {
+        def processor = processor(fingerprinter('a'), false, false)
+
+        when:
+        run(processor, 'org.gradle.ATest', 'org.gradle.FailingTest')
+
+        then:
+        target.executed == ['org.gradle.ATest', 'org.gradle.FailingTest']
+        !entries[':test:org.gradle.ATest'].failed
+        entries[':test:org.gradle.ATest'].duration == 100
+        entries[':test:org.gradle.FailingTest'].failed
+        2 * resultProcessor.started(_, _)
+        1 * resultProcessor.failure('org.gradle.FailingTest', _)
+        2 * resultProcessor.completed(_, _)
+    }
+
+    def "executes failed test classes first, then changed test classes, then quickest test classes"() {
+        entries[':test:org.gradle.SlowTest'] = new TestClassHistory(fingerprinter('a').fingerprint('org.gradle.SlowTest'), 500, false)
+        entries[':test:org.gradle.QuickTest'] = new TestClassHistory(fingerprinter('a').fingerprint('org.gradle.QuickTest'), 10, false)
+        entries[':test:org.gradle.FailedTest'] = new TestClassHistory(fingerprinter('a').fingerprint('org.gradle.FailedTest'), 1000, true)
+        entries[':test:org.gradle.ChangedTest'] = new TestClassHistory('old', 2000, false)
+        def processor = processor(fingerprinter('a'), true, false)
+
+        when:
+        run(processor, 'org.gradle.SlowTest', 'org.gradle.QuickTest', 'org.gradle.NewTest', 'org.gradle.ChangedTest', 'org.gradle.FailedTest')
+
+        then:
+        target.executed == ['org.gradle.FailedTest', 'org.gradle.NewTest', 'org.gradle.ChangedTest', 'org.gradle.QuickTest', 'org.gradle.SlowTest']
+    }
+
+    def "skips test classes which passed last time and have not changed since"() {
+        run(processor(fingerprinter('a'), false, false), 'org.gradle.ATest', 'org.gradle.FailingTest')
+        target.executed.clear()
+
+        when:
+        run(processor(fingerprinter('a'), false, true), 'org.gradle.ATest', 'org.gradle.FailingTest', 'org.gradle.NewTest')
+
+        then:
+        target.executed == ['org.gradle.FailingTest', 'org.gradle.NewTest']
+
+        when:
+        target.executed.clear()
+        run(processor(fingerprinter('b'), false, true), 'org.gradle.ATest', 'org.gradle.NewTest')
+
+        then:
+        target.executed == ['org.gradle.ATest', 'org.gradle.NewTest']
+    }
+
+    def "passes on test classes which failed last time as soon as they are found"() {
+        entries[':test:org.gradle.FailedTest'] = new TestClassHistory(fingerprinter('a').fingerprint('org.gradle.FailedTest'), 1000, true)
+        def processor = processor(fingerprinter('a'), true, false)
+        processor.startProcessing(resultProcessor)
+
+        when:
+        processor.processTestClass(new DefaultTestClassRunInfo('org.gradle.OtherTest'))
+        processor.processTestClass(new DefaultTestClassRunInfo('org.gradle.FailedTest'))
+
+        then:
+        target.executed == ['org.gradle.FailedTest']
+
+        when:
+        processor.stop()
+
+        then:
+        target.executed == ['org.gradle.FailedTest', 'org.gradle.OtherTest']
+    }
+
+    def "reports skipped test classes as skipped tests"() {
+        run(processor(fingerprinter('a'), false, false), 'org.gradle.ATest')
+
+        when:
+        run(processor(fingerprinter('a'), false, true), 'org.gradle.ATest')
+
+        then:
+        1 * resultProcessor.started({ it.className == 'org.gradle.ATest' && it.composite }, _)
+        1 * resultProcessor.started({ it.className == 'org.gradle.ATest' && !it.composite }, _)
+        1 * resultProcessor.completed(_, { it.resultType == TestResult.ResultType.SKIPPED })
+        1 * resultProcessor.completed(_, { it.resultType == null })
+        0 * resultProcessor._
+    }
+
+    def "records test class which did not complete as failed"() {
+        def processor = processor(fingerprinter('a'), false, false)
+        target.complete = false
+
+        when:
+        run(processor, 'org.gradle.ATest')
+
+        then:
+        entries[':test:org.gradle.ATest'].failed
+    }
+
+    private HistoryTestClassProcessor processor(TestClassFingerprinter fingerprinter, boolean reorder, boolean skipUnchanged) {
+        return new HistoryTestClassProcessor(target, history, ':test:', fingerprinter, reorder, skipUnchanged)
+    }
+
+    private TestClassFingerprinter fingerprinter(String setting) {
+        return new TestClassFingerprinter([], [setting])
+    }
+
+    private void run(TestClassProcessor processor, String... classNames) {
+        processor.startProcessing(resultProcessor)
+        classNames.each { processor.processTestClass(new DefaultTestClassRunInfo(it)) }
+        processor.stop()
+    }
+
+    private static class FakeTestClassProcessor implements TestClassProcessor {
+        final List<String> executed = []
+        TestResultProcessor resultProcessor
+        boolean complete = true
+
+        void startProcessing(TestResultProcessor resultProcessor) {
+            this.resultProcessor = resultProcessor
+        }
+
+        void processTestClass(TestClassRunInfo testClass) {
+            def className = testClass.testClassName
+            executed << className
+            resultProcessor.started(new DefaultTestClassDescriptor(className, className), new TestStartEvent(100))
+            if (className.contains('Failing')) {
+                resultProcessor.failure(className, new RuntimeException())
+            }
+            if (complete) {
+                resultProcessor.completed(className, new TestCompleteEvent(200, className.contains('Failing') ? TestResult.ResultType.FAILURE : null))
+            }
+        }
+
+        void stop() {
+        }
+    }
+}
@@ -71,7 +71,6 @@ public class JUnitTestFrameworkTest extends AbstractTestFrameworkTest {
         setMocks();
 
         context.checking(new Expectations() {{
-            one(testMock).getTestResultsDir(); will(returnValue(testResultsDir));
             one(serviceRegistry).get(IdGenerator.class); will(returnValue(idGenerator));
         }});
 
@@ -102,6 +101,7 @@ public class JUnitTestFrameworkTest extends AbstractTestFrameworkTest {
         setMocks();
 
         context.checking(new Expectations() {{
+            one(testMock).getTestResultsDir(); will(returnValue(testResultsDir));
             one(testMock).isTestReport(); will(returnValue(false));
         }});
 
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.junit
+
+import javax.xml.parsers.DocumentBuilderFactory
+import org.apache.tools.ant.util.DOMElementWriter
+import org.apache.tools.ant.util.DateUtils
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestMethodDescriptor
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestOutputEvent
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.api.tasks.testing.TestResult
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class JUnitXmlReportGeneratorTest extends Specification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final RuntimeException failure = new RuntimeException("broken <here> & \"there\"")
+
+    def "writes the same report as the DOM writer"() {
+        JUnitXmlReportGenerator generator = new JUnitXmlReportGenerator(tmpDir.dir, threshold)
+
+        when:
+        runTests(generator)
+
+        then:
+        reportFile.text == expectedReport()
+        tmpDir.dir.list() as List == [reportFile.name]
+
+        where:
+        threshold << [JUnitXmlReportGenerator.DEFAULT_OUTPUT_THRESHOLD, 4]
+    }
+
+    def "writes a report for each test class"() {
+        JUnitXmlReportGenerator generator = new JUnitXmlReportGenerator(tmpDir.dir, 4)
+
+        when:
+        runTests(generator)
+        generator.started(new DefaultTestClassDescriptor(10, 'org.gradle.OtherTest'), new TestStartEvent(3000))
+        generator.completed(10, new TestCompleteEvent(3500))
+
+        then:
+        reportFile.text == expectedReport()
+        tmpDir.file('TEST-org.gradle.OtherTest.xml').text.contains('<system-out><![CDATA[]]></system-out>')
+        tmpDir.dir.list().length == 2
+    }
+
+    def "splits a CDATA end marker which contains an illegal character"() {
+        JUnitXmlReportGenerator generator = new JUnitXmlReportGenerator(tmpDir.dir, 4)
+
+        when:
+        generator.started(new DefaultTestClassDescriptor(1, 'org.gradle.SomeTest'), new TestStartEvent(1000))
+        generator.output(1, new TestOutputEvent(TestOutputEvent.Destination.StdOut, ']]\u0001>'))
+        generator.completed(1, new TestCompleteEvent(2000))
+
+        then:
+        reportFile.text.contains('<system-out><![CDATA[]]]]><![CDATA[>]]></system-out>')
+        def document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(reportFile)
+        document.getElementsByTagName('system-out').item(0).textContent == ']]>'
+    }
+
+    private File getReportFile() {
+        return tmpDir.file('TEST-org.gradle.SomeTest.xml')
+    }
+
+    private void runTests(JUnitXmlReportGenerator generator) {
+        generator.started(new DefaultTestClassDescriptor(1, 'org.gradle.SomeTest'), new TestStartEvent(1000))
+        generator.started(new DefaultTestMethodDescriptor(2, 'org.gradle.SomeTest', 'ok'), new TestStartEvent(1100, 1))
+        generator.output(2, new TestOutputEvent(TestOutputEvent.Destination.StdOut, 'some output with ]]> in it\n'))
+        generator.output(2, new TestOutputEvent(TestOutputEvent.Destination.StdErr, 'some error\u0000 output'))
+        generator.completed(2, new TestCompleteEvent(1200))
+        generator.started(new DefaultTestMethodDescriptor(3, 'org.gradle.SomeTest', 'broken'), new TestStartEvent(1200, 1))
+        generator.output(3, new TestOutputEvent(TestOutputEvent.Destination.StdOut, 'more ]'))
+        generator.output(3, new TestOutputEvent(TestOutputEvent.Destination.StdOut, ']> output'))
+        generator.failure(3, failure)
+        generator.completed(3, new TestCompleteEvent(1500))
+        generator.started(new DefaultTestMethodDescriptor(4, 'org.gradle.SomeTest', 'ignored'), new TestStartEvent(1500, 1))
+        generator.completed(4, new TestCompleteEvent(1500, TestResult.ResultType.SKIPPED))
+        generator.completed(1, new TestCompleteEvent(2000))
+    }
+
+    private String expectedReport() {
+        def document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument()
+        def root = document.createElement('testsuite')
+        document.appendChild(root)
+        root.appendChild(document.createElement('properties'))
+        root.appendChild(testCase(document, 'testcase', 'ok', '0.1'))
+        def broken = testCase(document, 'testcase', 'broken', '0.3')
+        def failureElement = document.createElement('failure')
+        failureElement.setAttribute('message', failure.toString())
+        failureElement.setAttribute('type', RuntimeException.name)
+        def stackTrace = new StringWriter()
+        failure.printStackTrace(new PrintWriter(stackTrace))
+        failureElement.appendChild(document.createTextNode(stackTrace.toString()))
+        broken.appendChild(failureElement)
+        root.appendChild(broken)
+        root.appendChild(testCase(document, 'ignored-testcase', 'ignored', '0.0'))
+        root.setAttribute('name', 'org.gradle.SomeTest')
+        root.setAttribute('tests', '3')
+        root.setAttribute('failures', '1')
+        root.setAttribute('errors', '0')
+        root.setAttribute('timestamp', DateUtils.format(1000, DateUtils.ISO8601_DATETIME_PATTERN))
+        root.setAttribute('hostname', InetAddress.localHost.hostName)
+        root.setAttribute('time', '1.0')
+        def stdout = document.createElement('system-out')
+        stdout.appendChild(document.createCDATASection('some output with ]]> in it\nmore ]]> output'))
+        root.appendChild(stdout)
+        def stderr = document.createElement('system-err')
+        stderr.appendChild(document.createCDATASection('some error\u0000 output'))
+        root.appendChild(stderr)
+
+        def out = new ByteArrayOutputStream()
+        new DOMElementWriter(true).write(root, out)
+        return out.toString('UTF-8')
+    }
+
+    private def testCase(def document, String elementName, String name, String time) {
+        def element = document.createElement(elementName)
+        element.setAttribute('name', name)
+        element.setAttribute('classname', 'org.gradle.SomeTest')
+        element.setAttribute('time', time)
+        return element
+    }
+}
@@ -238,6 +238,38 @@ message">this is a failure.</failure></testcase>
         testClassFile.assertHasStandardError('err:\u0102')
     }
 
+    def generatesReportFromManyResultFilesConcurrently() {
+        20.times { i ->
+            resultsDir.file("TEST-someClass${i}.xml") << """
+<testsuite name="org.gradle.Test${i}">
+    <testcase classname="org.gradle.Test${i}" name="test1" time="0.001"/>
+    <testcase classname="org.gradle.Test${i}" name="test2" time="0.001"><failure message="failed">failure ${i}</failure></testcase>
+    <system-out>output ${i}</system-out>
+    <system-out> more output ${i}</system-out>
+</testsuite>
+"""
+        }
+
+        when:
+        def concurrentReport = new DefaultTestReport(4)
+        concurrentReport.testReportDir = reportDir
+        concurrentReport.testResultsDir = resultsDir
+        concurrentReport.generateReport()
+
+        then:
+        def index = results(indexFile)
+        index.assertHasTests(40)
+        index.assertHasFailures(20)
+        index.assertHasSuccessRate(50)
+
+        20.times { i ->
+            def testClassFile = results(reportDir.file("org.gradle.Test${i}.html"))
+            testClassFile.assertHasTests(2)
+            testClassFile.assertHasFailure('test2', "failure ${i}")
+            testClassFile.assertHasStandardOutput("output ${i} more output ${i}")
+        }
+    }
+
     def ignoresFilesWhichAreNotResultFiles() {
         resultsDir.file('TEST-someClass.xml') << '''
 <testsuite name="org.gradle.Test">
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.results
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestMethodDescriptor
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestOutputEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.api.tasks.testing.TestResult
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class BinaryTestResultsWriterTest extends Specification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final TestResultProcessor target = Mock()
+    final TestResultProcessor replayed = Mock()
+
+    def "forwards events and replays them from the results file"() {
+        def resultsFile = BinaryTestResultsWriter.getResultsFile(tmpDir.dir)
+        def writer = new BinaryTestResultsWriter(resultsFile, target)
+        def failure = new IllegalStateException("broken")
+        def classDescriptor = new DefaultTestClassDescriptor('class-id', 'org.gradle.SomeTest')
+        def methodDescriptor = new DefaultTestMethodDescriptor('method-id', 'org.gradle.SomeTest', 'test1')
+
+        when:
+        writer.started(classDescriptor, new TestStartEvent(100))
+        writer.started(methodDescriptor, new TestStartEvent(120, 'class-id'))
+        writer.output('method-id', new TestOutputEvent(TestOutputEvent.Destination.StdErr, 'some ć output'))
+        writer.failure('method-id', failure)
+        writer.completed('method-id', new TestCompleteEvent(150, TestResult.ResultType.FAILURE))
+        writer.completed('class-id', new TestCompleteEvent(200))
+        writer.stop()
+
+        then:
+        1 * target.started(classDescriptor, _)
+        1 * target.started(methodDescriptor, _)
+        1 * target.output('method-id', _)
+        1 * target.failure('method-id', failure)
+        1 * target.completed('method-id', _)
+        1 * target.completed('class-id', _)
+
+        when:
+        new BinaryTestResultsReader(resultsFile).replay(replayed)
+
+        then:
+        1 * replayed.started({ it.composite && it.name == 'org.gradle.SomeTest' && it.className == 'org.gradle.SomeTest' }, { it.startTime == 100 && it.parentId == null })
+
+        then:
+        1 * replayed.started({ !it.composite && it.name == 'test1' && it.className == 'org.gradle.SomeTest' }, { it.startTime == 120 && it.parentId != null })
+
+        then:
+        1 * replayed.output(!null, { it.destination == TestOutputEvent.Destination.StdErr && it.message == 'some ć output' })
+
+        then:
+        1 * replayed.failure(!null, { failureMatches(it, failure) })
+
+        then:
+        1 * replayed.completed(!null, { it.endTime == 150 && it.resultType == TestResult.ResultType.FAILURE })
+
+        then:
+        1 * replayed.completed(!null, { it.endTime == 200 && it.resultType == null })
+        0 * replayed._
+    }
+
+    def "replays the events which were written before the results file was truncated"() {
+        def resultsFile = BinaryTestResultsWriter.getResultsFile(tmpDir.dir)
+        def writer = new BinaryTestResultsWriter(resultsFile, target)
+        writer.started(new DefaultTestClassDescriptor('class-id', 'org.gradle.SomeTest'), new TestStartEvent(100))
+        writer.output('class-id', new TestOutputEvent(TestOutputEvent.Destination.StdOut, 'output'))
+        writer.stop()
+        def bytes = resultsFile.bytes
+        resultsFile.bytes = bytes[0..<(bytes.length - 2)] as byte[]
+
+        when:
+        new BinaryTestResultsReader(resultsFile).replay(replayed)
+
+        then:
+        1 * replayed.started(_, _)
+        0 * replayed._
+    }
+
+    private boolean failureMatches(Throwable recorded, Throwable original) {
+        return RecordedTestFailure.getExceptionType(recorded) == IllegalStateException.name &&
+                recorded.toString() == original.toString() &&
+                RecordedTestFailure.getStackTrace(recorded) == RecordedTestFailure.getStackTrace(original)
+    }
+}
@@ -105,6 +105,32 @@ class GroovyCompileOptionsTest {
         assertTrue(forkUseCalled)
     }
 
+    @Test public void testForkDefaultsToFalseWhenNotUsingAnt() {
+        compileOptions.useAnt = false
+        assertFalse(compileOptions.fork)
+
+        compileOptions.useAnt = true
+        assertTrue(compileOptions.fork)
+    }
+
+    @Test public void testForkIsNotChangedByUseAntOnceSet() {
+        compileOptions.fork = true
+        compileOptions.useAnt = false
+        assertTrue(compileOptions.fork)
+
+        compileOptions.fork = false
+        compileOptions.useAnt = true
+        assertFalse(compileOptions.fork)
+    }
+
+    @Test public void testOptionMapDoesNotContainUseAnt() {
+        compileOptions.useAnt = false
+        Map optionMap = compileOptions.optionMap()
+        assertFalse(optionMap.containsKey('useAnt'))
+        assertFalse(optionMap.containsKey('forkSet'))
+        assertEquals(false, optionMap.fork)
+    }
+
     @Test public void testDefine() {
         compileOptions.stacktrace = false
         compileOptions.verbose = false
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.scala;
+
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.Factory;
+import org.gradle.api.internal.tasks.compile.CompileResult;
+import org.gradle.api.internal.tasks.compile.CompilerDaemon;
+import org.gradle.api.internal.tasks.compile.CompilerDaemonManager;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.scala.ScalaCompileOptions;
+import org.gradle.process.internal.WorkerProcessBuilder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles Scala source in a Scala compiler daemon, which is reused by all compilations with the same Scala classpath
+ * and log level.
+ */
+public class DaemonScalaCompiler implements ScalaCompiler {
+    private static final Logger LOGGER = Logging.getLogger(DaemonScalaCompiler.class);
+    private final ScalaCompileOptions scalaCompileOptions;
+    private final Factory<WorkerProcessBuilder> workerFactory;
+    private FileCollection source;
+    private File destinationDir;
+    private Iterable<File> classpath;
+    private Iterable<File> scalaClasspath;
+
+    public DaemonScalaCompiler(ScalaCompileOptions scalaCompileOptions, Factory<WorkerProcessBuilder> workerFactory) {
+        this.scalaCompileOptions = scalaCompileOptions;
+        this.workerFactory = workerFactory;
+    }
+
+    public ScalaCompileOptions getScalaCompileOptions() {
+        return scalaCompileOptions;
+    }
+
+    public void setScalaClasspath(Iterable<File> classpath) {
+        this.scalaClasspath = classpath;
+    }
+
+    public void setSource(FileCollection source) {
+        this.source = source;
+    }
+
+    public void setDestinationDir(File destinationDir) {
+        this.destinationDir = destinationDir;
+    }
+
+    public void setClasspath(Iterable<File> classpath) {
+        this.classpath = classpath;
+    }
+
+    public WorkResult execute() {
+        ScalaCompileSpec spec = new ScalaCompileSpec();
+        spec.setSource(new ArrayList<File>(source.getFiles()));
+        spec.setDestinationDir(destinationDir);
+        List<File> classpathFiles = new ArrayList<File>();
+        for (File file : classpath) {
+            classpathFiles.add(file);
+        }
+        spec.setClasspath(classpathFiles);
+        spec.setCompilerOptions(new ScalaCompilerArgumentsBuilder(scalaCompileOptions).build());
+        spec.setFailOnError(scalaCompileOptions.isFailOnError());
+
+        if (spec.getSource().isEmpty()) {
+            return new CompileResult(false, null);
+        }
+        if (scalaCompileOptions.isListFiles()) {
+            for (File file : spec.getSource()) {
+                LOGGER.quiet(file.getAbsolutePath());
+            }
+        }
+        return getDaemon().execute(spec);
+    }
+
+    private CompilerDaemon<ScalaCompileSpec> getDaemon() {
+        final WorkerProcessBuilder builder = workerFactory.create();
+        List<Object> key = new ArrayList<Object>();
+        key.add(ScalaCompilerDaemonAction.class);
+        key.add(builder.getLogLevel());
+        for (File file : scalaClasspath) {
+            key.add(file.getAbsoluteFile());
+            key.add(file.lastModified());
+            key.add(file.length());
+        }
+        return CompilerDaemonManager.getInstance().getDaemon(key, new Factory<CompilerDaemon<ScalaCompileSpec>>() {
+            public CompilerDaemon<ScalaCompileSpec> create() {
+                builder.applicationClasspath(scalaClasspath);
+                builder.sharedPackages("scala");
+                return new CompilerDaemon<ScalaCompileSpec>(builder, new ScalaCompilerDaemonAction(), "Scala compiler daemon");
+            }
+        });
+    }
+}
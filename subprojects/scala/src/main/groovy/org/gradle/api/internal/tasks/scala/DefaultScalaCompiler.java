@@ -0,0 +1,67 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.scala;
+
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.scala.ScalaCompileOptions;
+
+import java.io.File;
+
+/**
+ * Uses either the Ant scalac task or a Scala compiler daemon to compile Scala source, as selected by {@link
+ * ScalaCompileOptions#isUseAnt()} when the compiler is executed. Both compilers must share the same compile options.
+ */
+public class DefaultScalaCompiler implements ScalaCompiler {
+    private final ScalaCompiler antCompiler;
+    private final ScalaCompiler daemonCompiler;
+
+    public DefaultScalaCompiler(ScalaCompiler antCompiler, ScalaCompiler daemonCompiler) {
+        this.antCompiler = antCompiler;
+        this.daemonCompiler = daemonCompiler;
+    }
+
+    public ScalaCompileOptions getScalaCompileOptions() {
+        return antCompiler.getScalaCompileOptions();
+    }
+
+    public void setScalaClasspath(Iterable<File> classpath) {
+        antCompiler.setScalaClasspath(classpath);
+        daemonCompiler.setScalaClasspath(classpath);
+    }
+
+    public void setSource(FileCollection source) {
+        antCompiler.setSource(source);
+        daemonCompiler.setSource(source);
+    }
+
+    public void setDestinationDir(File destinationDir) {
+        antCompiler.setDestinationDir(destinationDir);
+        daemonCompiler.setDestinationDir(destinationDir);
+    }
+
+    public void setClasspath(Iterable<File> classpath) {
+        antCompiler.setClasspath(classpath);
+        daemonCompiler.setClasspath(classpath);
+    }
+
+    public WorkResult execute() {
+        if (getScalaCompileOptions().isUseAnt()) {
+            return antCompiler.execute();
+        }
+        return daemonCompiler.execute();
+    }
+}
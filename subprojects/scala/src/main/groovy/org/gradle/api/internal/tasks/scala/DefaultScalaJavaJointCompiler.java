@@ -59,6 +59,10 @@ public class DefaultScalaJavaJointCompiler implements ScalaJavaJointCompiler {
         javaCompiler.setClasspath(classpath);
     }
 
+    public void setDependencyCacheDir(File dir) {
+        javaCompiler.setDependencyCacheDir(dir);
+    }
+
     public CompileOptions getCompileOptions() {
         return javaCompiler.getCompileOptions();
     }
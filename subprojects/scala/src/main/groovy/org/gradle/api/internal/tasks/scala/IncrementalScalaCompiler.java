@@ -17,8 +17,10 @@ package org.gradle.api.internal.tasks.scala;
 
 import org.gradle.api.internal.TaskOutputsInternal;
 import org.gradle.api.internal.tasks.compile.IncrementalJavaSourceCompiler;
+import org.gradle.api.internal.tasks.compile.JavaCompilerArgumentsBuilder;
 import org.gradle.api.internal.tasks.compile.SimpleStaleClassCleaner;
 import org.gradle.api.internal.tasks.compile.StaleClassCleaner;
+import org.gradle.api.tasks.WorkResult;
 import org.gradle.api.tasks.scala.ScalaCompileOptions;
 
 import java.io.File;
@@ -26,6 +28,8 @@ import java.io.File;
 public class IncrementalScalaCompiler extends IncrementalJavaSourceCompiler<ScalaJavaJointCompiler>
         implements ScalaJavaJointCompiler {
     private final TaskOutputsInternal taskOutputs;
+    private File dependencyCacheDir;
+    private Iterable<File> scalaClasspath;
 
     public IncrementalScalaCompiler(ScalaJavaJointCompiler compiler, TaskOutputsInternal taskOutputs) {
         super(compiler);
@@ -37,9 +41,47 @@ public class IncrementalScalaCompiler extends IncrementalJavaSourceCompiler<Scal
     }
 
     public void setScalaClasspath(Iterable<File> classpath) {
+        scalaClasspath = classpath;
         getCompiler().setScalaClasspath(classpath);
     }
 
+    public void setDependencyCacheDir(File dir) {
+        dependencyCacheDir = dir;
+        getCompiler().setDependencyCacheDir(dir);
+    }
+
+    @Override
+    public WorkResult execute() {
+        if (!getScalaCompileOptions().isIncremental() || dependencyCacheDir == null) {
+            return super.execute();
+        }
+        SelectiveScalaCompiler selectiveCompiler = new SelectiveScalaCompiler(getCompiler()) {
+            @Override
+            protected WorkResult compileAll() {
+                return IncrementalScalaCompiler.this.compileAll();
+            }
+        };
+        return selectiveCompiler.execute(getSource(), getDestinationDir(), getClasspath(), getSettings(), dependencyCacheDir);
+    }
+
+    /**
+     * Returns a description of the Scala and Java compiler settings, including the version of the Scala compiler. The
+     * classes compiled by a previous compilation can only be reused when these have not changed.
+     */
+    private String getSettings() {
+        StringBuilder settings = new StringBuilder();
+        settings.append(new ScalaCompilerArgumentsBuilder(getScalaCompileOptions()).build()).append('\n');
+        settings.append(new JavaCompilerArgumentsBuilder(getCompileOptions())
+                .setSourceCompatibility(getSourceCompatibility())
+                .setTargetCompatibility(getTargetCompatibility())
+                .build()).append('\n');
+        settings.append(getCompileOptions().getEncoding()).append('\n');
+        for (File file : scalaClasspath) {
+            settings.append(file.getAbsolutePath()).append(':').append(file.lastModified()).append('\n');
+        }
+        return settings.toString();
+    }
+
     @Override
     protected StaleClassCleaner createCleaner() {
         return new SimpleStaleClassCleaner(taskOutputs);
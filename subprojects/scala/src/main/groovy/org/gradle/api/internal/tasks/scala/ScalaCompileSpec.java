@@ -0,0 +1,95 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.scala;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The details of a Scala compilation, which can be sent to a Scala compiler daemon.
+ */
+public class ScalaCompileSpec implements Serializable {
+    private List<File> source = new ArrayList<File>();
+    private File destinationDir;
+    private List<File> classpath = new ArrayList<File>();
+    private List<String> compilerOptions = new ArrayList<String>();
+    private boolean failOnError = true;
+
+    public List<File> getSource() {
+        return source;
+    }
+
+    public void setSource(List<File> source) {
+        this.source = source;
+    }
+
+    public File getDestinationDir() {
+        return destinationDir;
+    }
+
+    public void setDestinationDir(File destinationDir) {
+        this.destinationDir = destinationDir;
+    }
+
+    public List<File> getClasspath() {
+        return classpath;
+    }
+
+    public void setClasspath(List<File> classpath) {
+        this.classpath = classpath;
+    }
+
+    /**
+     * Returns the scalac command-line options, excluding the destination directory and classpath.
+     */
+    public List<String> getCompilerOptions() {
+        return compilerOptions;
+    }
+
+    public void setCompilerOptions(List<String> compilerOptions) {
+        this.compilerOptions = compilerOptions;
+    }
+
+    public boolean isFailOnError() {
+        return failOnError;
+    }
+
+    public void setFailOnError(boolean failOnError) {
+        this.failOnError = failOnError;
+    }
+
+    /**
+     * Returns the complete scalac command-line for this compilation.
+     */
+    public List<String> getArguments() {
+        List<String> args = new ArrayList<String>();
+        args.add("-d");
+        args.add(destinationDir.getAbsolutePath());
+        StringBuilder path = new StringBuilder(destinationDir.getAbsolutePath());
+        for (File file : classpath) {
+            path.append(File.pathSeparatorChar).append(file.getAbsolutePath());
+        }
+        args.add("-classpath");
+        args.add(path.toString());
+        args.addAll(compilerOptions);
+        for (File file : source) {
+            args.add(file.getAbsolutePath());
+        }
+        return args;
+    }
+}
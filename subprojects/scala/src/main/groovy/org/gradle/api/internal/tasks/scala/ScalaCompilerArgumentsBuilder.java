@@ -0,0 +1,69 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.scala;
+
+import org.gradle.api.tasks.scala.ScalaCompileOptions;
+import org.gradle.util.GUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts a set of {@link ScalaCompileOptions} into scalac command-line options, in the same way as the Ant scalac
+ * task.
+ */
+public class ScalaCompilerArgumentsBuilder {
+    private final ScalaCompileOptions compileOptions;
+
+    public ScalaCompilerArgumentsBuilder(ScalaCompileOptions compileOptions) {
+        this.compileOptions = compileOptions;
+    }
+
+    public List<String> build() {
+        List<String> args = new ArrayList<String>();
+        if (compileOptions.isDeprecation()) {
+            args.add("-deprecation");
+        }
+        if (compileOptions.isUnchecked()) {
+            args.add("-unchecked");
+        }
+        if (GUtil.isTrue(compileOptions.getDebugLevel())) {
+            args.add("-g:" + compileOptions.getDebugLevel().trim());
+        }
+        if (compileOptions.isOptimize()) {
+            args.add("-optimise");
+        }
+        if (GUtil.isTrue(compileOptions.getEncoding())) {
+            args.add("-encoding");
+            args.add(compileOptions.getEncoding());
+        }
+        if (GUtil.isTrue(compileOptions.getTargetCompatibility())) {
+            args.add("-target:jvm-" + compileOptions.getTargetCompatibility());
+        }
+        if ("verbose".equals(compileOptions.getLoggingLevel())) {
+            args.add("-verbose");
+        } else if ("debug".equals(compileOptions.getLoggingLevel())) {
+            args.add("-Ydebug");
+        }
+        if (GUtil.isTrue(compileOptions.getLoggingPhases())) {
+            args.add("-log:" + GUtil.join(compileOptions.getLoggingPhases(), ","));
+        }
+        if (compileOptions.getAdditionalParameters() != null) {
+            args.addAll(compileOptions.getAdditionalParameters());
+        }
+        return args;
+    }
+}
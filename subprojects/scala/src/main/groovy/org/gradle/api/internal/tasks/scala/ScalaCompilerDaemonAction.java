@@ -0,0 +1,72 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.scala;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.internal.tasks.compile.CompilationFailedException;
+import org.gradle.api.internal.tasks.compile.CompileResult;
+import org.gradle.api.internal.tasks.compile.CompilerDaemonAction;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.util.UncheckedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * The action of a Scala compiler daemon. The Scala compiler is loaded from the application classpath of the worker
+ * process once, and is then used for each spec the daemon receives. This way, the compiler classes are loaded and JIT
+ * compiled only once for all the compilations which the daemon performs.
+ */
+public class ScalaCompilerDaemonAction implements CompilerDaemonAction<ScalaCompileSpec> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScalaCompilerDaemonAction.class);
+    private static final String MAIN_CLASS_NAME = "scala.tools.nsc.Main";
+    private transient Class<?> mainClass;
+
+    public WorkResult execute(ScalaCompileSpec spec) throws Exception {
+        boolean success = compile(spec.getArguments());
+        if (!success && spec.isFailOnError()) {
+            throw new CompilationFailedException();
+        }
+        return new CompileResult(true, null);
+    }
+
+    private boolean compile(List<String> arguments) throws Exception {
+        if (mainClass == null) {
+            try {
+                mainClass = getClass().getClassLoader().loadClass(MAIN_CLASS_NAME);
+            } catch (ClassNotFoundException e) {
+                throw new GradleException(String.format("Could not load the Scala compiler class %s from the Scala classpath.", MAIN_CLASS_NAME), e);
+            }
+        }
+        LOGGER.debug("Compiling with scalac arguments {}", arguments);
+        Method process = mainClass.getMethod("process", String[].class);
+        Object processResult;
+        try {
+            processResult = process.invoke(null, new Object[]{arguments.toArray(new String[arguments.size()])});
+        } catch (InvocationTargetException e) {
+            throw UncheckedException.asUncheckedException(e.getCause());
+        }
+        if (processResult instanceof Boolean) {
+            // Newer compilers report the outcome directly
+            return (Boolean) processResult;
+        }
+        Object reporter = mainClass.getMethod("reporter").invoke(null);
+        return !(Boolean) reporter.getClass().getMethod("hasErrors").invoke(reporter);
+    }
+}
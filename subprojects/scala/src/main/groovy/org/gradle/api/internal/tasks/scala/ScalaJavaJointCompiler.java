@@ -17,5 +17,8 @@ package org.gradle.api.internal.tasks.scala;
 
 import org.gradle.api.internal.tasks.compile.JavaSourceCompiler;
 
+import java.io.File;
+
 public interface ScalaJavaJointCompiler extends ScalaCompiler, JavaSourceCompiler {
+    void setDependencyCacheDir(File dir);
 }
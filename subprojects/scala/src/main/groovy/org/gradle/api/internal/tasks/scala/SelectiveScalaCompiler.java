@@ -0,0 +1,32 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.scala;
+
+import org.gradle.api.internal.tasks.compile.ClassFileAnalyzer;
+import org.gradle.api.internal.tasks.compile.Compiler;
+import org.gradle.api.internal.tasks.compile.SelectiveJavaCompiler;
+
+/**
+ * Recompiles only the changed Scala and Java source files and their dependents. In addition to static final fields,
+ * the value returned by a method which only returns a constant, such as the accessor of a {@code final val}, is
+ * treated as a compile-time constant, as the Scala compiler inlines these without leaving a reference to the declaring
+ * class. A full compilation is done when such a value changes or its class is removed.
+ */
+public abstract class SelectiveScalaCompiler extends SelectiveJavaCompiler {
+    public SelectiveScalaCompiler(Compiler compiler) {
+        super(compiler, new ClassFileAnalyzer(true));
+    }
+}
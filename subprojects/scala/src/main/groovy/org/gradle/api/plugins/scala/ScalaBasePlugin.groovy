@@ -63,6 +63,7 @@ public class ScalaBasePlugin implements Plugin<Project> {
     private void configureCompileDefaults(final Project project, JavaBasePlugin javaPlugin) {
         project.tasks.withType(ScalaCompile.class) {ScalaCompile compile ->
             compile.scalaClasspath = project.configurations[SCALA_TOOLS_CONFIGURATION_NAME]
+            compile.conventionMapping.dependencyCacheDir = { project.convention.getPlugin(JavaPluginConvention.class).dependencyCacheDir }
         }
     }
 
@@ -24,8 +24,12 @@ import org.gradle.api.internal.tasks.compile.JavaCompiler;
 import org.gradle.api.internal.tasks.scala.*;
 import org.gradle.api.tasks.InputFiles;
 import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.OutputDirectory;
 import org.gradle.api.tasks.compile.AbstractCompile;
 import org.gradle.api.tasks.compile.CompileOptions;
+import org.gradle.process.internal.WorkerProcessBuilder;
+
+import java.io.File;
 
 /**
  * Compiles Scala source files, and optionally, Java source files.
@@ -35,8 +39,13 @@ public class ScalaCompile extends AbstractCompile {
 
     private ScalaJavaJointCompiler compiler;
 
+    private File dependencyCacheDir;
+
     public ScalaCompile() {
-        ScalaCompiler scalaCompiler = new AntScalaCompiler(getServices().get(IsolatedAntBuilder.class));
+        ScalaCompiler antScalaCompiler = new AntScalaCompiler(getServices().get(IsolatedAntBuilder.class));
+        ScalaCompiler daemonScalaCompiler = new DaemonScalaCompiler(antScalaCompiler.getScalaCompileOptions(),
+                getServices().getFactory(WorkerProcessBuilder.class));
+        ScalaCompiler scalaCompiler = new DefaultScalaCompiler(antScalaCompiler, daemonScalaCompiler);
         JavaCompiler javaCompiler = new AntJavaCompiler(getServices().getFactory(AntBuilder.class));
         compiler = new IncrementalScalaCompiler(new DefaultScalaJavaJointCompiler(scalaCompiler, javaCompiler), getOutputs());
     }
@@ -53,6 +62,18 @@ public class ScalaCompile extends AbstractCompile {
         this.scalaClasspath = scalaClasspath;
     }
 
+    /**
+     * Returns the directory in which to keep the state used to compile only changed source files.
+     */
+    @OutputDirectory
+    public File getDependencyCacheDir() {
+        return dependencyCacheDir;
+    }
+
+    public void setDependencyCacheDir(File dependencyCacheDir) {
+        this.dependencyCacheDir = dependencyCacheDir;
+    }
+
     public ScalaJavaJointCompiler getCompiler() {
         return compiler;
     }
@@ -84,6 +105,7 @@ public class ScalaCompile extends AbstractCompile {
         compiler.setDestinationDir(getDestinationDir());
         compiler.setClasspath(getClasspath());
         compiler.setScalaClasspath(getScalaClasspath());
+        compiler.setDependencyCacheDir(getDependencyCacheDir());
         compiler.setSourceCompatibility(getSourceCompatibility());
         compiler.setTargetCompatibility(getTargetCompatibility());
         compiler.execute();
@@ -35,6 +35,21 @@ public class ScalaCompileOptions extends AbstractOptions {
      */
     String daemonServer;
 
+    /**
+     * Whether to use the Ant scalac task. The default is {@code true}. When {@code false}, Scala source is compiled
+     * in a long-lived compiler daemon managed by Gradle, which is shared by all tasks which use the same Scala
+     * classpath, and which stays warm across builds when Gradle itself runs as a daemon. The fsc options are ignored
+     * in this case.
+     */
+    boolean useAnt = true
+
+    /**
+     * Whether to recompile only the source files which have changed, along with the source files of the classes
+     * which depend on them. The default is {@code false}. All source files are recompiled when the compiler settings
+     * or classpath change, or when a compile-time constant, such as a {@code final val}, changes.
+     */
+    boolean incremental = false
+
     /**
      * Fail the build on compilation errors.
      */
@@ -136,7 +151,7 @@ public class ScalaCompileOptions extends AbstractOptions {
     }
 
     List excludedFieldsFromOptionMap() {
-        ['useCompileDaemon'] + (optimize ? [] : ['optimize'])
+        ['useCompileDaemon', 'useAnt', 'incremental'] + (optimize ? [] : ['optimize'])
     }
 
     private String toOnOffString(value) {
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.scala
+
+import org.gradle.api.tasks.scala.ScalaCompileOptions
+import spock.lang.Specification
+
+class ScalaCompilerArgumentsBuilderTest extends Specification {
+    private final ScalaCompileOptions options = new ScalaCompileOptions()
+    private final ScalaCompilerArgumentsBuilder builder = new ScalaCompilerArgumentsBuilder(options)
+
+    def generatesDefaultOptions() {
+        expect:
+        builder.build() == ['-deprecation', '-unchecked', '-target:jvm-1.5']
+    }
+
+    def generatesOptionsForConfiguredValues() {
+        options.deprecation = false
+        options.unchecked = false
+        options.debugLevel = 'vars'
+        options.optimize = true
+        options.encoding = 'UTF-8'
+        options.targetCompatibility = '1.4'
+        options.loggingLevel = 'verbose'
+        options.loggingPhases = ['typer', 'erasure']
+        options.additionalParameters = ['-Xcheckinit']
+
+        expect:
+        builder.build() == ['-g:vars', '-optimise', '-encoding', 'UTF-8', '-target:jvm-1.4', '-verbose', '-log:typer,erasure', '-Xcheckinit']
+    }
+
+    def specIncludesDestinationDirClasspathAndSource() {
+        def spec = new ScalaCompileSpec()
+        spec.destinationDir = new File('classes')
+        spec.classpath = [new File('lib.jar')]
+        spec.compilerOptions = ['-deprecation']
+        spec.source = [new File('Thing.scala')]
+
+        expect:
+        spec.arguments == ['-d', new File('classes').absolutePath,
+                '-classpath', new File('classes').absolutePath + File.pathSeparator + new File('lib.jar').absolutePath,
+                '-deprecation', new File('Thing.scala').absolutePath]
+    }
+}
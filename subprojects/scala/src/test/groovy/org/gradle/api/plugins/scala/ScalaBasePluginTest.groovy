@@ -20,6 +20,7 @@ import static org.hamcrest.Matchers.*
 import org.gradle.api.Project
 import org.gradle.api.internal.artifacts.configurations.Configurations
 import org.gradle.api.plugins.JavaBasePlugin
+import org.gradle.api.plugins.JavaPluginConvention
 import org.gradle.api.tasks.scala.ScalaCompile
 import org.gradle.api.tasks.scala.ScalaDoc
 import org.gradle.util.HelperUtil
@@ -81,6 +82,7 @@ public class ScalaBasePluginTest {
         def task = project.createTask('otherCompile', type: ScalaCompile)
         assertThat(task.defaultSource, nullValue())
         assertThat(task.scalaClasspath, equalTo(project.configurations[ScalaBasePlugin.SCALA_TOOLS_CONFIGURATION_NAME]))
+        assertThat(task.dependencyCacheDir, equalTo(project.convention.getPlugin(JavaPluginConvention.class).dependencyCacheDir))
         assertThat(task, dependsOn())
     }
 
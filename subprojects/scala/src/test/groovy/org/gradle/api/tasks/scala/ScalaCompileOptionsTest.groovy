@@ -37,6 +37,16 @@ public class ScalaCompileOptionsTest {
         assertFalse(compileOptions.optionMap().containsKey(antProperty))
     }
 
+    @Test public void testOptionMapDoesNotContainGradleOnlyOptions() {
+        assertTrue(compileOptions.useAnt)
+        assertFalse(compileOptions.incremental)
+
+        compileOptions.useAnt = false
+        compileOptions.incremental = true
+        assertFalse(compileOptions.optionMap().containsKey('useAnt'))
+        assertFalse(compileOptions.optionMap().containsKey('incremental'))
+    }
+
     @Test public void testOptionMapContainsDaemonServerIfSpecified() {
         assertSimpleStringValue('daemonServer', 'server', null, 'host:9000')
     }
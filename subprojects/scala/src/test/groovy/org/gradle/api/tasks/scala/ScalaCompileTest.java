@@ -68,6 +68,7 @@ public class ScalaCompileTest extends AbstractCompileTest {
             one(scalaCompiler).setDestinationDir(scalaCompile.getDestinationDir());
             one(scalaCompiler).setClasspath(scalaCompile.getClasspath());
             one(scalaCompiler).setScalaClasspath(scalaCompile.getScalaClasspath());
+            one(scalaCompiler).setDependencyCacheDir(scalaCompile.getDependencyCacheDir());
             one(scalaCompiler).setSourceCompatibility(scalaCompile.getSourceCompatibility());
             one(scalaCompiler).setTargetCompatibility(scalaCompile.getTargetCompatibility());
             one(scalaCompiler).execute();
@@ -18,27 +18,113 @@ package org.gradle.tooling.internal.consumer;
 import org.gradle.tooling.internal.protocol.ConnectionVersion4;
 
 import java.io.File;
-import java.util.HashMap;
-import java.util.LinkedHashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * <p>A {@link ToolingImplementationLoader} which shares implementations between all connections which use the same implementation classpath. An
+ * implementation is reference counted. Once it has been released by all of its connections, it is kept for a while, in case another connection is
+ * made, and then released.</p>
+ *
+ * <p>Implementations are keyed by the path, size and modification time of each file of the classpath, so that a rebuilt distribution is loaded
+ * again.</p>
+ */
 public class CachingToolingImplementationLoader implements ToolingImplementationLoader {
+    public static final long DEFAULT_MAX_IDLE_TIME_MILLIS = TimeUnit.MINUTES.toMillis(3);
     private final ToolingImplementationLoader loader;
-    private final Map<Set<File>, ConnectionVersion4> connections = new HashMap<Set<File>, ConnectionVersion4>();
+    private final long maxIdleTimeMillis;
+    private final Map<List<String>, CachedImplementation> implementations = new HashMap<List<String>, CachedImplementation>();
+    private final Map<ConnectionVersion4, CachedImplementation> connections = new IdentityHashMap<ConnectionVersion4, CachedImplementation>();
+    private Timer timer;
 
     public CachingToolingImplementationLoader(ToolingImplementationLoader loader) {
+        this(loader, DEFAULT_MAX_IDLE_TIME_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public CachingToolingImplementationLoader(ToolingImplementationLoader loader, long maxIdleTime, TimeUnit maxIdleTimeUnits) {
         this.loader = loader;
+        this.maxIdleTimeMillis = maxIdleTimeUnits.toMillis(maxIdleTime);
     }
 
     public ConnectionVersion4 create(Distribution distribution) {
-        Set<File> classpath = new LinkedHashSet<File>(distribution.getToolingImplementationClasspath());
-        ConnectionVersion4 connection = connections.get(classpath);
-        if (connection == null) {
-            connection = loader.create(distribution);
-            connections.put(classpath, connection);
+        List<String> key = fingerprint(distribution.getToolingImplementationClasspath());
+        synchronized (this) {
+            releaseIdleImplementations();
+            CachedImplementation implementation = implementations.get(key);
+            if (implementation == null) {
+                implementation = new CachedImplementation(loader.create(distribution));
+                implementations.put(key, implementation);
+                connections.put(implementation.connection, implementation);
+            }
+            implementation.references++;
+            return implementation.connection;
+        }
+    }
+
+    public void release(ConnectionVersion4 connection) {
+        synchronized (this) {
+            CachedImplementation implementation = connections.get(connection);
+            if (implementation == null || implementation.references == 0) {
+                return;
+            }
+            implementation.references--;
+            if (implementation.references > 0) {
+                return;
+            }
+            implementation.idleSince = System.currentTimeMillis();
+            releaseIdleImplementations();
+            if (connections.containsKey(connection)) {
+                scheduleRelease();
+            }
+        }
+    }
+
+    private void scheduleRelease() {
+        if (timer == null) {
+            timer = new Timer("Tooling implementation cache", true);
         }
+        timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                synchronized (CachingToolingImplementationLoader.this) {
+                    releaseIdleImplementations();
+                }
+            }
+        }, maxIdleTimeMillis);
+    }
+
+    private void releaseIdleImplementations() {
+        long now = System.currentTimeMillis();
+        Iterator<CachedImplementation> iterator = implementations.values().iterator();
+        while (iterator.hasNext()) {
+            CachedImplementation implementation = iterator.next();
+            if (implementation.references == 0 && now - implementation.idleSince >= maxIdleTimeMillis) {
+                iterator.remove();
+                connections.remove(implementation.connection);
+                loader.release(implementation.connection);
+            }
+        }
+        if (implementations.isEmpty() && timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+    }
 
-        return connection;
+    private List<String> fingerprint(Set<File> classpath) {
+        List<String> fingerprint = new ArrayList<String>(classpath.size());
+        for (File file : classpath) {
+            fingerprint.add(file.getAbsolutePath() + ':' + file.length() + ':' + file.lastModified());
+        }
+        return fingerprint;
+    }
+
+    private static class CachedImplementation {
+        final ConnectionVersion4 connection;
+        int references;
+        long idleSince;
+
+        private CachedImplementation(ConnectionVersion4 connection) {
+            this.connection = connection;
+        }
     }
 }
@@ -24,7 +24,15 @@ import org.gradle.logging.internal.DefaultProgressLoggerFactory;
 import org.gradle.logging.internal.ProgressListener;
 import org.gradle.util.TrueTimeProvider;
 
+import java.util.concurrent.TimeUnit;
+
 public class ConnectorServiceRegistry extends DefaultServiceRegistry {
+    // Shared by all connections in this process
+    private static final ToolingImplementationLoader IMPLEMENTATION_LOADER = new CachingToolingImplementationLoader(
+            new DefaultToolingImplementationLoader(),
+            Long.getLong("org.gradle.tooling.implementation.maxIdleTime", CachingToolingImplementationLoader.DEFAULT_MAX_IDLE_TIME_MILLIS),
+            TimeUnit.MILLISECONDS);
+
     protected ListenerManager createListenerManager() {
         return new DefaultListenerManager();
     }
@@ -34,7 +42,7 @@ public class ConnectorServiceRegistry extends DefaultServiceRegistry {
     }
 
     protected ToolingImplementationLoader createToolingImplementationLoader() {
-        return new CachingToolingImplementationLoader(new DefaultToolingImplementationLoader());
+        return IMPLEMENTATION_LOADER;
     }
 
     protected ConnectionFactory createConnectionFactory() {
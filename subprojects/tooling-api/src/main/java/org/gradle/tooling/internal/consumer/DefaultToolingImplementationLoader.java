@@ -27,9 +27,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
+import java.util.Enumeration;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -57,13 +59,35 @@ public class DefaultToolingImplementationLoader implements ToolingImplementation
         }
     }
 
+    public void release(ConnectionVersion4 connection) {
+        connection.stop();
+    }
+
     private ClassLoader createImplementationClassLoader(Distribution distribution) {
         Set<File> implementationClasspath = distribution.getToolingImplementationClasspath();
         LOGGER.debug("Using tooling provider classpath: {}", implementationClasspath);
         URL[] urls = GFileUtils.toURLArray(implementationClasspath);
         FilteringClassLoader filteringClassLoader = new FilteringClassLoader(classLoader);
         filteringClassLoader.allowPackage("org.gradle.tooling.internal.protocol");
-        return new ObservableUrlClassLoader(filteringClassLoader, urls);
+        ObservableUrlClassLoader implementationClassLoader = new ObservableUrlClassLoader(filteringClassLoader, urls);
+        preloadClasspath(implementationClassLoader);
+        return implementationClassLoader;
+    }
+
+    /**
+     * Opens each jar of the classpath and reads its index, if any, up front. Otherwise, the jars are opened one at a time as class lookups fail to find
+     * classes in the jars opened so far.
+     */
+    private void preloadClasspath(ClassLoader classLoader) {
+        try {
+            Enumeration<URL> indexes = classLoader.getResources("META-INF/INDEX.LIST");
+            while (indexes.hasMoreElements()) {
+                indexes.nextElement();
+            }
+        } catch (IOException e) {
+            // Ignore. The jars are opened on demand instead
+            LOGGER.debug("Could not preload tooling provider classpath.", e);
+        }
     }
 
     private String loadImplementationClassName(ClassLoader classLoader, Distribution distribution) {
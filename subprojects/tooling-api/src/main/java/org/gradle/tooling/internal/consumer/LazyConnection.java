@@ -59,7 +59,7 @@ public class LazyConnection implements ConnectionVersion4 {
             lock.unlock();
         }
         if (connection != null) {
-            connection.stop();
+            implementationLoader.release(connection);
         }
     }
 
@@ -16,32 +16,171 @@
 package org.gradle.tooling.internal.consumer;
 
 import org.gradle.tooling.model.DomainObjectSet;
-import org.gradle.tooling.model.internal.ImmutableDomainObjectSet;
 import org.gradle.util.UncheckedException;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Adapts protocol objects to model types, using dynamic proxies. The mapping from each model method to the protocol method which implements it,
+ * and how its return value should be converted, is worked out once for each pair of model type and protocol class, and shared by all proxies.
+ * Collections of protocol objects are adapted lazily, as their elements are accessed.
+ */
 public class ProtocolToModelAdapter {
+    private static final Method EQUALS_METHOD;
+    private static final Method HASHCODE_METHOD;
+    private final Map<Class<?>, Constructor<?>> proxyConstructors = new HashMap<Class<?>, Constructor<?>>();
+    // The mappings refer to the protocol class, so are only weakly referenced here to allow the protocol class to be collected. The proxies
+    // hold on to the mappings for their protocol class
+    private final Map<Class<?>, WeakReference<ConcurrentMap<Method, MethodMapping>>> mappings = new WeakHashMap<Class<?>, WeakReference<ConcurrentMap<Method, MethodMapping>>>();
+
+    static {
+        try {
+            EQUALS_METHOD = Object.class.getMethod("equals", Object.class);
+            HASHCODE_METHOD = Object.class.getMethod("hashCode");
+        } catch (NoSuchMethodException e) {
+            throw UncheckedException.asUncheckedException(e);
+        }
+    }
+
     public <T, S> T adapt(Class<T> targetType, S protocolObject) {
-        return targetType.cast(Proxy.newProxyInstance(targetType.getClassLoader(), new Class<?>[]{targetType}, new InvocationHandlerImpl(protocolObject)));
+        InvocationHandlerImpl handler = new InvocationHandlerImpl(protocolObject, getMappings(protocolObject.getClass()));
+        try {
+            return targetType.cast(getProxyConstructor(targetType).newInstance(handler));
+        } catch (InvocationTargetException e) {
+            throw UncheckedException.asUncheckedException(e.getCause());
+        } catch (Exception e) {
+            throw UncheckedException.asUncheckedException(e);
+        }
     }
 
-    private class InvocationHandlerImpl implements InvocationHandler {
-        private final Object delegate;
-        private final Map<Method, Method> methods = new HashMap<Method, Method>();
-        private final Map<String, Object> properties = new HashMap<String, Object>();
-        private final Method equalsMethod;
-        private final Method hashCodeMethod;
+    private Constructor<?> getProxyConstructor(Class<?> targetType) throws NoSuchMethodException {
+        synchronized (proxyConstructors) {
+            Constructor<?> constructor = proxyConstructors.get(targetType);
+            if (constructor == null) {
+                constructor = Proxy.getProxyClass(targetType.getClassLoader(), targetType).getConstructor(InvocationHandler.class);
+                proxyConstructors.put(targetType, constructor);
+            }
+            return constructor;
+        }
+    }
 
-        public InvocationHandlerImpl(Object delegate) {
-            this.delegate = delegate;
+    private ConcurrentMap<Method, MethodMapping> getMappings(Class<?> protocolType) {
+        synchronized (mappings) {
+            WeakReference<ConcurrentMap<Method, MethodMapping>> reference = mappings.get(protocolType);
+            ConcurrentMap<Method, MethodMapping> protocolTypeMappings = reference == null ? null : reference.get();
+            if (protocolTypeMappings == null) {
+                protocolTypeMappings = new ConcurrentHashMap<Method, MethodMapping>();
+                mappings.put(protocolType, new WeakReference<ConcurrentMap<Method, MethodMapping>>(protocolTypeMappings));
+            }
+            return protocolTypeMappings;
+        }
+    }
+
+    private Object convert(Object value, Type targetType) {
+        if (targetType instanceof ParameterizedType) {
+            ParameterizedType parameterizedTargetType = (ParameterizedType) targetType;
+            if (parameterizedTargetType.getRawType().equals(DomainObjectSet.class)) {
+                Type targetElementType = getElementType(parameterizedTargetType);
+                List<Object> elements = new ArrayList<Object>();
+                for (Object element : (Iterable<?>) value) {
+                    elements.add(element);
+                }
+                return new AdaptingDomainObjectSet(elements, targetElementType);
+            }
+        }
+        if (targetType instanceof Class) {
+            return adapt((Class) targetType, value);
+        }
+        throw new UnsupportedOperationException(String.format("Cannot convert object of %s to %s.", value.getClass(), targetType));
+    }
+
+    private Type getElementType(ParameterizedType type) {
+        Type elementType = type.getActualTypeArguments()[0];
+        if (elementType instanceof WildcardType) {
+            WildcardType wildcardType = (WildcardType) elementType;
+            return wildcardType.getUpperBounds()[0];
+        }
+        return elementType;
+    }
+
+    /**
+     * How a model method is implemented by a protocol class.
+     */
+    private static class MethodMapping {
+        private final Method method;
+        private final Method targetMethod;
+        private final NoSuchMethodException missing;
+        private final boolean property;
+        private final Class<?> returnType;
+        private final Type genericReturnType;
+
+        private MethodMapping(Method method, Class<?> protocolType) {
+            this.method = method;
+            String name = method.getName();
+            property = name.startsWith("get") && name.length() > 3 && method.getParameterTypes().length == 0;
+            returnType = method.getReturnType();
+            genericReturnType = method.getGenericReturnType();
+            Method match;
+            NoSuchMethodException failure;
             try {
-                equalsMethod = Object.class.getMethod("equals", Object.class);
-                hashCodeMethod = Object.class.getMethod("hashCode");
+                match = findMethod(method, protocolType);
+                match.setAccessible(true);
+                failure = null;
             } catch (NoSuchMethodException e) {
-                throw UncheckedException.asUncheckedException(e);
+                match = null;
+                failure = e;
             }
+            targetMethod = match;
+            missing = failure;
+        }
+
+        /**
+         * Creates the failure for an invocation of a method which the protocol class does not implement.
+         */
+        private UnsupportedOperationException methodNotFound() {
+            return (UnsupportedOperationException) new UnsupportedOperationException(String.format(
+                    "Method not found. Please verify that the version of Gradle you connect to contains method: %s.%s()",
+                    method.getDeclaringClass().getSimpleName(), method.getName())).initCause(missing);
+        }
+
+        /**
+         * Finds the most general declaration of the method, so that it can be invoked even when the protocol class is not public.
+         */
+        private static Method findMethod(Method method, Class<?> protocolType) throws NoSuchMethodException {
+            Method match = protocolType.getMethod(method.getName(), method.getParameterTypes());
+
+            LinkedList<Class<?>> queue = new LinkedList<Class<?>>();
+            queue.add(protocolType);
+            while (!queue.isEmpty()) {
+                Class<?> c = queue.removeFirst();
+                try {
+                    match = c.getMethod(method.getName(), method.getParameterTypes());
+                } catch (NoSuchMethodException e) {
+                    // ignore
+                }
+                for (Class<?> interfaceType : c.getInterfaces()) {
+                    queue.addFirst(interfaceType);
+                }
+                if (c.getSuperclass() != null) {
+                    queue.addFirst(c.getSuperclass());
+                }
+            }
+            return match;
+        }
+    }
+
+    private class InvocationHandlerImpl implements InvocationHandler {
+        private final Object delegate;
+        private final ConcurrentMap<Method, MethodMapping> mappings;
+        private Map<Method, Object> properties;
+
+        public InvocationHandlerImpl(Object delegate, ConcurrentMap<Method, MethodMapping> mappings) {
+            this.delegate = delegate;
+            this.mappings = mappings;
         }
 
         @Override
@@ -63,105 +202,120 @@ public class ProtocolToModelAdapter {
         }
 
         public Object invoke(Object target, Method method, Object[] params) throws Throwable {
-            if (method.equals(equalsMethod)) {
+            if (method.equals(EQUALS_METHOD)) {
                 Object param = params[0];
                 if (param == null || !Proxy.isProxyClass(param.getClass())) {
                     return false;
                 }
                 InvocationHandler other = Proxy.getInvocationHandler(param);
                 return equals(other);
-            } else if (method.equals(hashCodeMethod)) {
+            } else if (method.equals(HASHCODE_METHOD)) {
                 return hashCode();
             }
 
-            if (method.getName().matches("get\\w+")) {
-                if (properties.containsKey(method.getName())) {
-                    return properties.get(method.getName());
+            MethodMapping mapping = mappings.get(method);
+            if (mapping == null) {
+                mapping = new MethodMapping(method, delegate.getClass());
+                mappings.put(method, mapping);
+            }
+
+            if (mapping.property) {
+                synchronized (this) {
+                    if (properties == null) {
+                        properties = new HashMap<Method, Object>();
+                    } else if (properties.containsKey(method)) {
+                        return properties.get(method);
+                    }
+                }
+                Object value = doInvokeMethod(mapping, params);
+                synchronized (this) {
+                    properties.put(method, value);
                 }
-                Object value = doInvokeMethod(method, params);
-                properties.put(method.getName(), value);
                 return value;
             }
 
-            return doInvokeMethod(method, params);
+            return doInvokeMethod(mapping, params);
         }
 
-        private Object doInvokeMethod(Method method, Object[] params) throws Throwable {
-            Method targetMethod = methods.get(method);
-            if (targetMethod == null) {
-                targetMethod = findMethod(method);
-                methods.put(method, targetMethod);
+        private Object doInvokeMethod(MethodMapping mapping, Object[] params) throws Throwable {
+            if (mapping.targetMethod == null) {
+                throw mapping.methodNotFound();
             }
 
             Object returnValue;
             try {
-                returnValue = targetMethod.invoke(delegate, params);
+                returnValue = mapping.targetMethod.invoke(delegate, params);
             } catch (InvocationTargetException e) {
                 throw e.getCause();
             }
 
-            if (returnValue == null || method.getReturnType().isInstance(returnValue)) {
+            if (returnValue == null || mapping.returnType.isInstance(returnValue)) {
                 return returnValue;
             }
 
-            return convert(returnValue, method.getGenericReturnType());
+            return convert(returnValue, mapping.genericReturnType);
         }
+    }
 
-        private Method findMethod(Method method) {
-            Method match;
-            try {
-                match = delegate.getClass().getMethod(method.getName(), method.getParameterTypes());
-            } catch (NoSuchMethodException e) {
-                throw new UnsupportedOperationException(String.format(
-                        "Method not found. Please verify that the version of Gradle you connect to contains method: %s.%s()"
-                        , method.getDeclaringClass().getSimpleName(), method.getName(), delegate.getClass().getSimpleName()), e);
-            }
+    /**
+     * A {@link DomainObjectSet} which adapts each of the protocol objects it contains the first time that element is accessed.
+     */
+    private class AdaptingDomainObjectSet extends AbstractSet<Object> implements DomainObjectSet<Object> {
+        private final List<Object> protocolElements;
+        private final Object[] elements;
+        private final Type elementType;
 
-            LinkedList<Class<?>> queue = new LinkedList<Class<?>>();
-            queue.add(delegate.getClass());
-            while (!queue.isEmpty()) {
-                Class<?> c = queue.removeFirst();
-                try {
-                    match = c.getMethod(method.getName(), method.getParameterTypes());
-                } catch (NoSuchMethodException e) {
-                    // ignore
+        private AdaptingDomainObjectSet(List<Object> protocolElements, Type elementType) {
+            this.protocolElements = protocolElements;
+            this.elementType = elementType;
+            elements = new Object[protocolElements.size()];
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            return new Iterator<Object>() {
+                int next;
+
+                public boolean hasNext() {
+                    return next < elements.length;
                 }
-                for (Class<?> interfaceType : c.getInterfaces()) {
-                    queue.addFirst(interfaceType);
+
+                public Object next() {
+                    if (next >= elements.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return getAt(next++);
                 }
-                if (c.getSuperclass() !=null) {
-                    queue.addFirst(c.getSuperclass());
+
+                public void remove() {
+                    throw new UnsupportedOperationException();
                 }
-            }
-            match.setAccessible(true);
-            return match;
+            };
         }
 
-        private Object convert(Object value, Type targetType) {
-            if (targetType instanceof ParameterizedType) {
-                ParameterizedType parameterizedTargetType = (ParameterizedType) targetType;
-                if (parameterizedTargetType.getRawType().equals(DomainObjectSet.class)) {
-                    Type targetElementType = getElementType(parameterizedTargetType);
-                    List<Object> convertedElements = new ArrayList<Object>();
-                    for (Object element : (Iterable) value) {
-                        convertedElements.add(convert(element, targetElementType));
-                    }
-                    return new ImmutableDomainObjectSet(convertedElements);
-                }
+        @Override
+        public int size() {
+            return elements.length;
+        }
+
+        public synchronized Object getAt(int index) throws IndexOutOfBoundsException {
+            if (index < 0 || index >= elements.length) {
+                throw new IndexOutOfBoundsException(String.format("Index: %s, Size: %s", index, elements.length));
             }
-            if (targetType instanceof Class) {
-                return adapt((Class) targetType, value);
+            Object element = elements[index];
+            if (element == null) {
+                element = convert(protocolElements.get(index), elementType);
+                elements[index] = element;
             }
-            throw new UnsupportedOperationException(String.format("Cannot convert object of %s to %s.", value.getClass(), targetType));
+            return element;
         }
 
-        private Type getElementType(ParameterizedType type) {
-            Type elementType = type.getActualTypeArguments()[0];
-            if (elementType instanceof WildcardType) {
-                WildcardType wildcardType = (WildcardType) elementType;
-                return wildcardType.getUpperBounds()[0];
+        public List<Object> getAll() {
+            List<Object> all = new ArrayList<Object>(elements.length);
+            for (int i = 0; i < elements.length; i++) {
+                all.add(getAt(i));
             }
-            return elementType;
+            return all;
         }
     }
 }
@@ -19,4 +19,9 @@ import org.gradle.tooling.internal.protocol.ConnectionVersion4;
 
 public interface ToolingImplementationLoader {
     ConnectionVersion4 create(Distribution distribution);
+
+    /**
+     * Releases a connection created by this loader. The connection should not be used after it has been released.
+     */
+    void release(ConnectionVersion4 connection);
 }
@@ -18,6 +18,8 @@ package org.gradle.tooling.internal.consumer
 import org.gradle.tooling.internal.protocol.ConnectionVersion4
 import spock.lang.Specification
 
+import java.util.concurrent.TimeUnit
+
 class CachingToolingImplementationLoaderTest extends Specification {
     final ToolingImplementationLoader target = Mock()
     final CachingToolingImplementationLoader loader = new CachingToolingImplementationLoader(target)
@@ -71,4 +73,61 @@ class CachingToolingImplementationLoaderTest extends Specification {
         _ * distribution2.toolingImplementationClasspath >> ([new File('b.jar')] as Set)
         0 * _._
     }
+
+    def keepsImplementationUntilReleasedByAllConnections() {
+        ConnectionVersion4 connectionImpl = Mock()
+        final Distribution distribution = Mock()
+        def loader = new CachingToolingImplementationLoader(target, 0, TimeUnit.MILLISECONDS)
+
+        when:
+        def impl = loader.create(distribution)
+        loader.create(distribution)
+        loader.release(impl)
+
+        then:
+        1 * target.create(distribution) >> connectionImpl
+        _ * distribution.toolingImplementationClasspath >> ([new File('a.jar')] as Set)
+        0 * _._
+
+        when:
+        loader.release(impl)
+
+        then:
+        1 * target.release(connectionImpl)
+        0 * _._
+    }
+
+    def createsNewImplementationAfterIdleImplementationHasBeenReleased() {
+        ConnectionVersion4 connectionImpl1 = Mock()
+        ConnectionVersion4 connectionImpl2 = Mock()
+        final Distribution distribution = Mock()
+        def loader = new CachingToolingImplementationLoader(target, 0, TimeUnit.MILLISECONDS)
+
+        when:
+        loader.release(loader.create(distribution))
+        def impl = loader.create(distribution)
+
+        then:
+        impl == connectionImpl2
+        1 * target.create(distribution) >> connectionImpl1
+        1 * target.release(connectionImpl1)
+        1 * target.create(distribution) >> connectionImpl2
+        _ * distribution.toolingImplementationClasspath >> ([new File('a.jar')] as Set)
+        0 * _._
+    }
+
+    def reusesIdleImplementationBeforeMaxIdleTimeHasPassed() {
+        ConnectionVersion4 connectionImpl = Mock()
+        final Distribution distribution = Mock()
+
+        when:
+        loader.release(loader.create(distribution))
+        def impl = loader.create(distribution)
+
+        then:
+        impl == connectionImpl
+        1 * target.create(distribution) >> connectionImpl
+        _ * distribution.toolingImplementationClasspath >> ([new File('a.jar')] as Set)
+        0 * _._
+    }
 }
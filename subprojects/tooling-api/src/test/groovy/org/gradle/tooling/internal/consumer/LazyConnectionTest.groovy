@@ -61,7 +61,7 @@ class LazyConnectionTest extends Specification {
         0 * _._
     }
 
-    def stopsConnectionOnStop() {
+    def releasesConnectionOnStop() {
         when:
         connection.getModel(ProjectVersion3, params)
         connection.stop()
@@ -69,11 +69,11 @@ class LazyConnectionTest extends Specification {
         then:
         1 * implementationLoader.create(distribution) >> connectionImpl
         1 * connectionImpl.getModel(ProjectVersion3, params)
-        1 * connectionImpl.stop()
+        1 * implementationLoader.release(connectionImpl)
         0 * _._
     }
 
-    def doesNotStopConnectionOnStopIfNotCreated() {
+    def doesNotReleaseConnectionOnStopIfNotCreated() {
         when:
         connection.stop()
 
@@ -81,7 +81,7 @@ class LazyConnectionTest extends Specification {
         0 * _._
     }
 
-    def doesNotStopConnectionOnStopIfConnectionCouldNotBeCreated() {
+    def doesNotReleaseConnectionOnStopIfConnectionCouldNotBeCreated() {
         def failure = new RuntimeException()
 
         when:
@@ -85,6 +85,36 @@ class ProtocolToModelAdapterTest extends Specification {
         model.children[0].name == 'name'
     }
 
+    def adaptsElementsOfDomainObjectSetWhenTheyAreAccessed() {
+        TestProtocolModel protocolModel = Mock()
+        TestProtocolProject protocolProject1 = Mock()
+        TestProtocolProject protocolProject2 = Mock()
+        _ * protocolModel.getChildren() >> [protocolProject1, protocolProject2]
+
+        when:
+        def model = adapter.adapt(TestModel.class, protocolModel)
+        def children = model.children
+        def name = children[1].name
+
+        then:
+        children.size() == 2
+        name == 'name'
+        1 * protocolProject2.getName() >> 'name'
+        0 * protocolProject1._
+    }
+
+    def sharesMethodMappingsBetweenProxiesForSameProtocolClass() {
+        TestProtocolModel protocolModel1 = Mock()
+        TestProtocolModel protocolModel2 = Mock()
+        _ * protocolModel1.getName() >> 'name1'
+        _ * protocolModel2.getName() >> 'name2'
+
+        expect:
+        adapter.adapt(TestModel.class, protocolModel1).name == 'name1'
+        adapter.adapt(TestModel.class, protocolModel2).name == 'name2'
+        adapter.adapt(TestProject.class, protocolModel1).name == 'name1'
+    }
+
     def cachesPropertyValues() {
         TestProtocolModel protocolModel = Mock()
         TestProtocolProject protocolProject = Mock()
@@ -109,6 +139,27 @@ class ProtocolToModelAdapterTest extends Specification {
         UnsupportedOperationException e = thrown()
         e.message.contains "TestModel.getProject()"
         e.message.contains "Method not found"
+        e.cause instanceof NoSuchMethodException
+    }
+
+    def createsNewFailureForEachInvocationOfMethodWhichDoesNotExist() {
+        PartialTestProtocolModel protocolModel = Mock()
+        def model = adapter.adapt(TestModel.class, protocolModel)
+        def other = adapter.adapt(TestModel.class, protocolModel)
+
+        when:
+        model.project
+
+        then:
+        UnsupportedOperationException first = thrown()
+
+        when:
+        other.project
+
+        then:
+        UnsupportedOperationException second = thrown()
+        !second.is(first)
+        second.cause instanceof NoSuchMethodException
     }
 
     def propagatesExceptionThrownByProtocolObject() {
@@ -24,6 +24,9 @@ import java.util.List;
  * This is a special type of OutputParser. It handles tracking live output. The unique thing about live output is that we're not guaranteed to get whole lines. Also, we don't want to parse parts that
  * have already been parsed. This holds onto the output until a newline is reached, then parses it. It also tracks the overall index into the output (even though its only parsing a part of it).
  *
+ * The FileLinks are held in the order they appear in the output, and do not overlap, so they're found using a binary search. Old output can be discarded using discardLeadingText, so that a long
+ * running build doesn't hold onto all of its output.
+ *
  * @author mhunsicker
  */
 public class LiveOutputParser {
@@ -86,6 +89,27 @@ public class LiveOutputParser {
         return Collections.unmodifiableList(fileLinks);
     }
 
+    /**
+     * This discards the specified amount of text from the start of the output, along with any FileLinks within it. The indices of the remaining text and FileLinks are moved down accordingly.
+     *
+     * @param length the amount of text to discard.
+     */
+    public void discardLeadingText(int length) {
+        length = Math.min(length, totalTextToParse.length());
+        if (length <= 0) {
+            return;
+        }
+
+        totalTextToParse.delete(0, length);
+        lastNewline = Math.max(0, lastNewline - length);
+
+        fileLinks.subList(0, indexOfFirstFileLinkStartingAtOrAfter(length)).clear();
+        Iterator<FileLink> iterator = fileLinks.iterator();
+        while (iterator.hasNext()) {
+            iterator.next().move(-length);
+        }
+    }
+
     /**
      * This gets the fileLink at the specified index in the text.
      *
@@ -97,13 +121,15 @@ public class LiveOutputParser {
             return null;
         }
 
-        Iterator<FileLink> iterator = fileLinks.iterator();
+        //the only FileLink that can contain the index is the last one starting at or before it
+        int candidate = indexOfFirstFileLinkStartingAtOrAfter(index + 1) - 1;
+        if (candidate < 0) {
+            return null;
+        }
 
-        while (iterator.hasNext()) {
-            FileLink fileLink = iterator.next();
-            if (fileLink.getStartingIndex() <= index && fileLink.getEndingIndex() >= index) {
-                return fileLink;
-            }
+        FileLink fileLink = fileLinks.get(candidate);
+        if (fileLink.getEndingIndex() >= index) {
+            return fileLink;
         }
 
         return null;
@@ -121,15 +147,19 @@ public class LiveOutputParser {
             return null;
         }
 
-        //walk them in reverse order
-        for (int index = fileLinks.size() - 1; index >= 0; index--) {
-            FileLink fileLink = fileLinks.get(index);
-            if (fileLink.getEndingIndex() < caretLocation) {
-                return fileLink;
+        //FileLinks don't overlap, so they're ordered by their ending index as well as their starting index
+        int low = 0;
+        int high = fileLinks.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (fileLinks.get(middle).getEndingIndex() < caretLocation) {
+                low = middle + 1;
+            } else {
+                high = middle;
             }
         }
 
-        return fileLinks.get(fileLinks.size() - 1);
+        return fileLinks.get(low > 0 ? low - 1 : fileLinks.size() - 1);
     }
 
     /**
@@ -140,14 +170,24 @@ public class LiveOutputParser {
             return null;
         }
 
-        Iterator<FileLink> iterator = fileLinks.iterator();
-        while (iterator.hasNext()) {
-            FileLink fileLink = iterator.next();
-            if (fileLink.getStartingIndex() > caretLocation) {
-                return fileLink;
+        int index = indexOfFirstFileLinkStartingAtOrAfter(caretLocation + 1);
+        return fileLinks.get(index < fileLinks.size() ? index : 0);
+    }
+
+    /**
+     * Returns the index of the first FileLink that starts at or after the specified index into the text, or the number of FileLinks if there is no such FileLink.
+     */
+    private int indexOfFirstFileLinkStartingAtOrAfter(int textIndex) {
+        int low = 0;
+        int high = fileLinks.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (fileLinks.get(middle).getStartingIndex() < textIndex) {
+                low = middle + 1;
+            } else {
+                high = middle;
             }
         }
-
-        return fileLinks.get(0);
+        return low;
     }
 }
@@ -94,6 +94,9 @@ public class OutputPanel extends JPanel implements ExecuteGradleCommandServerPro
     private boolean onlyShowOutputOnErrors;
     private boolean wasStopped;   //whether or not execution has been stopped by the user
 
+    private final StringBuilder pendingOutput = new StringBuilder();  //output that has not been added to the text pane yet
+    private boolean isOutputFlushScheduled;   //guarded by pendingOutput
+
     private Request request;
     private JButton nextLinkButton;
     private JButton previousLinkButton;
@@ -434,8 +437,24 @@ public class OutputPanel extends JPanel implements ExecuteGradleCommandServerPro
      * @param text the text to add
      */
     private void appendGradleOutput(final String text) {
+        //Gradle generates output in many small pieces. Rather than update the document for each one, we collect them and
+        //add everything that has arrived to the document in a single update.
+        synchronized (pendingOutput) {
+            pendingOutput.append(text);
+            if (isOutputFlushScheduled) {
+                return;
+            }
+            isOutputFlushScheduled = true;
+        }
+
         SwingUtilities.invokeLater(new Runnable() {
             public void run() {
+                String text;
+                synchronized (pendingOutput) {
+                    text = pendingOutput.toString();
+                    pendingOutput.setLength(0);
+                    isOutputFlushScheduled = false;
+                }
                 gradleOutputTextPane.appendText(text);
                 updateLinkNavigationOptions();
             }
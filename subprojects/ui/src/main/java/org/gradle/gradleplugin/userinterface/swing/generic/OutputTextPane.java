@@ -34,9 +34,12 @@ import java.util.Iterator;
 import java.io.File;
 
 /**
- * Rich text pane meant to simplify adding text, scrolling, prevent line wrapping, and highlighting FileLinks.
+ * Rich text pane meant to simplify adding text, scrolling, prevent line wrapping, and highlighting FileLinks. This only retains a limited amount of text. When the text grows beyond this limit, the
+ * oldest lines are removed.
  */
 public class OutputTextPane {
+    public static final int DEFAULT_MAXIMUM_TEXT_LENGTH = 2 * 1024 * 1024;
+
     private JScrollPane scroll;
     private final TextPane textPane;
     private DefaultStyledDocument document;
@@ -54,6 +57,8 @@ public class OutputTextPane {
 
     private JPopupMenu popupMenu;
 
+    private int maximumTextLength = DEFAULT_MAXIMUM_TEXT_LENGTH;
+
     /**
      * This allows us to interact with our parent control.
      */
@@ -164,6 +169,20 @@ public class OutputTextPane {
         return textPane.getText();
     }
 
+    public int getMaximumTextLength() {
+        return maximumTextLength;
+    }
+
+    /**
+     * Sets the maximum amount of text this control retains. When the text grows beyond this, the oldest lines are removed.
+     *
+     * @param maximumTextLength the maximum number of characters to retain.
+     */
+    public void setMaximumTextLength(int maximumTextLength) {
+        this.maximumTextLength = maximumTextLength;
+        discardExcessText();
+    }
+
     /**
      * When a user clicks, we determine if a FileLink was clicked on and if so, notify our interaction.
      */
@@ -279,6 +298,8 @@ public class OutputTextPane {
             highlightFileLinks(fileLinks);
         }
 
+        discardExcessText();
+
         if (shouldScroll) {
             SwingUtilities.invokeLater(new Runnable() {
                 public void run() {
@@ -288,6 +309,28 @@ public class OutputTextPane {
         }
     }
 
+    /**
+     * This removes the oldest lines once the text has grown beyond the maximum length. We remove enough that we'll have room for a good amount of new text before we need to do this again, as removing
+     * text from the start of the document (and moving the FileLinks) isn't cheap.
+     */
+    private void discardExcessText() {
+        int length = document.getLength();
+        if (length <= maximumTextLength) {
+            return;
+        }
+
+        int excess = length - maximumTextLength * 3 / 4;
+        try {
+            //remove whole lines, so we don't leave a partial line at the top. If there's no newline, this just removes the excess.
+            String remainingText = document.getText(excess, length - excess);
+            int lengthToRemove = excess + remainingText.indexOf('\n') + 1;
+            document.remove(0, lengthToRemove);
+            liveOutputParser.discardLeadingText(lengthToRemove);
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * This applies a text style to the text where the FileLinks are. This makes them appear to be clickable hotspots.
      *
@@ -252,4 +252,50 @@ public class LiveOutputParserTests extends TestCase {
         appendTextWithFileLinks("/home/user/modules/gradle/subprojects/gradle-core/src/main/groovy/org/gradle/util/exec/ExecHandleShutdownHookAction.java:38: 'if' construct must use '{}'s.\n",
                 fileLink3);
     }
+
+    /**
+     * This tests looking up FileLinks by their position in the text, including the lookups used to move between FileLinks.
+     */
+    public void testFindingFileLinks() {
+        FileLink fileLink1 = new FileLink(new File("/home/user/first.java"), 6, 29, 1);
+        FileLink fileLink2 = new FileLink(new File("/home/user/second.java"), 37, 61, 2);
+
+        appendTextWithoutFileLinks("start\n");
+        appendTextWithFileLinks("/home/user/first.java:1\nmiddle\n", fileLink1);
+        appendTextWithFileLinks("/home/user/second.java:2\nend\n", fileLink2);
+
+        assertNull(parser.getFileLink(5));
+        assertEquals(fileLink1, parser.getFileLink(6));
+        assertEquals(fileLink1, parser.getFileLink(29));
+        assertNull(parser.getFileLink(30));
+        assertEquals(fileLink2, parser.getFileLink(40));
+        assertNull(parser.getFileLink(1000));
+
+        assertEquals(fileLink1, parser.getNextFileLink(0));
+        assertEquals(fileLink2, parser.getNextFileLink(6));
+        assertEquals(fileLink1, parser.getNextFileLink(40));   //cycles around to the first one
+        assertEquals(fileLink2, parser.getPreviousFileLink(0));   //cycles around to the last one
+        assertEquals(fileLink1, parser.getPreviousFileLink(30));
+        assertEquals(fileLink2, parser.getPreviousFileLink(62));
+    }
+
+    /**
+     * This tests discarding old output. The FileLinks within the discarded text should be removed and the remaining ones should be moved so they still match the text.
+     */
+    public void testDiscardingLeadingText() {
+        FileLink fileLink1 = new FileLink(new File("/home/user/first.java"), 6, 29, 1);
+        FileLink fileLink2 = new FileLink(new File("/home/user/second.java"), 7, 31, 2);
+
+        appendTextWithoutFileLinks("start\n");
+        appendTextWithFileLinks("/home/user/first.java:1\nmiddle\n", fileLink1);
+
+        parser.discardLeadingText(30);
+        assertEquals("middle\n", parser.getText());
+        TestUtility.assertListContents(parser.getFileLinks());
+        assertNull(parser.getFileLink(6));
+
+        appendTextWithFileLinks("/home/user/second.java:2\nend\n", fileLink2);
+        TestUtility.assertListContents(parser.getFileLinks(), fileLink2);
+        assertEquals(fileLink2, parser.getFileLink(10));
+    }
 }
@@ -20,6 +20,7 @@ import org.gradle.api.DefaultTask;
 import org.gradle.api.GradleException;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.util.DistributionLocator;
@@ -51,6 +52,7 @@ public class Wrapper extends DefaultTask {
     static final String ZIP_STORE_BASE_PROPERTY = "zipStoreBase";
     static final String DISTRIBUTION_PATH_PROPERTY = "distributionPath";
     static final String ZIP_STORE_PATH_PROPERTY = "zipStorePath";
+    static final String DISTRIBUTION_SHA256_SUM_PROPERTY = "distributionSha256Sum";
 
     public static final String DEFAULT_DISTRIBUTION_PARENT_NAME = "wrapper/dists";
     public static final String DEFAULT_ARCHIVE_NAME = "gradle";
@@ -58,6 +60,8 @@ public class Wrapper extends DefaultTask {
 
     private String distributionUrl;
 
+    private String distributionSha256Sum;
+
     /**
      * Specifies how the wrapper path should be interpreted.
      */
@@ -133,6 +137,9 @@ public class Wrapper extends DefaultTask {
         wrapperProperties.put(DISTRIBUTION_PATH_PROPERTY, distributionPath);
         wrapperProperties.put(ZIP_STORE_BASE_PROPERTY, archiveBase.toString());
         wrapperProperties.put(ZIP_STORE_PATH_PROPERTY, archivePath);
+        if (distributionSha256Sum != null) {
+            wrapperProperties.put(DISTRIBUTION_SHA256_SUM_PROPERTY, distributionSha256Sum);
+        }
         GUtil.saveProperties(wrapperProperties, propertiesFileDestination);
     }
 
@@ -276,6 +283,21 @@ public class Wrapper extends DefaultTask {
         this.distributionUrl = url;
     }
 
+    /**
+     * The SHA-256 checksum of the gradle distribution, as a hex string. The wrapper verifies the downloaded
+     * distribution against this checksum, and refuses to use a distribution which does not match it.
+     *
+     * <p>If not set, the downloaded distribution is not verified.
+     */
+    @Input @Optional
+    public String getDistributionSha256Sum() {
+        return distributionSha256Sum;
+    }
+
+    public void setDistributionSha256Sum(String distributionSha256Sum) {
+        this.distributionSha256Sum = distributionSha256Sum;
+    }
+
     /**
      * The base URL to download the gradle distribution from.
      *
@@ -17,6 +17,7 @@
 package org.gradle.wrapper;
 
 import java.io.*;
+import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
@@ -27,26 +28,41 @@ import java.net.URLConnection;
 public class Download implements IDownload {
     private static final int PROGRESS_CHUNK = 20000;
     private static final int BUFFER_SIZE = 10000;
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
 
-    public void download(URI address, File destination) throws Exception {
-        if (destination.exists()) {
-            return;
-        }
+    public void download(URI address, File destination, OutputStream content) throws Exception {
         destination.getParentFile().mkdirs();
 
-        downloadInternal(address, destination);
+        downloadInternal(address, destination, content);
     }
 
-    private void downloadInternal(URI address, File destination) throws Exception {
+    private void downloadInternal(URI address, File destination, OutputStream content) throws Exception {
         OutputStream out = null;
         URLConnection conn;
         InputStream in = null;
         try {
             URL url = address.toURL();
-            out = new BufferedOutputStream(
-                    new FileOutputStream(destination));
             conn = url.openConnection();
+            long existingLength = destination.isFile() ? destination.length() : 0;
+            if (existingLength > 0) {
+                conn.setRequestProperty("Range", "bytes=" + existingLength + "-");
+            }
+            if (existingLength > 0 && conn instanceof HttpURLConnection
+                    && ((HttpURLConnection) conn).getResponseCode() == HTTP_RANGE_NOT_SATISFIABLE) {
+                // The existing content is not the start of the resource, so start again
+                ((HttpURLConnection) conn).disconnect();
+                destination.delete();
+                downloadInternal(address, destination, content);
+                return;
+            }
             in = conn.getInputStream();
+            boolean resume = existingLength > 0 && conn instanceof HttpURLConnection
+                    && ((HttpURLConnection) conn).getResponseCode() == HttpURLConnection.HTTP_PARTIAL;
+            if (resume) {
+                System.out.println("Resuming download after " + existingLength + " bytes");
+                copyExistingContent(destination, content);
+            }
+            out = new BufferedOutputStream(new FileOutputStream(destination, resume));
             byte[] buffer = new byte[BUFFER_SIZE];
             int numRead;
             long progressCounter = 0;
@@ -57,6 +73,7 @@ public class Download implements IDownload {
                     progressCounter = progressCounter - PROGRESS_CHUNK;
                 }
                 out.write(buffer, 0, numRead);
+                content.write(buffer, 0, numRead);
             }
         } finally {
             System.out.println("");
@@ -69,5 +86,16 @@ public class Download implements IDownload {
         }
     }
 
-
+    private void copyExistingContent(File destination, OutputStream content) throws IOException {
+        InputStream in = new FileInputStream(destination);
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int numRead;
+            while ((numRead = in.read(buffer)) != -1) {
+                content.write(buffer, 0, numRead);
+            }
+        } finally {
+            in.close();
+        }
+    }
 }
@@ -16,11 +16,19 @@
 package org.gradle.wrapper;
 
 import java.io.File;
+import java.io.OutputStream;
 import java.net.URI;
 
 /**
  * @author Hans Dockter
  */
 public interface IDownload {
-    void download(URI address, File destination) throws Exception;
+    /**
+     * Downloads the given resource to the given file. When the file already exists, it is treated as the start of the
+     * resource, and the download resumes from its end, if the server supports this. Otherwise, the file is replaced.
+     *
+     * @param content Receives the content of the resource, from its first byte, as it is downloaded. This includes the
+     * content already in the file when the download is resumed. Is not closed.
+     */
+    void download(URI address, File destination, OutputStream content) throws Exception;
 }
@@ -19,13 +19,23 @@ package org.gradle.wrapper;
 import org.gradle.util.SystemProperties;
 
 import java.io.*;
+import java.lang.reflect.Method;
+import java.math.BigInteger;
 import java.net.URI;
-import java.util.Enumeration;
+import java.nio.channels.FileLock;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.Locale;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 /**
+ * <p>Installs a Gradle distribution. The distribution zip is unzipped while it is being downloaded, and its SHA-256
+ * checksum is verified when a checksum is provided. An interrupted download is resumed, when the server supports it.</p>
+ *
+ * <p>The distribution is unzipped into a temporary directory, which is renamed to the Gradle home directory once the
+ * distribution has been completely unzipped and verified, so that an existing Gradle home directory is always a
+ * complete distribution. The installation holds a lock on a file next to the Gradle home directory, so that several
+ * processes which share a distribution directory do not install the same distribution at the same time.</p>
+ *
  * @author Hans Dockter
  */
 public class Install {
@@ -42,60 +52,174 @@ public class Install {
     }
 
     public File createDist(URI distributionUrl, String distBase, String distPath, String zipBase, String zipPath) throws Exception {
+        return createDist(distributionUrl, distBase, distPath, zipBase, zipPath, null);
+    }
+
+    /**
+     * Installs the given distribution, if required, and returns its Gradle home directory.
+     *
+     * @param sha256Sum The expected SHA-256 checksum of the distribution zip, as a hex string. May be null, in which
+     * case the checksum is not verified.
+     */
+    public File createDist(URI distributionUrl, String distBase, String distPath, String zipBase, String zipPath, String sha256Sum) throws Exception {
         File gradleHome = pathAssembler.gradleHome(distBase, distPath, distributionUrl);
         if (!alwaysDownload && !alwaysUnpack && gradleHome.isDirectory()) {
             return gradleHome;
         }
-        File localZipFile = pathAssembler.distZip(zipBase, zipPath, distributionUrl);
-        if (alwaysDownload || !localZipFile.exists()) {
-            File tmpZipFile = new File(localZipFile.getParentFile(), localZipFile.getName() + ".part");
-            tmpZipFile.delete();
-            System.out.println("Downloading " + distributionUrl);
-            download.download(distributionUrl, tmpZipFile);
-            tmpZipFile.renameTo(localZipFile);
-        }
-        if (gradleHome.isDirectory()) {
-            System.out.println("Deleting directory " + gradleHome.getAbsolutePath());
-            deleteDir(gradleHome);
+        File distDest = gradleHome.getParentFile();
+        distDest.mkdirs();
+        RandomAccessFile lockFile = new RandomAccessFile(new File(distDest, gradleHome.getName() + ".lck"), "rw");
+        try {
+            FileLock lock = lockFile.getChannel().lock();
+            try {
+                if (!alwaysDownload && !alwaysUnpack && gradleHome.isDirectory()) {
+                    // Installed by another process while we were waiting for the lock
+                    return gradleHome;
+                }
+                install(distributionUrl, gradleHome, pathAssembler.distZip(zipBase, zipPath, distributionUrl), sha256Sum);
+                return gradleHome;
+            } finally {
+                lock.release();
+            }
+        } finally {
+            lockFile.close();
         }
+    }
+
+    private void install(URI distributionUrl, File gradleHome, File localZipFile, String sha256Sum) throws Exception {
         File distDest = gradleHome.getParentFile();
-        System.out.println("Unzipping " + localZipFile.getAbsolutePath() + " to " + distDest.getAbsolutePath());
-        unzip(localZipFile, distDest);
-        if (!gradleHome.isDirectory()) {
+        File unpackDir = new File(distDest, gradleHome.getName() + ".unpack");
+        deleteDir(unpackDir);
+        unpackDir.mkdirs();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            if (alwaysDownload || !localZipFile.exists()) {
+                File tmpZipFile = new File(localZipFile.getParentFile(), localZipFile.getName() + ".part");
+                if (alwaysDownload) {
+                    tmpZipFile.delete();
+                }
+                tmpZipFile.getParentFile().mkdirs();
+                System.out.println("Downloading " + distributionUrl);
+                System.out.println("Unzipping to " + distDest.getAbsolutePath());
+                UnzippingOutputStream unzipper = new UnzippingOutputStream(unpackDir);
+                try {
+                    download.download(distributionUrl, tmpZipFile, new DigestOutputStream(unzipper, digest));
+                } catch (Exception e) {
+                    // Keep the partial download, so that it can be resumed, and report the download failure rather
+                    // than the failure to unzip the incomplete content
+                    try {
+                        unzipper.close();
+                    } catch (IOException closeFailure) {
+                        // Ignore
+                    }
+                    throw e;
+                }
+                try {
+                    unzipper.close();
+                } catch (IOException e) {
+                    tmpZipFile.delete();
+                    throw e;
+                }
+                try {
+                    verifyChecksum(distributionUrl, sha256Sum, digest);
+                } catch (RuntimeException e) {
+                    tmpZipFile.delete();
+                    throw e;
+                }
+                localZipFile.delete();
+                if (!tmpZipFile.renameTo(localZipFile)) {
+                    throw new IOException(String.format("Could not rename '%s' to '%s'.", tmpZipFile, localZipFile));
+                }
+            } else {
+                System.out.println("Unzipping " + localZipFile.getAbsolutePath() + " to " + distDest.getAbsolutePath());
+                OutputStream unzipper = new DigestOutputStream(new UnzippingOutputStream(unpackDir), digest);
+                try {
+                    copyInputStream(new FileInputStream(localZipFile), unzipper);
+                } finally {
+                    unzipper.close();
+                }
+                try {
+                    verifyChecksum(distributionUrl, sha256Sum, digest);
+                } catch (RuntimeException e) {
+                    localZipFile.delete();
+                    throw e;
+                }
+            }
+
+            File unpackedHome = new File(unpackDir, gradleHome.getName());
+            if (!unpackedHome.isDirectory()) {
+                throw new RuntimeException(String.format(
+                        "Gradle distribution '%s' does not contain expected root directory '%s'.", distributionUrl,
+                        gradleHome.getName()));
+            }
+            setExecutablePermissions(unpackedHome);
+            if (gradleHome.exists()) {
+                System.out.println("Deleting directory " + gradleHome.getAbsolutePath());
+                deleteDir(gradleHome);
+            }
+            if (!unpackedHome.renameTo(gradleHome)) {
+                throw new IOException(String.format("Could not rename '%s' to '%s'.", unpackedHome, gradleHome));
+            }
+        } finally {
+            deleteDir(unpackDir);
+        }
+    }
+
+    private void verifyChecksum(URI distributionUrl, String sha256Sum, MessageDigest digest) {
+        String actual = String.format("%064x", new BigInteger(1, digest.digest()));
+        if (sha256Sum != null && !sha256Sum.trim().equalsIgnoreCase(actual)) {
             throw new RuntimeException(String.format(
-                    "Gradle distribution '%s' does not contain expected root directory '%s'.", distributionUrl,
-                    gradleHome.getName()));
+                    "Verification of Gradle distribution '%s' failed. Expected SHA-256 checksum %s but was %s.",
+                    distributionUrl, sha256Sum.trim(), actual));
         }
-        setExecutablePermissions(gradleHome);
-        return gradleHome;
     }
 
     private void setExecutablePermissions(File gradleHome) {
         if (isWindows()) {
             return;
         }
-        File gradleCommand = new File(gradleHome, "bin/gradle");
+        File[] commands = new File(gradleHome, "bin").listFiles();
+        if (commands == null) {
+            return;
+        }
+        for (File command : commands) {
+            if (command.isFile() && !command.getName().endsWith(".bat")) {
+                setExecutable(command);
+            }
+        }
+    }
+
+    private void setExecutable(File command) {
         String errorMessage = null;
+        Method setExecutable = null;
+        try {
+            // Java 6 and later
+            setExecutable = File.class.getMethod("setExecutable", boolean.class, boolean.class);
+        } catch (NoSuchMethodException e) {
+            // Java 5, so use chmod instead
+        }
         try {
-            ProcessBuilder pb = new ProcessBuilder("chmod", "755", gradleCommand.getCanonicalPath());
-            Process p = pb.start();
-            if (p.waitFor() == 0) {
-                System.out.println("Set executable permissions for: " + gradleCommand.getAbsolutePath());
+            if (setExecutable != null) {
+                if (!(Boolean) setExecutable.invoke(command, true, false)) {
+                    errorMessage = "Permission denied";
+                }
             } else {
-                BufferedReader is = new BufferedReader(new InputStreamReader(p.getInputStream()));
-                errorMessage = "";
-                String line;
-                while ((line = is.readLine()) != null) {
-                    errorMessage += line + SystemProperties.getLineSeparator();
+                ProcessBuilder pb = new ProcessBuilder("chmod", "755", command.getCanonicalPath());
+                Process p = pb.start();
+                if (p.waitFor() != 0) {
+                    BufferedReader is = new BufferedReader(new InputStreamReader(p.getInputStream()));
+                    errorMessage = "";
+                    String line;
+                    while ((line = is.readLine()) != null) {
+                        errorMessage += line + SystemProperties.getLineSeparator();
+                    }
                 }
             }
-        } catch (IOException e) {
-            errorMessage = e.getMessage();
-        } catch (InterruptedException e) {
+        } catch (Exception e) {
             errorMessage = e.getMessage();
         }
         if (errorMessage != null) {
-            System.out.println("Could not set executable permissions for: " + gradleCommand.getAbsolutePath());
+            System.out.println("Could not set executable permissions for: " + command.getAbsolutePath());
             System.out.println("Please do this manually if you want to use the Gradle UI.");
         }
     }
@@ -123,28 +247,6 @@ public class Install {
         return dir.delete();
     }
 
-    public void unzip(File zip, File dest) throws IOException {
-        Enumeration entries;
-        ZipFile zipFile;
-
-        zipFile = new ZipFile(zip);
-
-        entries = zipFile.entries();
-
-        while (entries.hasMoreElements()) {
-            ZipEntry entry = (ZipEntry) entries.nextElement();
-
-            if (entry.isDirectory()) {
-                (new File(dest, entry.getName())).mkdirs();
-                continue;
-            }
-
-            copyInputStream(zipFile.getInputStream(entry),
-                    new BufferedOutputStream(new FileOutputStream(new File(dest, entry.getName()))));
-        }
-        zipFile.close();
-    }
-
     public void copyInputStream(InputStream in, OutputStream out) throws IOException {
         byte[] buffer = new byte[1024];
         int len;
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.wrapper;
+
+import java.io.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * An {@link OutputStream} which extracts the zip file written to it into a directory, while the zip file is being
+ * written. The entries are extracted on a separate thread, so that extraction overlaps with, for example, downloading
+ * the zip file.
+ */
+class UnzippingOutputStream extends OutputStream {
+    private static final byte[] END = new byte[0];
+    private static final int MAX_PENDING_CHUNKS = 64;
+    private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<byte[]>(MAX_PENDING_CHUNKS);
+    private final File destDir;
+    private final Thread thread;
+    private volatile Throwable failure;
+    private boolean closed;
+
+    UnzippingOutputStream(File destDir) {
+        this.destDir = destDir;
+        thread = new Thread(new Runnable() {
+            public void run() {
+                extract();
+            }
+        });
+        thread.setName("Unzip " + destDir.getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        byte[] chunk = new byte[length];
+        System.arraycopy(buffer, offset, chunk, 0, length);
+        put(chunk);
+    }
+
+    /**
+     * Waits for all of the entries to be extracted.
+     *
+     * @throws IOException When the content could not be extracted.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        put(END);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            throw (IOException) new InterruptedIOException().initCause(e);
+        }
+        if (failure != null) {
+            throw (IOException) new IOException(String.format("Could not unzip into '%s'.", destDir)).initCause(failure);
+        }
+    }
+
+    private void put(byte[] chunk) throws IOException {
+        try {
+            chunks.put(chunk);
+        } catch (InterruptedException e) {
+            throw (IOException) new InterruptedIOException().initCause(e);
+        }
+    }
+
+    private void extract() {
+        InputStream content = new ChunkInputStream();
+        try {
+            String destPath = destDir.getCanonicalPath() + File.separator;
+            ZipInputStream zipStream = new ZipInputStream(content);
+            byte[] buffer = new byte[8192];
+            ZipEntry entry;
+            while ((entry = zipStream.getNextEntry()) != null) {
+                File file = new File(destDir, entry.getName());
+                if (!file.getCanonicalPath().startsWith(destPath)) {
+                    throw new IOException(String.format("Zip entry '%s' is outside of the target directory.", entry.getName()));
+                }
+                if (entry.isDirectory()) {
+                    file.mkdirs();
+                    continue;
+                }
+                file.getParentFile().mkdirs();
+                OutputStream out = new FileOutputStream(file);
+                try {
+                    int numRead;
+                    while ((numRead = zipStream.read(buffer)) != -1) {
+                        out.write(buffer, 0, numRead);
+                    }
+                } finally {
+                    out.close();
+                }
+            }
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            // Consume the rest of the content, such as the zip central directory, so that the writer never blocks
+            try {
+                while (content.skip(Long.MAX_VALUE) > 0) {
+                    // Keep going
+                }
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+
+    /**
+     * Reads the chunks written to the stream, on the extraction thread.
+     */
+    private class ChunkInputStream extends InputStream {
+        private byte[] current = new byte[0];
+        private int pos;
+        private boolean ended;
+
+        @Override
+        public int read() throws IOException {
+            byte[] buffer = new byte[1];
+            int numRead = read(buffer, 0, 1);
+            return numRead < 0 ? -1 : buffer[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!nextChunk()) {
+                return -1;
+            }
+            int count = Math.min(length, current.length - pos);
+            System.arraycopy(current, pos, buffer, offset, count);
+            pos += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (!nextChunk()) {
+                return 0;
+            }
+            int count = (int) Math.min(n, current.length - pos);
+            pos += count;
+            return count;
+        }
+
+        private boolean nextChunk() throws IOException {
+            while (!ended && pos == current.length) {
+                try {
+                    current = chunks.take();
+                } catch (InterruptedException e) {
+                    throw (IOException) new InterruptedIOException().initCause(e);
+                }
+                pos = 0;
+                if (current == END) {
+                    ended = true;
+                }
+            }
+            return !ended;
+        }
+    }
+}
@@ -33,6 +33,7 @@ public class Wrapper {
     public static final String ZIP_STORE_BASE_PROPERTY = "zipStoreBase";
     public static final String DISTRIBUTION_PATH_PROPERTY = "distributionPath";
     public static final String ZIP_STORE_PATH_PROPERTY = "zipStorePath";
+    public static final String DISTRIBUTION_SHA256_SUM_PROPERTY = "distributionSha256Sum";
     private final Properties properties;
     private final URI distribution;
     private final File propertiesFile;
@@ -109,7 +110,8 @@ public class Wrapper {
                 getProperty(DISTRIBUTION_BASE_PROPERTY),
                 getProperty(DISTRIBUTION_PATH_PROPERTY),
                 getProperty(ZIP_STORE_BASE_PROPERTY),
-                getProperty(ZIP_STORE_PATH_PROPERTY)
+                getProperty(ZIP_STORE_PATH_PROPERTY),
+                properties.getProperty(DISTRIBUTION_SHA256_SUM_PROPERTY)
         );
         bootstrapMainStarter.start(args, gradleHome);
     }
@@ -152,7 +152,7 @@ public class WrapperTest extends AbstractTaskTest {
     @Test
     public void testCheckInputs() throws IOException {
         assertThat(wrapper.getInputs().getProperties().keySet(),
-                equalTo(WrapUtil.toSet("distributionBase", "distributionPath", "distributionUrl", "archiveBase", "archivePath")));
+                equalTo(WrapUtil.toSet("distributionBase", "distributionPath", "distributionUrl", "distributionSha256Sum", "archiveBase", "archivePath")));
     }
 
     @Test
@@ -189,6 +189,7 @@ public class WrapperTest extends AbstractTaskTest {
         assertEquals(properties.getProperty(Wrapper.DISTRIBUTION_PATH_PROPERTY), wrapper.getDistributionPath());
         assertEquals(properties.getProperty(Wrapper.ZIP_STORE_BASE_PROPERTY), wrapper.getArchiveBase().toString());
         assertEquals(properties.getProperty(Wrapper.ZIP_STORE_PATH_PROPERTY), wrapper.getArchivePath());
+        assertEquals(properties.getProperty(Wrapper.DISTRIBUTION_SHA256_SUM_PROPERTY), wrapper.getDistributionSha256Sum());
     }
 
     private String toNative(String s) {
@@ -46,8 +46,19 @@ class DownloadTest {
 
     @Test public void testDownload() {
         assert !downloadFile.exists()
-        download.download(sourceRoot, downloadFile)
+        ByteArrayOutputStream content = new ByteArrayOutputStream()
+        download.download(sourceRoot, downloadFile, content)
         assert downloadFile.exists()
         assertEquals('sometext', downloadFile.text)
+        assertEquals('sometext', content.toString())
+    }
+
+    @Test public void testDownloadReplacesExistingFileWhenResumeIsNotSupported() {
+        rootDir.mkdirs()
+        downloadFile.write('some')
+        ByteArrayOutputStream content = new ByteArrayOutputStream()
+        download.download(sourceRoot, downloadFile, content)
+        assertEquals('sometext', downloadFile.text)
+        assertEquals('sometext', content.toString())
     }
 }
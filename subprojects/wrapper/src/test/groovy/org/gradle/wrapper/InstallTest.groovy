@@ -18,10 +18,12 @@ package org.gradle.wrapper
 
 import org.gradle.api.tasks.wrapper.Wrapper.PathBase
 import org.gradle.util.TemporaryFolder
+import java.security.MessageDigest
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
 import static org.junit.Assert.assertEquals
+import static org.junit.Assert.fail
 
 /**
  * @author Hans Dockter
@@ -62,10 +64,11 @@ class InstallTest {
     }
 
     IDownload createDownloadMock() {
-        [download: {URI url, File destination ->
+        [download: {URI url, File destination, OutputStream content ->
             assertEquals(testDistUrl, url)
             assertEquals(zipDestination.getAbsolutePath() + '.part', destination.getAbsolutePath())
             zip = createTestZip()
+            content.write(zip.bytes)
             downloadCalled = true
         }] as IDownload
     }
@@ -151,4 +154,31 @@ class InstallTest {
         assert !testFile.exists()
         assert downloadCalled
     }
+
+    @Test public void testCreateDistWithMatchingChecksum() {
+        String checksum = sha256(createTestZip())
+        assertEquals(gradleHomeDir, install.createDist(testDistUrl, testDistBase, testDistPath, testZipBase, testZipPath, checksum))
+        assert downloadCalled
+        assert gradleScript.exists()
+        assert new File(gradleHomeDir, 'bin/gradle').isFile()
+        assert !new File(distributionDir, 'gradle-0.9.unpack').exists()
+    }
+
+    @Test public void testCreateDistWithChecksumMismatch() {
+        try {
+            install.createDist(testDistUrl, testDistBase, testDistPath, testZipBase, testZipPath, '0' * 64)
+            fail()
+        } catch (RuntimeException e) {
+            assert e.message.startsWith("Verification of Gradle distribution '$testDistUrl' failed.")
+        }
+        assert downloadCalled
+        assert !gradleHomeDir.exists()
+        assert !zipDestination.exists()
+        assert !new File(zipDestination.absolutePath + '.part').exists()
+        assert !new File(distributionDir, 'gradle-0.9.unpack').exists()
+    }
+
+    String sha256(File file) {
+        String.format('%064x', new BigInteger(1, MessageDigest.getInstance('SHA-256').digest(file.bytes)))
+    }
 }
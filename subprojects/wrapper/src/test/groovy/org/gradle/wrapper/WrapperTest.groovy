@@ -74,7 +74,7 @@ class WrapperTest extends Specification {
         wrapper.execute(['arg'] as String[], install, start)
 
         then:
-        1 * install.createDist(new URI('http://server/test/gradle.zip'), 'testDistBase', 'testDistPath', 'testZipBase', 'testZipPath') >> installDir
+        1 * install.createDist(new URI('http://server/test/gradle.zip'), 'testDistBase', 'testDistPath', 'testZipBase', 'testZipPath', null) >> installDir
         1 * start.start(['arg'] as String[], installDir)
         0 * _._
     }